@@ -0,0 +1,30 @@
+package com.example.iot_monitoring;
+
+/**
+ * Detection parameters shared by every {@link WindAnomalyDetector}.
+ */
+final class AnomalyThresholds {
+    final double alpha;
+    final long warmupSamples;
+    final double zThreshold;
+    final long gustWindowMillis;
+    final double gustDelta;
+    final double directionShiftDegrees;
+    final double directionMinSpeed;
+    final long cooldownMillis;
+
+    AnomalyThresholds(double alpha, long warmupSamples, double zThreshold, long gustWindowMillis, double gustDelta,
+                      double directionShiftDegrees, double directionMinSpeed, long cooldownMillis) {
+        if (alpha <= 0 || alpha > 1) {
+            throw new IllegalArgumentException("EWMA alpha must be in (0, 1]");
+        }
+        this.alpha = alpha;
+        this.warmupSamples = warmupSamples;
+        this.zThreshold = zThreshold;
+        this.gustWindowMillis = gustWindowMillis;
+        this.gustDelta = gustDelta;
+        this.directionShiftDegrees = directionShiftDegrees;
+        this.directionMinSpeed = directionMinSpeed;
+        this.cooldownMillis = cooldownMillis;
+    }
+}
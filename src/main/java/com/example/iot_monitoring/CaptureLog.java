@@ -0,0 +1,233 @@
+package com.example.iot_monitoring;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary log of raw MQTT messages as {@code MqttService} received them,
+ * for replaying production traffic through the ingest pipeline.
+ *
+ * <pre>
+ * Header (big endian)
+ *  0..3    magic "WCP1"
+ *  4..7    version
+ *  8..15   capture start (epoch millis)
+ * Record (unsigned LEB128 varints)
+ *  varint  zig-zag arrival time delta from the previous record (millis)
+ *  varint  topic: 0 = new topic, then varint length + UTF-8 bytes; n = n-th topic seen
+ *  varint  payload length, then the payload bytes
+ * </pre>
+ *
+ * A record for a known topic costs three or four bytes on top of the payload.
+ * A record cut short by a crash ends the log when read back; nothing before it
+ * is lost.
+ */
+final class CaptureLog {
+    static final String SUFFIX = ".wcap";
+
+    private static final int MAGIC = 0x57435031; // "WCP1"
+    private static final int VERSION = 1;
+    private static final int MAX_PAYLOAD = 16 * 1024 * 1024;
+    private static final int MAX_TOPIC = 64 * 1024;
+
+    private CaptureLog() {
+    }
+
+    static final class Writer implements Closeable {
+        private final DataOutputStream out;
+        private final Map<String, Integer> topics = new HashMap<>();
+        private long previousArrival;
+        private long bytes;
+        private long records;
+
+        private Writer(OutputStream stream, long startMillis) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+            this.previousArrival = startMillis;
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(startMillis);
+            bytes = 16;
+        }
+
+        static Writer create(Path path, long startMillis) throws IOException {
+            return new Writer(Files.newOutputStream(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE),
+                    startMillis);
+        }
+
+        /**
+         * Appends one message. Not thread-safe.
+         */
+        void append(String topic, byte[] payload, long arrivedAt) throws IOException {
+            writeVarint(WindFrameCodec.zigzag(arrivedAt - previousArrival));
+            previousArrival = arrivedAt;
+            Integer index = topics.get(topic);
+            if (index == null) {
+                byte[] name = topic.getBytes(StandardCharsets.UTF_8);
+                writeVarint(0);
+                writeVarint(name.length);
+                out.write(name);
+                bytes += name.length;
+                topics.put(topic, topics.size() + 1);
+            } else {
+                writeVarint(index);
+            }
+            writeVarint(payload.length);
+            out.write(payload);
+            bytes += payload.length;
+            records++;
+        }
+
+        void flush() throws IOException {
+            out.flush();
+        }
+
+        long getBytes() {
+            return bytes;
+        }
+
+        long getRecords() {
+            return records;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+        private void writeVarint(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+                bytes++;
+            }
+            out.write((int) value);
+            bytes++;
+        }
+    }
+
+    static final class Reader implements Closeable {
+        private final DataInputStream in;
+        private final long startMillis;
+        private final List<String> topics = new ArrayList<>();
+        private long arrivedAt;
+        private String topic;
+        private byte[] payload;
+        private boolean truncated;
+
+        private Reader(InputStream stream) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(stream, 1 << 16));
+            try {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    throw new IOException("Not a wind capture log");
+                }
+                this.startMillis = in.readLong();
+            } catch (EOFException e) {
+                throw new IOException("Not a wind capture log", e);
+            }
+            this.arrivedAt = startMillis;
+        }
+
+        static Reader open(Path path) throws IOException {
+            return new Reader(Files.newInputStream(path));
+        }
+
+        /**
+         * Moves to the next record.
+         *
+         * @return {@code false} at the end of the log, including a torn last record
+         */
+        boolean next() throws IOException {
+            int first = in.read();
+            if (first < 0) {
+                return false;
+            }
+            try {
+                long delta = WindFrameCodec.unzigzag(readVarint(first));
+                int index = (int) readVarint(in.readUnsignedByte());
+                if (index == 0) {
+                    int length = (int) readVarint(in.readUnsignedByte());
+                    if (length < 0 || length > MAX_TOPIC) {
+                        throw new IOException("Corrupt capture record: topic length " + length);
+                    }
+                    byte[] name = new byte[length];
+                    in.readFully(name);
+                    topics.add(new String(name, StandardCharsets.UTF_8));
+                    index = topics.size();
+                } else if (index > topics.size()) {
+                    throw new IOException("Corrupt capture record: unknown topic " + index);
+                }
+                int length = (int) readVarint(in.readUnsignedByte());
+                if (length < 0 || length > MAX_PAYLOAD) {
+                    throw new IOException("Corrupt capture record: payload length " + length);
+                }
+                byte[] data = new byte[length];
+                in.readFully(data);
+                arrivedAt += delta;
+                topic = topics.get(index - 1);
+                payload = data;
+                return true;
+            } catch (EOFException e) {
+                truncated = true;
+                return false;
+            }
+        }
+
+        long getStartMillis() {
+            return startMillis;
+        }
+
+        long getArrivedAt() {
+            return arrivedAt;
+        }
+
+        String getTopic() {
+            return topic;
+        }
+
+        byte[] getPayload() {
+            return payload;
+        }
+
+        /**
+         * Whether the log ended in the middle of a record (the capture did not shut down cleanly).
+         */
+        boolean isTruncated() {
+            return truncated;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        private long readVarint(int first) throws IOException {
+            long value = first & 0x7F;
+            int shift = 7;
+            int current = first;
+            while ((current & 0x80) != 0) {
+                if (shift > 63) {
+                    throw new IOException("Corrupt capture record: varint too long");
+                }
+                current = in.readUnsignedByte();
+                value |= (long) (current & 0x7F) << shift;
+                shift += 7;
+            }
+            return value;
+        }
+    }
+}
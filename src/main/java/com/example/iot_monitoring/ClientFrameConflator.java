@@ -0,0 +1,223 @@
+package com.example.iot_monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-session conflation of wind updates on the client outbound channel.
+ *
+ * Wind update messages addressed to a session are not written straight away:
+ * they are parked in the session's latest-value map (one entry per sensor, the
+ * newest wins) and released by {@link #drain()} once the session's previous
+ * burst has been written and its frame interval has elapsed. A slow browser thus
+ * receives fewer, fresher updates instead of an ever-growing queue, and its
+ * backlog is bounded by the number of sensors. Clients may ask for a slower
+ * rate with a {@value #FRAME_INTERVAL_HEADER} header (millis) on SUBSCRIBE.
+ *
+ * Updates are recognized by their sensor and timestamp headers, which
+ * {@link WindUpdateFanout} also sets as STOMP headers in broker relay mode,
+ * since only those survive the round trip through an external broker.
+ */
+@Component
+public class ClientFrameConflator implements ExecutorChannelInterceptor {
+    public static final String SENSOR_HEADER = "windSensorId";
+    public static final String FRAME_INTERVAL_HEADER = "frame-interval";
+    public static final String TIMESTAMP_HEADER = "windTimestamp";
+
+    private final String destination;
+    private final long defaultIntervalNanos;
+    private final ConcurrentHashMap<String, ClientSlot> slots = new ConcurrentHashMap<>();
+    private final ThreadLocal<Boolean> releasing = ThreadLocal.withInitial(() -> Boolean.FALSE);
+    private final Counter conflated;
+    private final Counter delivered;
+    private final Counter dropped;
+    private final WindLatencyMetrics latencyMetrics;
+    private volatile MessageChannel outboundChannel;
+
+    public ClientFrameConflator(MeterRegistry meterRegistry,
+                                WindLatencyMetrics latencyMetrics,
+                                @Value("${wind.websocket.destination:/topic/wind_updates}") String destination,
+                                @Value("${wind.websocket.client-frame-interval-ms:200}") long defaultIntervalMillis) {
+        this.destination = destination;
+        this.defaultIntervalNanos = TimeUnit.MILLISECONDS.toNanos(defaultIntervalMillis);
+        this.conflated = Counter.builder("wind.websocket.conflated")
+                .description("Wind updates replaced by a newer one before reaching a slow client")
+                .register(meterRegistry);
+        this.delivered = Counter.builder("wind.websocket.delivered").register(meterRegistry);
+        this.dropped = Counter.builder("wind.websocket.dropped")
+                .description("Wind updates rejected by the outbound channel or failed on write")
+                .register(meterRegistry);
+        this.latencyMetrics = latencyMetrics;
+        Gauge.builder("wind.websocket.sessions", slots, Map::size).register(meterRegistry);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (releasing.get() || !isWindUpdate(message)) {
+            return message;
+        }
+        this.outboundChannel = channel;
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId == null) {
+            return message;
+        }
+        Object sensor = header(message, SENSOR_HEADER);
+        String key = SimpMessageHeaderAccessor.getSubscriptionId(message.getHeaders()) + "/" + sensor;
+        ClientSlot slot = slots.computeIfAbsent(sessionId, id -> new ClientSlot(defaultIntervalNanos));
+        if (slot.park(key, message)) {
+            conflated.increment();
+        }
+        return null;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        if (!isWindUpdate(message)) {
+            return;
+        }
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        ClientSlot slot = sessionId == null ? null : slots.get(sessionId);
+        if (slot != null) {
+            slot.written();
+        }
+        if (ex != null) {
+            dropped.increment();
+        } else {
+            Object timestamp = header(message, TIMESTAMP_HEADER);
+            if (timestamp instanceof Long millis) {
+                latencyMetrics.record(WindLatencyMetrics.Stage.DELIVERED, millis);
+            } else if (timestamp instanceof String text) {
+                try {
+                    latencyMetrics.record(WindLatencyMetrics.Stage.DELIVERED, Long.parseLong(text));
+                } catch (NumberFormatException ignored) {
+                    // not one of ours
+                }
+            }
+        }
+    }
+
+    // Message header when sent in process, STOMP header when relayed by an external broker
+    private static Object header(Message<?> message, String name) {
+        Object value = message.getHeaders().get(name);
+        return value != null ? value : NativeMessageHeaderAccessor.getFirstNativeHeader(name, message.getHeaders());
+    }
+
+    /**
+     * Releases parked updates for every session that is idle and due.
+     */
+    public void drain() {
+        MessageChannel channel = outboundChannel;
+        if (channel == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        releasing.set(Boolean.TRUE);
+        try {
+            for (ClientSlot slot : slots.values()) {
+                List<Message<?>> ready = slot.takeIfDue(now);
+                int sent = 0;
+                for (Message<?> message : ready) {
+                    try {
+                        channel.send(message);
+                        sent++;
+                    } catch (RuntimeException e) {
+                        slot.written(); // rejected by the channel, never handled
+                        dropped.increment();
+                    }
+                }
+                delivered.increment(sent);
+            }
+        } finally {
+            releasing.set(Boolean.FALSE);
+        }
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        if (!destination.equals(accessor.getDestination()) || accessor.getSessionId() == null) {
+            return;
+        }
+        ClientSlot slot = slots.computeIfAbsent(accessor.getSessionId(), id -> new ClientSlot(defaultIntervalNanos));
+        String requested = accessor.getFirstNativeHeader(FRAME_INTERVAL_HEADER);
+        if (requested != null) {
+            try {
+                long millis = Long.parseLong(requested.trim());
+                slot.setIntervalNanos(Math.max(defaultIntervalNanos, TimeUnit.MILLISECONDS.toNanos(millis)));
+            } catch (NumberFormatException ignored) {
+                // keep the default rate
+            }
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        slots.remove(event.getSessionId());
+    }
+
+    private boolean isWindUpdate(Message<?> message) {
+        return destination.equals(SimpMessageHeaderAccessor.getDestination(message.getHeaders()));
+    }
+
+    int getSessionCount() {
+        return slots.size();
+    }
+
+    private static final class ClientSlot {
+        private final Map<String, Message<?>> pending = new LinkedHashMap<>();
+        private long intervalNanos;
+        private long nextDue;
+        private int inFlight;
+
+        private ClientSlot(long intervalNanos) {
+            this.intervalNanos = intervalNanos;
+        }
+
+        synchronized void setIntervalNanos(long intervalNanos) {
+            this.intervalNanos = intervalNanos;
+        }
+
+        /**
+         * @return {@code true} if an older update for the same sensor was replaced
+         */
+        synchronized boolean park(String sensor, Message<?> message) {
+            return pending.put(sensor, message) != null;
+        }
+
+        synchronized List<Message<?>> takeIfDue(long now) {
+            if (pending.isEmpty() || inFlight > 0 || now - nextDue < 0) {
+                return List.of();
+            }
+            List<Message<?>> ready = new ArrayList<>(pending.values());
+            pending.clear();
+            inFlight += ready.size();
+            nextDue = now + intervalNanos;
+            return ready;
+        }
+
+        synchronized void written() {
+            if (inFlight > 0) {
+                inFlight--;
+            }
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package com.example.iot_monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cluster mode: several nodes share the ingest load by splitting the sensor
+ * keyspace with a {@link ConsistentHashRing}.
+ *
+ * Membership runs over the broker itself. Every node publishes a heartbeat with
+ * its HTTP address on {@code wind/cluster/members/<node>} every
+ * {@code heartbeat-ms}; a node not heard from for {@code member-timeout-ms} is
+ * dropped, and a node shutting down publishes an empty heartbeat to leave at
+ * once. Whenever the set of nodes changes the ring is rebuilt and every node
+ * sends the sensors it no longer owns (latest reading, count and the last
+ * {@code handoff-history-minutes} of raw history, see {@link SensorHandoff}) to
+ * their new owner on {@code wind/cluster/<node>/handoff}, then forgets their
+ * state and history; their sequencers are left to the pipeline's idle eviction.
+ * A node leaving gracefully hands off everything it owns first.
+ *
+ * Two ways of consuming the wind topics ({@code wind.cluster.mode}):
+ * <ul>
+ *     <li>{@code shared}: the topics are subscribed as {@code $share/<group>/...}
+ *     shared subscriptions, so the broker spreads messages over the nodes
+ *     without regard to sensor; a node forwards each message for a sensor it
+ *     does not own to the owner's {@code wind/cluster/<owner>/in/<topic>}.
+ *     Every message crosses the broker at most twice.</li>
+ *     <li>{@code filter}: every node subscribes the plain topics and drops the
+ *     sensors it does not own. Costs N times the broker fan-out but needs no
+ *     shared subscription support and no second hop.</li>
+ * </ul>
+ * While membership converges (about one heartbeat after a change) a sensor
+ * can briefly be ingested by two nodes or by none.
+ *
+ * Disabled by default; when disabled every sensor is local and nothing is
+ * subscribed or published.
+ */
+@Component
+public class ClusterCoordinator implements SmartLifecycle {
+    private static final Logger logger = LoggerFactory.getLogger(ClusterCoordinator.class);
+
+    static final String PREFIX = "wind/cluster/";
+    static final String MEMBERS = PREFIX + "members/";
+
+    public enum Mode {
+        SHARED, FILTER;
+
+        static Mode parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("wind.cluster.mode must be shared or filter: " + value);
+            }
+        }
+    }
+
+    private final MqttConnectionManager connectionManager;
+    private final SensorStateStore stateStore;
+    private final WindHistoryStore historyStore;
+    private final IngestPipeline pipeline;
+    private final boolean enabled;
+    private final String nodeId;
+    private final Mode mode;
+    private final String shareGroup;
+    private final long memberTimeoutNanos;
+    private final int virtualNodes;
+    private final long handoffHistoryMillis;
+    private final String inboxPrefix;
+    private final Map<String, Member> members = new ConcurrentHashMap<>();
+    private final Counter forwarded;
+    private final Counter notOwned;
+    private final Counter publishFailures;
+    private final Counter handoffsSent;
+    private final Counter handoffsReceived;
+    private final Counter rebalances;
+    private volatile ConsistentHashRing ring;
+    private volatile String url;
+    private volatile boolean running;
+
+    private static final class Member {
+        final String url;
+        volatile long lastSeen;
+
+        Member(String url, long lastSeen) {
+            this.url = url;
+            this.lastSeen = lastSeen;
+        }
+    }
+
+    public ClusterCoordinator(MqttConnectionManager connectionManager, SensorStateStore stateStore,
+                              WindHistoryStore historyStore, IngestPipeline pipeline, MeterRegistry meterRegistry,
+                              @Value("${wind.cluster.enabled:false}") boolean enabled,
+                              @Value("${wind.cluster.node-id:}") String nodeId,
+                              @Value("${wind.cluster.advertised-url:}") String advertisedUrl,
+                              @Value("${wind.cluster.mode:shared}") String mode,
+                              @Value("${wind.cluster.share-group:wind-ingest}") String shareGroup,
+                              @Value("${wind.cluster.member-timeout-ms:5000}") long memberTimeoutMillis,
+                              @Value("${wind.cluster.virtual-nodes:128}") int virtualNodes,
+                              @Value("${wind.cluster.handoff-history-minutes:60}") long handoffHistoryMinutes) {
+        this.connectionManager = connectionManager;
+        this.stateStore = stateStore;
+        this.historyStore = historyStore;
+        this.pipeline = pipeline;
+        this.enabled = enabled;
+        this.nodeId = nodeId.isBlank() ? UUID.randomUUID().toString().substring(0, 8) : nodeId.trim();
+        if (this.nodeId.contains("/") || this.nodeId.contains("+") || this.nodeId.contains("#")) {
+            throw new IllegalArgumentException("wind.cluster.node-id must not contain MQTT topic characters: " + nodeId);
+        }
+        this.url = advertisedUrl.isBlank() ? null : advertisedUrl.trim();
+        this.mode = Mode.parse(mode);
+        this.shareGroup = shareGroup;
+        this.memberTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(memberTimeoutMillis);
+        this.virtualNodes = virtualNodes;
+        this.handoffHistoryMillis = TimeUnit.MINUTES.toMillis(handoffHistoryMinutes);
+        this.inboxPrefix = PREFIX + this.nodeId + "/in/";
+        this.ring = new ConsistentHashRing(List.of(this.nodeId), virtualNodes);
+
+        this.forwarded = Counter.builder("wind.cluster.forwarded")
+                .description("Messages passed on to the node owning their sensor")
+                .register(meterRegistry);
+        this.notOwned = Counter.builder("wind.cluster.not_owned")
+                .description("Messages dropped in filter mode because another node owns the sensor")
+                .register(meterRegistry);
+        this.publishFailures = Counter.builder("wind.cluster.publish_failures").register(meterRegistry);
+        this.handoffsSent = Counter.builder("wind.cluster.handoffs").tag("direction", "sent")
+                .register(meterRegistry);
+        this.handoffsReceived = Counter.builder("wind.cluster.handoffs").tag("direction", "received")
+                .register(meterRegistry);
+        this.rebalances = Counter.builder("wind.cluster.rebalances").register(meterRegistry);
+        Gauge.builder("wind.cluster.nodes", this, c -> c.ring.getNodes().size()).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        // Kept by the connection manager across reconnects
+        connectionManager.subscribe(new String[]{MEMBERS + "+"}, 0, this::memberMessage);
+        connectionManager.subscribe(new String[]{inboxPrefix + "#"}, 1, this::forwardedMessage);
+        connectionManager.subscribe(new String[]{PREFIX + nodeId + "/handoff"}, 1, this::handoffMessage);
+        logger.info("Cluster mode on: node {} ({} mode)", nodeId, mode.name().toLowerCase(Locale.ROOT));
+    }
+
+    @EventListener
+    public void onWebServerInitialized(WebServerInitializedEvent event) {
+        if (url == null) {
+            url = "http://localhost:" + event.getWebServer().getPort();
+        }
+    }
+
+    /**
+     * Topic filters to subscribe the wind topics with.
+     */
+    public String[] ingestFilters(String[] topics) {
+        if (!enabled || mode == Mode.FILTER) {
+            return topics;
+        }
+        String[] shared = new String[topics.length];
+        for (int i = 0; i < topics.length; i++) {
+            shared[i] = "$share/" + shareGroup + "/" + topics[i].trim();
+        }
+        return shared;
+    }
+
+    /**
+     * Decides where a wind message goes.
+     *
+     * @return {@code true} to ingest it here; otherwise it was forwarded to its
+     *         owner (shared mode) or dropped (filter mode)
+     */
+    public boolean route(String sensorId, String topic, byte[] payload) {
+        if (!enabled) {
+            return true;
+        }
+        String owner = ring.owner(sensorId);
+        if (owner.equals(nodeId)) {
+            return true;
+        }
+        if (mode == Mode.FILTER) {
+            notOwned.increment();
+        } else if (connectionManager.publish(PREFIX + owner + "/in/" + topic, payload, 1, false)) {
+            forwarded.increment();
+        } else {
+            publishFailures.increment();
+        }
+        return false;
+    }
+
+    /**
+     * Base URL of the node owning {@code sensorId}, or {@code null} if that is this
+     * node (or the owner's address is not known).
+     */
+    public String ownerUrl(String sensorId) {
+        if (!enabled) {
+            return null;
+        }
+        String owner = ring.owner(sensorId);
+        if (owner.equals(nodeId)) {
+            return null;
+        }
+        Member member = members.get(owner);
+        return member == null ? null : member.url;
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        heartbeat();
+    }
+
+    /**
+     * Leaves the cluster: hands every owned sensor to the remaining nodes, then
+     * tells them this node is gone.
+     */
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        synchronized (this) {
+            TreeSet<String> others = new TreeSet<>(members.keySet());
+            if (!others.isEmpty()) {
+                ConsistentHashRing without = new ConsistentHashRing(others, virtualNodes);
+                int moved = handOff(ring, without);
+                logger.info("Leaving the cluster: handed {} sensors to {}", moved, others);
+            }
+        }
+        connectionManager.publish(MEMBERS + nodeId, new byte[0], 1, false);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Scheduled(fixedDelayString = "${wind.cluster.heartbeat-ms:1000}")
+    public void heartbeat() {
+        if (!running) {
+            return;
+        }
+        String self = url;
+        if (self != null) {
+            connectionManager.publish(MEMBERS + nodeId, self.getBytes(StandardCharsets.UTF_8), 0, false);
+        }
+        long now = System.nanoTime();
+        boolean expired = members.entrySet().removeIf(entry -> {
+            if (now - entry.getValue().lastSeen > memberTimeoutNanos) {
+                logger.warn("Cluster node {} timed out", entry.getKey());
+                return true;
+            }
+            return false;
+        });
+        if (expired) {
+            rebalance();
+        }
+    }
+
+    void memberMessage(String topic, MqttMessage message) {
+        String member = topic.substring(MEMBERS.length());
+        if (member.equals(nodeId) || !running) {
+            return;
+        }
+        byte[] payload = message.getPayload();
+        if (payload.length == 0) {
+            if (members.remove(member) != null) {
+                logger.info("Cluster node {} left", member);
+                rebalance();
+            }
+            return;
+        }
+        String memberUrl = new String(payload, StandardCharsets.UTF_8);
+        Member known = members.get(member);
+        if (known != null && known.url.equals(memberUrl)) {
+            known.lastSeen = System.nanoTime();
+            return;
+        }
+        members.put(member, new Member(memberUrl, System.nanoTime()));
+        if (known == null) {
+            logger.info("Cluster node {} joined at {}", member, memberUrl);
+            rebalance();
+        }
+    }
+
+    private synchronized void rebalance() {
+        TreeSet<String> nodes = new TreeSet<>(members.keySet());
+        nodes.add(nodeId);
+        ConsistentHashRing previous = ring;
+        if (previous.getNodes().equals(List.copyOf(nodes))) {
+            return;
+        }
+        ConsistentHashRing next = new ConsistentHashRing(nodes, virtualNodes);
+        ring = next;
+        rebalances.increment();
+        int moved = handOff(previous, next);
+        logger.info("Cluster ring now {}: handed {} sensors to their new owners", nodes, moved);
+    }
+
+    // Sends every sensor this node owned under 'from' and does not own under 'to' to its new owner
+    private int handOff(ConsistentHashRing from, ConsistentHashRing to) {
+        long since = System.currentTimeMillis() - handoffHistoryMillis;
+        int moved = 0;
+        for (SensorState state : new ArrayList<>(stateStore.all())) {
+            String sensorId = state.getSensorId();
+            if (!from.owner(sensorId).equals(nodeId)) {
+                continue;
+            }
+            String owner = to.owner(sensorId);
+            if (owner.equals(nodeId)) {
+                continue;
+            }
+            SensorHandoff handoff = new SensorHandoff(sensorId, state.getMessageCount(), state.getLatest(),
+                    historyStore.range(sensorId, since, Long.MAX_VALUE));
+            if (connectionManager.publish(PREFIX + owner + "/handoff", handoff.encode(), 1, false)) {
+                stateStore.remove(sensorId);
+                historyStore.remove(sensorId);
+                handoffsSent.increment();
+                moved++;
+            } else {
+                publishFailures.increment();
+            }
+        }
+        return moved;
+    }
+
+    void forwardedMessage(String topic, MqttMessage message) {
+        // Forwarded once by the receiving node; ingested here even if the ring moved meanwhile
+        String original = topic.substring(inboxPrefix.length());
+        byte kind = MqttService.kindOf(original);
+        if (kind >= 0) {
+            pipeline.submit(stateStore.resolve(original), kind, message.getPayload(), System.currentTimeMillis());
+        }
+    }
+
+    void handoffMessage(String topic, MqttMessage message) {
+        try {
+            SensorHandoff handoff = SensorHandoff.decode(message.getPayload());
+            stateStore.getOrCreate(handoff.getSensorId()).restore(handoff.getLatest(), handoff.getMessageCount());
+            if (handoff.getHistory().getSize() > 0) {
+                historyStore.prepend(handoff.getHistory());
+            }
+            handoffsReceived.increment();
+        } catch (IOException | RuntimeException e) {
+            logger.error("Invalid sensor handoff received on {}", topic, e);
+        }
+    }
+
+    public ClusterStatus status() {
+        List<ClusterStatus.Node> nodes = new ArrayList<>();
+        for (String node : ring.getNodes()) {
+            Member member = members.get(node);
+            String nodeUrl = node.equals(nodeId) ? url : member == null ? null : member.url;
+            nodes.add(new ClusterStatus.Node(node, nodeUrl, node.equals(nodeId)));
+        }
+        return new ClusterStatus(enabled, nodeId, mode.name().toLowerCase(Locale.ROOT), nodes);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+}
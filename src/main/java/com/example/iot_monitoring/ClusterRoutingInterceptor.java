@@ -0,0 +1,61 @@
+package com.example.iot_monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.Map;
+
+/**
+ * In cluster mode, answers per-sensor REST queries
+ * ({@code /api/wind/sensors/{sensorId}/...}) for a sensor owned by another
+ * node with a 307 to the same path on that node, whose state and in-memory
+ * history are authoritative. Clients that follow redirects (browsers, curl -L)
+ * can therefore ask any node.
+ */
+@Component
+public class ClusterRoutingInterceptor implements HandlerInterceptor, WebMvcConfigurer {
+    private final ClusterCoordinator cluster;
+    private final Counter redirects;
+
+    public ClusterRoutingInterceptor(ClusterCoordinator cluster, MeterRegistry meterRegistry) {
+        this.cluster = cluster;
+        this.redirects = Counter.builder("wind.cluster.redirects")
+                .description("Sensor queries redirected to the owning node")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(this).addPathPatterns("/api/wind/sensors/*", "/api/wind/sensors/*/**");
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        @SuppressWarnings("unchecked")
+        Map<String, String> variables = (Map<String, String>) request.getAttribute(
+                HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String sensorId = variables == null ? null : variables.get("sensorId");
+        if (sensorId == null) {
+            return true;
+        }
+        String ownerUrl = cluster.ownerUrl(sensorId);
+        if (ownerUrl == null) {
+            return true;
+        }
+        String query = request.getQueryString();
+        String location = ownerUrl + request.getRequestURI() + (query == null ? "" : "?" + query);
+        response.setStatus(HttpStatus.TEMPORARY_REDIRECT.value());
+        response.setHeader(HttpHeaders.LOCATION, location);
+        redirects.increment();
+        return false;
+    }
+}
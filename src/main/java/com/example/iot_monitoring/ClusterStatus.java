@@ -0,0 +1,61 @@
+package com.example.iot_monitoring;
+
+import java.util.List;
+
+/**
+ * Cluster membership as seen by one node: the nodes on its hash ring and the
+ * HTTP address each advertised.
+ */
+public class ClusterStatus {
+    private final boolean enabled;
+    private final String nodeId;
+    private final String mode;
+    private final List<Node> nodes;
+
+    public ClusterStatus(boolean enabled, String nodeId, String mode, List<Node> nodes) {
+        this.enabled = enabled;
+        this.nodeId = nodeId;
+        this.mode = mode;
+        this.nodes = List.copyOf(nodes);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public List<Node> getNodes() {
+        return nodes;
+    }
+
+    public static class Node {
+        private final String id;
+        private final String url;
+        private final boolean self;
+
+        public Node(String id, String url, boolean self) {
+            this.id = id;
+            this.url = url;
+            this.self = self;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public boolean isSelf() {
+            return self;
+        }
+    }
+}
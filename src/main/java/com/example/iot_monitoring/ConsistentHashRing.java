@@ -0,0 +1,99 @@
+package com.example.iot_monitoring;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Immutable consistent-hash ring mapping sensor ids to cluster nodes.
+ *
+ * Each node is placed at {@code virtualNodes} points on a 64-bit ring and a key
+ * belongs to the first point at or after its own hash. Adding or removing one
+ * node of N therefore only moves about 1/N of the keys, all of them to or from
+ * that node. Points are kept in a sorted {@code long[]} searched with binary
+ * search, so a lookup costs one hash and about log2(N * virtualNodes)
+ * comparisons.
+ */
+final class ConsistentHashRing {
+    private final List<String> nodes;
+    private final long[] points;
+    private final String[] owners;
+
+    ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("A ring needs at least one node");
+        }
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("virtualNodes must be positive");
+        }
+        this.nodes = List.copyOf(new TreeSet<>(nodes));
+        int count = this.nodes.size() * virtualNodes;
+        long[] keys = new long[count];
+        String[] names = new String[count];
+        int i = 0;
+        for (String node : this.nodes) {
+            for (int v = 0; v < virtualNodes; v++) {
+                keys[i] = hash(node + "#" + v);
+                names[i] = node;
+                i++;
+            }
+        }
+        // Sort the points and carry their owners along
+        Integer[] order = new Integer[count];
+        for (int j = 0; j < count; j++) {
+            order[j] = j;
+        }
+        Arrays.sort(order, (a, b) -> Long.compareUnsigned(keys[a], keys[b]));
+        this.points = new long[count];
+        this.owners = new String[count];
+        for (int j = 0; j < count; j++) {
+            points[j] = keys[order[j]];
+            owners[j] = names[order[j]];
+        }
+    }
+
+    /**
+     * The node owning {@code key}.
+     */
+    String owner(String key) {
+        long h = hash(key);
+        int low = 0;
+        int high = points.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(points[mid], h) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return owners[low == points.length ? 0 : low];
+    }
+
+    /**
+     * Node ids on the ring, sorted.
+     */
+    List<String> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 fmix64
+     * step so that similar ids ("sensor-1", "sensor-2") spread over the ring.
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,388 @@
+package com.example.iot_monitoring;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Disk-backed FIFO of opaque records for store-and-forward.
+ *
+ * Records are appended to preallocated, memory-mapped segment files
+ * ({@code spool-<sequence>.dat}) and consumed from the oldest one. Only the
+ * segment being written and the one being read are mapped, so memory use does
+ * not depend on how much is spooled; disk use is capped at
+ * {@code maxSegments} segments, beyond which the oldest segment is discarded
+ * (and counted in {@link #getDropped()}) to make room for new records.
+ *
+ * <pre>
+ * Segment layout
+ *  0..3    magic
+ *  4..7    reserved
+ *  8..15   read offset: records before it were acknowledged
+ *  16..    records: length (int), CRC32 of the payload (int), payload
+ * </pre>
+ *
+ * A zero length ends a segment, and a record whose checksum does not match ends
+ * recovery, so a record torn by a crash is discarded together with anything
+ * after it in that segment. The read offset is written on every
+ * {@link #ack(Batch, int)}: after a restart, records that were read but not
+ * acknowledged are delivered again (at-least-once).
+ *
+ * All methods are synchronized; the spool is meant for a few producers and one
+ * consumer that {@link #peek(int)}s a batch, sends it, then acknowledges it.
+ * A {@link Batch} remembers where each of its records sits, so if producers
+ * roll past {@code maxSegments} while it is in flight, acknowledging it only
+ * consumes those of its records that are still spooled and never the ones that
+ * took the head's place. After {@link #close()} appends fail, peeks are empty
+ * and acknowledgements are ignored.
+ */
+final class DiskSpool implements AutoCloseable {
+    private static final int MAGIC = 0x57535031; // "WSP1"
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_OVERHEAD = 8;
+    private static final String PREFIX = "spool-";
+    private static final String SUFFIX = ".dat";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private long pending;
+    private long dropped;
+    private boolean closed;
+
+    private DiskSpool(Path directory, int segmentSize, int maxSegments) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+    }
+
+    /**
+     * Opens the spool in {@code directory}, recovering records left by a previous run.
+     */
+    static DiskSpool open(Path directory, int segmentSize, int maxSegments) throws IOException {
+        if (segmentSize < HEADER_SIZE + RECORD_OVERHEAD + 1 || maxSegments < 2) {
+            throw new IllegalArgumentException("Spool needs at least two segments of a usable size");
+        }
+        Files.createDirectories(directory);
+        DiskSpool spool = new DiskSpool(directory, segmentSize, maxSegments);
+        List<Long> sequences = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    sequences.add(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+                } catch (NumberFormatException ignored) {
+                    // not ours
+                }
+            }
+        }
+        sequences.sort(null);
+        for (int i = 0; i < sequences.size(); i++) {
+            long sequence = sequences.get(i);
+            Segment segment = new Segment(sequence, spool.pathOf(sequence));
+            segment.recover(segmentSize);
+            // Fully consumed segments are dropped, except the last one which may still take appends
+            if (segment.remaining == 0 && i < sequences.size() - 1) {
+                segment.delete();
+                continue;
+            }
+            spool.segments.addLast(segment);
+            spool.pending += segment.remaining;
+        }
+        // Keep only head and tail mapped
+        int index = 0;
+        for (Segment segment : spool.segments) {
+            if (index != 0 && index != spool.segments.size() - 1) {
+                segment.unmap();
+            }
+            index++;
+        }
+        return spool;
+    }
+
+    /**
+     * Appends one record.
+     *
+     * @return {@code false} if the record can never fit in a segment
+     */
+    synchronized boolean append(byte[] record) throws IOException {
+        if (closed) {
+            throw new IOException("Spool " + directory + " is closed");
+        }
+        int size = RECORD_OVERHEAD + record.length;
+        if (HEADER_SIZE + size > segmentSize) {
+            return false;
+        }
+        Segment tail = segments.peekLast();
+        if (tail == null || tail.writeOffset + size > segmentSize) {
+            tail = roll();
+        }
+        MappedByteBuffer buffer = tail.buffer;
+        int offset = tail.writeOffset;
+        buffer.put(offset + RECORD_OVERHEAD, record);
+        buffer.putInt(offset + 4, crc(record));
+        // Length last: a record only becomes visible once it is complete
+        buffer.putInt(offset, record.length);
+        tail.writeOffset = offset + size;
+        tail.remaining++;
+        pending++;
+        return true;
+    }
+
+    /**
+     * Returns up to {@code max} of the oldest unacknowledged records without consuming them.
+     */
+    synchronized Batch peek(int max) throws IOException {
+        int capacity = Math.min(max, (int) Math.min(pending, 1024));
+        Batch batch = new Batch(capacity);
+        if (closed) {
+            return batch;
+        }
+        for (Segment segment : segments) {
+            if (batch.records.size() >= max) {
+                break;
+            }
+            segment.map(segmentSize);
+            int offset = segment.readOffset;
+            while (batch.records.size() < max && offset < segment.writeOffset) {
+                int length = segment.buffer.getInt(offset);
+                byte[] record = new byte[length];
+                segment.buffer.get(offset + RECORD_OVERHEAD, record);
+                offset += RECORD_OVERHEAD + length;
+                batch.add(record, segment.sequence, offset);
+            }
+            if (segment != segments.peekFirst() && segment != segments.peekLast()) {
+                segment.unmap();
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Consumes the first {@code count} records of {@code batch}. Records that were
+     * discarded meanwhile to make room, or already acknowledged, are skipped.
+     */
+    synchronized void ack(Batch batch, int count) throws IOException {
+        if (closed || count <= 0) {
+            return;
+        }
+        long endSequence = batch.sequences[count - 1];
+        int endOffset = batch.ends[count - 1];
+        while (!segments.isEmpty()) {
+            Segment head = segments.peekFirst();
+            if (head.sequence > endSequence) {
+                return; // the rest of the batch was discarded by roll()
+            }
+            boolean last = head.sequence == endSequence;
+            int target = last ? Math.min(endOffset, head.writeOffset) : head.writeOffset;
+            head.map(segmentSize);
+            while (head.readOffset < target) {
+                head.readOffset += RECORD_OVERHEAD + head.buffer.getInt(head.readOffset);
+                head.remaining--;
+                pending--;
+            }
+            head.buffer.putLong(8, head.readOffset);
+            if (head.readOffset >= head.writeOffset && segments.size() > 1) {
+                segments.pollFirst();
+                head.delete();
+                segments.peekFirst().map(segmentSize);
+            }
+            if (last || segments.peekFirst() == head) {
+                return;
+            }
+        }
+    }
+
+    synchronized long size() {
+        return pending;
+    }
+
+    synchronized boolean isEmpty() {
+        return pending == 0;
+    }
+
+    /**
+     * Records discarded because the spool ran out of segments.
+     */
+    synchronized long getDropped() {
+        return dropped;
+    }
+
+    synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    synchronized void force() {
+        for (Segment segment : segments) {
+            if (segment.buffer != null) {
+                segment.buffer.force();
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        for (Segment segment : segments) {
+            segment.unmap();
+        }
+        segments.clear();
+    }
+
+    private Segment roll() throws IOException {
+        if (segments.size() >= maxSegments) {
+            Segment oldest = segments.pollFirst();
+            dropped += oldest.remaining;
+            pending -= oldest.remaining;
+            oldest.delete();
+            Segment head = segments.peekFirst();
+            if (head != null) {
+                head.map(segmentSize);
+            }
+        }
+        Segment previous = segments.peekLast();
+        long sequence = previous == null ? 0 : previous.sequence + 1;
+        Segment segment = new Segment(sequence, pathOf(sequence));
+        segment.create(segmentSize);
+        if (previous != null && previous != segments.peekFirst()) {
+            previous.unmap();
+        }
+        segments.addLast(segment);
+        return segment;
+    }
+
+    private Path pathOf(long sequence) {
+        return directory.resolve(String.format("%s%020d%s", PREFIX, sequence, SUFFIX));
+    }
+
+    private static int crc(byte[] record) {
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Records returned by {@link #peek(int)}, with the segment and end offset of
+     * each so that {@link #ack(Batch, int)} can tell which are still spooled.
+     */
+    static final class Batch {
+        private final List<byte[]> records;
+        private long[] sequences;
+        private int[] ends;
+
+        private Batch(int capacity) {
+            this.records = new ArrayList<>(capacity);
+            this.sequences = new long[Math.max(capacity, 1)];
+            this.ends = new int[Math.max(capacity, 1)];
+        }
+
+        private void add(byte[] record, long sequence, int end) {
+            int index = records.size();
+            if (index == sequences.length) {
+                sequences = Arrays.copyOf(sequences, index * 2);
+                ends = Arrays.copyOf(ends, index * 2);
+            }
+            sequences[index] = sequence;
+            ends[index] = end;
+            records.add(record);
+        }
+
+        List<byte[]> getRecords() {
+            return records;
+        }
+
+        int size() {
+            return records.size();
+        }
+
+        boolean isEmpty() {
+            return records.isEmpty();
+        }
+    }
+
+    private static final class Segment {
+        final long sequence;
+        final Path path;
+        MappedByteBuffer buffer;
+        int readOffset = HEADER_SIZE;
+        int writeOffset = HEADER_SIZE;
+        int remaining;
+
+        Segment(long sequence, Path path) {
+            this.sequence = sequence;
+            this.path = path;
+        }
+
+        void create(int size) throws IOException {
+            map(size);
+            buffer.putInt(0, MAGIC);
+            buffer.putLong(8, HEADER_SIZE);
+        }
+
+        void recover(int size) throws IOException {
+            map(size);
+            if (buffer.getInt(0) != MAGIC) {
+                buffer.putInt(0, MAGIC);
+                buffer.putLong(8, HEADER_SIZE);
+            }
+            long read = buffer.getLong(8);
+            int offset = HEADER_SIZE;
+            int unread = 0;
+            while (offset + RECORD_OVERHEAD <= size) {
+                int length = buffer.getInt(offset);
+                if (length <= 0 || offset + RECORD_OVERHEAD + length > size) {
+                    break;
+                }
+                byte[] record = new byte[length];
+                buffer.get(offset + RECORD_OVERHEAD, record);
+                if (buffer.getInt(offset + 4) != crc(record)) {
+                    break;
+                }
+                if (offset >= read) {
+                    unread++;
+                }
+                offset += RECORD_OVERHEAD + length;
+            }
+            // Zero a torn record so the next append is not mistaken for its continuation
+            if (offset + 4 <= size) {
+                buffer.putInt(offset, 0);
+            }
+            this.writeOffset = offset;
+            this.readOffset = (int) Math.max(HEADER_SIZE, Math.min(read, offset));
+            this.remaining = unread;
+        }
+
+        void map(int size) throws IOException {
+            if (buffer != null) {
+                return;
+            }
+            try (FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // The mapping stays valid after the channel is closed
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+        }
+
+        void unmap() {
+            if (buffer != null) {
+                buffer.force();
+                buffer = null;
+            }
+        }
+
+        void delete() throws IOException {
+            buffer = null;
+            Files.deleteIfExists(path);
+        }
+    }
+}
@@ -6,14 +6,26 @@ import com.google.firebase.FirebaseOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.ClassPathResource;
 
 import javax.annotation.PostConstruct;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
 
+/**
+ * Initializes the default {@link FirebaseApp}, once, on a background thread.
+ *
+ * Loading the credentials and the Firebase classes used to hold up the whole
+ * context refresh, and a missing credentials file stopped the application. Now
+ * startup only kicks the initialization off; {@link #ready()} completes when the
+ * app exists (or with the failure), {@link FirebaseWindDataRepository} waits on
+ * it, and {@link FirebaseHealthIndicator} reports it to the readiness group.
+ */
 @Configuration
+@ConditionalOnProperty(name = "wind.persistence.repository", havingValue = "firebase", matchIfMissing = true)
 public class FirebaseConfig {
     private static final Logger logger = LoggerFactory.getLogger(FirebaseConfig.class);
 
@@ -23,8 +35,28 @@ public class FirebaseConfig {
     @Value("${firebase.config.path}")
     private String configPath;
 
+    private final CompletableFuture<FirebaseApp> ready = new CompletableFuture<>();
+
     @PostConstruct
     public void initialize() {
+        Thread.ofVirtual().name("firebase-init").start(() -> {
+            try {
+                ready.complete(initializeApp());
+            } catch (Throwable e) {
+                ready.completeExceptionally(e);
+            }
+        });
+    }
+
+    /**
+     * Completes with the default app once it is initialized, or exceptionally if that failed.
+     */
+    public CompletableFuture<FirebaseApp> ready() {
+        return ready;
+    }
+
+    private FirebaseApp initializeApp() {
+        long start = System.nanoTime();
         try {
             logger.info("Tentando carregar configuração do Firebase do caminho: {}", configPath);
 
@@ -33,27 +65,30 @@ public class FirebaseConfig {
                     ? configPath.substring("classpath:".length())
                     : configPath;
 
-            InputStream serviceAccount = new ClassPathResource(resourcePath).getInputStream();
-
-            FirebaseOptions options = new FirebaseOptions.Builder()
-                    .setCredentials(GoogleCredentials.fromStream(serviceAccount))
-                    .setDatabaseUrl(databaseUrl)
-                    .build();
+            FirebaseOptions options;
+            try (InputStream serviceAccount = new ClassPathResource(resourcePath).getInputStream()) {
+                options = new FirebaseOptions.Builder()
+                        .setCredentials(GoogleCredentials.fromStream(serviceAccount))
+                        .setDatabaseUrl(databaseUrl)
+                        .build();
+            }
 
-            if (FirebaseApp.getApps().isEmpty()) {
-                FirebaseApp.initializeApp(options);
-                logger.info("Firebase inicializado com sucesso");
+            FirebaseApp app;
+            synchronized (FirebaseApp.class) {
+                app = FirebaseApp.getApps().isEmpty() ? FirebaseApp.initializeApp(options) : FirebaseApp.getInstance();
             }
+            logger.info("Firebase inicializado com sucesso em {} ms", (System.nanoTime() - start) / 1_000_000);
+            return app;
         } catch (IOException e) {
             logger.error("ERRO: Arquivo de configuração do Firebase não encontrado", e);
             logger.error("Por favor, verifique:");
             logger.error("1. O arquivo '{}' está em src/main/resources/", configPath);
             logger.error("2. O nome do arquivo está correto (incluindo maiúsculas/minúsculas)");
             logger.error("3. O projeto foi reconstruído após adicionar o arquivo");
-            throw new RuntimeException("Falha ao inicializar Firebase - Arquivo não encontrado", e);
-        } catch (Exception e) {
+            throw new IllegalStateException("Falha ao inicializar Firebase - Arquivo não encontrado", e);
+        } catch (RuntimeException e) {
             logger.error("Erro ao inicializar Firebase", e);
-            throw new RuntimeException("Falha na configuração do Firebase", e);
+            throw new IllegalStateException("Falha na configuração do Firebase", e);
         }
     }
-}
\ No newline at end of file
+}
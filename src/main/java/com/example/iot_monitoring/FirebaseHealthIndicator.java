@@ -0,0 +1,38 @@
+package com.example.iot_monitoring;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * {@code firebase} health: out of service while {@link FirebaseConfig} is still
+ * initializing, down if that failed. Part of the readiness group.
+ */
+@Component
+@ConditionalOnProperty(name = "wind.persistence.repository", havingValue = "firebase", matchIfMissing = true)
+public class FirebaseHealthIndicator implements HealthIndicator {
+
+    private final FirebaseConfig firebase;
+
+    public FirebaseHealthIndicator(FirebaseConfig firebase) {
+        this.firebase = firebase;
+    }
+
+    @Override
+    public Health health() {
+        CompletableFuture<?> ready = firebase.ready();
+        if (!ready.isDone()) {
+            return Health.outOfService().withDetail("state", "initializing").build();
+        }
+        try {
+            ready.join();
+            return Health.up().build();
+        } catch (CompletionException e) {
+            return Health.down(e.getCause()).build();
+        }
+    }
+}
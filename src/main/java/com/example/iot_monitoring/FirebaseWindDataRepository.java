@@ -0,0 +1,136 @@
+package com.example.iot_monitoring;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ValueEventListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Firebase Realtime Database repository.
+ *
+ * Writes each batch as one multi-path {@code updateChildren} call under
+ * {@code wind_measurements}, instead of one {@code push().setValue()} per reading.
+ * Push keys are generated locally, so the layout is the same as before. Each
+ * record also carries a {@code sensorTimestamp} child (sensor id and
+ * zero-padded timestamp), so a sensor's time range is a single key range on
+ * that child; the database needs {@code ".indexOn": ["sensorTimestamp"]} on
+ * the path to answer it server-side. Calls made while {@link FirebaseConfig} is still initializing in the
+ * background are chained onto its initialization instead of blocking.
+ */
+@Component
+@ConditionalOnProperty(name = "wind.persistence.repository", havingValue = "firebase", matchIfMissing = true)
+public class FirebaseWindDataRepository implements WindDataRepository {
+
+    static final String SENSOR_TIMESTAMP = "sensorTimestamp";
+
+    @Value("${firebase.database.path:wind_measurements}")
+    private String path;
+
+    private final FirebaseConfig firebase;
+    private volatile CompletableFuture<DatabaseReference> reference;
+
+    public FirebaseWindDataRepository(FirebaseConfig firebase) {
+        this.firebase = firebase;
+    }
+
+    @Override
+    public CompletableFuture<Void> write(List<WindData> batch) {
+        return reference().thenCompose(ref -> {
+            CompletableFuture<Void> result = new CompletableFuture<>();
+            try {
+                Map<String, Object> updates = new HashMap<>(batch.size() * 2);
+                for (WindData data : batch) {
+                    updates.put(ref.push().getKey(), toRecord(data));
+                }
+                ref.updateChildren(updates, (error, ignored) -> {
+                    if (error != null) {
+                        result.completeExceptionally(error.toException());
+                    } else {
+                        result.complete(null);
+                    }
+                });
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+            return result;
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<WindData>> findRange(String sensorId, long from, long to) {
+        return reference().thenCompose(ref -> {
+            CompletableFuture<List<WindData>> result = new CompletableFuture<>();
+            try {
+                ref.orderByChild(SENSOR_TIMESTAMP)
+                        .startAt(sensorKey(sensorId, Math.max(0, from)))
+                        .endAt(sensorKey(sensorId, Math.max(0, to)))
+                        .addListenerForSingleValueEvent(new ValueEventListener() {
+                            @Override
+                            public void onDataChange(DataSnapshot snapshot) {
+                                List<WindData> readings = new ArrayList<>();
+                                for (DataSnapshot child : snapshot.getChildren()) {
+                                    Object value = child.getValue();
+                                    if (value instanceof Map<?, ?> record) {
+                                        readings.add(fromRecord(record));
+                                    }
+                                }
+                                result.complete(readings);
+                            }
+
+                            @Override
+                            public void onCancelled(DatabaseError error) {
+                                result.completeExceptionally(error.toException());
+                            }
+                        });
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+            return result;
+        });
+    }
+
+    static Map<String, Object> toRecord(WindData data) {
+        Map<String, Object> record = new HashMap<>(8);
+        record.put("sensorId", data.getSensorId());
+        record.put("speed", data.getSpeed());
+        record.put("direction", data.getDirection());
+        record.put("timestamp", data.getTimestamp());
+        record.put(SENSOR_TIMESTAMP, sensorKey(data.getSensorId(), data.getTimestamp()));
+        return record;
+    }
+
+    static WindData fromRecord(Map<?, ?> record) {
+        return new WindData((String) record.get("sensorId"), number(record.get("speed")),
+                number(record.get("direction")),
+                record.get("timestamp") instanceof Number timestamp ? timestamp.longValue() : 0L);
+    }
+
+    // 19 digits hold any non-negative long, so string order matches time order
+    static String sensorKey(String sensorId, long timestamp) {
+        return (sensorId == null ? "" : sensorId) + "_" + String.format("%019d", timestamp);
+    }
+
+    private static double number(Object value) {
+        return value instanceof Number number ? number.doubleValue() : 0;
+    }
+
+    // Requests made before FirebaseConfig has finished initializing wait for it
+    private CompletableFuture<DatabaseReference> reference() {
+        CompletableFuture<DatabaseReference> ref = reference;
+        if (ref == null) {
+            ref = firebase.ready().thenApply(app -> FirebaseDatabase.getInstance(app).getReference(path));
+            reference = ref;
+        }
+        return ref;
+    }
+}
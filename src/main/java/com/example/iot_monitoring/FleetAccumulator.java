@@ -0,0 +1,53 @@
+package com.example.iot_monitoring;
+
+/**
+ * Mergeable partial aggregate of rollup buckets across sensors, used by
+ * {@link FleetAggregationService}. Vector components are summed rather than
+ * averaged, so partials from any split of the fleet merge into the same result.
+ * Not thread-safe: each fork-join leaf fills its own and merges on the way up.
+ */
+final class FleetAccumulator {
+    private int sensors;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private double sum;
+    private double sumU;
+    private double sumV;
+
+    void add(long count, double min, double max, double sum, double sumU, double sumV) {
+        this.count += count;
+        if (min < this.min) {
+            this.min = min;
+        }
+        if (max > this.max) {
+            this.max = max;
+        }
+        this.sum += sum;
+        this.sumU += sumU;
+        this.sumV += sumV;
+    }
+
+    void addSensor() {
+        sensors++;
+    }
+
+    void merge(FleetAccumulator other) {
+        sensors += other.sensors;
+        add(other.count, other.min, other.max, other.sum, other.sumU, other.sumV);
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    FleetAggregate toAggregate(String group) {
+        if (count == 0) {
+            return new FleetAggregate(group, sensors, 0, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+        }
+        double meanU = sumU / count;
+        double meanV = sumV / count;
+        return new FleetAggregate(group, sensors, count, min, max, sum / count,
+                Math.hypot(meanU, meanV), WindRollup.vectorDirection(meanU, meanV));
+    }
+}
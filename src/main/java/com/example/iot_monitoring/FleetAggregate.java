@@ -0,0 +1,64 @@
+package com.example.iot_monitoring;
+
+/**
+ * Wind aggregated over a group of sensors (a region, one sensor, or the whole
+ * fleet) for the range of a {@link FleetQueryResult}.
+ *
+ * {@code maxSpeed} is the highest gust of any sensor in the group;
+ * {@code vectorSpeed} and {@code vectorDirection} average the speed-weighted
+ * wind vectors of every reading, like {@link WindAggregate}.
+ */
+public class FleetAggregate {
+    private final String group;
+    private final int sensors;
+    private final long count;
+    private final double minSpeed;
+    private final double maxSpeed;
+    private final double meanSpeed;
+    private final double vectorSpeed;
+    private final double vectorDirection;
+
+    public FleetAggregate(String group, int sensors, long count, double minSpeed, double maxSpeed,
+                          double meanSpeed, double vectorSpeed, double vectorDirection) {
+        this.group = group;
+        this.sensors = sensors;
+        this.count = count;
+        this.minSpeed = minSpeed;
+        this.maxSpeed = maxSpeed;
+        this.meanSpeed = meanSpeed;
+        this.vectorSpeed = vectorSpeed;
+        this.vectorDirection = vectorDirection;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public int getSensors() {
+        return sensors;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMinSpeed() {
+        return minSpeed;
+    }
+
+    public double getMaxSpeed() {
+        return maxSpeed;
+    }
+
+    public double getMeanSpeed() {
+        return meanSpeed;
+    }
+
+    public double getVectorSpeed() {
+        return vectorSpeed;
+    }
+
+    public double getVectorDirection() {
+        return vectorDirection;
+    }
+}
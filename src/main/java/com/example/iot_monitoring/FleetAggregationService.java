@@ -0,0 +1,285 @@
+package com.example.iot_monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fleet-wide aggregation queries ("max gust per region in the last hour",
+ * "mean vector wind over all sensors") over the in-memory rollups.
+ *
+ * The sensors' {@link WindHistoryBuffer}s are split into shards of
+ * {@code wind.fleet.shard-size} on a dedicated {@link ForkJoinPool}; each leaf
+ * folds its sensors' rollup buckets into one {@link FleetAccumulator} per group
+ * and the partials are merged on the way back up. Leaves only touch their own
+ * accumulators and each buffer's lock, so the work scales with the pool size.
+ *
+ * Results are cached for {@code wind.fleet.cache-ttl-ms}. Relative windows are
+ * aligned down to the rollup resolution and left open-ended, so repeated
+ * dashboard queries share one cache key; concurrent identical queries wait for a
+ * single computation instead of each running their own.
+ */
+@Service
+public class FleetAggregationService {
+    static final String ALL_GROUP = "all";
+
+    public enum GroupBy {
+        ALL, REGION, SENSOR;
+
+        public static GroupBy parse(String value) {
+            for (GroupBy groupBy : values()) {
+                if (groupBy.name().equalsIgnoreCase(value)) {
+                    return groupBy;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported group: " + value + " (expected all, region or sensor)");
+        }
+    }
+
+    private final WindHistoryStore historyStore;
+    private final String regionDelimiter;
+    private final int shardSize;
+    private final long cacheTtlNanos;
+    private final int cacheSize;
+    private final ForkJoinPool pool;
+    private final ConcurrentHashMap<CacheKey, CacheEntry> cache = new ConcurrentHashMap<>();
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+    private final Timer queryTime;
+
+    public FleetAggregationService(WindHistoryStore historyStore,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${wind.fleet.parallelism:0}") int parallelism,
+                                   @Value("${wind.fleet.shard-size:64}") int shardSize,
+                                   @Value("${wind.fleet.region-delimiter:-}") String regionDelimiter,
+                                   @Value("${wind.fleet.cache-ttl-ms:1000}") long cacheTtlMillis,
+                                   @Value("${wind.fleet.cache-size:256}") int cacheSize) {
+        this.historyStore = historyStore;
+        this.regionDelimiter = regionDelimiter;
+        this.shardSize = Math.max(1, shardSize);
+        this.cacheTtlNanos = TimeUnit.MILLISECONDS.toNanos(cacheTtlMillis);
+        this.cacheSize = Math.max(1, cacheSize);
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(threads, p -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            thread.setName("fleet-aggregate-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+        this.cacheHits = Counter.builder("wind.fleet.cache.hits").register(meterRegistry);
+        this.cacheMisses = Counter.builder("wind.fleet.cache.misses").register(meterRegistry);
+        this.queryTime = Timer.builder("wind.fleet.query")
+                .description("Time to aggregate the fleet on a cache miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Aggregates the last {@code windowMillis} up to the newest bucket.
+     *
+     * @param resolution rollup to aggregate, or {@code null} for the finest one covering the window
+     */
+    public FleetQueryResult queryWindow(GroupBy groupBy, RollupResolution resolution, long windowMillis) {
+        if (windowMillis <= 0) {
+            throw new IllegalArgumentException("window must be positive");
+        }
+        return query(groupBy, resolution, System.currentTimeMillis() - windowMillis, Long.MAX_VALUE);
+    }
+
+    /**
+     * Aggregates the buckets starting in {@code [from, to]}, {@code from} aligned down to the resolution.
+     *
+     * @param resolution rollup to aggregate, or {@code null} for the finest one covering {@code from}
+     */
+    public FleetQueryResult query(GroupBy groupBy, RollupResolution resolution, long from, long to) {
+        if (from > to) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        RollupResolution effective = resolution != null ? resolution : resolutionFor(from);
+        long alignedFrom = Math.floorDiv(from, effective.getMillis()) * effective.getMillis();
+        CacheKey key = new CacheKey(groupBy, effective, alignedFrom, to);
+
+        long now = System.nanoTime();
+        CacheEntry[] created = new CacheEntry[1];
+        CacheEntry entry = cache.compute(key, (k, existing) -> {
+            if (existing != null && now - existing.createdAt < cacheTtlNanos) {
+                return existing;
+            }
+            created[0] = new CacheEntry(now);
+            return created[0];
+        });
+        if (entry != created[0]) {
+            cacheHits.increment();
+            return entry.result.join();
+        }
+        cacheMisses.increment();
+        evictIfFull(now);
+        try {
+            FleetQueryResult result = queryTime.record(() -> compute(groupBy, effective, alignedFrom, to));
+            entry.result.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            cache.remove(key, entry);
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private FleetQueryResult compute(GroupBy groupBy, RollupResolution resolution, long from, long to) {
+        WindHistoryBuffer[] buffers = historyStore.all().toArray(new WindHistoryBuffer[0]);
+        Map<String, FleetAccumulator> partials =
+                pool.invoke(new ShardTask(buffers, 0, buffers.length, groupBy, resolution, from, to));
+        List<FleetAggregate> groups = new ArrayList<>(partials.size());
+        for (Map.Entry<String, FleetAccumulator> group : new TreeMap<>(partials).entrySet()) {
+            if (group.getValue().getCount() > 0) {
+                groups.add(group.getValue().toAggregate(group.getKey()));
+            }
+        }
+        return new FleetQueryResult(from, to, resolution.getLabel(), groupBy.name().toLowerCase(Locale.ROOT),
+                System.currentTimeMillis(), groups);
+    }
+
+    // Per-second rollups only reach back wind.history.second-buckets seconds
+    private RollupResolution resolutionFor(long from) {
+        long oldestSecond = System.currentTimeMillis() - historyStore.getSecondCoverageMillis();
+        return from >= oldestSecond ? RollupResolution.SECOND : RollupResolution.MINUTE;
+    }
+
+    String groupOf(GroupBy groupBy, String sensorId) {
+        switch (groupBy) {
+            case SENSOR:
+                return sensorId;
+            case REGION:
+                int delimiter = sensorId.lastIndexOf(regionDelimiter);
+                return delimiter > 0 ? sensorId.substring(0, delimiter) : sensorId;
+            default:
+                return ALL_GROUP;
+        }
+    }
+
+    private void evictIfFull(long now) {
+        if (cache.size() <= cacheSize) {
+            return;
+        }
+        cache.values().removeIf(e -> now - e.createdAt >= cacheTtlNanos && e.result.isDone());
+        if (cache.size() > cacheSize) {
+            cache.values().removeIf(e -> e.result.isDone());
+        }
+    }
+
+    int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdownNow();
+    }
+
+    private final class ShardTask extends RecursiveTask<Map<String, FleetAccumulator>> {
+        private final WindHistoryBuffer[] buffers;
+        private final int low;
+        private final int high;
+        private final GroupBy groupBy;
+        private final RollupResolution resolution;
+        private final long from;
+        private final long to;
+
+        ShardTask(WindHistoryBuffer[] buffers, int low, int high, GroupBy groupBy,
+                  RollupResolution resolution, long from, long to) {
+            this.buffers = buffers;
+            this.low = low;
+            this.high = high;
+            this.groupBy = groupBy;
+            this.resolution = resolution;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Map<String, FleetAccumulator> compute() {
+            if (high - low > shardSize) {
+                int mid = (low + high) >>> 1;
+                ShardTask left = new ShardTask(buffers, low, mid, groupBy, resolution, from, to);
+                left.fork();
+                Map<String, FleetAccumulator> right =
+                        new ShardTask(buffers, mid, high, groupBy, resolution, from, to).compute();
+                Map<String, FleetAccumulator> merged = left.join();
+                for (Map.Entry<String, FleetAccumulator> group : right.entrySet()) {
+                    FleetAccumulator existing = merged.putIfAbsent(group.getKey(), group.getValue());
+                    if (existing != null) {
+                        existing.merge(group.getValue());
+                    }
+                }
+                return merged;
+            }
+            Map<String, FleetAccumulator> groups = new HashMap<>();
+            FleetAccumulator all = groupBy == GroupBy.ALL ? new FleetAccumulator() : null;
+            for (int i = low; i < high; i++) {
+                WindHistoryBuffer buffer = buffers[i];
+                FleetAccumulator group = all != null
+                        ? all : groups.computeIfAbsent(groupOf(groupBy, buffer.getSensorId()), g -> new FleetAccumulator());
+                if (buffer.accumulate(resolution, from, to, group)) {
+                    group.addSensor();
+                }
+            }
+            if (all != null) {
+                groups.put(ALL_GROUP, all);
+            }
+            return groups;
+        }
+    }
+
+    private static final class CacheKey {
+        private final GroupBy groupBy;
+        private final RollupResolution resolution;
+        private final long from;
+        private final long to;
+
+        CacheKey(GroupBy groupBy, RollupResolution resolution, long from, long to) {
+            this.groupBy = groupBy;
+            this.resolution = resolution;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey) o;
+            return groupBy == other.groupBy && resolution == other.resolution && from == other.from && to == other.to;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(groupBy, resolution, from, to);
+        }
+    }
+
+    private static final class CacheEntry {
+        final long createdAt;
+        final CompletableFuture<FleetQueryResult> result = new CompletableFuture<>();
+
+        CacheEntry(long createdAt) {
+            this.createdAt = createdAt;
+        }
+    }
+}
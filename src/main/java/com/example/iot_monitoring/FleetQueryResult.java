@@ -0,0 +1,53 @@
+package com.example.iot_monitoring;
+
+import java.util.List;
+
+/**
+ * Answer to a fleet-wide aggregation query: one {@link FleetAggregate} per
+ * group, ordered by group name.
+ *
+ * {@code from} is aligned down to the rollup {@code resolution}, since whole
+ * buckets are aggregated.
+ */
+public class FleetQueryResult {
+    private final long from;
+    private final long to;
+    private final String resolution;
+    private final String groupBy;
+    private final long computedAt;
+    private final List<FleetAggregate> groups;
+
+    public FleetQueryResult(long from, long to, String resolution, String groupBy, long computedAt,
+                            List<FleetAggregate> groups) {
+        this.from = from;
+        this.to = to;
+        this.resolution = resolution;
+        this.groupBy = groupBy;
+        this.computedAt = computedAt;
+        this.groups = List.copyOf(groups);
+    }
+
+    public long getFrom() {
+        return from;
+    }
+
+    public long getTo() {
+        return to;
+    }
+
+    public String getResolution() {
+        return resolution;
+    }
+
+    public String getGroupBy() {
+        return groupBy;
+    }
+
+    public long getComputedAt() {
+        return computedAt;
+    }
+
+    public List<FleetAggregate> getGroups() {
+        return groups;
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.iot_monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Capture mode: records every message {@link MqttService#messageArrived} receives
+ * (topic, raw payload, arrival time) to a {@link CaptureLog} under
+ * {@code wind.capture.directory}, for {@link WindReplayer} to play back later.
+ *
+ * Off by default; turned on at startup with {@code wind.capture.enabled} or at
+ * runtime through the REST API. Each capture gets its own file and stops by
+ * itself once it reaches {@code wind.capture.max-size-mb}. Appends go to a
+ * buffer under this object's lock and are flushed every second, so a crash
+ * loses at most the last second of traffic.
+ */
+@Component
+public class IngestCapture {
+    private static final Logger logger = LoggerFactory.getLogger(IngestCapture.class);
+
+    private final Path directory;
+    private final long maxBytes;
+    private final boolean enabledOnStartup;
+    private final Counter records;
+    private final Counter failures;
+    // Read without the lock on the MQTT callback path, so an idle capture costs one volatile read
+    private volatile CaptureLog.Writer writer;
+    private Path path;
+
+    public IngestCapture(MeterRegistry meterRegistry,
+                         @Value("${wind.capture.directory:data/capture}") String directory,
+                         @Value("${wind.capture.max-size-mb:512}") long maxSizeMb,
+                         @Value("${wind.capture.enabled:false}") boolean enabledOnStartup) {
+        this.directory = Path.of(directory);
+        this.maxBytes = maxSizeMb * 1024 * 1024;
+        this.enabledOnStartup = enabledOnStartup;
+        this.records = Counter.builder("wind.capture.records").register(meterRegistry);
+        this.failures = Counter.builder("wind.capture.failures").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (enabledOnStartup) {
+            try {
+                start();
+            } catch (IOException e) {
+                logger.error("Failed to start ingest capture in {}", directory, e);
+            }
+        }
+    }
+
+    /**
+     * Starts a new capture file.
+     *
+     * @return the file being written
+     */
+    public synchronized Path start() throws IOException {
+        if (writer != null) {
+            throw new IllegalStateException("A capture is already running: " + path.getFileName());
+        }
+        Files.createDirectories(directory);
+        long now = System.currentTimeMillis();
+        Path file = directory.resolve("capture-" + now + CaptureLog.SUFFIX);
+        writer = CaptureLog.Writer.create(file, now);
+        path = file;
+        logger.info("Ingest capture started: {}", file);
+        return file;
+    }
+
+    /**
+     * Stops the running capture, if any.
+     *
+     * @return the finished file, or {@code null} if nothing was being captured
+     */
+    @PreDestroy
+    public synchronized Path stop() {
+        CaptureLog.Writer current = writer;
+        if (current == null) {
+            return null;
+        }
+        writer = null;
+        try {
+            current.close();
+            logger.info("Ingest capture stopped: {} ({} messages, {} bytes)",
+                    path, current.getRecords(), current.getBytes());
+        } catch (IOException e) {
+            logger.error("Failed to close ingest capture {}", path, e);
+        }
+        return path;
+    }
+
+    public void record(String topic, byte[] payload, long arrivedAt) {
+        if (writer == null) {
+            return;
+        }
+        synchronized (this) {
+            CaptureLog.Writer current = writer;
+            if (current == null) {
+                return;
+            }
+            try {
+                current.append(topic, payload, arrivedAt);
+                records.increment();
+            } catch (IOException e) {
+                failures.increment();
+                logger.error("Ingest capture failed, stopping it", e);
+                stop();
+                return;
+            }
+            if (current.getBytes() >= maxBytes) {
+                logger.warn("Ingest capture reached {} MB", maxBytes / (1024 * 1024));
+                stop();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelay = 1000)
+    public synchronized void flush() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            failures.increment();
+            logger.error("Failed to flush ingest capture {}", path, e);
+        }
+    }
+
+    /**
+     * Names of the capture files available for replay, oldest first.
+     */
+    public List<String> list() throws IOException {
+        List<String> names = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return names;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + CaptureLog.SUFFIX)) {
+            for (Path file : files) {
+                names.add(file.getFileName().toString());
+            }
+        }
+        names.sort(null);
+        return names;
+    }
+
+    public boolean isActive() {
+        return writer != null;
+    }
+
+    public synchronized Path getPath() {
+        return path;
+    }
+
+    Path getDirectory() {
+        return directory;
+    }
+}
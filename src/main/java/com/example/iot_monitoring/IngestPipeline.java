@@ -0,0 +1,584 @@
+package com.example.iot_monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Moves message processing off the MQTT callback thread.
+ *
+ * {@link #submit} only copies references into a preallocated slot of one
+ * worker's {@link MpscRingBuffer} and returns. The worker is chosen from the
+ * sensor id, so all readings of a sensor are decoded and ingested by the same
+ * worker in arrival order, while different sensors proceed in parallel. When a
+ * worker's ring is full the producer waits up to {@code block-timeout-ms}
+ * (backpressure towards the broker) and then drops the message. Under
+ * overload the {@link OverloadController} sheds new messages for a queue that is
+ * already half full instead, and samples the queue waits recorded here.
+ *
+ * Before a reading reaches {@link WindIngestService} it goes through the
+ * sensor's {@link SensorSequencer}, which drops QoS 1 redeliveries and retained
+ * replays and puts readings that overtook each other back in sequence order.
+ * Since a sensor always lands on the same worker, sequencers need no locking.
+ * A sequencer that has seen nothing for {@code dedup.idle-eviction-ms} and holds
+ * nothing back is dropped, so the map does not grow with every sensor ever seen;
+ * a redelivery arriving after that is no longer recognized as a duplicate.
+ * Messages submitted by a {@link WindReplayer} run get sequencers of their own,
+ * started fresh for every run, so replaying a capture twice (or one that overlaps
+ * live traffic) is not taken for redeliveries.
+ */
+@Component
+public class IngestPipeline {
+    private static final Logger logger = LoggerFactory.getLogger(IngestPipeline.class);
+
+    public static final byte KIND_DATA = 0;
+    public static final byte KIND_SPEED = 1;
+    public static final byte KIND_DIRECTION = 2;
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long EVICTION_CHECK_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final WindIngestService ingestService;
+    private final WindLatencyMetrics latencyMetrics;
+    private final OverloadController overload;
+    private final Worker[] workers;
+    private final long blockTimeoutNanos;
+    private final Counter decodeErrors;
+    private final Counter rejected;
+    private final Counter blocked;
+    private final Counter failures;
+    private final Counter duplicates;
+    private final Counter late;
+    private final Counter reordered;
+    private final Counter resets;
+    private final Counter gaps;
+    private final int dedupWindow;
+    private final int reorderMaxPending;
+    private final long reorderMaxDelayNanos;
+    private final long idleEvictionNanos;
+    private volatile boolean running;
+    private volatile StageTimes stageTimes;
+    private final AtomicInteger replayRuns = new AtomicInteger();
+
+    /**
+     * Processing time per stage in nanoseconds, recorded only while installed with
+     * {@link #setStageTimes} (during a {@link WindReplayer} run): waiting in the
+     * worker queue, decoding, ingesting, and from submission until done. Also
+     * counts the replayed readings the sequencers dropped as duplicate or late.
+     */
+    static final class StageTimes {
+        final LatencyHistogram queued = new LatencyHistogram();
+        final LatencyHistogram decoded = new LatencyHistogram();
+        final LatencyHistogram ingested = new LatencyHistogram();
+        final LatencyHistogram total = new LatencyHistogram();
+        final LongAdder duplicates = new LongAdder();
+        final LongAdder late = new LongAdder();
+    }
+
+    public IngestPipeline(WindIngestService ingestService,
+                          WindLatencyMetrics latencyMetrics,
+                          OverloadController overload,
+                          MeterRegistry meterRegistry,
+                          @Value("${wind.ingest.workers:0}") int workerCount,
+                          @Value("${wind.ingest.queue-capacity:8192}") int queueCapacity,
+                          @Value("${wind.ingest.block-timeout-ms:100}") long blockTimeoutMillis,
+                          @Value("${wind.ingest.dedup.window:1024}") int dedupWindow,
+                          @Value("${wind.ingest.reorder.max-pending:64}") int reorderMaxPending,
+                          @Value("${wind.ingest.reorder.max-delay-ms:1000}") long reorderMaxDelayMillis,
+                          @Value("${wind.ingest.dedup.idle-eviction-ms:1800000}") long idleEvictionMillis) {
+        this.ingestService = ingestService;
+        this.latencyMetrics = latencyMetrics;
+        this.overload = overload;
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(blockTimeoutMillis);
+        this.dedupWindow = dedupWindow;
+        this.reorderMaxPending = reorderMaxPending;
+        this.reorderMaxDelayNanos = TimeUnit.MILLISECONDS.toNanos(reorderMaxDelayMillis);
+        this.idleEvictionNanos = TimeUnit.MILLISECONDS.toNanos(idleEvictionMillis);
+        int count = workerCount > 0 ? workerCount
+                : Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+        this.workers = new Worker[count];
+        for (int i = 0; i < count; i++) {
+            workers[i] = new Worker(i, queueCapacity,
+                    (int) Math.ceil(queueCapacity * overload.getElevatedSaturation()));
+        }
+
+        this.decodeErrors = Counter.builder("wind.mqtt.decode_errors").register(meterRegistry);
+        this.rejected = Counter.builder("wind.ingest.rejected")
+                .description("Messages dropped because a worker queue stayed full")
+                .register(meterRegistry);
+        this.blocked = Counter.builder("wind.ingest.blocked")
+                .description("Submissions that had to wait for room in a worker queue")
+                .register(meterRegistry);
+        this.failures = Counter.builder("wind.ingest.failures").register(meterRegistry);
+        this.duplicates = Counter.builder("wind.ingest.dedup.duplicates")
+                .description("Readings dropped as redeliveries of one already ingested")
+                .register(meterRegistry);
+        this.late = Counter.builder("wind.ingest.dedup.late")
+                .description("Readings dropped because they arrived after the reorder window had moved past them")
+                .register(meterRegistry);
+        this.resets = Counter.builder("wind.ingest.dedup.resets")
+                .description("Sequence jumps taken as a publisher restarting its counter")
+                .register(meterRegistry);
+        this.reordered = Counter.builder("wind.ingest.reorder.buffered")
+                .description("Readings held back until the ones before them arrived")
+                .register(meterRegistry);
+        this.gaps = Counter.builder("wind.ingest.reorder.gaps")
+                .description("Sequence numbers never received within the reorder window")
+                .register(meterRegistry);
+        Gauge.builder("wind.ingest.reorder.pending", this, IngestPipeline::getReorderPending)
+                .description("Readings currently held in reorder buffers")
+                .register(meterRegistry);
+        Gauge.builder("wind.ingest.dedup.sensors", this, IngestPipeline::getSequencerCount)
+                .description("Sensors whose sequencing state is kept")
+                .register(meterRegistry);
+        Gauge.builder("wind.ingest.queue.depth", this, IngestPipeline::getQueueDepth)
+                .description("Messages waiting in all worker queues")
+                .register(meterRegistry);
+        Gauge.builder("wind.ingest.queue.saturation", this, IngestPipeline::getSaturation)
+                .description("Fill ratio of the fullest worker queue")
+                .register(meterRegistry);
+        Gauge.builder("wind.ingest.workers", workers, w -> w.length).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        for (Worker worker : workers) {
+            worker.thread = new Thread(worker, "wind-ingest-" + worker.index);
+            worker.thread.setDaemon(true);
+            worker.thread.start();
+        }
+        overload.monitor(this);
+        logger.info("Ingest pipeline started with {} workers, queue capacity {} each",
+                workers.length, workers[0].ring.capacity());
+    }
+
+    /**
+     * Hands a raw message to the worker owning {@code state}'s sensor.
+     *
+     * @return {@code false} if the message was dropped because the queue stayed full
+     *         or was shed by the {@link OverloadController}
+     */
+    public boolean submit(SensorState state, byte kind, byte[] payload, long receivedAt) {
+        return submit(state, kind, payload, receivedAt, 0);
+    }
+
+    /**
+     * Starts a replay run: messages then submitted with {@link #submitReplay} and
+     * the returned id are sequenced apart from live traffic and from earlier runs.
+     */
+    int beginReplay() {
+        int run;
+        do {
+            run = replayRuns.incrementAndGet();
+        } while (run == 0);
+        return run;
+    }
+
+    /**
+     * Like {@link #submit}, for a message replayed by the run {@code replayRun}.
+     */
+    boolean submitReplay(SensorState state, byte kind, byte[] payload, long receivedAt, int replayRun) {
+        return submit(state, kind, payload, receivedAt, replayRun);
+    }
+
+    private boolean submit(SensorState state, byte kind, byte[] payload, long receivedAt, int replayRun) {
+        Worker worker = workers[(state.getSensorId().hashCode() & Integer.MAX_VALUE) % workers.length];
+        MpscRingBuffer<Slot> ring = worker.ring;
+        if (ring.size() >= worker.shedDepth && !overload.admit(OverloadController.Lane.INGEST)) {
+            return false;
+        }
+        long sequence = ring.claim();
+        if (sequence < 0) {
+            sequence = claimBlocking(ring);
+            if (sequence < 0) {
+                rejected.increment();
+                return false;
+            }
+        }
+        Slot slot = ring.slot(sequence);
+        slot.state = state;
+        slot.kind = kind;
+        slot.payload = payload;
+        slot.receivedAt = receivedAt;
+        slot.submittedNanos = System.nanoTime();
+        slot.replayRun = replayRun;
+        ring.publish(sequence);
+        if (worker.waiting) {
+            LockSupport.unpark(worker.thread);
+        }
+        return true;
+    }
+
+    private long claimBlocking(MpscRingBuffer<Slot> ring) {
+        blocked.increment();
+        long deadline = System.nanoTime() + blockTimeoutNanos;
+        long sequence;
+        while ((sequence = ring.claim()) < 0) {
+            if (!running || System.nanoTime() - deadline >= 0) {
+                return -1;
+            }
+            LockSupport.parkNanos(10_000);
+        }
+        return sequence;
+    }
+
+    public int getQueueDepth() {
+        int depth = 0;
+        for (Worker worker : workers) {
+            depth += worker.ring.size();
+        }
+        return depth;
+    }
+
+    public double getSaturation() {
+        double max = 0;
+        for (Worker worker : workers) {
+            max = Math.max(max, (double) worker.ring.size() / worker.ring.capacity());
+        }
+        return max;
+    }
+
+    /**
+     * Sensors whose sequencing state is currently kept, over all workers.
+     */
+    public int getSequencerCount() {
+        int count = 0;
+        for (Worker worker : workers) {
+            count += worker.sequencerCount;
+        }
+        return count;
+    }
+
+    public int getReorderPending() {
+        int pending = 0;
+        for (Worker worker : workers) {
+            pending += worker.reorderPending;
+        }
+        return pending;
+    }
+
+    /**
+     * Longest time a message waited in a worker queue since the previous call,
+     * in nanoseconds. Approximate: a wait recorded while this runs may be lost.
+     */
+    long takeMaxQueueDelayNanos() {
+        long max = 0;
+        for (Worker worker : workers) {
+            max = Math.max(max, worker.maxQueueDelayNanos);
+            worker.maxQueueDelayNanos = 0;
+        }
+        return max;
+    }
+
+    public int getWorkerCount() {
+        return workers.length;
+    }
+
+    /**
+     * Starts ({@code times} not null) or stops recording per-stage processing times.
+     */
+    void setStageTimes(StageTimes times) {
+        this.stageTimes = times;
+    }
+
+    @PreDestroy
+    public void stop() {
+        // Workers finish what is already queued before exiting
+        running = false;
+        for (Worker worker : workers) {
+            if (worker.thread != null) {
+                LockSupport.unpark(worker.thread);
+                try {
+                    worker.thread.join(TimeUnit.SECONDS.toMillis(5));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private void process(Slot slot, Worker worker) {
+        SensorState state = slot.state;
+        WindReading reading = worker.reading;
+        byte[] payload = slot.payload;
+        StageTimes times = stageTimes;
+        long now = System.nanoTime();
+        long queued = now - slot.submittedNanos;
+        if (queued > worker.maxQueueDelayNanos) {
+            worker.maxQueueDelayNanos = queued;
+        }
+        long started = 0;
+        if (times != null) {
+            started = now;
+            times.queued.record(queued);
+        }
+        if (slot.kind == KIND_DATA) {
+            if (!WindPayloadDecoder.decode(payload, reading)) {
+                state.recordDecodeError();
+                decodeErrors.increment();
+                logger.warn("Invalid wind record received for sensor {} ({} bytes)",
+                        state.getSensorId(), payload.length);
+                return;
+            }
+            if (reading.has(WindReading.HAS_TIMESTAMP)) {
+                latencyMetrics.record(WindLatencyMetrics.Stage.ARRIVED, reading.getTimestamp(), slot.receivedAt);
+            }
+        } else {
+            reading.reset();
+            double value = WindPayloadDecoder.decodeScalar(payload);
+            if (Double.isNaN(value)) {
+                state.recordDecodeError();
+                decodeErrors.increment();
+                logger.error("Invalid payload received for sensor {}: {}", state.getSensorId(), new String(payload));
+                return;
+            }
+            if (slot.kind == KIND_SPEED) {
+                reading.setSpeed(value);
+            } else {
+                reading.setDirection(value);
+            }
+        }
+        if (started != 0) {
+            times.decoded.record(System.nanoTime() - started);
+        }
+
+        Map<SensorState, SensorSequencer> sequencers = worker.sequencers;
+        boolean replayed = slot.replayRun != 0;
+        if (replayed) {
+            if (slot.replayRun != worker.replayRun) {
+                worker.startReplayRun(slot.replayRun);
+            }
+            sequencers = worker.replaySequencers;
+        }
+        SensorSequencer sequencer = sequencers.get(state);
+        if (sequencer == null) {
+            sequencer = newSequencer(state);
+            sequencers.put(state, sequencer);
+            worker.updateSequencerCount();
+        }
+        int before = sequencer.getPendingCount();
+        int outcome;
+        try {
+            outcome = sequencer.offer(reading, System.nanoTime());
+        } finally {
+            worker.track(sequencer, before);
+        }
+        switch (outcome) {
+            case SensorSequencer.DUPLICATE -> {
+                duplicates.increment();
+                if (replayed && times != null) {
+                    times.duplicates.increment();
+                }
+            }
+            case SensorSequencer.LATE -> {
+                late.increment();
+                if (replayed && times != null) {
+                    times.late.increment();
+                }
+            }
+            case SensorSequencer.BUFFERED -> reordered.increment();
+            case SensorSequencer.RESET -> resets.increment();
+            default -> {
+            }
+        }
+        if (started != 0) {
+            times.total.record(System.nanoTime() - slot.submittedNanos);
+        }
+    }
+
+    private SensorSequencer newSequencer(SensorState state) {
+        return new SensorSequencer(dedupWindow, reorderMaxPending, reorderMaxDelayNanos, gaps,
+                reading -> deliver(state, reading));
+    }
+
+    private void deliver(SensorState state, WindReading reading) {
+        StageTimes times = stageTimes;
+        long started = times != null ? System.nanoTime() : 0;
+        WindData data = ingestService.ingest(state, reading);
+        if (times != null) {
+            times.ingested.record(System.nanoTime() - started);
+        }
+        latencyMetrics.record(WindLatencyMetrics.Stage.INGESTED, data.getTimestamp());
+        if (logger.isDebugEnabled()) {
+            logger.debug("Wind data received: {}", data);
+        }
+    }
+
+    private static final class Slot {
+        private SensorState state;
+        private byte kind;
+        private byte[] payload;
+        private long receivedAt;
+        private long submittedNanos;
+        private int replayRun;
+    }
+
+    private final class Worker implements Runnable {
+        private final int index;
+        private final MpscRingBuffer<Slot> ring;
+        private final int shedDepth;
+        private final WindReading reading = new WindReading();
+        private final Map<SensorState, SensorSequencer> sequencers = new HashMap<>();
+        private final Map<SensorState, SensorSequencer> replaySequencers = new HashMap<>();
+        // Sequencers with readings held back, the only ones gap expiry has to visit
+        private final Set<SensorSequencer> holding = new HashSet<>();
+        private int replayRun;
+        private volatile int reorderPending;
+        private volatile int sequencerCount;
+        private long nextExpiryCheck;
+        private long nextEvictionCheck;
+        private volatile boolean waiting;
+        private volatile long maxQueueDelayNanos;
+        private Thread thread;
+
+        private Worker(int index, int capacity, int shedDepth) {
+            this.index = index;
+            this.ring = new MpscRingBuffer<>(capacity, Slot::new);
+            this.shedDepth = shedDepth;
+        }
+
+        @Override
+        public void run() {
+            while (running || !ring.isEmpty()) {
+                if (reorderPending > 0) {
+                    expireGaps(false);
+                }
+                evictIdle();
+                Slot slot = ring.peek();
+                if (slot == null) {
+                    idle();
+                    continue;
+                }
+                try {
+                    process(slot, this);
+                } catch (Exception e) {
+                    failures.increment();
+                    logger.error("Failed to ingest message for sensor {}", slot.state.getSensorId(), e);
+                } finally {
+                    slot.state = null;
+                    slot.payload = null;
+                    ring.release();
+                }
+            }
+            if (reorderPending > 0) {
+                expireGaps(true);
+            }
+        }
+
+        // Checked about once a millisecond; on shutdown everything still held is delivered
+        private void expireGaps(boolean flush) {
+            long now = System.nanoTime();
+            if (!flush && now - nextExpiryCheck < 0) {
+                return;
+            }
+            nextExpiryCheck = now + TimeUnit.MILLISECONDS.toNanos(1);
+            int pending = 0;
+            Iterator<SensorSequencer> iterator = holding.iterator();
+            while (iterator.hasNext()) {
+                SensorSequencer sequencer = iterator.next();
+                release(sequencer, now, flush);
+                int left = sequencer.getPendingCount();
+                if (left == 0) {
+                    iterator.remove();
+                }
+                pending += left;
+            }
+            reorderPending = pending;
+        }
+
+        private void track(SensorSequencer sequencer, int pendingBefore) {
+            int pending = sequencer.getPendingCount();
+            reorderPending += pending - pendingBefore;
+            if (pending > 0) {
+                holding.add(sequencer);
+            } else if (pendingBefore > 0) {
+                holding.remove(sequencer);
+            }
+        }
+
+        private void release(SensorSequencer sequencer, long now, boolean flush) {
+            try {
+                if (flush) {
+                    sequencer.flush();
+                } else {
+                    sequencer.expire(now);
+                }
+            } catch (Exception e) {
+                failures.increment();
+                logger.error("Failed to ingest reordered readings", e);
+            }
+        }
+
+        // What the previous run still holds back is delivered before its sequencers go
+        private void startReplayRun(int run) {
+            for (SensorSequencer sequencer : replaySequencers.values()) {
+                int held = sequencer.getPendingCount();
+                if (held > 0) {
+                    release(sequencer, System.nanoTime(), true);
+                    holding.remove(sequencer);
+                    reorderPending -= held;
+                }
+            }
+            replaySequencers.clear();
+            replayRun = run;
+            updateSequencerCount();
+        }
+
+        private void updateSequencerCount() {
+            sequencerCount = sequencers.size() + replaySequencers.size();
+        }
+
+        private void evictIdle() {
+            long now = System.nanoTime();
+            if (now - nextEvictionCheck < 0) {
+                return;
+            }
+            nextEvictionCheck = now + Math.min(EVICTION_CHECK_NANOS, idleEvictionNanos);
+            evictIdle(sequencers, now);
+            evictIdle(replaySequencers, now);
+            updateSequencerCount();
+        }
+
+        private void evictIdle(Map<SensorState, SensorSequencer> sequencers, long now) {
+            Iterator<SensorSequencer> iterator = sequencers.values().iterator();
+            while (iterator.hasNext()) {
+                SensorSequencer sequencer = iterator.next();
+                if (sequencer.getPendingCount() == 0 && now - sequencer.getLastOfferNanos() >= idleEvictionNanos) {
+                    iterator.remove();
+                }
+            }
+        }
+
+        private void idle() {
+            for (int spins = 0; spins < 100; spins++) {
+                if (!ring.isEmpty()) {
+                    return;
+                }
+                Thread.onSpinWait();
+            }
+            // Producers unpark us after publishing while this flag is set
+            waiting = true;
+            if (ring.isEmpty() && running) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            waiting = false;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.example.iot_monitoring;
 import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.context.annotation.Bean;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
@@ -14,9 +15,13 @@ import org.springframework.beans.factory.annotation.Value;
 @EnableScheduling
 @EnableWebSocketMessageBroker
 public class IotMonitoringApplication {
+	private static final int STARTUP_STEPS = 4096;
 
 	public static void main(String[] args) {
-		SpringApplication.run(IotMonitoringApplication.class, args);
+		SpringApplication application = new SpringApplication(IotMonitoringApplication.class);
+		// Startup steps are kept for /actuator/startup
+		application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS));
+		application.run(args);
 	}
 
 	@Bean
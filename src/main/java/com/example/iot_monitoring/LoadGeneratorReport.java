@@ -0,0 +1,104 @@
+package com.example.iot_monitoring;
+
+/**
+ * Outcome of a {@link WindLoadGenerator} run. Latencies are in microseconds,
+ * from the publish call to the broker acknowledgement (socket write for QoS 0).
+ */
+public class LoadGeneratorReport {
+    private final boolean running;
+    private final int sensors;
+    private final double targetRate;
+    private final long sent;
+    private final long acknowledged;
+    private final long failed;
+    private final long late;
+    private final double elapsedSeconds;
+    private final double throughput;
+    private final long latencyP50;
+    private final long latencyP90;
+    private final long latencyP99;
+    private final long latencyP999;
+    private final long latencyMax;
+
+    public LoadGeneratorReport(boolean running, int sensors, double targetRate, long sent, long acknowledged,
+                               long failed, long late, double elapsedSeconds, LatencyHistogram latency) {
+        this.running = running;
+        this.sensors = sensors;
+        this.targetRate = targetRate;
+        this.sent = sent;
+        this.acknowledged = acknowledged;
+        this.failed = failed;
+        this.late = late;
+        this.elapsedSeconds = elapsedSeconds;
+        this.throughput = elapsedSeconds > 0 ? acknowledged / elapsedSeconds : 0.0;
+        this.latencyP50 = latency.getValueAtPercentile(50) / 1000;
+        this.latencyP90 = latency.getValueAtPercentile(90) / 1000;
+        this.latencyP99 = latency.getValueAtPercentile(99) / 1000;
+        this.latencyP999 = latency.getValueAtPercentile(99.9) / 1000;
+        this.latencyMax = latency.getMax() / 1000;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public int getSensors() {
+        return sensors;
+    }
+
+    public double getTargetRate() {
+        return targetRate;
+    }
+
+    public long getSent() {
+        return sent;
+    }
+
+    public long getAcknowledged() {
+        return acknowledged;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public long getLate() {
+        return late;
+    }
+
+    public double getElapsedSeconds() {
+        return elapsedSeconds;
+    }
+
+    public double getThroughput() {
+        return throughput;
+    }
+
+    public long getLatencyP50() {
+        return latencyP50;
+    }
+
+    public long getLatencyP90() {
+        return latencyP90;
+    }
+
+    public long getLatencyP99() {
+        return latencyP99;
+    }
+
+    public long getLatencyP999() {
+        return latencyP999;
+    }
+
+    public long getLatencyMax() {
+        return latencyMax;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("sensors=%d target=%.0f msg/s sent=%d acked=%d failed=%d late=%d elapsed=%.1fs "
+                        + "throughput=%.0f msg/s latency(us) p50=%d p90=%d p99=%d p99.9=%d max=%d",
+                sensors, targetRate, sent, acknowledged, failed, late, elapsedSeconds, throughput,
+                latencyP50, latencyP90, latencyP99, latencyP999, latencyMax);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.iot_monitoring;
+
+/**
+ * Parameters of one {@link WindLoadGenerator} run.
+ */
+public class LoadGeneratorSettings {
+    private int sensors = 1000;
+    private double ratePerSensor = 1.0;
+    private int durationSeconds = 60;
+    private long seed = 42L;
+    private int qos = 0;
+    private int clients = 4;
+    private boolean binary = true;
+    private String sensorPrefix = "load";
+
+    public int getSensors() {
+        return sensors;
+    }
+
+    public void setSensors(int sensors) {
+        this.sensors = sensors;
+    }
+
+    public double getRatePerSensor() {
+        return ratePerSensor;
+    }
+
+    public void setRatePerSensor(double ratePerSensor) {
+        this.ratePerSensor = ratePerSensor;
+    }
+
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public void setDurationSeconds(int durationSeconds) {
+        this.durationSeconds = durationSeconds;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public int getQos() {
+        return qos;
+    }
+
+    public void setQos(int qos) {
+        this.qos = qos;
+    }
+
+    public int getClients() {
+        return clients;
+    }
+
+    public void setClients(int clients) {
+        this.clients = clients;
+    }
+
+    public boolean isBinary() {
+        return binary;
+    }
+
+    public void setBinary(boolean binary) {
+        this.binary = binary;
+    }
+
+    public String getSensorPrefix() {
+        return sensorPrefix;
+    }
+
+    public void setSensorPrefix(String sensorPrefix) {
+        this.sensorPrefix = sensorPrefix;
+    }
+
+    public double getTargetRate() {
+        return sensors * ratePerSensor;
+    }
+
+    public void validate() {
+        if (sensors <= 0 || ratePerSensor <= 0 || durationSeconds <= 0 || clients <= 0) {
+            throw new IllegalArgumentException("sensors, ratePerSensor, durationSeconds and clients must be positive");
+        }
+        if (qos < 0 || qos > 2) {
+            throw new IllegalArgumentException("qos must be 0, 1 or 2");
+        }
+    }
+}
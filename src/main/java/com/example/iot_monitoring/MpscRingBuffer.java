@@ -0,0 +1,93 @@
+package com.example.iot_monitoring;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Bounded lock-free ring of preallocated, reusable slots for many producers and
+ * a single consumer.
+ *
+ * A producer {@link #claim() claims} a sequence with one CAS, fills the slot in
+ * place and {@link #publish(long) publishes} it; the consumer {@link #peek()
+ * peeks} the next published slot, processes it and {@link #release() releases}
+ * it for reuse. Nothing is allocated per message and producers never wait on
+ * each other beyond the CAS.
+ */
+final class MpscRingBuffer<E> {
+    private final Object[] slots;
+    private final AtomicLongArray published;
+    private final int mask;
+    private final int capacity;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    MpscRingBuffer(int requestedCapacity, Supplier<E> factory) {
+        if (requestedCapacity < 2) {
+            throw new IllegalArgumentException("capacity must be at least 2");
+        }
+        this.capacity = Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.mask = capacity - 1;
+        this.slots = new Object[capacity];
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = factory.get();
+            published.set(i, -1);
+        }
+    }
+
+    /**
+     * @return the claimed sequence, or {@code -1} when the ring is full
+     */
+    long claim() {
+        while (true) {
+            long sequence = tail.get();
+            if (sequence - head >= capacity) {
+                return -1;
+            }
+            if (tail.compareAndSet(sequence, sequence + 1)) {
+                return sequence;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    E slot(long sequence) {
+        return (E) slots[(int) sequence & mask];
+    }
+
+    void publish(long sequence) {
+        published.set((int) sequence & mask, sequence);
+    }
+
+    /**
+     * Consumer only: the next published slot, or {@code null} if none is ready yet.
+     */
+    E peek() {
+        long sequence = head;
+        if (published.get((int) sequence & mask) != sequence) {
+            return null;
+        }
+        return slot(sequence);
+    }
+
+    /**
+     * Consumer only: hands the slot returned by {@link #peek()} back to producers.
+     */
+    void release() {
+        head = head + 1;
+    }
+
+    boolean isEmpty() {
+        long sequence = head;
+        return published.get((int) sequence & mask) != sequence;
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    int capacity() {
+        return capacity;
+    }
+}
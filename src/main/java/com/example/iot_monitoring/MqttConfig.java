@@ -11,6 +11,10 @@ public class MqttConfig {
     @Value("${mqtt.broker.url:tcp://localhost:1883}")
     private String brokerUrl;
 
+    // Janela de publicações QoS>0 sem ack por cliente; o spool drena em rajadas
+    @Value("${mqtt.max-inflight:100}")
+    private int maxInflight;
+
     @Bean
     public MqttConnectOptions mqttConnectOptions() {
         if (brokerUrl == null || brokerUrl.trim().isEmpty()) {
@@ -23,6 +27,7 @@ public class MqttConfig {
         options.setCleanSession(true);
         options.setConnectionTimeout(30);
         options.setKeepAliveInterval(60);
+        options.setMaxInflight(maxInflight);
         options.setWill("wind/status", "sensor-offline".getBytes(), 2, true);
         return options;
     }
@@ -0,0 +1,434 @@
+package com.example.iot_monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
+import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
+import org.eclipse.paho.client.mqttv3.IMqttMessageListener;
+import org.eclipse.paho.client.mqttv3.IMqttToken;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttCallbackExtended;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.eclipse.paho.client.mqttv3.MqttTopic;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Owns the application's MQTT clients.
+ *
+ * A small pool of {@link MqttAsyncClient}s ({@code mqtt.pool.size}) is shared by
+ * every producer and consumer: topic filters passed to {@link #subscribe} are
+ * spread round-robin over the clients, so each client's callback thread only
+ * carries its share of the inbound traffic, and {@link #publish} round-robins
+ * over whichever clients are connected.
+ *
+ * Nothing here blocks: {@link #start()} only issues asynchronous connects, and a
+ * failed connect or a lost connection is retried from a virtual-thread scheduler
+ * after an exponential backoff with jitter (half the delay fixed, half random),
+ * so a broker that is down neither hangs startup nor gets hammered by all
+ * clients at the same instant. A client resubscribes its filters on every
+ * (re)connect.
+ *
+ * Connecting is part of the context lifecycle rather than bean construction:
+ * it starts after every bean exists, is skipped by an AppCDS training run
+ * ({@code -Dspring.context.exit=onRefresh}), and is stopped and restarted
+ * around a CRaC checkpoint so no socket is open when the JVM is snapshotted.
+ *
+ * Client ids are {@code mqtt.client.id-<n>}. In cluster mode the node id goes in
+ * between ({@code mqtt.client.id-<node>-<n>}), so nodes started with the same
+ * configuration do not take over each other's sessions on the broker.
+ */
+@Component
+public class MqttConnectionManager implements SmartLifecycle {
+    private static final Logger logger = LoggerFactory.getLogger(MqttConnectionManager.class);
+
+    private final String brokerUrl;
+    private final String clientId;
+    private final MqttConnectOptions template;
+    private final long initialDelayMillis;
+    private final long maxDelayMillis;
+    private final List<Shard> shards = new ArrayList<>();
+    private final AtomicInteger nextShard = new AtomicInteger();
+    private final AtomicInteger nextPublisher = new AtomicInteger();
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("mqtt-reconnect").factory());
+    private final Counter reconnects;
+    private final Counter connectionsLost;
+    private final Counter connectFailures;
+    private final Counter publishFailures;
+    private volatile boolean running;
+
+    public MqttConnectionManager(MqttConnectOptions mqttConnectOptions,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${mqtt.broker.url:tcp://localhost:1883}") String brokerUrl,
+                                 @Value("${mqtt.client.id:wind-monitor-default}") String clientId,
+                                 @Value("${mqtt.pool.size:2}") int poolSize,
+                                 @Value("${mqtt.reconnect.initial-delay-ms:500}") long initialDelayMillis,
+                                 @Value("${mqtt.reconnect.max-delay-ms:30000}") long maxDelayMillis,
+                                 @Value("${wind.cluster.enabled:false}") boolean clusterEnabled,
+                                 @Value("${wind.cluster.node-id:}") String clusterNodeId) {
+        if (poolSize <= 0) {
+            throw new IllegalArgumentException("mqtt.pool.size must be positive");
+        }
+        this.brokerUrl = brokerUrl;
+        this.clientId = clientIdFor(clientId, clusterEnabled, clusterNodeId);
+        this.template = mqttConnectOptions;
+        this.initialDelayMillis = Math.max(1, initialDelayMillis);
+        this.maxDelayMillis = Math.max(this.initialDelayMillis, maxDelayMillis);
+        for (int i = 0; i < poolSize; i++) {
+            Shard shard = new Shard(i);
+            shards.add(shard);
+            Gauge.builder("wind.mqtt.connected", shard, s -> s.isConnected() ? 1 : 0)
+                    .tag("shard", String.valueOf(i))
+                    .register(meterRegistry);
+            Gauge.builder("wind.mqtt.subscriptions", shard, s -> s.activeSubscriptions.get())
+                    .tag("shard", String.valueOf(i))
+                    .register(meterRegistry);
+        }
+        Gauge.builder("wind.mqtt.connections", this, MqttConnectionManager::getConnectedCount)
+                .description("Connected clients of the MQTT pool")
+                .register(meterRegistry);
+        this.reconnects = Counter.builder("wind.mqtt.reconnects").register(meterRegistry);
+        this.connectionsLost = Counter.builder("wind.mqtt.connection_lost").register(meterRegistry);
+        this.connectFailures = Counter.builder("wind.mqtt.connect_failures").register(meterRegistry);
+        this.publishFailures = Counter.builder("wind.mqtt.publish_failures").register(meterRegistry);
+    }
+
+    /**
+     * Base of the pool's client ids; without a configured node id a cluster node
+     * gets a random suffix, as its {@link ClusterCoordinator} gets a random id.
+     */
+    static String clientIdFor(String clientId, boolean clusterEnabled, String clusterNodeId) {
+        if (!clusterEnabled) {
+            return clientId;
+        }
+        String node = clusterNodeId.isBlank() ? UUID.randomUUID().toString().substring(0, 8) : clusterNodeId.trim();
+        return clientId + "-" + node;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        logger.info("Connecting {} MQTT clients to {}", shards.size(), brokerUrl);
+        for (Shard shard : shards) {
+            shard.connect();
+        }
+    }
+
+    /**
+     * Subscribes each filter on one client of the pool; survives reconnects.
+     */
+    public void subscribe(String[] topicFilters, int qos, IMqttMessageListener listener) {
+        for (String filter : topicFilters) {
+            Shard shard = shards.get(Math.floorMod(nextShard.getAndIncrement(), shards.size()));
+            shard.subscribe(new Subscription(filter.trim(), qos, listener));
+        }
+    }
+
+    /**
+     * Publishes through the next connected client.
+     *
+     * @return {@code false} if no client is connected or the publish was refused
+     */
+    public boolean publish(String topic, byte[] payload, int qos, boolean retained) {
+        int start = nextPublisher.getAndIncrement();
+        for (int i = 0; i < shards.size(); i++) {
+            Shard shard = shards.get(Math.floorMod(start + i, shards.size()));
+            if (!shard.isConnected()) {
+                continue;
+            }
+            try {
+                shard.client.publish(topic, payload, qos, retained);
+                return true;
+            } catch (MqttException e) {
+                logger.debug("Publish to {} refused by shard {}: {}", topic, shard.index, e.getMessage());
+            }
+        }
+        publishFailures.increment();
+        return false;
+    }
+
+    public boolean isConnected() {
+        return getConnectedCount() > 0;
+    }
+
+    public int getConnectedCount() {
+        int connected = 0;
+        for (Shard shard : shards) {
+            if (shard.isConnected()) {
+                connected++;
+            }
+        }
+        return connected;
+    }
+
+    public int getPoolSize() {
+        return shards.size();
+    }
+
+    /**
+     * Delay before reconnect attempt {@code attempt} (0-based): half of the capped
+     * exponential delay plus a random share of the other half.
+     */
+    long backoffMillis(int attempt) {
+        long delay = initialDelayMillis << Math.min(attempt, 20);
+        if (delay <= 0 || delay > maxDelayMillis) {
+            delay = maxDelayMillis;
+        }
+        long half = delay / 2;
+        return half + ThreadLocalRandom.current().nextLong(delay - half + 1);
+    }
+
+    /**
+     * Disconnects the pool; {@link #start()} connects it again.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        for (Shard shard : shards) {
+            shard.disconnect();
+        }
+        logger.info("MQTT connection manager stopped");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Connected before, and disconnected after, lifecycle beans at the default
+     * phase such as the {@link ClusterCoordinator}, which still publishes while stopping.
+     */
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 1;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (running) {
+            stop();
+        }
+        scheduler.shutdownNow();
+        for (Shard shard : shards) {
+            shard.close();
+        }
+    }
+
+    private static final class Subscription {
+        final String filter;
+        final int qos;
+        final IMqttMessageListener listener;
+        // For a shared subscription ($share/<group>/<filter>), the filter messages are published under
+        final String sharedFilter;
+
+        Subscription(String filter, int qos, IMqttMessageListener listener) {
+            this.filter = filter;
+            this.qos = qos;
+            this.listener = listener;
+            int groupEnd = filter.startsWith("$share/") ? filter.indexOf('/', "$share/".length()) : -1;
+            this.sharedFilter = groupEnd < 0 ? null : filter.substring(groupEnd + 1);
+        }
+    }
+
+    private final class Shard implements MqttCallbackExtended {
+        final int index;
+        final MqttAsyncClient client;
+        final MqttConnectOptions options;
+        final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+        final AtomicInteger activeSubscriptions = new AtomicInteger();
+        private int attempt;
+        private boolean connecting;
+
+        Shard(int index) {
+            this.index = index;
+            try {
+                this.client = new MqttAsyncClient(brokerUrl, clientId + "-" + index, new MemoryPersistence());
+            } catch (MqttException e) {
+                throw new IllegalStateException("Invalid MQTT broker URL " + brokerUrl, e);
+            }
+            this.client.setCallback(this);
+            this.options = new MqttConnectOptions();
+            options.setCleanSession(template.isCleanSession());
+            options.setConnectionTimeout(template.getConnectionTimeout());
+            options.setKeepAliveInterval(template.getKeepAliveInterval());
+            options.setMaxInflight(template.getMaxInflight());
+            if (template.getUserName() != null) {
+                options.setUserName(template.getUserName());
+                options.setPassword(template.getPassword());
+            }
+            // Reconnects are ours, with backoff; the last will is only set on one client
+            options.setAutomaticReconnect(false);
+            if (index == 0 && template.getWillDestination() != null) {
+                options.setWill(template.getWillDestination(), template.getWillMessage().getPayload(),
+                        template.getWillMessage().getQos(), template.getWillMessage().isRetained());
+            }
+        }
+
+        boolean isConnected() {
+            return client.isConnected();
+        }
+
+        void subscribe(Subscription subscription) {
+            subscriptions.add(subscription);
+            if (isConnected()) {
+                subscribeOnBroker(subscription);
+            }
+        }
+
+        synchronized void connect() {
+            if (!running || connecting || client.isConnected()) {
+                return;
+            }
+            connecting = true;
+            try {
+                client.connect(options, null, new IMqttActionListener() {
+                    @Override
+                    public void onSuccess(IMqttToken token) {
+                        // connectComplete does the rest
+                    }
+
+                    @Override
+                    public void onFailure(IMqttToken token, Throwable exception) {
+                        connectFailures.increment();
+                        logger.debug("MQTT shard {} could not connect: {}", index, exception.getMessage());
+                        retry();
+                    }
+                });
+            } catch (MqttException e) {
+                connectFailures.increment();
+                logger.debug("MQTT shard {} connect refused: {}", index, e.getMessage());
+                retry();
+            }
+        }
+
+        private synchronized void retry() {
+            connecting = false;
+            if (!running) {
+                return;
+            }
+            long delay = backoffMillis(attempt++);
+            if (attempt == 1 || attempt % 10 == 0) {
+                logger.warn("MQTT shard {} not connected to {}, retrying in {} ms (attempt {})",
+                        index, brokerUrl, delay, attempt);
+            }
+            try {
+                scheduler.schedule(this::connect, delay, TimeUnit.MILLISECONDS);
+            } catch (RuntimeException e) {
+                // scheduler already shut down
+            }
+        }
+
+        @Override
+        public void connectComplete(boolean reconnect, String serverURI) {
+            boolean wasRetrying;
+            synchronized (this) {
+                connecting = false;
+                wasRetrying = attempt > 0;
+                attempt = 0;
+            }
+            if (!running) {
+                // Stopped while this connect was in flight
+                try {
+                    client.disconnect();
+                } catch (MqttException e) {
+                    logger.debug("MQTT shard {} did not disconnect cleanly: {}", index, e.getMessage());
+                }
+                return;
+            }
+            if (wasRetrying) {
+                reconnects.increment();
+            }
+            logger.info("MQTT shard {} {} to {}", index, wasRetrying ? "reconnected" : "connected", serverURI);
+            activeSubscriptions.set(0);
+            for (Subscription subscription : subscriptions) {
+                subscribeOnBroker(subscription);
+            }
+        }
+
+        private void subscribeOnBroker(Subscription subscription) {
+            try {
+                client.subscribe(subscription.filter, subscription.qos, null, new IMqttActionListener() {
+                    @Override
+                    public void onSuccess(IMqttToken token) {
+                        activeSubscriptions.incrementAndGet();
+                        logger.info("MQTT shard {} subscribed to {}", index, subscription.filter);
+                    }
+
+                    @Override
+                    public void onFailure(IMqttToken token, Throwable exception) {
+                        logger.error("MQTT shard {} failed to subscribe to {}", index, subscription.filter,
+                                exception);
+                    }
+                }, subscription.listener);
+            } catch (MqttException e) {
+                logger.error("MQTT shard {} failed to subscribe to {}", index, subscription.filter, e);
+            }
+        }
+
+        @Override
+        public void connectionLost(Throwable cause) {
+            logger.warn("MQTT shard {} lost its connection: {}", index, cause.getMessage());
+            connectionsLost.increment();
+            activeSubscriptions.set(0);
+            synchronized (this) {
+                attempt = Math.max(attempt, 1);
+            }
+            retry();
+        }
+
+        @Override
+        public void messageArrived(String topic, MqttMessage message) throws Exception {
+            // Paho hands messages to the per-subscription listeners itself, except for
+            // shared subscriptions, whose $share filter never matches the message topic
+            for (Subscription subscription : subscriptions) {
+                if (subscription.sharedFilter != null && MqttTopic.isMatched(subscription.sharedFilter, topic)) {
+                    subscription.listener.messageArrived(topic, message);
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public void deliveryComplete(IMqttDeliveryToken token) {
+        }
+
+        void disconnect() {
+            activeSubscriptions.set(0);
+            try {
+                if (client.isConnected()) {
+                    client.disconnect(1000).waitForCompletion(2000);
+                }
+            } catch (MqttException e) {
+                logger.debug("MQTT shard {} did not disconnect cleanly: {}", index, e.getMessage());
+            }
+        }
+
+        void close() {
+            try {
+                client.close(true);
+            } catch (MqttException e) {
+                logger.debug("MQTT shard {} close failed: {}", index, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.iot_monitoring;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code mqtt} health: up while at least one client of the pool is connected.
+ * Part of the readiness group; readings published meanwhile are spooled.
+ */
+@Component
+public class MqttHealthIndicator implements HealthIndicator {
+
+    private final MqttConnectionManager connectionManager;
+
+    public MqttHealthIndicator(MqttConnectionManager connectionManager) {
+        this.connectionManager = connectionManager;
+    }
+
+    @Override
+    public Health health() {
+        int connected = connectionManager.getConnectedCount();
+        Health.Builder builder = connected > 0 ? Health.up() : Health.down();
+        return builder.withDetail("connected", connected)
+                .withDetail("poolSize", connectionManager.getPoolSize())
+                .build();
+    }
+}
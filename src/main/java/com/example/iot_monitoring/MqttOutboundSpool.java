@@ -0,0 +1,188 @@
+package com.example.iot_monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Store-and-forward in front of {@link MqttConnectionManager#publish}.
+ *
+ * While the broker is reachable and nothing is spooled, messages are published
+ * directly. Otherwise they are appended to a {@link DiskSpool}, and from then on
+ * every new message queues up behind them so the broker sees them in order. A
+ * drain task replays the spool at {@code mqtt.spool.drain-rate} messages per
+ * second once a client is connected, stopping at the first refused publish
+ * (broker gone again, or the in-flight window full) and retrying on the next tick.
+ */
+@Component
+public class MqttOutboundSpool {
+    private static final Logger logger = LoggerFactory.getLogger(MqttOutboundSpool.class);
+    private static final long DRAIN_TICK_MILLIS = 100;
+
+    private final MqttConnectionManager connectionManager;
+    private final MeterRegistry meterRegistry;
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final int drainPerTick;
+    private final Counter spooled;
+    private final Counter replayed;
+    private final Counter lost;
+    private final ScheduledExecutorService drainer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "mqtt-spool-drain");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile DiskSpool spool;
+
+    public MqttOutboundSpool(MqttConnectionManager connectionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${mqtt.spool.directory:data/mqtt-spool}") String directory,
+                             @Value("${mqtt.spool.segment-size-mb:4}") int segmentSizeMb,
+                             @Value("${mqtt.spool.max-segments:64}") int maxSegments,
+                             @Value("${mqtt.spool.drain-rate:500}") int drainRate) {
+        this.connectionManager = connectionManager;
+        this.meterRegistry = meterRegistry;
+        this.directory = Path.of(directory);
+        this.segmentSize = segmentSizeMb * 1024 * 1024;
+        this.maxSegments = maxSegments;
+        this.drainPerTick = Math.max(1, (int) (drainRate * DRAIN_TICK_MILLIS / 1000));
+        this.spooled = Counter.builder("wind.spool.spooled").tag("sink", "mqtt").register(meterRegistry);
+        this.replayed = Counter.builder("wind.spool.replayed").tag("sink", "mqtt").register(meterRegistry);
+        this.lost = Counter.builder("wind.spool.lost")
+                .description("Messages neither published nor spooled")
+                .tag("sink", "mqtt")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        try {
+            DiskSpool opened = DiskSpool.open(directory, segmentSize, maxSegments);
+            Gauge.builder("wind.spool.pending", opened, DiskSpool::size).tag("sink", "mqtt").register(meterRegistry);
+            FunctionCounter.builder("wind.spool.dropped", opened, DiskSpool::getDropped)
+                    .description("Spooled messages discarded because the spool was full")
+                    .tag("sink", "mqtt")
+                    .register(meterRegistry);
+            if (!opened.isEmpty()) {
+                logger.info("MQTT spool recovered {} messages from {}", opened.size(), directory);
+            }
+            spool = opened;
+        } catch (IOException e) {
+            logger.error("MQTT spool unavailable at {}, messages will be dropped while disconnected", directory, e);
+        }
+        drainer.scheduleWithFixedDelay(this::drain, DRAIN_TICK_MILLIS, DRAIN_TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Publishes now if possible, otherwise spools the message.
+     *
+     * @return {@code true} if the message was handed to the broker connection right away
+     */
+    public boolean publish(String topic, byte[] payload, int qos, boolean retained) {
+        DiskSpool current = spool;
+        if ((current == null || current.isEmpty()) && connectionManager.publish(topic, payload, qos, retained)) {
+            return true;
+        }
+        if (current == null) {
+            lost.increment();
+            return false;
+        }
+        try {
+            if (current.append(encode(topic, payload, qos, retained))) {
+                spooled.increment();
+            } else {
+                lost.increment();
+                logger.warn("Message to {} is too large for the MQTT spool ({} bytes)", topic, payload.length);
+            }
+        } catch (IOException | RuntimeException e) {
+            lost.increment();
+            logger.error("Failed to spool message to {}", topic, e);
+        }
+        return false;
+    }
+
+    public long getPending() {
+        DiskSpool current = spool;
+        return current == null ? 0 : current.size();
+    }
+
+    void drain() {
+        DiskSpool current = spool;
+        if (current == null || current.isEmpty() || !connectionManager.isConnected()) {
+            return;
+        }
+        try {
+            DiskSpool.Batch batch = current.peek(drainPerTick);
+            int sent = 0;
+            for (byte[] record : batch.getRecords()) {
+                ByteBuffer buffer = ByteBuffer.wrap(record);
+                int qos = buffer.get();
+                boolean retained = buffer.get() != 0;
+                byte[] topic = new byte[buffer.getShort() & 0xFFFF];
+                buffer.get(topic);
+                byte[] payload = new byte[buffer.remaining()];
+                buffer.get(payload);
+                if (!connectionManager.publish(new String(topic, StandardCharsets.UTF_8), payload, qos, retained)) {
+                    break;
+                }
+                sent++;
+            }
+            current.ack(batch, sent);
+            replayed.increment(sent);
+            if (sent > 0 && current.isEmpty()) {
+                logger.info("MQTT spool drained");
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to drain MQTT spool", e);
+        }
+    }
+
+    static byte[] encode(String topic, byte[] payload, int qos, boolean retained) {
+        byte[] topicBytes = topic.getBytes(StandardCharsets.UTF_8);
+        if (topicBytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Topic too long");
+        }
+        return ByteBuffer.allocate(4 + topicBytes.length + payload.length)
+                .put((byte) qos)
+                .put((byte) (retained ? 1 : 0))
+                .putShort((short) topicBytes.length)
+                .put(topicBytes)
+                .put(payload)
+                .array();
+    }
+
+    @PreDestroy
+    public void stop() {
+        drainer.shutdownNow();
+        try {
+            // A drain pass still acknowledges what it sent before the spool is closed
+            drainer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        DiskSpool current = spool;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close MQTT spool", e);
+            }
+        }
+    }
+}
@@ -1,175 +1,102 @@
 package com.example.iot_monitoring;
 
-import org.eclipse.paho.client.mqttv3.*;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
-import javax.annotation.PreDestroy;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.nio.charset.StandardCharsets;
 
+/**
+ * Ingest side of MQTT: subscribes the wind topics through the shared
+ * {@link MqttConnectionManager} and hands every message to the {@link IngestPipeline},
+ * or, in cluster mode, to the node owning its sensor (see {@link ClusterCoordinator}).
+ */
 @Service
-public class MqttService implements MqttCallbackExtended {
+public class MqttService {
     private static final Logger logger = LoggerFactory.getLogger(MqttService.class);
 
-    @Value("${mqtt.broker.url:tcp://localhost:1883}")
-    private String brokerUrl;
+    @Value("${mqtt.topics:wind/+/data,wind/+/speed,wind/+/direction,wind/data,wind/speed,wind/direction}")
+    private String[] topics;
 
-    @Value("${mqtt.client.id:wind-monitor-default}")
-    private String clientId;
+    @Autowired
+    private MqttConnectionManager connectionManager;
 
-    @Value("${mqtt.connection.timeout:10}")
-    private int connectionTimeout;
+    @Autowired
+    private MqttOutboundSpool outboundSpool;
 
-    @Value("${mqtt.reconnect.delay:5}")
-    private int reconnectDelay;
+    @Autowired
+    private SensorStateStore stateStore;
 
-    @Value("${mqtt.keepalive.interval:60}")
-    private int keepAliveInterval;
+    @Autowired
+    private IngestPipeline pipeline;
 
-    private MqttAsyncClient mqttClient;
-    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    @Autowired
+    private IngestCapture capture;
 
-    @PostConstruct
-    public void init() {
-        try {
-            logger.info("Initializing MQTT service for wind monitoring");
-            logger.info("Connecting to broker: {} with ClientID: {}", brokerUrl, clientId);
-
-            this.mqttClient = new MqttAsyncClient(brokerUrl, clientId);
-            this.mqttClient.setCallback(this);
-            connectToBroker();
-
-        } catch (MqttException e) {
-            logger.error("Failed to initialize MQTT client", e);
-            scheduleReconnect();
-        }
-    }
+    @Autowired
+    private ClusterCoordinator cluster;
 
-    private void connectToBroker() throws MqttException {
-        MqttConnectOptions options = new MqttConnectOptions();
-        options.setAutomaticReconnect(true);
-        options.setCleanSession(true);
-        options.setConnectionTimeout(connectionTimeout);
-        options.setKeepAliveInterval(keepAliveInterval);
-        options.setWill("wind/status", "sensor-offline".getBytes(), 2, true);
+    @Autowired
+    private MeterRegistry meterRegistry;
 
-        this.mqttClient.connect(options).waitForCompletion();
-        logger.info("Successfully connected to MQTT broker: {}", brokerUrl);
-    }
-
-    @Override
-    public void connectComplete(boolean reconnect, String serverURI) {
-        logger.info("{} to broker", reconnect ? "Reconnected" : "Connected");
-
-        try {
-            subscribeToTopics();
-        } catch (MqttException e) {
-            logger.error("Failed to subscribe to topics", e);
-            scheduleReconnect();
-        }
-    }
+    private Counter messages;
 
-    private void subscribeToTopics() throws MqttException {
-        this.mqttClient.subscribe("wind/speed", 1);
-        this.mqttClient.subscribe("wind/direction", 1);
-        logger.info("Subscribed to topics: wind/speed and wind/direction");
+    @PostConstruct
+    public void init() {
+        messages = Counter.builder("wind.mqtt.messages").register(meterRegistry);
+        // Subscriptions are (re)established by the connection manager whenever a client connects
+        String[] filters = cluster.ingestFilters(topics);
+        connectionManager.subscribe(filters, 1, this::messageArrived);
+        logger.info("Wind topics registered for subscription: {}", String.join(", ", filters));
     }
 
-    @Override
     public void messageArrived(String topic, MqttMessage message) {
-        String payload = new String(message.getPayload());
-        logger.debug("Received message - Topic: {} | Payload: {}", topic, payload);
-
-        try {
-            double value = Double.parseDouble(payload);
-            if (topic.equals("wind/speed")) {
-                logger.info("Wind speed updated: {} km/h", value);
-                // Process wind speed data
-            } else if (topic.equals("wind/direction")) {
-                logger.info("Wind direction updated: {} degrees", value);
-                // Process wind direction data
-            }
-        } catch (NumberFormatException e) {
-            logger.error("Invalid payload received on topic {}: {}", topic, payload);
+        // Runs on Paho's callback thread: classify, route and return, the workers do the rest
+        messages.increment();
+        long now = System.currentTimeMillis();
+        capture.record(topic, message.getPayload(), now);
+        byte kind = kindOf(topic);
+        if (kind < 0) {
+            logger.debug("Ignoring message on unsupported topic {}", topic);
+            return;
         }
+        if (cluster.isEnabled() && !cluster.route(stateStore.sensorIdOf(topic), topic, message.getPayload())) {
+            return;
+        }
+        pipeline.submit(stateStore.resolve(topic), kind, message.getPayload(), now);
     }
 
-    @Override
-    public void connectionLost(Throwable cause) {
-        logger.warn("MQTT connection lost: {}", cause.getMessage());
-        scheduleReconnect();
-    }
-
-    private void scheduleReconnect() {
-        scheduler.schedule(() -> {
-            try {
-                if (mqttClient != null && !mqttClient.isConnected()) {
-                    logger.info("Attempting to reconnect to MQTT broker...");
-                    mqttClient.reconnect();
-                }
-            } catch (MqttException e) {
-                logger.error("Reconnection attempt failed: {}", e.getMessage());
-                scheduleReconnect();
-            }
-        }, reconnectDelay, TimeUnit.SECONDS);
-    }
-
-    public void publishMessage(String topic, String payload, int qos, boolean retained) {
-        try {
-            if (mqttClient == null || !mqttClient.isConnected()) {
-                logger.warn("MQTT client not connected, attempting to reconnect...");
-                connectToBroker();
-            }
-
-            MqttMessage message = new MqttMessage(payload.getBytes());
-            message.setQos(qos);
-            message.setRetained(retained);
-
-            mqttClient.publish(topic, message);
-            logger.debug("Message published to topic: {}", topic);
-
-        } catch (MqttException e) {
-            logger.error("Failed to publish message to topic {}", topic, e);
-            scheduleReconnect();
+    /**
+     * The {@link IngestPipeline} kind for a wind topic, or -1 if the topic is not one.
+     */
+    static byte kindOf(String topic) {
+        if (topic.endsWith("/data")) {
+            return IngestPipeline.KIND_DATA;
+        } else if (topic.endsWith("/speed")) {
+            return IngestPipeline.KIND_SPEED;
+        } else if (topic.endsWith("/direction")) {
+            return IngestPipeline.KIND_DIRECTION;
         }
+        return -1;
     }
 
-    @Override
-    public void deliveryComplete(IMqttDeliveryToken token) {
-        try {
-            if (token != null) {
-                logger.debug("Message delivery confirmed for message ID: {}", token.getMessageId());
-                if (token.getException() != null) {
-                    logger.warn("Delivery exception: {}", token.getException().getMessage());
-                }
-            }
-        } catch (Exception e) {
-            logger.error("Error processing delivery confirmation", e);
-        }
+    public boolean isConnected() {
+        return connectionManager.isConnected();
     }
 
-    @PreDestroy
-    public void cleanup() {
-        try {
-            if (mqttClient != null) {
-                if (mqttClient.isConnected()) {
-                    mqttClient.disconnect();
-                    logger.info("Disconnected from MQTT broker");
-                }
-                mqttClient.close();
-            }
-            scheduler.shutdownNow();
-            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                logger.warn("Scheduler did not terminate gracefully");
-            }
-            logger.info("MQTT service shutdown complete");
-        } catch (Exception e) {
-            logger.error("Error during cleanup", e);
+    /**
+     * Publishes through the outbound spool: while the broker is unreachable the
+     * message is kept on disk and sent once a client reconnects.
+     */
+    public void publishMessage(String topic, String payload, int qos, boolean retained) {
+        if (!outboundSpool.publish(topic, payload.getBytes(StandardCharsets.UTF_8), qos, retained)) {
+            logger.debug("MQTT not connected, message to {} spooled", topic);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,219 @@
+package com.example.iot_monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adaptive load shedding for the ingest path.
+ *
+ * Every {@code wind.overload.sample-interval-ms} the controller looks at the
+ * {@link IngestPipeline}: how long the oldest messages waited in a worker
+ * queue since the last sample, and how full the fullest queue is. From those it
+ * derives a {@link Level}. Work is split into {@link Lane}s, each shed from a
+ * configured level on: per-reading WebSocket pushes go first and, at
+ * {@link Level#CRITICAL}, new messages arriving at a queue that is already past
+ * {@code elevated-saturation} (so queues, and with them latency, stop growing).
+ * A message shed at ingest is lost entirely: its reading never reaches state,
+ * history, persistence or anomaly detection, so it cannot raise an alert.
+ * Readings that are admitted always update state, history, rollups and fleet
+ * aggregates, are checked for anomalies and are handed to the
+ * {@link WindBatchWriter}, whose own overflow policy and disk spool deal with a
+ * slow repository; snapshots keep being sent.
+ *
+ * The level rises as soon as a threshold is crossed, but only falls one step
+ * at a time, once both signals have stayed below half of that level's
+ * thresholds for {@code cooldown-ms}, so it does not flap at the boundary.
+ * {@link #admit} is a volatile read on the hot path.
+ */
+@Component
+public class OverloadController {
+    private static final Logger logger = LoggerFactory.getLogger(OverloadController.class);
+
+    public enum Level {
+        NORMAL, ELEVATED, CRITICAL
+    }
+
+    public enum Lane {
+        /** Per-reading WebSocket pushes; clients still get the periodic snapshot. */
+        PUSH,
+        /** Admission of new messages into a worker queue that is past {@code elevated-saturation}. */
+        INGEST;
+
+        String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final boolean enabled;
+    private final long targetLatencyNanos;
+    private final long criticalLatencyNanos;
+    private final double elevatedSaturation;
+    private final double criticalSaturation;
+    private final long cooldownNanos;
+    private final Level[] shedAtByLane = new Level[Lane.values().length];
+    private final Counter[] shedByLane = new Counter[Lane.values().length];
+    private volatile IngestPipeline pipeline;
+    private volatile Level level = Level.NORMAL;
+    private long calmSince = -1;
+
+    public OverloadController(MeterRegistry meterRegistry,
+                              @Value("${wind.overload.enabled:true}") boolean enabled,
+                              @Value("${wind.overload.target-latency-ms:50}") long targetLatencyMillis,
+                              @Value("${wind.overload.critical-latency-ms:200}") long criticalLatencyMillis,
+                              @Value("${wind.overload.elevated-saturation:0.5}") double elevatedSaturation,
+                              @Value("${wind.overload.critical-saturation:0.8}") double criticalSaturation,
+                              @Value("${wind.overload.cooldown-ms:2000}") long cooldownMillis,
+                              @Value("${wind.overload.push.shed-at:elevated}") String pushShedAt,
+                              @Value("${wind.overload.ingest.shed-at:critical}") String ingestShedAt) {
+        if (!(elevatedSaturation > 0 && elevatedSaturation <= criticalSaturation && criticalSaturation <= 1)) {
+            throw new IllegalArgumentException(
+                    "wind.overload saturations must satisfy 0 < elevated <= critical <= 1");
+        }
+        if (targetLatencyMillis <= 0 || criticalLatencyMillis < targetLatencyMillis) {
+            throw new IllegalArgumentException(
+                    "wind.overload latencies must satisfy 0 < target-latency-ms <= critical-latency-ms");
+        }
+        this.enabled = enabled;
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis);
+        this.criticalLatencyNanos = TimeUnit.MILLISECONDS.toNanos(criticalLatencyMillis);
+        this.elevatedSaturation = elevatedSaturation;
+        this.criticalSaturation = criticalSaturation;
+        this.cooldownNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, cooldownMillis));
+        shedAtByLane[Lane.PUSH.ordinal()] = parseLevel("push", pushShedAt);
+        shedAtByLane[Lane.INGEST.ordinal()] = parseLevel("ingest", ingestShedAt);
+        for (Lane lane : Lane.values()) {
+            shedByLane[lane.ordinal()] = Counter.builder("wind.overload.shed")
+                    .description("Work dropped by the overload controller")
+                    .tag("lane", lane.tag())
+                    .register(meterRegistry);
+        }
+        Gauge.builder("wind.overload.level", this, c -> c.getLevel().ordinal())
+                .description("Overload level: 0 normal, 1 elevated, 2 critical")
+                .register(meterRegistry);
+    }
+
+    /**
+     * {@code never} or a {@link Level} name other than {@code normal}; {@code null} means never.
+     */
+    static Level parseLevel(String lane, String value) {
+        String name = value.trim().toUpperCase(Locale.ROOT);
+        if (name.equals("NEVER")) {
+            return null;
+        }
+        try {
+            Level level = Level.valueOf(name);
+            if (level != Level.NORMAL) {
+                return level;
+            }
+        } catch (IllegalArgumentException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException(
+                "wind.overload." + lane + ".shed-at must be elevated, critical or never: " + value);
+    }
+
+    /**
+     * Called by the pipeline this controller samples.
+     */
+    void monitor(IngestPipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    /**
+     * Whether work in {@code lane} may proceed at the current level; if not, it is counted as shed.
+     */
+    public boolean admit(Lane lane) {
+        Level threshold = shedAtByLane[lane.ordinal()];
+        if (threshold == null || level.compareTo(threshold) < 0) {
+            return true;
+        }
+        shedByLane[lane.ordinal()].increment();
+        return false;
+    }
+
+    @Scheduled(fixedDelayString = "${wind.overload.sample-interval-ms:100}")
+    public void sample() {
+        IngestPipeline current = pipeline;
+        if (current != null) {
+            update(current.getSaturation(), current.takeMaxQueueDelayNanos(), System.nanoTime());
+        }
+    }
+
+    /**
+     * Moves the level given the fullest queue's fill ratio and the longest queue
+     * wait since the previous sample.
+     */
+    synchronized void update(double saturation, long queueDelayNanos, long now) {
+        if (!enabled) {
+            return;
+        }
+        Level target;
+        if (saturation >= criticalSaturation || queueDelayNanos >= criticalLatencyNanos) {
+            target = Level.CRITICAL;
+        } else if (saturation >= elevatedSaturation || queueDelayNanos >= targetLatencyNanos) {
+            target = Level.ELEVATED;
+        } else {
+            target = Level.NORMAL;
+        }
+        Level previous = level;
+        if (target.compareTo(previous) > 0) {
+            calmSince = -1;
+            setLevel(previous, target, saturation, queueDelayNanos);
+            return;
+        }
+        if (previous == Level.NORMAL || !belowExitThresholds(previous, saturation, queueDelayNanos)) {
+            calmSince = -1;
+            return;
+        }
+        if (calmSince < 0) {
+            calmSince = now;
+        }
+        if (now - calmSince >= cooldownNanos) {
+            calmSince = -1;
+            setLevel(previous, Level.values()[previous.ordinal() - 1], saturation, queueDelayNanos);
+        }
+    }
+
+    private boolean belowExitThresholds(Level current, double saturation, long queueDelayNanos) {
+        if (current == Level.CRITICAL) {
+            return saturation < criticalSaturation / 2 && queueDelayNanos < criticalLatencyNanos / 2;
+        }
+        return saturation < elevatedSaturation / 2 && queueDelayNanos < targetLatencyNanos / 2;
+    }
+
+    private void setLevel(Level previous, Level next, double saturation, long queueDelayNanos) {
+        level = next;
+        String message = "Overload level {} -> {} (queue saturation {}, queue delay {} ms)";
+        Object[] arguments = {previous, next, String.format(Locale.ROOT, "%.2f", saturation),
+                TimeUnit.NANOSECONDS.toMillis(queueDelayNanos)};
+        if (next.compareTo(previous) > 0) {
+            logger.warn(message, arguments);
+        } else {
+            logger.info(message, arguments);
+        }
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * Fill ratio above which {@link Lane#INGEST} applies to a worker queue.
+     */
+    double getElevatedSaturation() {
+        return elevatedSaturation;
+    }
+
+    public long getShed(Lane lane) {
+        return (long) shedByLane[lane.ordinal()].count();
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.iot_monitoring;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a {@link WindReplayer} run. Stage latencies are in microseconds,
+ * measured inside this process from the replayer's submit call, so they do
+ * not depend on the (old) timestamps in the replayed readings. Throughput
+ * counts the readings that reached ingestion, not the submitted messages.
+ */
+public class ReplayReport {
+    private final boolean running;
+    private final String file;
+    private final double speed;
+    private final long read;
+    private final long submitted;
+    private final long rejected;
+    private final long skipped;
+    private final long ingested;
+    private final long duplicates;
+    private final long late;
+    private final boolean truncated;
+    private final double capturedSeconds;
+    private final double elapsedSeconds;
+    private final double throughput;
+    private final List<StageLatency> stages;
+
+    ReplayReport(boolean running, String file, double speed, long read, long submitted, long rejected,
+                 long skipped, boolean truncated, double capturedSeconds, double elapsedSeconds,
+                 IngestPipeline.StageTimes times) {
+        this.running = running;
+        this.file = file;
+        this.speed = speed;
+        this.read = read;
+        this.submitted = submitted;
+        this.rejected = rejected;
+        this.skipped = skipped;
+        this.ingested = times.ingested.getCount();
+        this.duplicates = times.duplicates.sum();
+        this.late = times.late.sum();
+        this.truncated = truncated;
+        this.capturedSeconds = capturedSeconds;
+        this.elapsedSeconds = elapsedSeconds;
+        this.throughput = elapsedSeconds > 0 ? ingested / elapsedSeconds : 0.0;
+        List<StageLatency> list = new ArrayList<>(4);
+        list.add(new StageLatency("queued", times.queued));
+        list.add(new StageLatency("decoded", times.decoded));
+        list.add(new StageLatency("ingested", times.ingested));
+        list.add(new StageLatency("total", times.total));
+        this.stages = List.copyOf(list);
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    /**
+     * Replay speed relative to the capture; 0 means as fast as the pipeline accepts.
+     */
+    public double getSpeed() {
+        return speed;
+    }
+
+    public long getRead() {
+        return read;
+    }
+
+    public long getSubmitted() {
+        return submitted;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public long getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * Readings handed to {@link WindIngestService}.
+     */
+    public long getIngested() {
+        return ingested;
+    }
+
+    /**
+     * Readings dropped as redeliveries of one already replayed in this run.
+     */
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * Readings dropped because the reorder window had already moved past them.
+     */
+    public long getLate() {
+        return late;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    public double getCapturedSeconds() {
+        return capturedSeconds;
+    }
+
+    public double getElapsedSeconds() {
+        return elapsedSeconds;
+    }
+
+    public double getThroughput() {
+        return throughput;
+    }
+
+    public List<StageLatency> getStages() {
+        return stages;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(String.format(
+                "file=%s speed=%s read=%d submitted=%d rejected=%d skipped=%d ingested=%d duplicates=%d late=%d "
+                        + "captured=%.1fs elapsed=%.1fs throughput=%.0f readings/s",
+                file, speed == 0 ? "max" : speed + "x", read, submitted, rejected, skipped, ingested, duplicates,
+                late, capturedSeconds, elapsedSeconds, throughput));
+        for (StageLatency stage : stages) {
+            text.append(String.format(" %s(us) p50=%d p99=%d max=%d",
+                    stage.getName(), stage.getP50(), stage.getP99(), stage.getMax()));
+        }
+        return text.toString();
+    }
+
+    public static class StageLatency {
+        private final String name;
+        private final long count;
+        private final long p50;
+        private final long p90;
+        private final long p99;
+        private final long max;
+
+        StageLatency(String name, LatencyHistogram histogram) {
+            this.name = name;
+            this.count = histogram.getCount();
+            this.p50 = histogram.getValueAtPercentile(50) / 1000;
+            this.p90 = histogram.getValueAtPercentile(90) / 1000;
+            this.p99 = histogram.getValueAtPercentile(99) / 1000;
+            this.max = histogram.getMax() / 1000;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getP50() {
+            return p50;
+        }
+
+        public long getP90() {
+            return p90;
+        }
+
+        public long getP99() {
+            return p99;
+        }
+
+        public long getMax() {
+            return max;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.iot_monitoring;
+
+/**
+ * Bucket widths kept incrementally by {@link WindHistoryBuffer}.
+ */
+public enum RollupResolution {
+    SECOND("1s", 1_000L),
+    MINUTE("1m", 60_000L),
+    HOUR("1h", 3_600_000L);
+
+    private final String label;
+    private final long millis;
+
+    RollupResolution(String label, long millis) {
+        this.label = label;
+        this.millis = millis;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    public static RollupResolution parse(String value) {
+        for (RollupResolution resolution : values()) {
+            if (resolution.label.equalsIgnoreCase(value) || resolution.name().equalsIgnoreCase(value)) {
+                return resolution;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported resolution: " + value + " (expected 1s, 1m or 1h)");
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.iot_monitoring;
+
+/**
+ * Decides which of one sensor's readings go on to one sink.
+ *
+ * Checks, in order, against the reading timestamps:
+ * <ul>
+ *     <li>heartbeat: a reading {@code maxIntervalMillis} or more after the last
+ *     one sent always passes, so a steady sensor is still seen as alive;</li>
+ *     <li>decimation: a reading less than the current interval after the last
+ *     one sent is dropped;</li>
+ *     <li>deadband: otherwise a reading passes only if its speed or direction
+ *     moved more than the deadband away from the last value sent, so the
+ *     sink's view never drifts further than that from the sensor's.</li>
+ * </ul>
+ * With adaptive sampling the interval starts at {@code minIntervalMillis} and
+ * doubles after every reading the deadband holds back, up to
+ * {@code maxIntervalMillis} (or 64 times the minimum); the first reading that
+ * moves brings it straight back to the minimum. A quiet sensor is then sampled
+ * rarely and a gusty one at full rate.
+ *
+ * A zero setting disables that check. Thread-safe, though each instance is
+ * normally driven by one ingest worker.
+ */
+final class SampleFilter {
+    private static final int ADAPTIVE_MAX_FACTOR = 64;
+
+    /**
+     * Filter settings for one sink and sensor; immutable.
+     */
+    static final class Settings {
+        static final Settings PASS_ALL = new Settings(0, 0, 0, 0, false);
+
+        final double deadbandSpeed;
+        final double deadbandDirection;
+        final long minIntervalMillis;
+        final long maxIntervalMillis;
+        final boolean adaptive;
+
+        Settings(double deadbandSpeed, double deadbandDirection, long minIntervalMillis, long maxIntervalMillis,
+                 boolean adaptive) {
+            if (deadbandSpeed < 0 || deadbandDirection < 0 || minIntervalMillis < 0 || maxIntervalMillis < 0) {
+                throw new IllegalArgumentException("Filter settings must not be negative");
+            }
+            if (maxIntervalMillis > 0 && maxIntervalMillis < minIntervalMillis) {
+                throw new IllegalArgumentException("max-interval-ms must not be below min-interval-ms");
+            }
+            if (adaptive && minIntervalMillis == 0) {
+                throw new IllegalArgumentException("Adaptive sampling needs a positive min-interval-ms");
+            }
+            this.deadbandSpeed = deadbandSpeed;
+            this.deadbandDirection = deadbandDirection;
+            this.minIntervalMillis = minIntervalMillis;
+            this.maxIntervalMillis = maxIntervalMillis;
+            this.adaptive = adaptive;
+        }
+
+        boolean passesAll() {
+            return deadbandSpeed == 0 && deadbandDirection == 0 && minIntervalMillis == 0;
+        }
+
+        private long adaptiveCeiling() {
+            return maxIntervalMillis > 0 ? maxIntervalMillis : minIntervalMillis * ADAPTIVE_MAX_FACTOR;
+        }
+    }
+
+    private final Settings settings;
+    private boolean started;
+    private long lastTimestamp;
+    private double lastSpeed;
+    private double lastDirection;
+    private long interval;
+
+    SampleFilter(Settings settings) {
+        this.settings = settings;
+        this.interval = settings.minIntervalMillis;
+    }
+
+    /**
+     * @return {@code true} if the reading should be sent; it then becomes the new reference
+     */
+    synchronized boolean accept(long timestamp, double speed, double direction) {
+        if (started) {
+            long elapsed = Math.max(0, timestamp - lastTimestamp);
+            boolean heartbeat = settings.maxIntervalMillis > 0 && elapsed >= settings.maxIntervalMillis;
+            if (!heartbeat && elapsed < interval) {
+                return false;
+            }
+            if (moved(speed, direction)) {
+                interval = settings.minIntervalMillis;
+            } else if (!heartbeat) {
+                if (settings.adaptive) {
+                    interval = Math.min(interval * 2, settings.adaptiveCeiling());
+                }
+                return false;
+            }
+        }
+        started = true;
+        lastTimestamp = timestamp;
+        lastSpeed = speed;
+        lastDirection = direction;
+        return true;
+    }
+
+    Settings getSettings() {
+        return settings;
+    }
+
+    synchronized long getInterval() {
+        return interval;
+    }
+
+    private boolean moved(double speed, double direction) {
+        if (settings.deadbandSpeed == 0 && settings.deadbandDirection == 0) {
+            return true;
+        }
+        if (settings.deadbandSpeed > 0 && Math.abs(speed - lastSpeed) > settings.deadbandSpeed) {
+            return true;
+        }
+        return settings.deadbandDirection > 0 && angularDistance(direction, lastDirection) > settings.deadbandDirection;
+    }
+
+    // Shortest way round the compass, so 359° and 1° are 2° apart
+    static double angularDistance(double a, double b) {
+        double difference = Math.abs(a - b) % 360.0;
+        return difference > 180.0 ? 360.0 - difference : difference;
+    }
+}
@@ -0,0 +1,421 @@
+package com.example.iot_monitoring;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+/**
+ * Local, append-only repository backed by memory-mapped segment files.
+ *
+ * Readings are appended as fixed-size records (see {@link WindLogSegment}) to the
+ * active segment; when it is full a new one is mapped and the old one becomes
+ * read-only. Sensor ids are stored once in {@code sensors.dict} and referenced
+ * from records by their line number. On startup every segment is re-scanned:
+ * records are validated by checksum, the sparse block index is rebuilt and the
+ * writer resumes after the last complete record, so a crash loses at most the
+ * record that was being written. Pages are forced to disk every
+ * {@code fsync-interval-ms}.
+ *
+ * Closed time ranges of {@code archive.range-minutes} are rolled into the cold
+ * archive ({@link WindArchiveFile}, a few bytes per reading instead of 32)
+ * once {@code archive.grace-minutes} have passed after their end. Range queries
+ * read the archive below the archived watermark and the segments above it, so a
+ * reading is never returned twice; one that arrives for a range already
+ * archived is kept in the log but no longer shows up in queries. The readings
+ * of one range are collected in memory before encoding, which bounds how long a
+ * range can be for a given ingest rate.
+ *
+ * Once every record of a closed segment lies below the watermark the segment
+ * is deleted, so the archive replaces the log for old data rather than adding
+ * to it. {@code max-segments} only ever deletes segments the archive already
+ * covers while archiving is on; until then the log may grow past the cap.
+ */
+@Component
+@ConditionalOnProperty(name = "wind.persistence.repository", havingValue = "local")
+public class SegmentLogWindDataRepository implements WindDataRepository {
+    private static final Logger logger = LoggerFactory.getLogger(SegmentLogWindDataRepository.class);
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String DICTIONARY_FILE = "sensors.dict";
+    private static final String ARCHIVE_DIRECTORY = "archive";
+
+    private final Path directory;
+    private final int segmentRecords;
+    private final int maxSegments;
+    private final Path archiveDirectory;
+    private final long archiveRangeMillis;
+    private final long archiveGraceMillis;
+
+    private final CopyOnWriteArrayList<WindLogSegment> segments = new CopyOnWriteArrayList<>();
+    private final Map<String, Integer> sensorKeys = new ConcurrentHashMap<>();
+    private final List<String> sensorNames = new ArrayList<>();
+    private final CopyOnWriteArrayList<WindArchiveFile> archives = new CopyOnWriteArrayList<>();
+    private final Object archiveLock = new Object();
+    private volatile long archivedUntil = Long.MIN_VALUE;
+    private WindLogSegment active;
+
+    public SegmentLogWindDataRepository(@Value("${wind.persistence.local.directory:data/wind-log}") String directory,
+                                        @Value("${wind.persistence.local.segment-size-mb:64}") int segmentSizeMb,
+                                        @Value("${wind.persistence.local.max-segments:0}") int maxSegments,
+                                        @Value("${wind.persistence.local.archive.range-minutes:60}") long archiveRangeMinutes,
+                                        @Value("${wind.persistence.local.archive.grace-minutes:10}") long archiveGraceMinutes) {
+        this.directory = Paths.get(directory);
+        this.segmentRecords = (int) Math.min(Integer.MAX_VALUE / WindLogSegment.RECORD_SIZE,
+                (long) segmentSizeMb * 1024 * 1024 / WindLogSegment.RECORD_SIZE);
+        this.maxSegments = maxSegments;
+        this.archiveDirectory = this.directory.resolve(ARCHIVE_DIRECTORY);
+        this.archiveRangeMillis = archiveRangeMinutes * 60_000L;
+        this.archiveGraceMillis = archiveGraceMinutes * 60_000L;
+        // Offsets within a range are sorted as 32-bit values
+        if (archiveRangeMillis > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("wind.persistence.local.archive.range-minutes is too large");
+        }
+    }
+
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        Files.createDirectories(directory);
+        loadDictionary();
+
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(p -> p.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted(Comparator.comparing(p -> p.getFileName().toString()))
+                    .toList();
+        }
+        long records = 0;
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            long sequence = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+            WindLogSegment segment = WindLogSegment.open(file, sequence, segmentRecords);
+            segments.add(segment);
+            records += segment.getCount();
+        }
+        if (segments.isEmpty()) {
+            segments.add(WindLogSegment.open(segmentPath(1), 1, segmentRecords));
+        }
+        active = segments.get(segments.size() - 1);
+        loadArchives();
+        dropArchivedSegments();
+        logger.info("Local wind log opened at {}: {} segments, {} records recovered, {} archive files",
+                directory.toAbsolutePath(), segments.size(), records, archives.size());
+    }
+
+    private void loadArchives() throws IOException {
+        if (!Files.isDirectory(archiveDirectory)) {
+            return;
+        }
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(archiveDirectory)) {
+            files = listing.filter(p -> p.getFileName().toString().endsWith(WindArchiveFile.SUFFIX))
+                    .sorted(Comparator.comparing(p -> p.getFileName().toString()))
+                    .toList();
+        }
+        for (Path file : files) {
+            try {
+                WindArchiveFile archive = WindArchiveFile.open(file);
+                archives.add(archive);
+                archivedUntil = Math.max(archivedUntil, archive.getRangeEnd());
+            } catch (IOException e) {
+                logger.error("Ignoring unreadable wind archive file {}", file, e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized CompletableFuture<Void> write(List<WindData> batch) {
+        try {
+            for (WindData data : batch) {
+                int key = keyFor(data.getSensorId());
+                if (!active.append(data.getTimestamp(), key, data.getSpeed(), data.getDirection())) {
+                    roll();
+                    active.append(data.getTimestamp(), key, data.getSpeed(), data.getDirection());
+                }
+            }
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException | UncheckedIOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<List<WindData>> findRange(String sensorId, long from, long to) {
+        List<WindData> readings = new ArrayList<>();
+        Integer key = sensorKeys.get(sensorId);
+        if (key != null) {
+            WindLogSegment.RecordVisitor collector = (timestamp, speed, direction) ->
+                    readings.add(new WindData(sensorId, speed, direction, timestamp));
+            // Below the watermark the archive is authoritative, above it the segments
+            long boundary = archivedUntil;
+            if (from < boundary) {
+                long archiveTo = Math.min(to, boundary - 1);
+                for (WindArchiveFile archive : archives) {
+                    if (archive.overlaps(from, archiveTo)) {
+                        archive.scan(key, from, archiveTo, collector);
+                    }
+                }
+            }
+            long segmentFrom = Math.max(from, boundary);
+            for (WindLogSegment segment : segments) {
+                if (segmentFrom <= to && segment.overlaps(segmentFrom, to)) {
+                    segment.scan(key, segmentFrom, to, collector);
+                }
+            }
+            readings.sort(Comparator.comparingLong(WindData::getTimestamp));
+        }
+        return CompletableFuture.completedFuture(readings);
+    }
+
+    @Scheduled(fixedDelayString = "${wind.persistence.local.archive.check-interval-ms:60000}")
+    public void archive() {
+        try {
+            archive(System.currentTimeMillis());
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to archive wind log range", e);
+        }
+    }
+
+    /**
+     * Archives every range that closed at least the grace period before {@code now}.
+     *
+     * @return the number of archive files written
+     */
+    int archive(long now) throws IOException {
+        if (archiveRangeMillis <= 0) {
+            return 0;
+        }
+        synchronized (archiveLock) {
+            int written = archiveRanges(now);
+            dropArchivedSegments();
+            return written;
+        }
+    }
+
+    private int archiveRanges(long now) throws IOException {
+        int written = 0;
+        while (true) {
+            long start = archivedUntil;
+            // Skip ahead over ranges without readings
+            long first = firstTimestampFrom(start);
+            if (first == Long.MAX_VALUE) {
+                return written;
+            }
+            if (first >= start + archiveRangeMillis || start == Long.MIN_VALUE) {
+                start = Math.floorDiv(first, archiveRangeMillis) * archiveRangeMillis;
+            }
+            long end = start + archiveRangeMillis;
+            if (end + archiveGraceMillis > now) {
+                return written;
+            }
+            if (archiveRange(start, end)) {
+                written++;
+            }
+            archivedUntil = end;
+        }
+    }
+
+    /**
+     * Deletes the closed segments whose records all lie below the archived watermark.
+     */
+    private synchronized void dropArchivedSegments() throws IOException {
+        long boundary = archivedUntil;
+        for (WindLogSegment segment : segments) {
+            if (segment != active && segment.getMaxTimestamp() < boundary) {
+                segments.remove(segment);
+                segment.close();
+                Files.deleteIfExists(segment.getPath());
+                logger.info("Deleted wind log segment {}, its readings are archived", segment.getPath().getFileName());
+            }
+        }
+    }
+
+    private long firstTimestampFrom(long from) {
+        long first = Long.MAX_VALUE;
+        for (WindLogSegment segment : segments) {
+            first = Math.min(first, segment.firstTimestampFrom(from));
+        }
+        return first;
+    }
+
+    private boolean archiveRange(long start, long end) throws IOException {
+        Map<Integer, SeriesBuilder> bySensor = new TreeMap<>();
+        for (WindLogSegment segment : segments) {
+            if (segment.overlaps(start, end - 1)) {
+                segment.scanAll(start, end - 1, (key, timestamp, speed, direction) ->
+                        bySensor.computeIfAbsent(key, SeriesBuilder::new).add(timestamp, speed, direction));
+            }
+        }
+        if (bySensor.isEmpty()) {
+            return false;
+        }
+        List<WindArchiveFile.Series> series = new ArrayList<>(bySensor.size());
+        long readings = 0;
+        for (SeriesBuilder builder : bySensor.values()) {
+            series.add(builder.build(start));
+            readings += builder.count;
+        }
+        Files.createDirectories(archiveDirectory);
+        Path file = archiveDirectory.resolve(String.format("%020d%s", start, WindArchiveFile.SUFFIX));
+        WindArchiveFile archive = WindArchiveFile.write(file, start, end, series);
+        archives.add(archive);
+        logger.info("Archived {} readings of {} sensors into {} ({} bytes, {} bytes/reading)",
+                readings, series.size(), file.getFileName(), archive.getSizeBytes(),
+                String.format("%.2f", (double) archive.getSizeBytes() / readings));
+        return true;
+    }
+
+    public int getArchiveCount() {
+        return archives.size();
+    }
+
+    @Scheduled(fixedDelayString = "${wind.persistence.local.fsync-interval-ms:1000}")
+    public void sync() {
+        WindLogSegment current = active;
+        if (current != null) {
+            current.force();
+        }
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    private void roll() throws IOException {
+        active.force();
+        WindLogSegment next = WindLogSegment.open(segmentPath(active.getSequence() + 1),
+                active.getSequence() + 1, segmentRecords);
+        segments.add(next);
+        active = next;
+        logger.debug("Rolled wind log to segment {}", next.getPath().getFileName());
+
+        while (maxSegments > 0 && segments.size() > maxSegments) {
+            WindLogSegment oldest = segments.get(0);
+            if (archiveRangeMillis > 0 && oldest.getMaxTimestamp() >= archivedUntil) {
+                logger.warn("Wind log over {} segments: keeping {} until its readings are archived",
+                        maxSegments, oldest.getPath().getFileName());
+                break;
+            }
+            segments.remove(0);
+            oldest.close();
+            Files.deleteIfExists(oldest.getPath());
+            logger.info("Deleted expired wind log segment {}", oldest.getPath().getFileName());
+        }
+    }
+
+    private int keyFor(String sensorId) {
+        String id = sensorId == null ? "" : sensorId;
+        Integer key = sensorKeys.get(id);
+        if (key != null) {
+            return key;
+        }
+        // Make the dictionary entry durable before any record refers to it
+        try {
+            Files.write(directory.resolve(DICTIONARY_FILE), (id + "\n").getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        int assigned = sensorNames.size();
+        sensorNames.add(id);
+        sensorKeys.put(id, assigned);
+        return assigned;
+    }
+
+    private void loadDictionary() throws IOException {
+        Path file = directory.resolve(DICTIONARY_FILE);
+        if (!Files.exists(file)) {
+            return;
+        }
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            sensorKeys.put(line, sensorNames.size());
+            sensorNames.add(line);
+        }
+    }
+
+    private Path segmentPath(long sequence) {
+        return directory.resolve(String.format("%020d%s", sequence, SEGMENT_SUFFIX));
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        for (WindLogSegment segment : segments) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                logger.error("Failed to close wind log segment {}", segment.getPath(), e);
+            }
+        }
+    }
+
+    private static final class SeriesBuilder {
+        private final int key;
+        private long[] timestamps = new long[256];
+        private double[] speeds = new double[256];
+        private double[] directions = new double[256];
+        private int count;
+        private boolean sorted = true;
+
+        SeriesBuilder(int key) {
+            this.key = key;
+        }
+
+        void add(long timestamp, double speed, double direction) {
+            if (count == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, count * 2);
+                speeds = Arrays.copyOf(speeds, count * 2);
+                directions = Arrays.copyOf(directions, count * 2);
+            }
+            if (count > 0 && timestamp < timestamps[count - 1]) {
+                sorted = false;
+            }
+            timestamps[count] = timestamp;
+            speeds[count] = speed;
+            directions[count] = direction;
+            count++;
+        }
+
+        WindArchiveFile.Series build(long rangeStart) {
+            if (sorted) {
+                return new WindArchiveFile.Series(key, timestamps, speeds, directions, count);
+            }
+            // Offset within the range in the high half, original position in the low half
+            long[] order = new long[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = (timestamps[i] - rangeStart) << 32 | i;
+            }
+            Arrays.sort(order);
+            long[] sortedTimestamps = new long[count];
+            double[] sortedSpeeds = new double[count];
+            double[] sortedDirections = new double[count];
+            for (int i = 0; i < count; i++) {
+                int index = (int) order[i];
+                sortedTimestamps[i] = timestamps[index];
+                sortedSpeeds[i] = speeds[index];
+                sortedDirections[i] = directions[index];
+            }
+            return new WindArchiveFile.Series(key, sortedTimestamps, sortedSpeeds, sortedDirections, count);
+        }
+    }
+}
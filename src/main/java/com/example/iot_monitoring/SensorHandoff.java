@@ -0,0 +1,120 @@
+package com.example.iot_monitoring;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * State of one sensor as moved between cluster nodes when the hash ring changes:
+ * the latest reading, the message count and the recent raw history, which is
+ * compressed with {@link WindBlockCodec} (a few bytes per sample).
+ *
+ * Layout: version byte, sensor id (modified UTF-8), message count, a flag byte
+ * followed by the latest reading if there is one, sample count, and if that is
+ * not zero the block's flags, column word counts and words.
+ */
+final class SensorHandoff {
+    private static final byte VERSION = 1;
+
+    private final String sensorId;
+    private final long messageCount;
+    private final WindData latest;
+    private final WindSeries history;
+
+    SensorHandoff(String sensorId, long messageCount, WindData latest, WindSeries history) {
+        this.sensorId = sensorId;
+        this.messageCount = messageCount;
+        this.latest = latest;
+        this.history = history;
+    }
+
+    byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + history.getSize() * 4);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeUTF(sensorId);
+            out.writeLong(messageCount);
+            out.writeBoolean(latest != null);
+            if (latest != null) {
+                out.writeLong(latest.getTimestamp());
+                out.writeDouble(latest.getSpeed());
+                out.writeDouble(latest.getDirection());
+            }
+            int count = history.getSize();
+            out.writeInt(count);
+            if (count > 0) {
+                WindBlockCodec.Block block = WindBlockCodec.encode(history.getTimestamps(), history.getSpeeds(),
+                        history.getDirections(), 0, count);
+                out.writeByte(block.flags);
+                out.writeInt(block.timestampWords);
+                out.writeInt(block.speedWords);
+                out.writeInt(block.words.length);
+                for (long word : block.words) {
+                    out.writeLong(word);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static SensorHandoff decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported handoff version " + version);
+        }
+        String sensorId = in.readUTF();
+        long messageCount = in.readLong();
+        WindData latest = null;
+        if (in.readBoolean()) {
+            long timestamp = in.readLong();
+            double speed = in.readDouble();
+            double direction = in.readDouble();
+            latest = new WindData(sensorId, speed, direction, timestamp);
+        }
+        int count = in.readInt();
+        if (count < 0 || count > payload.length * 64) {
+            throw new IOException("Corrupt handoff for " + sensorId + ": " + count + " samples");
+        }
+        long[] timestamps = new long[count];
+        double[] speeds = new double[count];
+        double[] directions = new double[count];
+        if (count > 0) {
+            int flags = in.readByte();
+            int timestampWords = in.readInt();
+            int speedWords = in.readInt();
+            int length = in.readInt();
+            if (length < 0 || length > payload.length / 8) {
+                throw new IOException("Corrupt handoff for " + sensorId + ": " + length + " words");
+            }
+            long[] words = new long[length];
+            for (int i = 0; i < length; i++) {
+                words[i] = in.readLong();
+            }
+            WindBlockCodec.decode(words, timestampWords, speedWords, flags, count, timestamps, speeds, directions);
+        }
+        return new SensorHandoff(sensorId, messageCount, latest,
+                new WindSeries(sensorId, timestamps, speeds, directions));
+    }
+
+    String getSensorId() {
+        return sensorId;
+    }
+
+    long getMessageCount() {
+        return messageCount;
+    }
+
+    WindData getLatest() {
+        return latest;
+    }
+
+    WindSeries getHistory() {
+        return history;
+    }
+}
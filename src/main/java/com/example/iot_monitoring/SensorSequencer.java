@@ -0,0 +1,264 @@
+package com.example.iot_monitoring;
+
+import io.micrometer.core.instrument.Counter;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Duplicate filter and bounded reorder buffer for one sensor's readings.
+ *
+ * Readings that carry a sequence number ({@code "seq"} in the JSON record) are
+ * checked against a sliding-window bitmap of the last {@code windowBits}
+ * sequences seen, so QoS 1 redeliveries and retained replays after a reconnect
+ * are dropped. A reading that arrives ahead of a gap is held until the missing
+ * ones show up, at most {@code maxPending} readings or {@code maxDelayNanos};
+ * after that the gap is skipped (counted in {@code gaps}), and anything that
+ * fills it later is too late to be delivered in order and is dropped. In the
+ * normal, in-order case a reading is delivered straight away.
+ *
+ * Readings without a sequence number fall back to their timestamp: one that is
+ * not newer than the last delivered reading is a duplicate if its timestamp was
+ * among the last few delivered, and late otherwise. Readings with neither (the
+ * scalar topics) are always delivered.
+ *
+ * A sequence more than the bitmap window away from the highest one seen, in
+ * either direction, means the publisher restarted its counter: pending readings
+ * are delivered and tracking starts over from it.
+ *
+ * Not thread-safe: each instance belongs to the ingest worker that owns the sensor.
+ */
+final class SensorSequencer {
+    static final int DELIVERED = 0;
+    static final int BUFFERED = 1;
+    static final int DUPLICATE = 2;
+    static final int LATE = 3;
+    static final int RESET = 4;
+
+    private static final int RECENT_TIMESTAMPS = 8;
+
+    private final long[] seen;
+    private final int windowBits;
+    private final WindReading[] pending;
+    private final long[] pendingSequence;
+    private final long maxDelayNanos;
+    private final Counter gaps;
+    private final Consumer<WindReading> sink;
+    private final long[] recentTimestamps = new long[RECENT_TIMESTAMPS];
+
+    private boolean started;
+    private long highest;
+    private long next;
+    private int pendingCount;
+    private long pendingSince;
+    private int recentIndex;
+    private long lastTimestamp = Long.MIN_VALUE;
+    private long lastOfferNanos;
+
+    /**
+     * @param windowBits    sequences remembered for duplicate detection, rounded up to a multiple of 64
+     * @param maxPending    readings held while waiting for a gap to fill; at most {@code windowBits}
+     * @param maxDelayNanos how long a gap may hold back later readings
+     * @param gaps          incremented for every sequence number given up on
+     * @param sink          receives readings in order; the argument is only valid during the call
+     */
+    SensorSequencer(int windowBits, int maxPending, long maxDelayNanos, Counter gaps, Consumer<WindReading> sink) {
+        this.seen = new long[Math.max(1, (windowBits + 63) / 64)];
+        this.windowBits = seen.length * 64;
+        int capacity = Math.max(1, Math.min(maxPending, this.windowBits));
+        this.pending = new WindReading[capacity];
+        this.pendingSequence = new long[capacity];
+        this.maxDelayNanos = maxDelayNanos;
+        this.gaps = gaps;
+        this.sink = sink;
+        Arrays.fill(pendingSequence, Long.MIN_VALUE);
+        Arrays.fill(recentTimestamps, Long.MIN_VALUE);
+    }
+
+    /**
+     * Filters {@code reading}, delivering it and any readings it unblocks to the sink.
+     *
+     * @return one of {@link #DELIVERED}, {@link #BUFFERED}, {@link #DUPLICATE}, {@link #LATE}, {@link #RESET}
+     */
+    int offer(WindReading reading, long nowNanos) {
+        lastOfferNanos = nowNanos;
+        if (!reading.has(WindReading.HAS_SEQUENCE)) {
+            return offerUnsequenced(reading);
+        }
+        long sequence = reading.getSequence();
+        int outcome = DELIVERED;
+        if (!started) {
+            restart(sequence);
+        } else if (sequence <= highest - windowBits || sequence > highest + windowBits) {
+            flush();
+            restart(sequence);
+            outcome = RESET;
+        }
+
+        if (sequence <= highest) {
+            if (isSeen(sequence)) {
+                return DUPLICATE;
+            }
+            if (sequence < next) {
+                markSeen(sequence);
+                return LATE;
+            }
+        }
+        markSeen(sequence);
+
+        if (sequence - next >= pending.length) {
+            // Too far ahead to hold: give up on the oldest gaps to make room
+            skipTo(sequence - pending.length + 1);
+        }
+        if (sequence == next) {
+            deliver(reading);
+            next++;
+            releaseReady();
+            if (pendingCount > 0) {
+                pendingSince = nowNanos;
+            }
+            return outcome;
+        }
+        int slot = slot(sequence);
+        if (pending[slot] == null) {
+            pending[slot] = new WindReading();
+        }
+        pending[slot].copyFrom(reading);
+        pendingSequence[slot] = sequence;
+        if (pendingCount++ == 0) {
+            pendingSince = nowNanos;
+        }
+        return outcome == RESET ? RESET : BUFFERED;
+    }
+
+    /**
+     * Skips the gap holding back buffered readings once it has been open for {@code maxDelayNanos}.
+     */
+    void expire(long nowNanos) {
+        if (pendingCount == 0 || nowNanos - pendingSince < maxDelayNanos) {
+            return;
+        }
+        while (!isPending(next)) {
+            gaps.increment();
+            next++;
+        }
+        releaseReady();
+        pendingSince = nowNanos;
+    }
+
+    /**
+     * Delivers every buffered reading in order, skipping any remaining gaps.
+     */
+    void flush() {
+        while (pendingCount > 0) {
+            if (!isPending(next)) {
+                gaps.increment();
+                next++;
+            }
+            releaseReady();
+        }
+    }
+
+    int getPendingCount() {
+        return pendingCount;
+    }
+
+    /**
+     * When {@link #offer} was last called, in {@link System#nanoTime()} terms.
+     */
+    long getLastOfferNanos() {
+        return lastOfferNanos;
+    }
+
+    private int offerUnsequenced(WindReading reading) {
+        if (!reading.has(WindReading.HAS_TIMESTAMP)) {
+            deliver(reading);
+            return DELIVERED;
+        }
+        long timestamp = reading.getTimestamp();
+        if (timestamp <= lastTimestamp) {
+            for (long recent : recentTimestamps) {
+                if (recent == timestamp) {
+                    return DUPLICATE;
+                }
+            }
+            return LATE;
+        }
+        deliver(reading);
+        return DELIVERED;
+    }
+
+    private void restart(long sequence) {
+        started = true;
+        Arrays.fill(seen, 0L);
+        highest = sequence - 1;
+        next = sequence;
+    }
+
+    private void skipTo(long target) {
+        while (next < target) {
+            if (pendingCount == 0) {
+                gaps.increment(target - next);
+                next = target;
+                return;
+            }
+            if (isPending(next)) {
+                releaseReady();
+            } else {
+                gaps.increment();
+                next++;
+            }
+        }
+        releaseReady();
+    }
+
+    private void releaseReady() {
+        while (pendingCount > 0 && isPending(next)) {
+            int slot = slot(next);
+            pendingSequence[slot] = Long.MIN_VALUE;
+            pendingCount--;
+            next++;
+            deliver(pending[slot]);
+        }
+    }
+
+    private void deliver(WindReading reading) {
+        if (reading.has(WindReading.HAS_TIMESTAMP)) {
+            lastTimestamp = Math.max(lastTimestamp, reading.getTimestamp());
+            recentTimestamps[recentIndex] = reading.getTimestamp();
+            recentIndex = (recentIndex + 1) % RECENT_TIMESTAMPS;
+        }
+        sink.accept(reading);
+    }
+
+    private boolean isPending(long sequence) {
+        return pendingCount > 0 && pendingSequence[slot(sequence)] == sequence;
+    }
+
+    private int slot(long sequence) {
+        return (int) Math.floorMod(sequence, (long) pending.length);
+    }
+
+    private boolean isSeen(long sequence) {
+        int bit = (int) Math.floorMod(sequence, (long) windowBits);
+        return (seen[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    // Bit (sequence mod windowBits) stands for the sequence; advancing clears the bits being reused
+    private void markSeen(long sequence) {
+        if (sequence > highest) {
+            long advance = sequence - highest;
+            if (advance >= windowBits) {
+                Arrays.fill(seen, 0L);
+            } else {
+                for (long s = highest + 1; s < sequence; s++) {
+                    int bit = (int) Math.floorMod(s, (long) windowBits);
+                    seen[bit >>> 6] &= ~(1L << bit);
+                }
+            }
+            highest = sequence;
+        }
+        int bit = (int) Math.floorMod(sequence, (long) windowBits);
+        seen[bit >>> 6] |= 1L << bit;
+    }
+}
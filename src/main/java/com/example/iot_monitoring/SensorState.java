@@ -0,0 +1,72 @@
+package com.example.iot_monitoring;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latest reading and counters for one sensor.
+ *
+ * The latest reading is published as an immutable {@link WindData} through a
+ * volatile field, so readers never lock; counters are plain atomics.
+ */
+public class SensorState {
+    private final String sensorId;
+    private volatile WindData latest;
+    private final AtomicLong messageCount = new AtomicLong();
+    private final AtomicLong decodeErrors = new AtomicLong();
+
+    public SensorState(String sensorId) {
+        this.sensorId = sensorId;
+    }
+
+    public String getSensorId() {
+        return sensorId;
+    }
+
+    public WindData getLatest() {
+        return latest;
+    }
+
+    public long getMessageCount() {
+        return messageCount.get();
+    }
+
+    public long getDecodeErrors() {
+        return decodeErrors.get();
+    }
+
+    public long getLastUpdated() {
+        WindData current = latest;
+        return current == null ? 0L : current.getTimestamp();
+    }
+
+    public WindData update(WindReading reading, long receivedAt) {
+        WindData previous = latest;
+        double speed = reading.has(WindReading.HAS_SPEED) || previous == null ? reading.getSpeed() : previous.getSpeed();
+        double direction = reading.has(WindReading.HAS_DIRECTION) || previous == null ? reading.getDirection() : previous.getDirection();
+        long timestamp = reading.has(WindReading.HAS_TIMESTAMP) ? reading.getTimestamp() : receivedAt;
+
+        WindData data = new WindData(sensorId, speed, direction, timestamp);
+        this.latest = data;
+        messageCount.incrementAndGet();
+        return data;
+    }
+
+    /**
+     * Takes over the latest reading and message count handed over by the
+     * sensor's previous owner in a cluster, unless a newer reading is already here.
+     * The previous owner forgets the sensor once it has handed it off, so the
+     * local count only holds readings ingested here since taking ownership and
+     * the handed over count is added to it.
+     */
+    void restore(WindData handedOver, long handedOverCount) {
+        WindData current = latest;
+        if (handedOver != null && (current == null || current.getTimestamp() < handedOver.getTimestamp())) {
+            latest = handedOver;
+        }
+        messageCount.addAndGet(handedOverCount);
+    }
+
+    public void recordDecodeError() {
+        decodeErrors.incrementAndGet();
+    }
+}
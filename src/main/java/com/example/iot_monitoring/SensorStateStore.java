@@ -0,0 +1,83 @@
+package com.example.iot_monitoring;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-sensor state keyed by sensor id.
+ *
+ * Backed by {@link ConcurrentHashMap}: lookups are lock-free and updates only
+ * contend on the bin of the sensor being created, so there is no global lock no
+ * matter how many sensors report. Topic strings are cached to their state so the
+ * MQTT callback resolves a sensor without parsing or allocating.
+ */
+@Component
+public class SensorStateStore {
+    private final ConcurrentHashMap<String, SensorState> sensors;
+    private final ConcurrentHashMap<String, SensorState> topics;
+    private final String defaultSensorId;
+
+    public SensorStateStore(@Value("${wind.sensors.expected:1024}") int expectedSensors,
+                            @Value("${wind.sensors.default-id:default}") String defaultSensorId) {
+        this.sensors = new ConcurrentHashMap<>(expectedSensors);
+        this.topics = new ConcurrentHashMap<>(expectedSensors * 2);
+        this.defaultSensorId = defaultSensorId;
+    }
+
+    /**
+     * Resolves the sensor that published on {@code topic}. Topics follow
+     * {@code wind/<sensorId>/<kind>}; the legacy {@code wind/<kind>} topics map to
+     * the default sensor.
+     */
+    public SensorState resolve(String topic) {
+        SensorState state = topics.get(topic);
+        if (state == null) {
+            state = topics.computeIfAbsent(topic, t -> getOrCreate(sensorIdOf(t)));
+        }
+        return state;
+    }
+
+    public SensorState getOrCreate(String sensorId) {
+        SensorState state = sensors.get(sensorId);
+        if (state == null) {
+            state = sensors.computeIfAbsent(sensorId, SensorState::new);
+        }
+        return state;
+    }
+
+    public SensorState get(String sensorId) {
+        return sensors.get(sensorId);
+    }
+
+    /**
+     * Forgets a sensor, along with the topics cached to it, e.g. once it has been
+     * handed to another node.
+     */
+    public void remove(String sensorId) {
+        SensorState state = sensors.remove(sensorId);
+        if (state != null) {
+            topics.values().removeIf(cached -> cached == state);
+        }
+    }
+
+    public Collection<SensorState> all() {
+        return Collections.unmodifiableCollection(sensors.values());
+    }
+
+    public int size() {
+        return sensors.size();
+    }
+
+    String sensorIdOf(String topic) {
+        int first = topic.indexOf('/');
+        int last = topic.lastIndexOf('/');
+        if (first < 0 || first == last) {
+            return defaultSensorId;
+        }
+        return topic.substring(first + 1, last);
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.iot_monitoring;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.broker.BrokerAvailabilityEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code stompRelay} health: up while the broker relay's system connection to
+ * the external STOMP broker is established. Only in relay mode; part of the
+ * readiness group, since no WebSocket client gets updates without it.
+ */
+@Component
+@ConditionalOnProperty(name = "wind.websocket.broker", havingValue = "relay")
+public class StompRelayHealthIndicator implements HealthIndicator {
+
+    private volatile boolean brokerAvailable;
+
+    @EventListener
+    public void onBrokerAvailability(BrokerAvailabilityEvent event) {
+        brokerAvailable = event.isBrokerAvailable();
+    }
+
+    @Override
+    public Health health() {
+        return (brokerAvailable ? Health.up() : Health.down()).build();
+    }
+}
@@ -1,34 +1,148 @@
 package com.example.iot_monitoring;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
+import org.springframework.messaging.simp.config.TaskExecutorRegistration;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * STOMP over WebSocket.
+ *
+ * {@code wind.websocket.broker} picks who keeps the subscriptions and fans
+ * messages out: {@code simple}, the in-process broker, or {@code relay}, which
+ * forwards every destination under {@code /topic} and {@code /queue} to an
+ * external STOMP broker (RabbitMQ, ActiveMQ, Artemis) configured with the
+ * {@code spring.messaging.stomp.broker.relay.*} keys. The relay opens one TCP
+ * connection to the broker per WebSocket session plus a shared "system"
+ * connection for messages sent by the application, so the broker, not this
+ * JVM, pays for the per-subscriber copies.
+ *
+ * The client inbound and outbound channels run on executors sized by
+ * {@code wind.websocket.inbound.*} and {@code wind.websocket.outbound.*} in
+ * both modes; per-session send time and buffer limits bound what a slow
+ * client can hold.
+ */
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    public enum BrokerMode {
+        SIMPLE, RELAY;
+
+        public static BrokerMode parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("wind.websocket.broker must be simple or relay: " + value);
+            }
+        }
+    }
+
+    private final ClientFrameConflator frameConflator;
+
+    @Value("${wind.websocket.broker:simple}")
+    private String broker;
+
+    @Value("${spring.messaging.stomp.broker.relay.host:}")
+    private String relayHost;
+
+    @Value("${spring.messaging.stomp.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${spring.messaging.stomp.broker.relay.virtual-host:}")
+    private String relayVirtualHost;
+
+    @Value("${spring.messaging.stomp.broker.relay.client-login:guest}")
+    private String relayClientLogin;
+
+    @Value("${spring.messaging.stomp.broker.relay.client-passcode:guest}")
+    private String relayClientPasscode;
+
+    @Value("${spring.messaging.stomp.broker.relay.system-login:guest}")
+    private String relaySystemLogin;
+
+    @Value("${spring.messaging.stomp.broker.relay.system-passcode:guest}")
+    private String relaySystemPasscode;
+
+    @Value("${spring.messaging.stomp.broker.relay.system-heartbeat-ms:10000}")
+    private long relaySystemHeartbeat;
+
+    @Value("${wind.websocket.inbound.pool-size:0}")
+    private int inboundPoolSize;
+
+    @Value("${wind.websocket.inbound.queue-capacity:0}")
+    private int inboundQueueCapacity;
+
+    @Value("${wind.websocket.outbound.pool-size:0}")
+    private int outboundPoolSize;
+
+    @Value("${wind.websocket.outbound.queue-capacity:0}")
+    private int outboundQueueCapacity;
+
+    @Value("${wind.websocket.send-time-limit-ms:10000}")
+    private int sendTimeLimit;
+
+    @Value("${wind.websocket.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    public WebSocketConfig(ClientFrameConflator frameConflator) {
+        this.frameConflator = frameConflator;
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/iot-websocket")
                 .setAllowedOriginPatterns("*") // Em desenvolvimento
                 .withSockJS(); // Habilitar SockJS
+        // WebSocket nativo, sem SockJS: necessário para frames binários (/topic/wind_updates.bin),
+        // pois o SockJS só transporta texto
+        registry.addEndpoint("/iot-websocket-native")
+                .setAllowedOriginPatterns("*");
     }
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        // Ative um broker de mensagens simples
-        registry.enableSimpleBroker(
-                        "/topic",   // Para broadcast
-                        "/queue",   // Para mensagens ponto-a-ponto
-                        "/user"     // Para mensagens privadas
-                )
-                .setTaskScheduler(heartbeatScheduler())
-                .setHeartbeatValue(new long[]{5000, 5000});  // Heartbeat a cada 5 segundos
+        if (BrokerMode.parse(broker) == BrokerMode.RELAY) {
+            if (relayHost.isBlank()) {
+                throw new IllegalArgumentException(
+                        "wind.websocket.broker=relay needs spring.messaging.stomp.broker.relay.host");
+            }
+            // Destinos /user/... são resolvidos aqui e chegam ao broker como /queue/...-user<sessão>
+            StompBrokerRelayRegistration relay = registry.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayClientLogin)
+                    .setClientPasscode(relayClientPasscode)
+                    .setSystemLogin(relaySystemLogin)
+                    .setSystemPasscode(relaySystemPasscode)
+                    .setSystemHeartbeatSendInterval(relaySystemHeartbeat)
+                    .setSystemHeartbeatReceiveInterval(relaySystemHeartbeat);
+            if (!relayVirtualHost.isBlank()) {
+                relay.setVirtualHost(relayVirtualHost);
+            }
+        } else {
+            // Ative um broker de mensagens simples
+            registry.enableSimpleBroker(
+                            "/topic",   // Para broadcast
+                            "/queue",   // Para mensagens ponto-a-ponto
+                            "/user"     // Para mensagens privadas
+                    )
+                    .setTaskScheduler(heartbeatScheduler())
+                    .setHeartbeatValue(new long[]{5000, 5000});  // Heartbeat a cada 5 segundos
+        }
 
         // Prefixo para mensagens direcionadas a métodos @MessageMapping
         registry.setApplicationDestinationPrefixes("/app");
@@ -37,6 +151,40 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.setUserDestinationPrefix("/user");
     }
 
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        size(registration.taskExecutor(), inboundPoolSize, inboundQueueCapacity);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        size(registration.taskExecutor(), outboundPoolSize, outboundQueueCapacity);
+        // Atualizações de vento são conflacionadas por cliente antes de chegar ao socket
+        registration.interceptors(frameConflator);
+    }
+
+    // Zero keeps Spring's defaults: two threads per core, unbounded queue
+    private static void size(TaskExecutorRegistration executor, int poolSize, int queueCapacity) {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors() * 2;
+        executor.corePoolSize(threads).maxPoolSize(threads);
+        if (queueCapacity > 0) {
+            executor.queueCapacity(queueCapacity);
+        }
+    }
+
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        // Snapshot já serializado vai direto para o frame; os conversores padrão continuam ativos
+        messageConverters.add(new WindSnapshotMessageConverter());
+        return true;
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit(sendTimeLimit)
+                .setSendBufferSizeLimit(sendBufferSizeLimit);
+    }
+
     @Bean
     public TaskScheduler heartbeatScheduler() {
         ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
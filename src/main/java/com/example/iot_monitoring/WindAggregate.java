@@ -0,0 +1,56 @@
+package com.example.iot_monitoring;
+
+/**
+ * Aggregated wind over one rollup bucket.
+ *
+ * {@code vectorDirection} and {@code vectorSpeed} come from averaging the
+ * speed-weighted wind vectors, so 350° and 10° average to 0° rather than 180°.
+ */
+public class WindAggregate {
+    private final long start;
+    private final long count;
+    private final double minSpeed;
+    private final double maxSpeed;
+    private final double meanSpeed;
+    private final double vectorSpeed;
+    private final double vectorDirection;
+
+    public WindAggregate(long start, long count, double minSpeed, double maxSpeed, double meanSpeed,
+                         double vectorSpeed, double vectorDirection) {
+        this.start = start;
+        this.count = count;
+        this.minSpeed = minSpeed;
+        this.maxSpeed = maxSpeed;
+        this.meanSpeed = meanSpeed;
+        this.vectorSpeed = vectorSpeed;
+        this.vectorDirection = vectorDirection;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMinSpeed() {
+        return minSpeed;
+    }
+
+    public double getMaxSpeed() {
+        return maxSpeed;
+    }
+
+    public double getMeanSpeed() {
+        return meanSpeed;
+    }
+
+    public double getVectorSpeed() {
+        return vectorSpeed;
+    }
+
+    public double getVectorDirection() {
+        return vectorDirection;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.iot_monitoring;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * A gust, speed anomaly or direction shift detected on one sensor.
+ */
+public class WindAlert {
+
+    public enum Type {
+        GUST, SPEED_ANOMALY, DIRECTION_SHIFT
+    }
+
+    private final String sensorId;
+    private final Type type;
+    private final long timestamp;
+    private final double speed;
+    private final double direction;
+    private final double meanSpeed;
+    private final double peakSpeed;
+    private final double zScore;
+    private final double prevailingDirection;
+    private final double directionShift;
+
+    public WindAlert(String sensorId, Type type, long timestamp, double speed, double direction, double meanSpeed,
+                     double peakSpeed, double zScore, double prevailingDirection, double directionShift) {
+        this.sensorId = sensorId;
+        this.type = type;
+        this.timestamp = timestamp;
+        this.speed = speed;
+        this.direction = direction;
+        this.meanSpeed = meanSpeed;
+        this.peakSpeed = peakSpeed;
+        this.zScore = zScore;
+        this.prevailingDirection = prevailingDirection;
+        this.directionShift = directionShift;
+    }
+
+    public String getSensorId() {
+        return sensorId;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public double getSpeed() {
+        return speed;
+    }
+
+    public double getDirection() {
+        return direction;
+    }
+
+    public double getMeanSpeed() {
+        return meanSpeed;
+    }
+
+    public double getPeakSpeed() {
+        return peakSpeed;
+    }
+
+    @JsonProperty("zScore")
+    public double getZScore() {
+        return zScore;
+    }
+
+    public double getPrevailingDirection() {
+        return prevailingDirection;
+    }
+
+    public double getDirectionShift() {
+        return directionShift;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("WindAlert{sensorId=%s, type=%s, speed=%.2f, meanSpeed=%.2f, peakSpeed=%.2f, "
+                        + "zScore=%.2f, directionShift=%.1f}",
+                sensorId, type, speed, meanSpeed, peakSpeed, zScore, directionShift);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.iot_monitoring;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Delivers {@link WindAlert}s to {@code /topic/wind_alerts} and to the MQTT topic
+ * {@code wind/<sensorId>/alerts}. Alerts are rare, so plain
+ * {@code convertAndSend} is fine here.
+ */
+@Component
+public class WindAlertPublisher {
+    private static final Logger logger = LoggerFactory.getLogger(WindAlertPublisher.class);
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final MqttService mqttService;
+    private final ObjectMapper objectMapper;
+    private final String destination;
+    private final int mqttQos;
+
+    public WindAlertPublisher(SimpMessagingTemplate messagingTemplate,
+                              MqttService mqttService,
+                              ObjectMapper objectMapper,
+                              @Value("${wind.alerts.destination:/topic/wind_alerts}") String destination,
+                              @Value("${wind.alerts.mqtt-qos:1}") int mqttQos) {
+        this.messagingTemplate = messagingTemplate;
+        this.mqttService = mqttService;
+        this.objectMapper = objectMapper;
+        this.destination = destination;
+        this.mqttQos = mqttQos;
+    }
+
+    @EventListener
+    public void onAlert(WindAlert alert) {
+        logger.info("Wind alert: {}", alert);
+        try {
+            messagingTemplate.convertAndSend(destination, alert);
+        } catch (Exception e) {
+            logger.error("Failed to send wind alert over WebSocket", e);
+        }
+
+        // Never blocks: while disconnected the alert waits in the outbound spool
+        try {
+            mqttService.publishMessage("wind/" + alert.getSensorId() + "/alerts",
+                    objectMapper.writeValueAsString(alert), mqttQos, false);
+        } catch (JsonProcessingException e) {
+            logger.error("Failed to serialize wind alert", e);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.iot_monitoring;
+
+/**
+ * Incremental per-sensor anomaly state, constant memory and no allocation per reading.
+ *
+ * <ul>
+ *     <li>EWMA mean and variance of speed give the sustained wind and a z-score
+ *     for every reading ({@link #SPEED_ANOMALY}).</li>
+ *     <li>A monotonic deque keeps the maximum speed of the last
+ *     {@code gustWindowMillis}; a gust ({@link #GUST}) starts when that peak exceeds
+ *     the sustained wind by {@code gustDelta} and ends when the excess falls below
+ *     half of it.</li>
+ *     <li>An EWMA of the direction unit vector gives the prevailing direction; a
+ *     {@link #DIRECTION_SHIFT} is flagged when the current direction departs from
+ *     it by more than {@code directionShiftDegrees}, ignoring calm readings.</li>
+ * </ul>
+ * Detection runs before the reading is folded into the averages, so an outlier
+ * cannot hide itself. Alerts of the same type are rate limited by
+ * {@code cooldownMillis}. Not thread-safe: the ingest pipeline feeds each sensor
+ * from a single worker.
+ */
+final class WindAnomalyDetector {
+    static final int GUST = 1;
+    static final int SPEED_ANOMALY = 1 << 1;
+    static final int DIRECTION_SHIFT = 1 << 2;
+
+    private static final int WINDOW_CAPACITY = 64;
+
+    private final AnomalyThresholds thresholds;
+    private final long[] windowTimestamps = new long[WINDOW_CAPACITY];
+    private final double[] windowSpeeds = new double[WINDOW_CAPACITY];
+    private int windowHead;
+    private int windowSize;
+
+    private long samples;
+    private double meanSpeed;
+    private double varianceSpeed;
+    private double directionSin;
+    private double directionCos;
+    private boolean directionSeeded;
+
+    private boolean inGust;
+    private boolean shifted;
+    private double zScore;
+    private double directionShift;
+    private final long[] lastAlert = new long[3];
+
+    WindAnomalyDetector(AnomalyThresholds thresholds) {
+        this.thresholds = thresholds;
+    }
+
+    /**
+     * @return the bitmask of alerts raised by this reading, {@code 0} for none
+     */
+    int update(long timestamp, double speed, double direction) {
+        pushWindow(timestamp, speed);
+        int fired = 0;
+
+        if (samples >= thresholds.warmupSamples) {
+            double std = Math.sqrt(varianceSpeed);
+            zScore = std > 1e-9 ? (speed - meanSpeed) / std : 0.0;
+            if (Math.abs(zScore) >= thresholds.zThreshold) {
+                fired |= rateLimited(SPEED_ANOMALY, 1, timestamp);
+            }
+
+            double excess = getWindowMax() - meanSpeed;
+            if (!inGust && excess >= thresholds.gustDelta) {
+                inGust = true;
+                fired |= rateLimited(GUST, 0, timestamp);
+            } else if (inGust && excess < thresholds.gustDelta / 2) {
+                inGust = false;
+            }
+
+            if (directionSeeded && speed >= thresholds.directionMinSpeed) {
+                double prevailing = Math.toDegrees(Math.atan2(directionSin, directionCos));
+                double diff = Math.abs(direction - prevailing) % 360.0;
+                directionShift = diff > 180.0 ? 360.0 - diff : diff;
+                // A scattered average (calm, variable wind) has no meaningful prevailing direction
+                boolean steady = Math.hypot(directionSin, directionCos) > 0.5;
+                if (!shifted && steady && directionShift >= thresholds.directionShiftDegrees) {
+                    shifted = true;
+                    fired |= rateLimited(DIRECTION_SHIFT, 2, timestamp);
+                } else if (shifted && directionShift < thresholds.directionShiftDegrees / 2) {
+                    shifted = false;
+                }
+            }
+        }
+
+        double alpha = thresholds.alpha;
+        if (samples == 0) {
+            meanSpeed = speed;
+            varianceSpeed = 0.0;
+        } else {
+            double diff = speed - meanSpeed;
+            double increment = alpha * diff;
+            meanSpeed += increment;
+            varianceSpeed = (1 - alpha) * (varianceSpeed + diff * increment);
+        }
+        if (speed >= thresholds.directionMinSpeed) {
+            double radians = Math.toRadians(direction);
+            if (!directionSeeded) {
+                directionSin = Math.sin(radians);
+                directionCos = Math.cos(radians);
+                directionSeeded = true;
+            } else {
+                directionSin += alpha * (Math.sin(radians) - directionSin);
+                directionCos += alpha * (Math.cos(radians) - directionCos);
+            }
+        }
+        samples++;
+        return fired;
+    }
+
+    private int rateLimited(int alert, int slot, long timestamp) {
+        if (lastAlert[slot] != 0 && timestamp - lastAlert[slot] < thresholds.cooldownMillis) {
+            return 0;
+        }
+        lastAlert[slot] = timestamp;
+        return alert;
+    }
+
+    private void pushWindow(long timestamp, double speed) {
+        // Drop smaller values from the tail: they can never be the maximum again
+        while (windowSize > 0 && windowSpeeds[slot(windowSize - 1)] <= speed) {
+            windowSize--;
+        }
+        if (windowSize == WINDOW_CAPACITY) {
+            windowHead = (windowHead + 1) % WINDOW_CAPACITY;
+            windowSize--;
+        }
+        int tail = slot(windowSize);
+        windowTimestamps[tail] = timestamp;
+        windowSpeeds[tail] = speed;
+        windowSize++;
+
+        long oldest = timestamp - thresholds.gustWindowMillis;
+        while (windowSize > 1 && windowTimestamps[windowHead] <= oldest) {
+            windowHead = (windowHead + 1) % WINDOW_CAPACITY;
+            windowSize--;
+        }
+    }
+
+    private int slot(int offset) {
+        return (windowHead + offset) % WINDOW_CAPACITY;
+    }
+
+    double getWindowMax() {
+        return windowSize == 0 ? 0.0 : windowSpeeds[windowHead];
+    }
+
+    double getMeanSpeed() {
+        return meanSpeed;
+    }
+
+    double getStdSpeed() {
+        return Math.sqrt(varianceSpeed);
+    }
+
+    double getZScore() {
+        return zScore;
+    }
+
+    double getPrevailingDirection() {
+        double degrees = Math.toDegrees(Math.atan2(directionSin, directionCos));
+        return degrees < 0 ? degrees + 360.0 : degrees;
+    }
+
+    double getDirectionShift() {
+        return directionShift;
+    }
+
+    long getSamples() {
+        return samples;
+    }
+}
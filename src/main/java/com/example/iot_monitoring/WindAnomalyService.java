@@ -0,0 +1,80 @@
+package com.example.iot_monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs every ingested reading through its sensor's {@link WindAnomalyDetector}
+ * and publishes a {@link WindAlert} application event for each detection.
+ * Delivery to MQTT and WebSocket is done by {@link WindAlertPublisher}.
+ */
+@Service
+public class WindAnomalyService {
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final AnomalyThresholds thresholds;
+    private final ConcurrentHashMap<String, WindAnomalyDetector> detectors = new ConcurrentHashMap<>();
+    private final Counter[] alerts;
+
+    public WindAnomalyService(ApplicationEventPublisher eventPublisher,
+                              MeterRegistry meterRegistry,
+                              @Value("${wind.alerts.enabled:true}") boolean enabled,
+                              @Value("${wind.alerts.ewma-alpha:0.05}") double alpha,
+                              @Value("${wind.alerts.warmup-samples:30}") long warmupSamples,
+                              @Value("${wind.alerts.z-threshold:4.0}") double zThreshold,
+                              @Value("${wind.alerts.gust-window-ms:3000}") long gustWindowMillis,
+                              @Value("${wind.alerts.gust-delta:18.5}") double gustDelta,
+                              @Value("${wind.alerts.direction-shift-degrees:45}") double directionShiftDegrees,
+                              @Value("${wind.alerts.direction-min-speed:5}") double directionMinSpeed,
+                              @Value("${wind.alerts.cooldown-ms:60000}") long cooldownMillis) {
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.thresholds = new AnomalyThresholds(alpha, warmupSamples, zThreshold, gustWindowMillis, gustDelta,
+                directionShiftDegrees, directionMinSpeed, cooldownMillis);
+        WindAlert.Type[] types = WindAlert.Type.values();
+        this.alerts = new Counter[types.length];
+        for (WindAlert.Type type : types) {
+            alerts[type.ordinal()] = Counter.builder("wind.alerts")
+                    .tag("type", type.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry);
+        }
+    }
+
+    public void process(WindData data) {
+        if (!enabled) {
+            return;
+        }
+        String sensorId = data.getSensorId() == null ? "" : data.getSensorId();
+        WindAnomalyDetector detector = detectors.get(sensorId);
+        if (detector == null) {
+            detector = detectors.computeIfAbsent(sensorId, id -> new WindAnomalyDetector(thresholds));
+        }
+        int fired = detector.update(data.getTimestamp(), data.getSpeed(), data.getDirection());
+        if (fired == 0) {
+            return;
+        }
+        if ((fired & WindAnomalyDetector.GUST) != 0) {
+            publish(WindAlert.Type.GUST, sensorId, data, detector);
+        }
+        if ((fired & WindAnomalyDetector.SPEED_ANOMALY) != 0) {
+            publish(WindAlert.Type.SPEED_ANOMALY, sensorId, data, detector);
+        }
+        if ((fired & WindAnomalyDetector.DIRECTION_SHIFT) != 0) {
+            publish(WindAlert.Type.DIRECTION_SHIFT, sensorId, data, detector);
+        }
+    }
+
+    private void publish(WindAlert.Type type, String sensorId, WindData data, WindAnomalyDetector detector) {
+        alerts[type.ordinal()].increment();
+        eventPublisher.publishEvent(new WindAlert(sensorId, type, data.getTimestamp(), data.getSpeed(),
+                data.getDirection(), detector.getMeanSpeed(), detector.getWindowMax(), detector.getZScore(),
+                detector.getPrevailingDirection(), detector.getDirectionShift()));
+    }
+}
@@ -0,0 +1,292 @@
+package com.example.iot_monitoring;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * One immutable file of the cold archive, holding every reading of a closed
+ * time range {@code [rangeStart, rangeEnd)} in {@link WindBlockCodec} blocks.
+ *
+ * <pre>
+ * File layout (big endian)
+ *  0..23   magic "WCA1", version, range start, range end
+ *  24..    blocks: timestamp, speed and direction columns, each whole 64-bit words
+ *  index   one 64-byte entry per block, ordered by sensor key then time:
+ *          key, count, flags, timestamp words, speed words, direction words,
+ *          block offset, min/max timestamp, min/max speed
+ *  tail    index offset (long), block count (int), magic (int)
+ * </pre>
+ *
+ * Each sensor's readings are cut into blocks of at most {@link #BLOCK_POINTS}.
+ * Range scans binary search the index for the sensor and skip every block whose
+ * time bounds miss the range without touching its data. Files are written to a
+ * temporary name and moved into place, so a crash never leaves a partial file.
+ */
+final class WindArchiveFile {
+    static final String SUFFIX = ".wca";
+    static final int BLOCK_POINTS = 4096;
+
+    private static final int MAGIC = 0x57434131; // "WCA1"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+    private static final int INDEX_ENTRY_SIZE = 64;
+    private static final int TAIL_SIZE = 16;
+
+    /**
+     * One sensor's readings for the range, ascending by timestamp.
+     */
+    static final class Series {
+        final int key;
+        final long[] timestamps;
+        final double[] speeds;
+        final double[] directions;
+        final int count;
+
+        Series(int key, long[] timestamps, double[] speeds, double[] directions, int count) {
+            this.key = key;
+            this.timestamps = timestamps;
+            this.speeds = speeds;
+            this.directions = directions;
+            this.count = count;
+        }
+    }
+
+    private final Path path;
+    private final long rangeStart;
+    private final long rangeEnd;
+    private final MappedByteBuffer buffer;
+    private final int[] keys;
+    private final int[] counts;
+    private final int[] flags;
+    private final int[] timestampWords;
+    private final int[] speedWords;
+    private final int[] totalWords;
+    private final long[] offsets;
+    private final long[] minTimestamps;
+    private final long[] maxTimestamps;
+    private final double[] minSpeeds;
+    private final double[] maxSpeeds;
+    private final long pointCount;
+
+    private WindArchiveFile(Path path, MappedByteBuffer buffer) throws IOException {
+        this.path = path;
+        this.buffer = buffer;
+        int size = buffer.capacity();
+        if (size < HEADER_SIZE + TAIL_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+                || buffer.getInt(size - 4) != MAGIC) {
+            throw new IOException("Not a wind archive file: " + path);
+        }
+        this.rangeStart = buffer.getLong(8);
+        this.rangeEnd = buffer.getLong(16);
+        long indexOffset = buffer.getLong(size - TAIL_SIZE);
+        int blocks = buffer.getInt(size - 8);
+        if (indexOffset < HEADER_SIZE || indexOffset + (long) blocks * INDEX_ENTRY_SIZE != size - TAIL_SIZE) {
+            throw new IOException("Corrupt wind archive index: " + path);
+        }
+        keys = new int[blocks];
+        counts = new int[blocks];
+        flags = new int[blocks];
+        timestampWords = new int[blocks];
+        speedWords = new int[blocks];
+        totalWords = new int[blocks];
+        offsets = new long[blocks];
+        minTimestamps = new long[blocks];
+        maxTimestamps = new long[blocks];
+        minSpeeds = new double[blocks];
+        maxSpeeds = new double[blocks];
+        long points = 0;
+        for (int i = 0; i < blocks; i++) {
+            int entry = (int) indexOffset + i * INDEX_ENTRY_SIZE;
+            keys[i] = buffer.getInt(entry);
+            counts[i] = buffer.getInt(entry + 4);
+            flags[i] = buffer.getInt(entry + 8);
+            timestampWords[i] = buffer.getInt(entry + 12);
+            speedWords[i] = buffer.getInt(entry + 16);
+            totalWords[i] = timestampWords[i] + speedWords[i] + buffer.getInt(entry + 20);
+            offsets[i] = buffer.getLong(entry + 24);
+            minTimestamps[i] = buffer.getLong(entry + 32);
+            maxTimestamps[i] = buffer.getLong(entry + 40);
+            minSpeeds[i] = buffer.getDouble(entry + 48);
+            maxSpeeds[i] = buffer.getDouble(entry + 56);
+            points += counts[i];
+        }
+        this.pointCount = points;
+    }
+
+    static WindArchiveFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return new WindArchiveFile(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Writes {@code series}, which must be ordered by key, as the archive of {@code [rangeStart, rangeEnd)}.
+     */
+    static WindArchiveFile write(Path path, long rangeStart, long rangeEnd, List<Series> series) throws IOException {
+        int blockCount = 0;
+        for (Series s : series) {
+            blockCount += (s.count + BLOCK_POINTS - 1) / BLOCK_POINTS;
+        }
+        WindBlockCodec.Block[] blocks = new WindBlockCodec.Block[blockCount];
+        long dataSize = 0;
+        int b = 0;
+        for (Series s : series) {
+            for (int from = 0; from < s.count; from += BLOCK_POINTS) {
+                blocks[b] = WindBlockCodec.encode(s.timestamps, s.speeds, s.directions, from,
+                        Math.min(BLOCK_POINTS, s.count - from));
+                dataSize += (long) blocks[b].words.length * 8;
+                b++;
+            }
+        }
+        long indexOffset = HEADER_SIZE + dataSize;
+        long size = indexOffset + (long) blockCount * INDEX_ENTRY_SIZE + TAIL_SIZE;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Archive range too large for one file: " + size + " bytes");
+        }
+
+        ByteBuffer out = ByteBuffer.allocate((int) size);
+        out.putInt(MAGIC).putInt(VERSION).putLong(rangeStart).putLong(rangeEnd);
+        for (WindBlockCodec.Block block : blocks) {
+            out.asLongBuffer().put(block.words);
+            out.position(out.position() + block.words.length * 8);
+        }
+        long offset = HEADER_SIZE;
+        b = 0;
+        for (Series s : series) {
+            for (int from = 0; from < s.count; from += BLOCK_POINTS) {
+                int count = Math.min(BLOCK_POINTS, s.count - from);
+                WindBlockCodec.Block block = blocks[b++];
+                double minSpeed = Double.POSITIVE_INFINITY;
+                double maxSpeed = Double.NEGATIVE_INFINITY;
+                for (int i = from; i < from + count; i++) {
+                    minSpeed = Math.min(minSpeed, s.speeds[i]);
+                    maxSpeed = Math.max(maxSpeed, s.speeds[i]);
+                }
+                out.putInt(s.key).putInt(count).putInt(block.flags)
+                        .putInt(block.timestampWords).putInt(block.speedWords).putInt(block.directionWords)
+                        .putLong(offset)
+                        .putLong(s.timestamps[from]).putLong(s.timestamps[from + count - 1])
+                        .putDouble(minSpeed).putDouble(maxSpeed);
+                offset += (long) block.words.length * 8;
+            }
+        }
+        out.putLong(indexOffset).putInt(blockCount).putInt(MAGIC);
+        out.flip();
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return open(path);
+    }
+
+    /**
+     * Visits readings of {@code key} with {@code from <= timestamp <= to}, oldest first.
+     */
+    void scan(int key, long from, long to, WindLogSegment.RecordVisitor visitor) {
+        long[] words = null;
+        long[] timestamps = null;
+        double[] speeds = null;
+        double[] directions = null;
+        for (int block = firstBlock(key); block < keys.length && keys[block] == key; block++) {
+            if (maxTimestamps[block] < from || minTimestamps[block] > to) {
+                continue;
+            }
+            int count = counts[block];
+            if (timestamps == null || timestamps.length < count) {
+                timestamps = new long[count];
+                speeds = new double[count];
+                directions = new double[count];
+            }
+            if (words == null || words.length < totalWords[block]) {
+                words = new long[totalWords[block]];
+            }
+            buffer.slice((int) offsets[block], totalWords[block] * 8).asLongBuffer().get(words, 0, totalWords[block]);
+            WindBlockCodec.decode(words, timestampWords[block], speedWords[block], flags[block], count,
+                    timestamps, speeds, directions);
+            for (int i = 0; i < count; i++) {
+                long timestamp = timestamps[i];
+                if (timestamp > to) {
+                    break;
+                }
+                if (timestamp >= from) {
+                    visitor.visit(timestamp, speeds[i], directions[i]);
+                }
+            }
+        }
+    }
+
+    private int firstBlock(int key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    boolean overlaps(long from, long to) {
+        return rangeEnd > from && rangeStart <= to;
+    }
+
+    /**
+     * Highest speed of {@code key} within the range, answered from the index alone.
+     */
+    double maxSpeed(int key) {
+        double max = Double.NaN;
+        for (int block = firstBlock(key); block < keys.length && keys[block] == key; block++) {
+            max = Double.isNaN(max) ? maxSpeeds[block] : Math.max(max, maxSpeeds[block]);
+        }
+        return max;
+    }
+
+    double minSpeed(int key) {
+        double min = Double.NaN;
+        for (int block = firstBlock(key); block < keys.length && keys[block] == key; block++) {
+            min = Double.isNaN(min) ? minSpeeds[block] : Math.min(min, minSpeeds[block]);
+        }
+        return min;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    long getRangeStart() {
+        return rangeStart;
+    }
+
+    long getRangeEnd() {
+        return rangeEnd;
+    }
+
+    int getBlockCount() {
+        return keys.length;
+    }
+
+    long getPointCount() {
+        return pointCount;
+    }
+
+    long getSizeBytes() {
+        return buffer.capacity();
+    }
+}
@@ -0,0 +1,421 @@
+package com.example.iot_monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind stage in front of a {@link WindDataSink}.
+ *
+ * Readings are queued in a bounded buffer and flushed by a single thread as
+ * batches of up to {@code batch-size} readings, or whatever has accumulated
+ * after {@code flush-interval-ms}. At most {@code max-in-flight} batches are
+ * outstanding at the sink; once that limit is hit the flusher stops draining,
+ * the queue fills up and the {@link OverflowPolicy} decides what happens to new
+ * readings. Failed batches are retried up to {@code max-retries} times.
+ *
+ * A batch that still fails goes to a {@link DiskSpool} ({@code spool.directory})
+ * instead of being lost, and while anything is spooled new batches are appended
+ * behind it, so spooled readings reach the sink in the order they were
+ * spooled. Order across batches is not guaranteed: a batch that fails after its
+ * retries is spooled behind later batches that may already have been written.
+ * The spool is replayed one batch at a time at {@code spool.replay-rate} readings
+ * per second; a failed replay leaves the batch in the spool and is retried
+ * after {@code flush-interval-ms}, which doubles as the probe for the sink coming
+ * back. Without a spool directory failed batches are counted as lost.
+ */
+@Component
+public class WindBatchWriter {
+    private static final Logger logger = LoggerFactory.getLogger(WindBatchWriter.class);
+    private static final long REPLAY_POLL_MILLIS = 50;
+
+    public enum OverflowPolicy {
+        /** Reject the incoming reading. */
+        DROP_NEWEST,
+        /** Evict the oldest queued reading to make room. */
+        DROP_OLDEST,
+        /** Wait up to {@code block-timeout-ms} for room, then reject. */
+        BLOCK
+    }
+
+    private final WindDataSink sink;
+    private final WindLatencyMetrics latencyMetrics;
+    private final ArrayBlockingQueue<WindData> queue;
+    private final ConcurrentLinkedQueue<PendingBatch> retries = new ConcurrentLinkedQueue<>();
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutMillis;
+    private final int maxRetries;
+    private final String spoolDirectory;
+    private final int spoolSegmentSize;
+    private final int spoolMaxSegments;
+    private final int replayRate;
+    private final MeterRegistry meterRegistry;
+
+    private final Counter written;
+    private final Counter dropped;
+    private final Counter failed;
+    private final Timer flushLatency;
+    private final Counter spooled;
+    private final Counter replayed;
+
+    private volatile DiskSpool spool;
+    private volatile boolean replaying;
+    private volatile long nextReplayNanos;
+    private volatile boolean running;
+    private Thread flusher;
+
+    public WindBatchWriter(WindDataSink sink,
+                           MeterRegistry meterRegistry,
+                           WindLatencyMetrics latencyMetrics,
+                           @Value("${wind.persistence.queue-capacity:10000}") int queueCapacity,
+                           @Value("${wind.persistence.batch-size:500}") int batchSize,
+                           @Value("${wind.persistence.flush-interval-ms:1000}") long flushIntervalMillis,
+                           @Value("${wind.persistence.max-in-flight:4}") int maxInFlight,
+                           @Value("${wind.persistence.overflow-policy:BLOCK}") OverflowPolicy overflowPolicy,
+                           @Value("${wind.persistence.block-timeout-ms:50}") long blockTimeoutMillis,
+                           @Value("${wind.persistence.max-retries:3}") int maxRetries,
+                           @Value("${wind.persistence.spool.directory:}") String spoolDirectory,
+                           @Value("${wind.persistence.spool.segment-size-mb:4}") int spoolSegmentSizeMb,
+                           @Value("${wind.persistence.spool.max-segments:64}") int spoolMaxSegments,
+                           @Value("${wind.persistence.spool.replay-rate:2000}") int replayRate) {
+        this.sink = sink;
+        this.latencyMetrics = latencyMetrics;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.inFlight = new Semaphore(maxInFlight);
+        this.maxInFlight = maxInFlight;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutMillis = blockTimeoutMillis;
+        this.maxRetries = maxRetries;
+        this.spoolDirectory = spoolDirectory;
+        this.spoolSegmentSize = spoolSegmentSizeMb * 1024 * 1024;
+        this.spoolMaxSegments = spoolMaxSegments;
+        this.replayRate = Math.max(1, replayRate);
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("wind.persistence.queue.depth", queue, ArrayBlockingQueue::size)
+                .description("Readings waiting to be flushed")
+                .register(meterRegistry);
+        Gauge.builder("wind.persistence.in_flight", inFlight, s -> maxInFlight - s.availablePermits())
+                .description("Batches written but not yet acknowledged")
+                .register(meterRegistry);
+        this.written = Counter.builder("wind.persistence.written").register(meterRegistry);
+        this.dropped = Counter.builder("wind.persistence.dropped").register(meterRegistry);
+        this.failed = Counter.builder("wind.persistence.failed").register(meterRegistry);
+        this.flushLatency = Timer.builder("wind.persistence.flush.latency")
+                .description("Time from batch submission to sink acknowledgement")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.spooled = Counter.builder("wind.spool.spooled").tag("sink", "persistence").register(meterRegistry);
+        this.replayed = Counter.builder("wind.spool.replayed").tag("sink", "persistence").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (spoolDirectory != null && !spoolDirectory.isBlank()) {
+            try {
+                DiskSpool opened = DiskSpool.open(Path.of(spoolDirectory), spoolSegmentSize, spoolMaxSegments);
+                Gauge.builder("wind.spool.pending", opened, DiskSpool::size)
+                        .tag("sink", "persistence")
+                        .register(meterRegistry);
+                FunctionCounter.builder("wind.spool.dropped", opened, DiskSpool::getDropped)
+                        .description("Spooled readings discarded because the spool was full")
+                        .tag("sink", "persistence")
+                        .register(meterRegistry);
+                if (!opened.isEmpty()) {
+                    logger.info("Persistence spool recovered {} readings from {}", opened.size(), spoolDirectory);
+                }
+                spool = opened;
+            } catch (IOException e) {
+                logger.error("Persistence spool unavailable at {}, failed batches will be lost", spoolDirectory, e);
+            }
+        }
+        running = true;
+        flusher = new Thread(this::run, "wind-batch-writer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Queues a reading for persistence.
+     *
+     * @return {@code false} if the reading was dropped by the overflow policy
+     */
+    public boolean offer(WindData data) {
+        if (queue.offer(data)) {
+            return true;
+        }
+        switch (overflowPolicy) {
+            case DROP_OLDEST:
+                while (!queue.offer(data)) {
+                    if (queue.poll() != null) {
+                        dropped.increment();
+                    }
+                }
+                return true;
+            case BLOCK:
+                try {
+                    if (queue.offer(data, blockTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                dropped.increment();
+                return false;
+            default:
+                dropped.increment();
+                return false;
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    private void run() {
+        List<WindData> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingBatch retry = retries.poll();
+                if (retry != null) {
+                    submit(retry);
+                    continue;
+                }
+                DiskSpool current = spool;
+                boolean backlog = current != null && !current.isEmpty();
+                if (backlog) {
+                    replay(current);
+                }
+                collect(batch, backlog ? Math.min(flushIntervalMillis, REPLAY_POLL_MILLIS) : flushIntervalMillis);
+                if (!batch.isEmpty()) {
+                    if (current != null && !current.isEmpty()) {
+                        // Keep the order: the sink gets these after what is already spooled
+                        spool(batch);
+                    } else {
+                        submit(new PendingBatch(new ArrayList<>(batch)));
+                    }
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                logger.error("Unexpected error in batch writer", e);
+            }
+        }
+    }
+
+    private void collect(List<WindData> batch, long waitMillis) throws InterruptedException {
+        WindData first = queue.poll(waitMillis, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMillis);
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            if (batch.size() >= batchSize) {
+                break;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || !running) {
+                break;
+            }
+            WindData next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void submit(PendingBatch pending) throws InterruptedException {
+        inFlight.acquire();
+        long start = System.nanoTime();
+        sink.write(pending.readings).whenComplete((ignored, error) -> {
+            try {
+                flushLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                if (pending.spooled != null) {
+                    replayed(pending, error);
+                } else if (error == null) {
+                    written.increment(pending.readings.size());
+                    latencyMetrics.recordAll(WindLatencyMetrics.Stage.PERSISTED, pending.readings);
+                } else if (++pending.attempts <= maxRetries && running) {
+                    logger.warn("Batch of {} readings failed (attempt {}), retrying: {}",
+                            pending.readings.size(), pending.attempts, error.getMessage());
+                    retries.add(pending);
+                } else if (spool != null) {
+                    logger.warn("Batch of {} readings failed after {} attempts, spooling it: {}",
+                            pending.readings.size(), pending.attempts, error.getMessage());
+                    spool(pending.readings);
+                } else {
+                    failed.increment(pending.readings.size());
+                    logger.error("Dropping batch of {} readings after {} attempts",
+                            pending.readings.size(), pending.attempts, error);
+                }
+            } finally {
+                // Last, so stop() does not close the spool while this still acks or appends
+                inFlight.release();
+            }
+        });
+    }
+
+    /**
+     * Sends the oldest spooled readings if no replay is in flight and the rate allows it.
+     */
+    private void replay(DiskSpool current) throws InterruptedException {
+        if (replaying || System.nanoTime() - nextReplayNanos < 0) {
+            return;
+        }
+        DiskSpool.Batch records;
+        try {
+            records = current.peek(batchSize);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to read persistence spool", e);
+            nextReplayNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+            return;
+        }
+        if (records.isEmpty()) {
+            return;
+        }
+        List<WindData> readings = new ArrayList<>(records.size());
+        for (byte[] record : records.getRecords()) {
+            readings.add(decode(record));
+        }
+        PendingBatch pending = new PendingBatch(readings);
+        pending.spooled = records;
+        replaying = true;
+        nextReplayNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(records.size()) / replayRate;
+        submit(pending);
+    }
+
+    private void replayed(PendingBatch pending, Throwable error) {
+        try {
+            if (error == null) {
+                spool.ack(pending.spooled, pending.spooled.size());
+                written.increment(pending.readings.size());
+                replayed.increment(pending.readings.size());
+                if (spool.isEmpty()) {
+                    logger.info("Persistence spool drained");
+                }
+            } else {
+                // Sink still down: probe again later, the batch stays at the head of the spool
+                nextReplayNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+                logger.debug("Spool replay failed: {}", error.getMessage());
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to acknowledge persistence spool", e);
+        } finally {
+            replaying = false;
+        }
+    }
+
+    private void spool(List<WindData> readings) {
+        DiskSpool current = spool;
+        for (WindData data : readings) {
+            try {
+                if (current.append(encode(data))) {
+                    spooled.increment();
+                    continue;
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.error("Failed to spool reading", e);
+            }
+            failed.increment();
+        }
+    }
+
+    static byte[] encode(WindData data) {
+        byte[] sensorId = data.getSensorId() == null
+                ? new byte[0] : data.getSensorId().getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(24 + sensorId.length)
+                .putLong(data.getTimestamp())
+                .putDouble(data.getSpeed())
+                .putDouble(data.getDirection())
+                .put(sensorId)
+                .array();
+    }
+
+    static WindData decode(byte[] record) {
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        long timestamp = buffer.getLong();
+        double speed = buffer.getDouble();
+        double direction = buffer.getDouble();
+        String sensorId = new String(record, 24, record.length - 24, StandardCharsets.UTF_8);
+        return new WindData(sensorId, speed, direction, timestamp);
+    }
+
+    @PreDestroy
+    public void stop() {
+        // The flusher notices within one flush interval and drains what is left
+        running = false;
+        if (flusher != null) {
+            try {
+                flusher.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Sink callbacks still ack or spool: close the spool only once they are done
+        try {
+            if (inFlight.tryAcquire(maxInFlight, 5, TimeUnit.SECONDS)) {
+                inFlight.release(maxInFlight);
+            } else {
+                logger.warn("Persistence batches still in flight at shutdown");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        DiskSpool current = spool;
+        PendingBatch retry;
+        while ((retry = retries.poll()) != null) {
+            if (current != null) {
+                spool(retry.readings);
+            } else {
+                failed.increment(retry.readings.size());
+            }
+        }
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close persistence spool", e);
+            }
+        }
+    }
+
+    private static final class PendingBatch {
+        private final List<WindData> readings;
+        private int attempts;
+        private DiskSpool.Batch spooled;
+
+        private PendingBatch(List<WindData> readings) {
+            this.readings = readings;
+        }
+    }
+}
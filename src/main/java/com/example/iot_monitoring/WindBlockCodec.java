@@ -0,0 +1,350 @@
+package com.example.iot_monitoring;
+
+import java.util.Arrays;
+
+/**
+ * Columnar, bit-packed encoding of one sensor's readings for the cold archive
+ * ({@link WindArchiveFile}), after Facebook's Gorilla time series compression.
+ *
+ * A block holds three independent bit streams, each padded to whole 64-bit words:
+ * <ul>
+ *     <li>timestamps: the first one raw, then the zig-zag delta of consecutive
+ *     deltas ("delta of delta"), which is zero for a regular publish interval:
+ *     {@code 0} | {@code 10}+4 bits | {@code 110}+8 | {@code 1110}+12 |
+ *     {@code 11110}+32 | {@code 11111}+64;</li>
+ *     <li>speed and direction: the first value raw, then the XOR of the double
+ *     bits with the previous value: {@code 0} if equal, {@code 10} + the
+ *     meaningful bits when they fit in the previous leading/trailing zero
+ *     window, otherwise {@code 11} + 6 bits of leading zeros + 6 bits of
+ *     length - 1 + the bits.</li>
+ * </ul>
+ * Readings arrive with two decimals, and the XOR of two doubles that differ in
+ * the second decimal still spans most of the mantissa (about 30 bits for a
+ * gusty sensor). So when every value of a column round-trips through
+ * centi-units ({@link #FLAG_CENTI_SPEED}, {@link #FLAG_CENTI_DIRECTION}) the
+ * column stores zig-zag deltas of the centi integers with the same control
+ * scheme: {@code 0} if unchanged, {@code 10} + the delta in the previous width,
+ * {@code 11} + 6 bits of width - 1 + the delta. Other columns keep the XOR
+ * encoding, so a block is always lossless.
+ */
+final class WindBlockCodec {
+    static final int FLAG_CENTI_SPEED = 1;
+    static final int FLAG_CENTI_DIRECTION = 1 << 1;
+
+    private static final long MAX_CENTI = 1L << 52;
+    // Delta-of-delta width by number of leading one bits of the prefix
+    private static final int[] TIMESTAMP_WIDTHS = {0, 4, 8, 12, 32, 64};
+
+    private WindBlockCodec() {
+    }
+
+    static final class Block {
+        final long[] words;
+        final int timestampWords;
+        final int speedWords;
+        final int directionWords;
+        final int flags;
+
+        private Block(long[] words, int timestampWords, int speedWords, int directionWords, int flags) {
+            this.words = words;
+            this.timestampWords = timestampWords;
+            this.speedWords = speedWords;
+            this.directionWords = directionWords;
+            this.flags = flags;
+        }
+    }
+
+    /**
+     * Encodes {@code count} readings starting at {@code from}; timestamps should be ascending.
+     */
+    static Block encode(long[] timestamps, double[] speeds, double[] directions, int from, int count) {
+        BitWriter timestampBits = new BitWriter(count / 16 + 4);
+        encodeTimestamps(timestampBits, timestamps, from, count);
+        boolean centiSpeed = isCenti(speeds, from, count);
+        boolean centiDirection = isCenti(directions, from, count);
+        BitWriter speedBits = new BitWriter(count / 4 + 4);
+        encodeValues(speedBits, speeds, from, count, centiSpeed);
+        BitWriter directionBits = new BitWriter(count / 4 + 4);
+        encodeValues(directionBits, directions, from, count, centiDirection);
+
+        int t = timestampBits.wordCount();
+        int s = speedBits.wordCount();
+        int d = directionBits.wordCount();
+        long[] words = new long[t + s + d];
+        System.arraycopy(timestampBits.words, 0, words, 0, t);
+        System.arraycopy(speedBits.words, 0, words, t, s);
+        System.arraycopy(directionBits.words, 0, words, t + s, d);
+        int flags = (centiSpeed ? FLAG_CENTI_SPEED : 0) | (centiDirection ? FLAG_CENTI_DIRECTION : 0);
+        return new Block(words, t, s, d, flags);
+    }
+
+    /**
+     * Decodes a block of {@code count} readings into the output arrays.
+     */
+    static void decode(long[] words, int timestampWords, int speedWords, int flags, int count,
+                       long[] timestamps, double[] speeds, double[] directions) {
+        decodeTimestamps(new BitReader(words, 0), count, timestamps);
+        decodeValues(new BitReader(words, timestampWords), count, (flags & FLAG_CENTI_SPEED) != 0, speeds);
+        decodeValues(new BitReader(words, timestampWords + speedWords), count,
+                (flags & FLAG_CENTI_DIRECTION) != 0, directions);
+    }
+
+    private static void encodeTimestamps(BitWriter out, long[] timestamps, int from, int count) {
+        if (count == 0) {
+            return;
+        }
+        long previous = timestamps[from];
+        long previousDelta = 0;
+        out.write(previous, 64);
+        for (int i = from + 1; i < from + count; i++) {
+            long delta = timestamps[i] - previous;
+            long dod = WindFrameCodec.zigzag(delta - previousDelta);
+            if (dod == 0) {
+                out.write(0, 1);
+            } else if (dod < 1L << 4) {
+                out.write(0b10, 2);
+                out.write(dod, 4);
+            } else if (dod < 1L << 8) {
+                out.write(0b110, 3);
+                out.write(dod, 8);
+            } else if (dod < 1L << 12) {
+                out.write(0b1110, 4);
+                out.write(dod, 12);
+            } else if (dod < 1L << 32) {
+                out.write(0b11110, 5);
+                out.write(dod, 32);
+            } else {
+                out.write(0b11111, 5);
+                out.write(dod, 64);
+            }
+            previous = timestamps[i];
+            previousDelta = delta;
+        }
+    }
+
+    private static void decodeTimestamps(BitReader in, int count, long[] timestamps) {
+        if (count == 0) {
+            return;
+        }
+        long previous = in.read(64);
+        long delta = 0;
+        timestamps[0] = previous;
+        // Reader state kept in locals so the hot loop stays in registers
+        long[] words = in.words;
+        long position = in.position;
+        for (int i = 1; i < count; i++) {
+            // One look at the next 64 bits decodes the prefix and, in all but the widest case, the value
+            long window = peek(words, position);
+            if (window >= 0) {
+                position++;
+            } else {
+                int ones = Math.min(5, Long.numberOfLeadingZeros(~window));
+                int prefix = ones == 5 ? 5 : ones + 1;
+                int bits = TIMESTAMP_WIDTHS[ones];
+                if (bits < 64) {
+                    delta += WindFrameCodec.unzigzag((window << prefix) >>> (64 - bits));
+                    position += prefix + bits;
+                } else {
+                    delta += WindFrameCodec.unzigzag(peek(words, position + prefix));
+                    position += prefix + 64;
+                }
+            }
+            previous += delta;
+            timestamps[i] = previous;
+        }
+    }
+
+    private static boolean isCenti(double[] values, int from, int count) {
+        for (int i = from; i < from + count; i++) {
+            double scaled = values[i] * 100.0;
+            if (!(Math.abs(scaled) < MAX_CENTI) || Math.round(scaled) / 100.0 != values[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void encodeValues(BitWriter out, double[] values, int from, int count, boolean centi) {
+        if (count == 0) {
+            return;
+        }
+        if (centi) {
+            encodeCentiDeltas(out, values, from, count);
+        } else {
+            encodeXor(out, values, from, count);
+        }
+    }
+
+    private static void decodeValues(BitReader in, int count, boolean centi, double[] values) {
+        if (count == 0) {
+            return;
+        }
+        if (centi) {
+            decodeCentiDeltas(in, count, values);
+        } else {
+            decodeXor(in, count, values);
+        }
+    }
+
+    private static void encodeXor(BitWriter out, double[] values, int from, int count) {
+        long previous = Double.doubleToRawLongBits(values[from]);
+        out.write(previous, 64);
+        int previousLeading = -1;
+        int previousTrailing = 0;
+        for (int i = from + 1; i < from + count; i++) {
+            long current = Double.doubleToRawLongBits(values[i]);
+            long xor = current ^ previous;
+            previous = current;
+            if (xor == 0) {
+                out.write(0, 1);
+                continue;
+            }
+            int leading = Long.numberOfLeadingZeros(xor);
+            int trailing = Long.numberOfTrailingZeros(xor);
+            if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+                out.write(0b10, 2);
+                out.write(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+            } else {
+                int length = 64 - leading - trailing;
+                out.write(0b11, 2);
+                out.write(leading, 6);
+                out.write(length - 1, 6);
+                out.write(xor >>> trailing, length);
+                previousLeading = leading;
+                previousTrailing = trailing;
+            }
+        }
+    }
+
+    private static void encodeCentiDeltas(BitWriter out, double[] values, int from, int count) {
+        long previous = Math.round(values[from] * 100.0);
+        out.write(WindFrameCodec.zigzag(previous), 64);
+        int previousLength = 0;
+        for (int i = from + 1; i < from + count; i++) {
+            long current = Math.round(values[i] * 100.0);
+            long delta = WindFrameCodec.zigzag(current - previous);
+            previous = current;
+            if (delta == 0) {
+                out.write(0, 1);
+                continue;
+            }
+            int length = 64 - Long.numberOfLeadingZeros(delta);
+            // Reuse the previous width unless announcing a narrower one is cheaper
+            if (length <= previousLength && previousLength <= length + 6) {
+                out.write(0b10, 2);
+                out.write(delta, previousLength);
+            } else {
+                out.write(0b11, 2);
+                out.write(length - 1, 6);
+                out.write(delta, length);
+                previousLength = length;
+            }
+        }
+    }
+
+    private static void decodeCentiDeltas(BitReader in, int count, double[] values) {
+        long previous = WindFrameCodec.unzigzag(in.read(64));
+        values[0] = previous / 100.0;
+        long[] words = in.words;
+        long position = in.position;
+        int length = 0;
+        for (int i = 1; i < count; i++) {
+            long window = peek(words, position);
+            if (window < 0) {
+                if ((window << 1) < 0) {
+                    length = (int) ((window << 2) >>> 58) + 1;
+                    window <<= 8;
+                    position += 8;
+                } else {
+                    window <<= 2;
+                    position += 2;
+                }
+                if (length > 56) {
+                    window = peek(words, position);
+                }
+                previous += WindFrameCodec.unzigzag(window >>> (64 - length));
+                position += length;
+            } else {
+                position++;
+            }
+            values[i] = previous / 100.0;
+        }
+    }
+
+    private static void decodeXor(BitReader in, int count, double[] values) {
+        long previous = in.read(64);
+        values[0] = Double.longBitsToDouble(previous);
+        int leading = 0;
+        int trailing = 0;
+        for (int i = 1; i < count; i++) {
+            if (in.read(1) != 0) {
+                if (in.read(1) != 0) {
+                    leading = (int) in.read(6);
+                    trailing = 64 - leading - ((int) in.read(6) + 1);
+                }
+                previous ^= in.read(64 - leading - trailing) << trailing;
+            }
+            values[i] = Double.longBitsToDouble(previous);
+        }
+    }
+
+    private static final class BitWriter {
+        private long[] words;
+        private long position;
+
+        BitWriter(int initialWords) {
+            this.words = new long[Math.max(2, initialWords)];
+        }
+
+        // Writes the low {@code bits} bits of {@code value}, most significant first
+        void write(long value, int bits) {
+            if (bits < 64) {
+                value &= (1L << bits) - 1;
+            }
+            int index = (int) (position >>> 6);
+            if (index + 1 >= words.length) {
+                words = Arrays.copyOf(words, words.length * 2);
+            }
+            int free = 64 - (int) (position & 63);
+            if (bits <= free) {
+                words[index] |= value << (free - bits);
+            } else {
+                int rest = bits - free;
+                words[index] |= value >>> rest;
+                words[index + 1] |= value << (64 - rest);
+            }
+            position += bits;
+        }
+
+        int wordCount() {
+            return (int) ((position + 63) >>> 6);
+        }
+    }
+
+    // The 64 bits starting at bit {@code position}, most significant first, zero past the end
+    private static long peek(long[] words, long position) {
+        int index = (int) (position >>> 6);
+        int offset = (int) (position & 63);
+        long value = words[index] << offset;
+        if (offset != 0 && index + 1 < words.length) {
+            value |= words[index + 1] >>> (64 - offset);
+        }
+        return value;
+    }
+
+    private static final class BitReader {
+        private final long[] words;
+        private long position;
+
+        BitReader(long[] words, int firstWord) {
+            this.words = words;
+            this.position = (long) firstWord << 6;
+        }
+
+        long read(int bits) {
+            long value = peek(words, position) >>> (64 - bits);
+            position += bits;
+            return value;
+        }
+    }
+}
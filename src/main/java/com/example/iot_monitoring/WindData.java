@@ -1,23 +1,37 @@
 package com.example.iot_monitoring;
 
-import java.util.Date;
-
 public class WindData {
+    private String sensorId;
     private double speed;
     private double direction;
     private long timestamp;
 
     public WindData() {
-        this.timestamp = new Date().getTime();
+        this.timestamp = System.currentTimeMillis();
     }
 
     public WindData(double speed, double direction) {
         this.speed = speed;
         this.direction = direction;
-        this.timestamp = new Date().getTime();
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    public WindData(String sensorId, double speed, double direction, long timestamp) {
+        this.sensorId = sensorId;
+        this.speed = speed;
+        this.direction = direction;
+        this.timestamp = timestamp;
     }
 
     // Getters e Setters
+    public String getSensorId() {
+        return sensorId;
+    }
+
+    public void setSensorId(String sensorId) {
+        this.sensorId = sensorId;
+    }
+
     public double getSpeed() {
         return speed;
     }
@@ -44,7 +58,7 @@ public class WindData {
 
     @Override
     public String toString() {
-        return String.format("WindData{speed=%.2f, direction=%.2f, timestamp=%d}",
-                speed, direction, timestamp);
+        return String.format("WindData{sensorId=%s, speed=%.2f, direction=%.2f, timestamp=%d}",
+                sensorId, speed, direction, timestamp);
     }
 }
\ No newline at end of file
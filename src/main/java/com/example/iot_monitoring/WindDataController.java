@@ -1,33 +1,54 @@
 package com.example.iot_monitoring;
 
+import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
-import org.springframework.messaging.handler.annotation.SendTo;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.util.HtmlUtils;
 
 @Controller
 public class WindDataController {
 
-    private final SimpMessagingTemplate messagingTemplate;
+    private static final long RECENT_HISTORY_MILLIS = 10 * 60 * 1000L;
 
-    public WindDataController(SimpMessagingTemplate messagingTemplate) {
-        this.messagingTemplate = messagingTemplate;
+    private final WindUpdateFanout fanout;
+    private final WindHistoryStore historyStore;
+    private final WindSnapshotPublisher snapshotPublisher;
+
+    public WindDataController(WindUpdateFanout fanout, WindHistoryStore historyStore,
+                              WindSnapshotPublisher snapshotPublisher) {
+        this.fanout = fanout;
+        this.historyStore = historyStore;
+        this.snapshotPublisher = snapshotPublisher;
     }
 
-    // Endpoint para envio direto
+    // Endpoint para envio direto; entregue em /topic/wind_updates pelo fan-out
     @MessageMapping("/wind-data")
-    @SendTo("/topic/wind_updates")
-    public WindData sendWindData(WindData windData) throws Exception {
+    public void sendWindData(WindData windData) throws Exception {
         // Processamento adicional pode ser feito aqui
-        return new WindData(
+        WindData data = new WindData(
                 windData.getSpeed(),
                 windData.getDirection()
         );
+        data.setSensorId(windData.getSensorId());
+        fanout.publish(data);
     }
 
     // Método para broadcast manual
     public void broadcastWindUpdate(WindData windData) {
-        messagingTemplate.convertAndSend("/topic/wind_updates", windData);
+        fanout.publish(windData);
+    }
+
+    // Histórico recente enviado no momento da inscrição em /app/history/{sensorId}
+    @SubscribeMapping("/history/{sensorId}")
+    public WindSeries recentHistory(@DestinationVariable String sensorId) {
+        long now = System.currentTimeMillis();
+        return historyStore.range(sensorId, now - RECENT_HISTORY_MILLIS, Long.MAX_VALUE);
+    }
+
+    // Último estado de todos os sensores, enviado na inscrição em /app/snapshot
+    @SubscribeMapping("/snapshot")
+    public WindSnapshot snapshot() {
+        return snapshotPublisher.current();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,20 @@
+package com.example.iot_monitoring;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Persistence SPI for wind readings.
+ *
+ * The active implementation is chosen with {@code wind.persistence.repository}:
+ * {@code firebase} (default) for the Realtime Database, or {@code local} for the
+ * append-only segment log on local disk. Writes arrive in batches from
+ * {@link WindBatchWriter}.
+ */
+public interface WindDataRepository extends WindDataSink {
+
+    /**
+     * Readings of {@code sensorId} with {@code from <= timestamp <= to}, oldest first.
+     */
+    CompletableFuture<List<WindData>> findRange(String sensorId, long from, long to);
+}
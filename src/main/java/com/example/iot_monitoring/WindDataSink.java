@@ -0,0 +1,16 @@
+package com.example.iot_monitoring;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Destination for batches of readings flushed by {@link WindBatchWriter}.
+ */
+public interface WindDataSink {
+
+    /**
+     * Writes {@code batch} as a single operation. The returned future completes
+     * when the sink has acknowledged the whole batch, or exceptionally if it failed.
+     */
+    CompletableFuture<Void> write(List<WindData> batch);
+}
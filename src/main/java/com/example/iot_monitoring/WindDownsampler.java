@@ -0,0 +1,145 @@
+package com.example.iot_monitoring;
+
+import java.util.Locale;
+
+/**
+ * Server-side reduction of a {@link WindSeries} to a chart-sized number of points.
+ *
+ * Both methods keep original samples (no interpolation), so direction and
+ * timestamp stay consistent with the selected speed:
+ * <ul>
+ *     <li>{@link Method#LTTB} - Largest-Triangle-Three-Buckets on speed, which
+ *     preserves the visual shape of the line;</li>
+ *     <li>{@link Method#MINMAX} - the minimum and maximum speed of each time
+ *     bucket, so no gust or lull is lost.</li>
+ * </ul>
+ */
+public final class WindDownsampler {
+
+    public enum Method {
+        RAW, LTTB, MINMAX;
+
+        public static Method parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown downsampling method: " + value + " (raw, lttb, minmax)");
+            }
+        }
+    }
+
+    private WindDownsampler() {
+    }
+
+    public static WindSeries downsample(WindSeries series, Method method, int points) {
+        switch (method) {
+            case LTTB:
+                return lttb(series, points);
+            case MINMAX:
+                return minMax(series, points);
+            default:
+                return series;
+        }
+    }
+
+    public static WindSeries lttb(WindSeries series, int threshold) {
+        int n = series.getSize();
+        if (threshold >= n || threshold < 3) {
+            return series;
+        }
+        long[] ts = series.getTimestamps();
+        double[] speeds = series.getSpeeds();
+        long origin = ts[0];
+
+        int[] selected = new int[threshold];
+        int count = 0;
+        selected[count++] = 0;
+        double every = (double) (n - 2) / (threshold - 2);
+        int a = 0;
+        for (int i = 0; i < threshold - 2; i++) {
+            // Average of the next bucket is the third vertex of the triangle
+            int avgStart = (int) Math.floor((i + 1) * every) + 1;
+            int avgEnd = Math.min((int) Math.floor((i + 2) * every) + 1, n);
+            double avgX = 0;
+            double avgY = 0;
+            for (int j = avgStart; j < avgEnd; j++) {
+                avgX += ts[j] - origin;
+                avgY += speeds[j];
+            }
+            int avgCount = avgEnd - avgStart;
+            avgX /= avgCount;
+            avgY /= avgCount;
+
+            int rangeStart = (int) Math.floor(i * every) + 1;
+            int rangeEnd = (int) Math.floor((i + 1) * every) + 1;
+            double ax = ts[a] - origin;
+            double ay = speeds[a];
+            double maxArea = -1;
+            int next = rangeStart;
+            for (int j = rangeStart; j < rangeEnd; j++) {
+                double area = Math.abs((ax - avgX) * (speeds[j] - ay) - (ax - (ts[j] - origin)) * (avgY - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = j;
+                }
+            }
+            selected[count++] = next;
+            a = next;
+        }
+        selected[count++] = n - 1;
+        return select(series, selected, count);
+    }
+
+    /**
+     * Splits the time span into {@code points / 2} equal buckets and keeps the
+     * slowest and fastest sample of each, in time order.
+     */
+    public static WindSeries minMax(WindSeries series, int points) {
+        int n = series.getSize();
+        if (points >= n || n == 0) {
+            return series;
+        }
+        long[] ts = series.getTimestamps();
+        double[] speeds = series.getSpeeds();
+        int buckets = Math.max(1, points / 2);
+        long first = ts[0];
+        double width = (double) (ts[n - 1] - first + 1) / buckets;
+
+        int[] selected = new int[buckets * 2];
+        int count = 0;
+        int i = 0;
+        while (i < n) {
+            int bucket = (int) ((ts[i] - first) / width);
+            int min = i;
+            int max = i;
+            i++;
+            while (i < n && (int) ((ts[i] - first) / width) == bucket) {
+                if (speeds[i] < speeds[min]) {
+                    min = i;
+                }
+                if (speeds[i] > speeds[max]) {
+                    max = i;
+                }
+                i++;
+            }
+            selected[count++] = Math.min(min, max);
+            if (min != max) {
+                selected[count++] = Math.max(min, max);
+            }
+        }
+        return select(series, selected, count);
+    }
+
+    private static WindSeries select(WindSeries series, int[] indexes, int count) {
+        long[] ts = new long[count];
+        double[] speeds = new double[count];
+        double[] directions = new double[count];
+        for (int k = 0; k < count; k++) {
+            int index = indexes[k];
+            ts[k] = series.getTimestamps()[index];
+            speeds[k] = series.getSpeeds()[index];
+            directions[k] = series.getDirections()[index];
+        }
+        return new WindSeries(series.getSensorId(), ts, speeds, directions);
+    }
+}
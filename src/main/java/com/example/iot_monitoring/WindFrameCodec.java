@@ -0,0 +1,181 @@
+package com.example.iot_monitoring;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Compact binary frames for {@code /topic/wind_updates.bin} subscribers.
+ *
+ * One updates frame carries the latest reading of many sensors. Entries are
+ * sorted by timestamp and each timestamp is a zig-zag varint delta from the
+ * previous one (the first from the frame base), so a batch collected within one
+ * frame interval costs one or two bytes of time per sensor. Speed (centi-km/h)
+ * and direction (centidegrees) are quantized to the same precision as the MQTT
+ * binary record and stored as absolute varints: every frame is self-contained,
+ * so a client that joins late or misses frames never decodes garbage. Sensors
+ * are referenced by a small integer key; the key to id mapping is sent in
+ * dictionary frames.
+ *
+ * <pre>
+ * header   magic 0xB8, version 1, type (1 = updates, 2 = dictionary)
+ * updates  varint count, varint base timestamp,
+ *          count x (varint key, zigzag varint timestamp delta,
+ *                   zigzag varint centi-speed, varint centidegrees)
+ * dictionary  varint count, count x (varint key, varint length, UTF-8 sensor id)
+ * </pre>
+ */
+public final class WindFrameCodec {
+    public static final byte MAGIC = (byte) 0xB8;
+    public static final byte VERSION = 1;
+    public static final byte TYPE_UPDATES = 1;
+    public static final byte TYPE_DICTIONARY = 2;
+
+    private static final int HEADER_LENGTH = 3;
+    private static final int MAX_VARINT_LENGTH = 10;
+    private static final int MAX_ENTRY_LENGTH = 4 * MAX_VARINT_LENGTH;
+
+    private WindFrameCodec() {
+    }
+
+    /**
+     * Encodes the first {@code count} entries of the arrays, which are left untouched.
+     */
+    public static byte[] encodeUpdates(int[] keys, long[] timestamps, double[] speeds, double[] directions,
+                                       int count) {
+        long[] order = timestampOrder(timestamps, count);
+        byte[] buffer = new byte[HEADER_LENGTH + 2 * MAX_VARINT_LENGTH + count * MAX_ENTRY_LENGTH];
+        int pos = header(buffer, TYPE_UPDATES);
+        long base = count == 0 ? 0 : timestamps[index(order, 0)];
+        pos = putVarint(buffer, pos, count);
+        pos = putVarint(buffer, pos, base);
+        long previous = base;
+        for (int n = 0; n < count; n++) {
+            int i = index(order, n);
+            pos = putVarint(buffer, pos, keys[i]);
+            pos = putVarint(buffer, pos, zigzag(timestamps[i] - previous));
+            previous = timestamps[i];
+            pos = putVarint(buffer, pos, zigzag(Math.round(speeds[i] * 100.0)));
+            pos = putVarint(buffer, pos, centiDegrees(directions[i]));
+        }
+        return Arrays.copyOf(buffer, pos);
+    }
+
+    public static byte[] encodeDictionary(Map<Integer, String> entries) {
+        int size = HEADER_LENGTH + MAX_VARINT_LENGTH;
+        for (String id : entries.values()) {
+            size += 2 * MAX_VARINT_LENGTH + id.length() * 3;
+        }
+        byte[] buffer = new byte[size];
+        int pos = header(buffer, TYPE_DICTIONARY);
+        pos = putVarint(buffer, pos, entries.size());
+        for (Map.Entry<Integer, String> entry : entries.entrySet()) {
+            byte[] id = entry.getValue().getBytes(StandardCharsets.UTF_8);
+            pos = putVarint(buffer, pos, entry.getKey());
+            pos = putVarint(buffer, pos, id.length);
+            System.arraycopy(id, 0, buffer, pos, id.length);
+            pos += id.length;
+        }
+        return Arrays.copyOf(buffer, pos);
+    }
+
+    /**
+     * Decodes an updates frame into the given arrays, which must hold at least as
+     * many entries as the frame; reference implementation for clients and tests.
+     *
+     * @return the number of entries, or {@code -1} if this is not an updates frame
+     */
+    public static int decodeUpdates(byte[] frame, int[] keys, long[] timestamps, double[] speeds,
+                                    double[] directions) {
+        if (frame.length < HEADER_LENGTH || frame[0] != MAGIC || frame[1] != VERSION || frame[2] != TYPE_UPDATES) {
+            return -1;
+        }
+        long[] cursor = {HEADER_LENGTH};
+        int count = (int) getVarint(frame, cursor);
+        long timestamp = getVarint(frame, cursor);
+        for (int i = 0; i < count; i++) {
+            keys[i] = (int) getVarint(frame, cursor);
+            timestamp += unzigzag(getVarint(frame, cursor));
+            timestamps[i] = timestamp;
+            speeds[i] = unzigzag(getVarint(frame, cursor)) / 100.0;
+            directions[i] = getVarint(frame, cursor) / 100.0;
+        }
+        return count;
+    }
+
+    private static int header(byte[] buffer, byte type) {
+        buffer[0] = MAGIC;
+        buffer[1] = VERSION;
+        buffer[2] = type;
+        return HEADER_LENGTH;
+    }
+
+    private static int centiDegrees(double direction) {
+        double normalized = direction % 360.0;
+        if (normalized < 0) {
+            normalized += 360.0;
+        }
+        return (int) Math.round(normalized * 100.0) % 36000;
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static int putVarint(byte[] buffer, int pos, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[pos++] = (byte) value;
+        return pos;
+    }
+
+    private static long getVarint(byte[] buffer, long[] cursor) {
+        int pos = (int) cursor[0];
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer[pos++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        cursor[0] = pos;
+        return value;
+    }
+
+    /**
+     * Entry indexes ordered by timestamp, packed as {@code (timestamp - min) << 32 | index}
+     * so a primitive sort does the work; {@code null} (input order) when the spread
+     * does not fit, in which case the zig-zag deltas simply get longer.
+     */
+    private static long[] timestampOrder(long[] timestamps, int count) {
+        if (count < 2) {
+            return null;
+        }
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            min = Math.min(min, timestamps[i]);
+            max = Math.max(max, timestamps[i]);
+        }
+        if (max - min < 0 || max - min > Integer.MAX_VALUE) {
+            return null;
+        }
+        long[] order = new long[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = (timestamps[i] - min) << 32 | i;
+        }
+        Arrays.sort(order);
+        return order;
+    }
+
+    private static int index(long[] order, int n) {
+        return order == null ? n : (int) order[n];
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.iot_monitoring;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * In-memory history of one sensor: a columnar ring of raw samples plus
+ * incremental 1s/1m/1h rollups.
+ *
+ * Raw samples live in parallel primitive arrays that grow on demand up to
+ * {@code capacity} and then wrap, so a quiet sensor does not pay for the full
+ * retention. The ring is kept sorted by timestamp so range queries can
+ * binary-search it: a late sample is moved back to its place, which is cheap
+ * for the slightly late readings that get past the sequencer. Samples stamped
+ * more than {@code maxFutureMillis} ahead of the clock are rejected, since one
+ * of them would move the rollups' window past every later reading. All methods
+ * synchronize on the buffer itself, which only ever contends between the
+ * sensor's writer and its readers.
+ */
+public class WindHistoryBuffer {
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final String sensorId;
+    private final int capacity;
+    private final long retentionMillis;
+    private final int secondBuckets;
+    private final long maxFutureMillis;
+    private final WindRollup[] rollups;
+
+    private long[] timestamps;
+    private double[] speeds;
+    private double[] directions;
+    private int head; // next write position once the ring has wrapped
+    private int size;
+
+    public WindHistoryBuffer(String sensorId, int capacity, long retentionMillis, int secondBuckets,
+                             long maxFutureMillis) {
+        this.sensorId = sensorId;
+        this.capacity = capacity;
+        this.retentionMillis = retentionMillis;
+        this.secondBuckets = secondBuckets;
+        this.maxFutureMillis = maxFutureMillis;
+        this.rollups = new WindRollup[RollupResolution.values().length];
+        clear();
+    }
+
+    private void clear() {
+        int initial = Math.min(INITIAL_CAPACITY, capacity);
+        this.timestamps = new long[initial];
+        this.speeds = new double[initial];
+        this.directions = new double[initial];
+        this.head = 0;
+        this.size = 0;
+        rollups[RollupResolution.SECOND.ordinal()] = new WindRollup(RollupResolution.SECOND.getMillis(), secondBuckets);
+        rollups[RollupResolution.MINUTE.ordinal()] = new WindRollup(RollupResolution.MINUTE.getMillis(),
+                bucketsFor(retentionMillis, RollupResolution.MINUTE));
+        rollups[RollupResolution.HOUR.ordinal()] = new WindRollup(RollupResolution.HOUR.getMillis(),
+                bucketsFor(retentionMillis, RollupResolution.HOUR));
+    }
+
+    private static int bucketsFor(long retentionMillis, RollupResolution resolution) {
+        return (int) Math.max(1, (retentionMillis + resolution.getMillis() - 1) / resolution.getMillis()) + 1;
+    }
+
+    public String getSensorId() {
+        return sensorId;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return {@code false} if the sample was rejected: too far in the future, or
+     *         older than everything in a full ring
+     */
+    public synchronized boolean append(long timestamp, double speed, double direction) {
+        if (timestamp - System.currentTimeMillis() > maxFutureMillis) {
+            return false;
+        }
+        if (size == capacity && timestamp < timestamps[physical(0)]) {
+            return false;
+        }
+        int index;
+        if (size < capacity) {
+            if (size == timestamps.length) {
+                grow();
+            }
+            index = size++;
+        } else {
+            index = head;
+            head = head + 1 == capacity ? 0 : head + 1;
+        }
+        timestamps[index] = timestamp;
+        speeds[index] = speed;
+        directions[index] = direction;
+        for (int i = size - 1; i > 0; i--) {
+            int current = physical(i);
+            int previous = physical(i - 1);
+            if (timestamps[previous] <= timestamps[current]) {
+                break;
+            }
+            swap(previous, current);
+        }
+
+        double radians = Math.toRadians(direction);
+        double u = speed * Math.sin(radians);
+        double v = speed * Math.cos(radians);
+        for (WindRollup rollup : rollups) {
+            rollup.add(timestamp, speed, u, v);
+        }
+        return true;
+    }
+
+    /**
+     * Copies the raw samples with {@code from <= timestamp <= to}, limited to the
+     * retention window.
+     */
+    public synchronized WindSeries range(long from, long to) {
+        if (size == 0) {
+            return WindSeries.empty(sensorId);
+        }
+        long newest = timestamps[physical(size - 1)];
+        long lower = Math.max(from, newest - retentionMillis);
+        int start = lowerBound(lower);
+        int end = lowerBound(to == Long.MAX_VALUE ? to : to + 1);
+        int count = Math.max(0, end - start);
+
+        long[] ts = new long[count];
+        double[] sp = new double[count];
+        double[] dir = new double[count];
+        int copied = 0;
+        while (copied < count) {
+            int from0 = physical(start + copied);
+            int chunk = Math.min(count - copied, (size < capacity ? size : capacity) - from0);
+            System.arraycopy(timestamps, from0, ts, copied, chunk);
+            System.arraycopy(speeds, from0, sp, copied, chunk);
+            System.arraycopy(directions, from0, dir, copied, chunk);
+            copied += chunk;
+        }
+        return new WindSeries(sensorId, ts, sp, dir);
+    }
+
+    public synchronized List<WindAggregate> aggregates(RollupResolution resolution, long from, long to) {
+        return rollups[resolution.ordinal()].query(from, to);
+    }
+
+    /**
+     * Adds the {@code resolution} buckets starting in {@code [floor(from), to]} to {@code into}.
+     *
+     * @return {@code true} if the sensor had samples in that range
+     */
+    synchronized boolean accumulate(RollupResolution resolution, long from, long to, FleetAccumulator into) {
+        return rollups[resolution.ordinal()].accumulate(from, to, into);
+    }
+
+    /**
+     * Merges samples handed over by the sensor's previous owner in a cluster
+     * with this buffer's own, in timestamp order, and rebuilds the rollups from
+     * the result. Where both hold a sample for the same timestamp the local one
+     * is kept.
+     */
+    synchronized void prepend(WindSeries older) {
+        WindSeries own = range(Long.MIN_VALUE, Long.MAX_VALUE);
+        clear();
+        long[] ownTs = own.getTimestamps();
+        long[] olderTs = older.getTimestamps();
+        int i = 0;
+        int j = 0;
+        while (i < own.getSize() || j < older.getSize()) {
+            if (j == older.getSize() || (i < own.getSize() && ownTs[i] <= olderTs[j])) {
+                if (j < older.getSize() && olderTs[j] == ownTs[i]) {
+                    j++;
+                }
+                append(ownTs[i], own.getSpeeds()[i], own.getDirections()[i]);
+                i++;
+            } else {
+                append(olderTs[j], older.getSpeeds()[j], older.getDirections()[j]);
+                j++;
+            }
+        }
+    }
+
+    private int lowerBound(long timestamp) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (timestamps[physical(mid)] < timestamp) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private int physical(int logical) {
+        if (size < capacity) {
+            return logical;
+        }
+        int index = head + logical;
+        return index >= capacity ? index - capacity : index;
+    }
+
+    private void swap(int a, int b) {
+        long timestamp = timestamps[a];
+        timestamps[a] = timestamps[b];
+        timestamps[b] = timestamp;
+        double speed = speeds[a];
+        speeds[a] = speeds[b];
+        speeds[b] = speed;
+        double direction = directions[a];
+        directions[a] = directions[b];
+        directions[b] = direction;
+    }
+
+    private void grow() {
+        int length = Math.min(capacity, timestamps.length * 2);
+        timestamps = Arrays.copyOf(timestamps, length);
+        speeds = Arrays.copyOf(speeds, length);
+        directions = Arrays.copyOf(directions, length);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.iot_monitoring;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local history for every sensor, served to REST and WebSocket history queries
+ * instead of reading back from the remote store.
+ */
+@Component
+public class WindHistoryStore {
+    private final ConcurrentHashMap<String, WindHistoryBuffer> buffers = new ConcurrentHashMap<>();
+    private final int samplesPerSensor;
+    private final long retentionMillis;
+    private final int secondBuckets;
+    private final long maxFutureMillis;
+
+    public WindHistoryStore(@Value("${wind.history.retention-hours:6}") int retentionHours,
+                            @Value("${wind.history.max-samples:21600}") int samplesPerSensor,
+                            @Value("${wind.history.second-buckets:900}") int secondBuckets,
+                            @Value("${wind.history.max-future-ms:60000}") long maxFutureMillis) {
+        this.retentionMillis = TimeUnit.HOURS.toMillis(retentionHours);
+        this.samplesPerSensor = samplesPerSensor;
+        this.secondBuckets = secondBuckets;
+        this.maxFutureMillis = maxFutureMillis;
+    }
+
+    public void append(WindData data) {
+        WindHistoryBuffer buffer = buffers.get(data.getSensorId());
+        if (buffer == null) {
+            buffer = buffers.computeIfAbsent(data.getSensorId(), this::newBuffer);
+        }
+        buffer.append(data.getTimestamp(), data.getSpeed(), data.getDirection());
+    }
+
+    /**
+     * Merges history handed over from another node with what is held locally.
+     */
+    void prepend(WindSeries older) {
+        buffers.computeIfAbsent(older.getSensorId(), this::newBuffer).prepend(older);
+    }
+
+    void remove(String sensorId) {
+        buffers.remove(sensorId);
+    }
+
+    private WindHistoryBuffer newBuffer(String sensorId) {
+        return new WindHistoryBuffer(sensorId, samplesPerSensor, retentionMillis, secondBuckets, maxFutureMillis);
+    }
+
+    public WindHistoryBuffer get(String sensorId) {
+        return buffers.get(sensorId);
+    }
+
+    public WindSeries range(String sensorId, long from, long to) {
+        WindHistoryBuffer buffer = buffers.get(sensorId);
+        return buffer == null ? WindSeries.empty(sensorId) : buffer.range(from, to);
+    }
+
+    public List<WindAggregate> aggregates(String sensorId, RollupResolution resolution, long from, long to) {
+        WindHistoryBuffer buffer = buffers.get(sensorId);
+        return buffer == null ? Collections.emptyList() : buffer.aggregates(resolution, from, to);
+    }
+
+    public Collection<WindHistoryBuffer> all() {
+        return Collections.unmodifiableCollection(buffers.values());
+    }
+
+    /**
+     * How far back the per-second rollups reach, in milliseconds.
+     */
+    public long getSecondCoverageMillis() {
+        return (long) secondBuckets * RollupResolution.SECOND.getMillis();
+    }
+
+    public long getRetentionMillis() {
+        return retentionMillis;
+    }
+}
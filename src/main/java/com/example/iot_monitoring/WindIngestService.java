@@ -0,0 +1,48 @@
+package com.example.iot_monitoring;
+
+import org.springframework.stereotype.Service;
+
+/**
+ * Entry point for every decoded reading, whatever topic or encoding it came from.
+ * Local history and anomaly detection see every reading; persistence and the
+ * WebSocket fan-out only those their {@link WindSampleFilters} let through. The
+ * fan-out also gets none while the {@link OverloadController} is shedding
+ * pushes; that check comes first so a shed reading does not advance the filter's
+ * state. Persistence is never shed here: a backlog is the batch writer's to
+ * absorb, through its overflow policy and spool.
+ */
+@Service
+public class WindIngestService {
+
+    private final WindHistoryStore historyStore;
+    private final WindBatchWriter batchWriter;
+    private final WindUpdateFanout fanout;
+    private final WindAnomalyService anomalyService;
+    private final WindSampleFilters filters;
+    private final OverloadController overload;
+
+    public WindIngestService(WindHistoryStore historyStore, WindBatchWriter batchWriter, WindUpdateFanout fanout,
+                             WindAnomalyService anomalyService, WindSampleFilters filters,
+                             OverloadController overload) {
+        this.historyStore = historyStore;
+        this.batchWriter = batchWriter;
+        this.fanout = fanout;
+        this.anomalyService = anomalyService;
+        this.filters = filters;
+        this.overload = overload;
+    }
+
+    public WindData ingest(SensorState state, WindReading reading) {
+        WindData data = state.update(reading, System.currentTimeMillis());
+        historyStore.append(data);
+        if (filters.accept(WindSampleFilters.Sink.PERSISTENCE, data)) {
+            batchWriter.offer(data);
+        }
+        if (overload.admit(OverloadController.Lane.PUSH)
+                && filters.accept(WindSampleFilters.Sink.WEBSOCKET, data)) {
+            fanout.publish(data);
+        }
+        anomalyService.process(data);
+        return data;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.iot_monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end latency of wind readings, measured from the reading's own
+ * {@link WindData#getTimestamp() timestamp} to each stage of the pipeline.
+ *
+ * Every stage is a {@code wind.latency} timer tagged with {@code stage}. The
+ * timers are created once, so recording is a clock read plus a histogram
+ * increment and can stay enabled in production. Buckets are published for
+ * Prometheus and client-side percentiles come from an HdrHistogram recorder.
+ * Readings stamped in the future (sensor clock ahead of ours) are not recorded
+ * but counted in {@code wind.latency.clock_skew}.
+ */
+@Component
+public class WindLatencyMetrics {
+
+    public enum Stage {
+        /** Handed to the MQTT client by the simulator. */
+        PUBLISHED("published"),
+        /** Delivered to {@code MqttService.messageArrived}. */
+        ARRIVED("arrived"),
+        /** Merged into sensor state and history by an ingest worker. */
+        INGESTED("ingested"),
+        /** Acknowledged by the persistence sink. */
+        PERSISTED("persisted"),
+        /** Handed to the STOMP broker by the fan-out. */
+        BROADCAST("broadcast"),
+        /** Written to a client's WebSocket session. */
+        DELIVERED("delivered");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+    }
+
+    private final Timer[] timers;
+    private final Counter clockSkew;
+
+    public WindLatencyMetrics(MeterRegistry meterRegistry,
+                              @Value("${wind.metrics.latency.percentiles:0.5,0.9,0.99,0.999}") double[] percentiles) {
+        Stage[] stages = Stage.values();
+        this.timers = new Timer[stages.length];
+        for (Stage stage : stages) {
+            timers[stage.ordinal()] = Timer.builder("wind.latency")
+                    .description("Time from the reading timestamp to this pipeline stage")
+                    .tag("stage", stage.getTag())
+                    .publishPercentileHistogram()
+                    .publishPercentiles(percentiles)
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofMinutes(5))
+                    .register(meterRegistry);
+        }
+        this.clockSkew = Counter.builder("wind.latency.clock_skew")
+                .description("Readings whose timestamp was ahead of the local clock")
+                .register(meterRegistry);
+    }
+
+    public void record(Stage stage, long originMillis) {
+        record(stage, originMillis, System.currentTimeMillis());
+    }
+
+    public void record(Stage stage, long originMillis, long nowMillis) {
+        if (originMillis <= 0) {
+            return;
+        }
+        long elapsed = nowMillis - originMillis;
+        if (elapsed < 0) {
+            clockSkew.increment();
+            return;
+        }
+        timers[stage.ordinal()].record(elapsed, TimeUnit.MILLISECONDS);
+    }
+
+    public void recordAll(Stage stage, List<WindData> readings) {
+        long now = System.currentTimeMillis();
+        for (WindData data : readings) {
+            record(stage, data.getTimestamp(), now);
+        }
+    }
+
+    Timer timer(Stage stage) {
+        return timers[stage.ordinal()];
+    }
+}
@@ -0,0 +1,264 @@
+package com.example.iot_monitoring;
+
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
+import org.eclipse.paho.client.mqttv3.IMqttToken;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Multi-sensor MQTT load generator.
+ *
+ * Each virtual sensor runs on its own virtual thread, parks until its next slot
+ * and publishes a reading from a seeded {@link WindModel} on
+ * {@code wind/<prefix>-<n>/data}. Sensors are spread over a few MQTT clients and
+ * their phases are staggered so the aggregate rate is smooth. The model advances
+ * by a fixed step per message, so a given seed always yields the same readings.
+ * A sensor that falls more than one period behind skips the missed slots and
+ * counts them as late instead of bursting to catch up.
+ */
+@Service
+public class WindLoadGenerator {
+    private static final Logger logger = LoggerFactory.getLogger(WindLoadGenerator.class);
+
+    @Value("${mqtt.broker.url:tcp://localhost:1883}")
+    private String brokerUrl;
+
+    @Value("${wind.load.enabled:false}")
+    private boolean enabledOnStartup;
+
+    @Value("${wind.load.sensors:1000}")
+    private int sensors;
+
+    @Value("${wind.load.rate-per-sensor:1.0}")
+    private double ratePerSensor;
+
+    @Value("${wind.load.duration-seconds:60}")
+    private int durationSeconds;
+
+    @Value("${wind.load.seed:42}")
+    private long seed;
+
+    @Value("${wind.load.qos:0}")
+    private int qos;
+
+    @Value("${wind.load.clients:4}")
+    private int clients;
+
+    @Value("${wind.load.binary:true}")
+    private boolean binary;
+
+    @Value("${wind.simulation.min-speed:10}")
+    private double minSpeed;
+
+    @Value("${wind.simulation.max-speed:50}")
+    private double maxSpeed;
+
+    private volatile boolean running;
+    private volatile Run current;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startOnBoot() {
+        if (!enabledOnStartup) {
+            return;
+        }
+        LoadGeneratorSettings settings = new LoadGeneratorSettings();
+        settings.setSensors(sensors);
+        settings.setRatePerSensor(ratePerSensor);
+        settings.setDurationSeconds(durationSeconds);
+        settings.setSeed(seed);
+        settings.setQos(qos);
+        settings.setClients(clients);
+        settings.setBinary(binary);
+        start(settings);
+    }
+
+    public synchronized LoadGeneratorReport start(LoadGeneratorSettings settings) {
+        settings.validate();
+        if (running) {
+            throw new IllegalStateException("A load run is already in progress");
+        }
+        Run run = new Run(settings);
+        current = run;
+        running = true;
+        Thread.ofPlatform().name("wind-load-generator").daemon(true).start(run::execute);
+        return run.report();
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    public LoadGeneratorReport report() {
+        Run run = current;
+        return run == null ? null : run.report();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stop();
+    }
+
+    private final class Run {
+        private final LoadGeneratorSettings settings;
+        private final LongAdder sent = new LongAdder();
+        private final LongAdder acknowledged = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder late = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private volatile long startNanos;
+        private volatile long endNanos;
+
+        private Run(LoadGeneratorSettings settings) {
+            this.settings = settings;
+        }
+
+        private void execute() {
+            List<MqttAsyncClient> mqttClients = new ArrayList<>();
+            try {
+                for (int i = 0; i < settings.getClients(); i++) {
+                    mqttClients.add(connect());
+                }
+                logger.info("Load run starting: {} sensors x {}/s = {} msg/s for {}s (seed {})",
+                        settings.getSensors(), settings.getRatePerSensor(), settings.getTargetRate(),
+                        settings.getDurationSeconds(), settings.getSeed());
+
+                long periodNanos = (long) (1_000_000_000L / settings.getRatePerSensor());
+                startNanos = System.nanoTime();
+                long deadline = startNanos + TimeUnit.SECONDS.toNanos(settings.getDurationSeconds());
+                try (ExecutorService sensorThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+                    for (int i = 0; i < settings.getSensors(); i++) {
+                        int index = i;
+                        MqttAsyncClient client = mqttClients.get(i % mqttClients.size());
+                        sensorThreads.submit(() -> runSensor(index, client, periodNanos, deadline));
+                    }
+                }
+                endNanos = System.nanoTime();
+                awaitAcknowledgements();
+            } catch (Exception e) {
+                logger.error("Load run failed", e);
+            } finally {
+                if (endNanos == 0) {
+                    endNanos = System.nanoTime();
+                }
+                running = false;
+                for (MqttAsyncClient client : mqttClients) {
+                    disconnect(client);
+                }
+                logger.info("Load run finished: {}", report());
+            }
+        }
+
+        private MqttAsyncClient connect() throws MqttException {
+            MqttAsyncClient client = new MqttAsyncClient(brokerUrl,
+                    settings.getSensorPrefix() + "-" + UUID.randomUUID(), new MemoryPersistence());
+            MqttConnectOptions options = new MqttConnectOptions();
+            options.setCleanSession(true);
+            options.setMaxInflight(65535);
+            options.setAutomaticReconnect(false);
+            client.connect(options).waitForCompletion(TimeUnit.SECONDS.toMillis(10));
+            return client;
+        }
+
+        private void runSensor(int index, MqttAsyncClient client, long periodNanos, long deadline) {
+            String sensorId = String.format("%s-%05d", settings.getSensorPrefix(), index);
+            String topic = "wind/" + sensorId + "/data";
+            double meanSpeed = minSpeed + (maxSpeed - minSpeed) * ((index * 0.618034) % 1.0);
+            WindModel model = new WindModel(settings.getSeed() ^ (index * 0x9E3779B97F4A7C15L), meanSpeed);
+            double stepSeconds = periodNanos / 1e9;
+
+            long next = startNanos + periodNanos * index / settings.getSensors();
+            while (running && next < deadline) {
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                    continue;
+                }
+                model.advance(stepSeconds);
+                publish(client, topic, model);
+                next += periodNanos;
+
+                long behind = System.nanoTime() - next;
+                if (behind > periodNanos) {
+                    long skipped = behind / periodNanos;
+                    late.add(skipped);
+                    next += skipped * periodNanos;
+                }
+            }
+        }
+
+        private void publish(MqttAsyncClient client, String topic, WindModel model) {
+            long timestamp = System.currentTimeMillis();
+            byte[] payload;
+            if (settings.isBinary()) {
+                payload = new byte[WindPayloadDecoder.BINARY_LENGTH];
+                WindPayloadDecoder.encodeBinary(model.getSpeed(), model.getDirection(), timestamp, payload, 0);
+            } else {
+                payload = WindPayloadDecoder.encodeJson(model.getSpeed(), model.getDirection(), timestamp);
+            }
+
+            long sentAt = System.nanoTime();
+            sent.increment();
+            try {
+                client.publish(topic, payload, settings.getQos(), false, null, new IMqttActionListener() {
+                    @Override
+                    public void onSuccess(IMqttToken token) {
+                        latency.record(System.nanoTime() - sentAt);
+                        acknowledged.increment();
+                    }
+
+                    @Override
+                    public void onFailure(IMqttToken token, Throwable exception) {
+                        failed.increment();
+                    }
+                });
+            } catch (MqttException e) {
+                failed.increment();
+            }
+        }
+
+        private void awaitAcknowledgements() throws InterruptedException {
+            long giveUp = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (acknowledged.sum() + failed.sum() < sent.sum() && System.nanoTime() < giveUp) {
+                Thread.sleep(10);
+            }
+        }
+
+        private void disconnect(MqttAsyncClient client) {
+            try {
+                if (client.isConnected()) {
+                    client.disconnect().waitForCompletion(TimeUnit.SECONDS.toMillis(5));
+                }
+                client.close();
+            } catch (MqttException e) {
+                logger.warn("Failed to close load generator client: {}", e.getMessage());
+            }
+        }
+
+        private LoadGeneratorReport report() {
+            long start = startNanos;
+            long end = endNanos != 0 ? endNanos : System.nanoTime();
+            double elapsed = start == 0 ? 0.0 : (end - start) / 1e9;
+            return new LoadGeneratorReport(running && current == this, settings.getSensors(),
+                    settings.getTargetRate(), sent.sum(), acknowledged.sum(), failed.sum(), late.sum(),
+                    elapsed, latency);
+        }
+    }
+}
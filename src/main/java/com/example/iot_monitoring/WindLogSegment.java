@@ -0,0 +1,265 @@
+package com.example.iot_monitoring;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * One memory-mapped, preallocated file of fixed-size wind records.
+ *
+ * <pre>
+ * Record layout (32 bytes, native order of the mapped buffer: big endian)
+ *  0..7    timestamp, epoch millis
+ *  8..15   speed (double)
+ *  16..23  direction (double)
+ *  24..27  sensor key, see {@link SegmentLogWindDataRepository}
+ *  28..31  checksum of bytes 0..27
+ * </pre>
+ *
+ * The checksum does not match an all-zero record, so the unwritten tail of a
+ * preallocated file and a record torn by a crash both end recovery at the last
+ * complete record. Every {@link #BLOCK_RECORDS} records form a block whose
+ * min/max timestamps make up the sparse index used to skip blocks on range scans.
+ *
+ * A single writer appends; readers only look at records below the volatile
+ * {@link #count}, which is published after the record and its block bounds.
+ */
+final class WindLogSegment {
+    static final int RECORD_SIZE = 32;
+    static final int BLOCK_RECORDS = 1024;
+
+    interface RecordVisitor {
+        void visit(long timestamp, double speed, double direction);
+    }
+
+    interface KeyedRecordVisitor {
+        void visit(int key, long timestamp, double speed, double direction);
+    }
+
+    private final long sequence;
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final long[] blockMin;
+    private final long[] blockMax;
+    private volatile int count;
+
+    private WindLogSegment(long sequence, Path path, FileChannel channel, MappedByteBuffer buffer, int capacity) {
+        this.sequence = sequence;
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = capacity;
+        int blocks = (capacity + BLOCK_RECORDS - 1) / BLOCK_RECORDS;
+        this.blockMin = new long[blocks];
+        this.blockMax = new long[blocks];
+        Arrays.fill(blockMin, Long.MAX_VALUE);
+        Arrays.fill(blockMax, Long.MIN_VALUE);
+    }
+
+    /**
+     * Maps {@code path}, creating and preallocating it if needed, and recovers the
+     * valid prefix of records.
+     */
+    static WindLogSegment open(Path path, long sequence, int capacity) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * RECORD_SIZE);
+            WindLogSegment segment = new WindLogSegment(sequence, path, channel, buffer, capacity);
+            segment.recover();
+            return segment;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void recover() {
+        int recovered = 0;
+        while (recovered < capacity) {
+            int offset = recovered * RECORD_SIZE;
+            long timestamp = buffer.getLong(offset);
+            long speedBits = buffer.getLong(offset + 8);
+            long directionBits = buffer.getLong(offset + 16);
+            int key = buffer.getInt(offset + 24);
+            if (buffer.getInt(offset + 28) != checksum(timestamp, speedBits, directionBits, key)) {
+                break;
+            }
+            index(recovered, timestamp);
+            recovered++;
+        }
+        // Clear a torn record so a later append cannot resurrect it
+        if (recovered < capacity) {
+            for (int i = 0; i < RECORD_SIZE; i += 8) {
+                buffer.putLong(recovered * RECORD_SIZE + i, 0L);
+            }
+        }
+        this.count = recovered;
+    }
+
+    boolean append(long timestamp, int key, double speed, double direction) {
+        int position = count;
+        if (position >= capacity) {
+            return false;
+        }
+        int offset = position * RECORD_SIZE;
+        long speedBits = Double.doubleToRawLongBits(speed);
+        long directionBits = Double.doubleToRawLongBits(direction);
+        buffer.putLong(offset, timestamp);
+        buffer.putLong(offset + 8, speedBits);
+        buffer.putLong(offset + 16, directionBits);
+        buffer.putInt(offset + 24, key);
+        buffer.putInt(offset + 28, checksum(timestamp, speedBits, directionBits, key));
+        index(position, timestamp);
+        count = position + 1;
+        return true;
+    }
+
+    private void index(int position, long timestamp) {
+        int block = position / BLOCK_RECORDS;
+        if (timestamp < blockMin[block]) {
+            blockMin[block] = timestamp;
+        }
+        if (timestamp > blockMax[block]) {
+            blockMax[block] = timestamp;
+        }
+    }
+
+    /**
+     * Visits records of {@code key} with {@code from <= timestamp <= to}, in write order.
+     */
+    void scan(int key, long from, long to, RecordVisitor visitor) {
+        int limit = count;
+        int blocks = (limit + BLOCK_RECORDS - 1) / BLOCK_RECORDS;
+        for (int block = 0; block < blocks; block++) {
+            if (blockMax[block] < from || blockMin[block] > to) {
+                continue;
+            }
+            int end = Math.min(limit, (block + 1) * BLOCK_RECORDS);
+            for (int i = block * BLOCK_RECORDS; i < end; i++) {
+                int offset = i * RECORD_SIZE;
+                if (buffer.getInt(offset + 24) != key) {
+                    continue;
+                }
+                long timestamp = buffer.getLong(offset);
+                if (timestamp >= from && timestamp <= to) {
+                    visitor.visit(timestamp,
+                            Double.longBitsToDouble(buffer.getLong(offset + 8)),
+                            Double.longBitsToDouble(buffer.getLong(offset + 16)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Visits records of every sensor with {@code from <= timestamp <= to}, in write order.
+     */
+    void scanAll(long from, long to, KeyedRecordVisitor visitor) {
+        int limit = count;
+        int blocks = (limit + BLOCK_RECORDS - 1) / BLOCK_RECORDS;
+        for (int block = 0; block < blocks; block++) {
+            if (blockMax[block] < from || blockMin[block] > to) {
+                continue;
+            }
+            int end = Math.min(limit, (block + 1) * BLOCK_RECORDS);
+            for (int i = block * BLOCK_RECORDS; i < end; i++) {
+                int offset = i * RECORD_SIZE;
+                long timestamp = buffer.getLong(offset);
+                if (timestamp >= from && timestamp <= to) {
+                    visitor.visit(buffer.getInt(offset + 24), timestamp,
+                            Double.longBitsToDouble(buffer.getLong(offset + 8)),
+                            Double.longBitsToDouble(buffer.getLong(offset + 16)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Lower bound of the oldest timestamp not before {@code from}, {@link Long#MAX_VALUE} if there is none.
+     */
+    long firstTimestampFrom(long from) {
+        int blocks = (count + BLOCK_RECORDS - 1) / BLOCK_RECORDS;
+        long first = Long.MAX_VALUE;
+        for (int block = 0; block < blocks; block++) {
+            if (blockMax[block] >= from) {
+                first = Math.min(first, Math.max(from, blockMin[block]));
+            }
+        }
+        return first;
+    }
+
+    /**
+     * Newest timestamp written, {@link Long#MIN_VALUE} if the segment is empty.
+     */
+    long getMaxTimestamp() {
+        int blocks = (count + BLOCK_RECORDS - 1) / BLOCK_RECORDS;
+        long max = Long.MIN_VALUE;
+        for (int block = 0; block < blocks; block++) {
+            max = Math.max(max, blockMax[block]);
+        }
+        return max;
+    }
+
+    boolean overlaps(long from, long to) {
+        int limit = count;
+        if (limit == 0) {
+            return false;
+        }
+        int blocks = (limit + BLOCK_RECORDS - 1) / BLOCK_RECORDS;
+        for (int block = 0; block < blocks; block++) {
+            if (blockMax[block] >= from && blockMin[block] <= to) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    boolean isFull() {
+        return count >= capacity;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    static int checksum(long timestamp, long speedBits, long directionBits, int key) {
+        long h = 0x9E3779B97F4A7C15L;
+        h = mix(h ^ timestamp);
+        h = mix(h ^ speedBits);
+        h = mix(h ^ directionBits);
+        h = mix(h ^ key);
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // MurmurHash3 64-bit finalizer
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.iot_monitoring;
+
+import java.util.SplittableRandom;
+
+/**
+ * Stochastic wind model with temporal correlation, used by the simulators.
+ *
+ * Mean wind speed follows an Ornstein-Uhlenbeck process around {@code meanSpeed};
+ * gusts start at random (Poisson) and decay exponentially on top of it; direction
+ * mean-reverts around a slowly veering prevailing direction. The same seed always
+ * produces the same sequence for the same time steps.
+ */
+public final class WindModel {
+    private static final double SPEED_REVERSION = 0.05;   // 1/s
+    private static final double SPEED_VOLATILITY = 0.08;  // fraction of mean per sqrt(s)
+    private static final double GUST_RATE = 1.0 / 60.0;   // gusts per second
+    private static final double DIRECTION_REVERSION = 0.02;
+    private static final double DIRECTION_VOLATILITY = 4.0; // degrees per sqrt(s)
+    private static final double VEER_VOLATILITY = 0.3;
+
+    private final SplittableRandom random;
+    private final double meanSpeed;
+    private double baseSpeed;
+    private double gust;
+    private double gustDecay;
+    private double prevailingDirection;
+    private double direction;
+
+    public WindModel(long seed, double meanSpeed) {
+        this.random = new SplittableRandom(seed);
+        this.meanSpeed = meanSpeed;
+        this.baseSpeed = meanSpeed * (0.8 + 0.4 * random.nextDouble());
+        this.prevailingDirection = random.nextDouble() * 360.0;
+        this.direction = prevailingDirection;
+    }
+
+    public void advance(double dtSeconds) {
+        double sqrtDt = Math.sqrt(dtSeconds);
+
+        baseSpeed += SPEED_REVERSION * (meanSpeed - baseSpeed) * dtSeconds
+                + SPEED_VOLATILITY * meanSpeed * sqrtDt * random.nextGaussian();
+        if (baseSpeed < 0) {
+            baseSpeed = -baseSpeed;
+        }
+
+        gust *= Math.exp(-dtSeconds * gustDecay);
+        if (random.nextDouble() < GUST_RATE * dtSeconds) {
+            gust += meanSpeed * (0.3 + 0.5 * random.nextDouble());
+            gustDecay = 1.0 / (3.0 + 5.0 * random.nextDouble());
+        }
+
+        prevailingDirection = wrap(prevailingDirection + VEER_VOLATILITY * sqrtDt * random.nextGaussian());
+        double offset = signedDifference(prevailingDirection, direction);
+        direction = wrap(direction + DIRECTION_REVERSION * offset * dtSeconds
+                + DIRECTION_VOLATILITY * sqrtDt * random.nextGaussian());
+    }
+
+    public double getSpeed() {
+        return baseSpeed + gust;
+    }
+
+    public double getDirection() {
+        return direction;
+    }
+
+    private static double signedDifference(double target, double current) {
+        double diff = (target - current) % 360.0;
+        if (diff > 180.0) {
+            diff -= 360.0;
+        } else if (diff < -180.0) {
+            diff += 360.0;
+        }
+        return diff;
+    }
+
+    private static double wrap(double degrees) {
+        double wrapped = degrees % 360.0;
+        return wrapped < 0 ? wrapped + 360.0 : wrapped;
+    }
+}
@@ -0,0 +1,512 @@
+package com.example.iot_monitoring;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Decodes wind payloads straight from the MQTT {@code byte[]}.
+ *
+ * Two encodings are understood:
+ * <ul>
+ *     <li>the JSON record published by {@link WindSensorSimulator}
+ *     ({@code {"speed":12.34,"direction":180.00,"timestamp":1700000000000,"seq":42}},
+ *     {@code seq} being optional);</li>
+ *     <li>a compact fixed-width binary record of {@link #BINARY_LENGTH} bytes,
+ *     recognised by its leading {@link #BINARY_MAGIC} byte.</li>
+ * </ul>
+ * Plain scalar payloads ({@code wind/speed}, {@code wind/direction}) are handled by
+ * {@link #decodeScalar(byte[])}. None of the hot paths allocate: no intermediate
+ * {@code String}, no boxed numbers.
+ *
+ * <pre>
+ * Binary layout (big endian)
+ *  0      magic   0xB7
+ *  1      version 1
+ *  2..3   direction, unsigned centidegrees (0..35999)
+ *  4..7   speed, signed centi-km/h
+ *  8..15  timestamp, epoch millis
+ * </pre>
+ */
+public final class WindPayloadDecoder {
+    public static final byte BINARY_MAGIC = (byte) 0xB7;
+    public static final byte BINARY_VERSION = 1;
+    public static final int BINARY_LENGTH = 16;
+
+    private static final VarHandle SHORT_BE =
+            MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle INT_BE =
+            MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle LONG_BE =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private static final byte[] KEY_SPEED = "speed".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEY_DIRECTION = "direction".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEY_TIMESTAMP = "timestamp".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEY_SEQUENCE = "seq".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] JSON_SPEED = "{\"speed\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] JSON_DIRECTION = ",\"direction\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] JSON_TIMESTAMP = ",\"timestamp\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] JSON_SEQUENCE = ",\"seq\":".getBytes(StandardCharsets.US_ASCII);
+    private static final int JSON_MAX_LENGTH = 144;
+
+    // Powers of ten that are exactly representable as doubles
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final int MAX_EXACT_DIGITS = 15;
+    private static final int MAX_MANTISSA_DIGITS = 18;
+    // parseLong's failure value; a sequence of Long.MIN_VALUE is not accepted
+    static final long INVALID_LONG = Long.MIN_VALUE;
+
+    private WindPayloadDecoder() {
+    }
+
+    /**
+     * Decodes a {@code wind/data} payload, JSON or binary, into {@code target}.
+     *
+     * @return {@code false} when the payload is malformed or carries neither speed nor direction
+     */
+    public static boolean decode(byte[] payload, WindReading target) {
+        target.reset();
+        if (payload == null || payload.length == 0) {
+            return false;
+        }
+        if (payload[0] == BINARY_MAGIC) {
+            return decodeBinary(payload, target);
+        }
+        return decodeJson(payload, target);
+    }
+
+    public static boolean decodeBinary(byte[] payload, WindReading target) {
+        if (payload.length < BINARY_LENGTH || payload[0] != BINARY_MAGIC || payload[1] != BINARY_VERSION) {
+            return false;
+        }
+        int centiDegrees = Short.toUnsignedInt((short) SHORT_BE.get(payload, 2));
+        int centiSpeed = (int) INT_BE.get(payload, 4);
+        long timestamp = (long) LONG_BE.get(payload, 8);
+
+        target.setDirection(centiDegrees / 100.0);
+        target.setSpeed(centiSpeed / 100.0);
+        target.setTimestamp(timestamp);
+        return true;
+    }
+
+    /**
+     * Writes {@code speed}, {@code direction} and {@code timestamp} as a binary record.
+     *
+     * @return the number of bytes written, always {@link #BINARY_LENGTH}
+     */
+    public static int encodeBinary(double speed, double direction, long timestamp, byte[] dst, int offset) {
+        if (dst.length - offset < BINARY_LENGTH) {
+            throw new IllegalArgumentException("Destination buffer too small for binary wind record");
+        }
+        double normalized = direction % 360.0;
+        if (normalized < 0) {
+            normalized += 360.0;
+        }
+        int centiDegrees = (int) Math.round(normalized * 100.0) % 36000;
+
+        dst[offset] = BINARY_MAGIC;
+        dst[offset + 1] = BINARY_VERSION;
+        SHORT_BE.set(dst, offset + 2, (short) centiDegrees);
+        INT_BE.set(dst, offset + 4, (int) Math.round(speed * 100.0));
+        LONG_BE.set(dst, offset + 8, timestamp);
+        return BINARY_LENGTH;
+    }
+
+    public static byte[] encodeBinary(WindData data) {
+        byte[] buffer = new byte[BINARY_LENGTH];
+        encodeBinary(data.getSpeed(), data.getDirection(), data.getTimestamp(), buffer, 0);
+        return buffer;
+    }
+
+    /**
+     * Writes the JSON record with two decimals, independent of the default locale
+     * ({@code String.format("%.2f")} prints {@code 12,34} under pt-BR).
+     */
+    public static byte[] encodeJson(double speed, double direction, long timestamp) {
+        return encodeJson(speed, direction, timestamp, false, 0);
+    }
+
+    /**
+     * Same as {@link #encodeJson(double, double, long)}, followed by the publisher's sequence number.
+     */
+    public static byte[] encodeJson(double speed, double direction, long timestamp, long sequence) {
+        return encodeJson(speed, direction, timestamp, true, sequence);
+    }
+
+    private static byte[] encodeJson(double speed, double direction, long timestamp,
+                                     boolean withSequence, long sequence) {
+        byte[] buffer = new byte[JSON_MAX_LENGTH];
+        int pos = put(buffer, 0, JSON_SPEED);
+        pos = putCenti(buffer, pos, Math.round(speed * 100.0));
+        pos = put(buffer, pos, JSON_DIRECTION);
+        pos = putCenti(buffer, pos, Math.round(direction * 100.0));
+        pos = put(buffer, pos, JSON_TIMESTAMP);
+        pos = putLong(buffer, pos, timestamp);
+        if (withSequence) {
+            pos = put(buffer, pos, JSON_SEQUENCE);
+            pos = putLong(buffer, pos, sequence);
+        }
+        buffer[pos++] = '}';
+        return Arrays.copyOf(buffer, pos);
+    }
+
+    public static boolean decodeJson(byte[] payload, WindReading target) {
+        int length = payload.length;
+        int i = skipWhitespace(payload, 0, length);
+        if (i >= length || payload[i] != '{') {
+            return false;
+        }
+        i++;
+
+        while (true) {
+            i = skipWhitespace(payload, i, length);
+            if (i >= length) {
+                return false;
+            }
+            if (payload[i] == '}') {
+                break;
+            }
+            if (payload[i] != '"') {
+                return false;
+            }
+            int keyStart = i + 1;
+            int keyEnd = indexOf(payload, (byte) '"', keyStart, length);
+            if (keyEnd < 0) {
+                return false;
+            }
+            i = skipWhitespace(payload, keyEnd + 1, length);
+            if (i >= length || payload[i] != ':') {
+                return false;
+            }
+            i = skipWhitespace(payload, i + 1, length);
+
+            int valueEnd = skipValue(payload, i, length);
+            if (valueEnd < 0) {
+                return false;
+            }
+
+            if (regionEquals(payload, keyStart, keyEnd, KEY_SPEED)) {
+                double value = parseDouble(payload, i, valueEnd);
+                if (Double.isNaN(value)) {
+                    return false;
+                }
+                target.setSpeed(value);
+            } else if (regionEquals(payload, keyStart, keyEnd, KEY_DIRECTION)) {
+                double value = parseDouble(payload, i, valueEnd);
+                if (Double.isNaN(value)) {
+                    return false;
+                }
+                target.setDirection(value);
+            } else if (regionEquals(payload, keyStart, keyEnd, KEY_TIMESTAMP)) {
+                double value = parseDouble(payload, i, valueEnd);
+                if (Double.isNaN(value)) {
+                    return false;
+                }
+                target.setTimestamp((long) value);
+            } else if (regionEquals(payload, keyStart, keyEnd, KEY_SEQUENCE)) {
+                // Sequences go past 2^53 (the simulator starts from the clock), so no detour through double
+                long value = parseLong(payload, i, valueEnd);
+                if (value == INVALID_LONG) {
+                    return false;
+                }
+                target.setSequence(value);
+            }
+
+            i = skipWhitespace(payload, valueEnd, length);
+            if (i >= length) {
+                return false;
+            }
+            if (payload[i] == ',') {
+                i++;
+            } else if (payload[i] != '}') {
+                return false;
+            }
+        }
+        return target.has(WindReading.HAS_SPEED) || target.has(WindReading.HAS_DIRECTION);
+    }
+
+    /**
+     * Parses a plain decimal payload such as {@code "12.5"}.
+     *
+     * @return the value, or {@link Double#NaN} when the payload is not a number
+     */
+    public static double decodeScalar(byte[] payload) {
+        if (payload == null) {
+            return Double.NaN;
+        }
+        return parseDouble(payload, 0, payload.length);
+    }
+
+    /**
+     * Parses an ASCII integer in {@code [from, to)}, ignoring surrounding whitespace.
+     *
+     * @return the value, or {@link #INVALID_LONG} when the region is not an integer
+     *         or does not fit in a {@code long}
+     */
+    static long parseLong(byte[] b, int from, int to) {
+        int i = skipWhitespace(b, from, to);
+        int end = to;
+        while (end > i && isWhitespace(b[end - 1])) {
+            end--;
+        }
+        boolean negative = false;
+        if (i < end && (b[i] == '-' || b[i] == '+')) {
+            negative = b[i] == '-';
+            i++;
+        }
+        if (i >= end) {
+            return INVALID_LONG;
+        }
+        // Accumulate negatively so that Long.MIN_VALUE's magnitude fits
+        long value = 0;
+        for (; i < end; i++) {
+            if (!isDigit(b[i])) {
+                return INVALID_LONG;
+            }
+            int digit = b[i] - '0';
+            if (value < (Long.MIN_VALUE + digit) / 10) {
+                return INVALID_LONG;
+            }
+            value = value * 10 - digit;
+        }
+        if (!negative && value == Long.MIN_VALUE) {
+            return INVALID_LONG;
+        }
+        return negative ? value : -value;
+    }
+
+    /**
+     * Parses an ASCII decimal number in {@code [from, to)}, ignoring surrounding whitespace.
+     * Numbers with at most 15 significant digits are converted exactly without allocating;
+     * longer ones fall back to {@link Double#parseDouble(String)}.
+     *
+     * @return the value, or {@link Double#NaN} when the region is not a number
+     */
+    static double parseDouble(byte[] b, int from, int to) {
+        int i = skipWhitespace(b, from, to);
+        int end = to;
+        while (end > i && isWhitespace(b[end - 1])) {
+            end--;
+        }
+        if (i >= end) {
+            return Double.NaN;
+        }
+        int start = i;
+
+        boolean negative = false;
+        if (b[i] == '-' || b[i] == '+') {
+            negative = b[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean sawDigit = false;
+
+        while (i < end && isDigit(b[i])) {
+            sawDigit = true;
+            if (digits < MAX_MANTISSA_DIGITS) {
+                if (mantissa != 0 || b[i] != '0') {
+                    mantissa = mantissa * 10 + (b[i] - '0');
+                    digits++;
+                }
+            } else {
+                exponent++;
+            }
+            i++;
+        }
+        if (i < end && b[i] == '.') {
+            i++;
+            while (i < end && isDigit(b[i])) {
+                sawDigit = true;
+                if (digits < MAX_MANTISSA_DIGITS) {
+                    if (mantissa != 0 || b[i] != '0') {
+                        mantissa = mantissa * 10 + (b[i] - '0');
+                        digits++;
+                    }
+                    exponent--;
+                }
+                i++;
+            }
+        }
+        if (!sawDigit) {
+            return Double.NaN;
+        }
+        if (i < end && (b[i] == 'e' || b[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (b[i] == '-' || b[i] == '+')) {
+                negativeExponent = b[i] == '-';
+                i++;
+            }
+            if (i >= end || !isDigit(b[i])) {
+                return Double.NaN;
+            }
+            int explicit = 0;
+            while (i < end && isDigit(b[i])) {
+                if (explicit < 10_000) {
+                    explicit = explicit * 10 + (b[i] - '0');
+                }
+                i++;
+            }
+            exponent += negativeExponent ? -explicit : explicit;
+        }
+        if (i != end) {
+            return Double.NaN;
+        }
+
+        double value;
+        if (mantissa == 0) {
+            value = 0.0;
+        } else if (digits <= MAX_EXACT_DIGITS && exponent >= -22 && exponent <= 22) {
+            value = exponent < 0 ? mantissa / POW10[-exponent] : mantissa * POW10[exponent];
+        } else {
+            // Rare: too many significant digits to convert exactly by hand
+            return Double.parseDouble(new String(b, start, end - start, StandardCharsets.US_ASCII));
+        }
+        return negative ? -value : value;
+    }
+
+    private static int skipValue(byte[] b, int i, int length) {
+        if (i >= length) {
+            return -1;
+        }
+        byte first = b[i];
+        if (first == '"') {
+            int j = i + 1;
+            while (j < length) {
+                if (b[j] == '\\') {
+                    j += 2;
+                } else if (b[j] == '"') {
+                    return j + 1;
+                } else {
+                    j++;
+                }
+            }
+            return -1;
+        }
+        if (first == '{' || first == '[') {
+            int depth = 0;
+            int j = i;
+            while (j < length) {
+                byte c = b[j];
+                if (c == '"') {
+                    j = skipValue(b, j, length);
+                    if (j < 0) {
+                        return -1;
+                    }
+                    continue;
+                }
+                if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                    if (depth == 0) {
+                        return j + 1;
+                    }
+                }
+                j++;
+            }
+            return -1;
+        }
+        int j = i;
+        while (j < length && b[j] != ',' && b[j] != '}' && !isWhitespace(b[j])) {
+            j++;
+        }
+        return j == i ? -1 : j;
+    }
+
+    private static boolean regionEquals(byte[] b, int from, int to, byte[] expected) {
+        if (to - from != expected.length) {
+            return false;
+        }
+        for (int k = 0; k < expected.length; k++) {
+            if (b[from + k] != expected[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int put(byte[] dst, int pos, byte[] src) {
+        System.arraycopy(src, 0, dst, pos, src.length);
+        return pos + src.length;
+    }
+
+    private static int putCenti(byte[] dst, int pos, long centi) {
+        // Kept negative so that Long.MIN_VALUE needs no special case
+        long negative = centi < 0 ? centi : -centi;
+        if (centi < 0) {
+            dst[pos++] = '-';
+        }
+        pos = putDigits(dst, pos, negative / 100);
+        int fraction = (int) -(negative % 100);
+        dst[pos++] = '.';
+        dst[pos++] = (byte) ('0' + fraction / 10);
+        dst[pos++] = (byte) ('0' + fraction % 10);
+        return pos;
+    }
+
+    private static int putLong(byte[] dst, int pos, long value) {
+        if (value < 0) {
+            dst[pos++] = '-';
+            return putDigits(dst, pos, value);
+        }
+        return putDigits(dst, pos, -value);
+    }
+
+    /**
+     * Writes the digits of {@code -negative}, which must be zero or negative.
+     */
+    private static int putDigits(byte[] dst, int pos, long negative) {
+        int end = pos + digitCount(negative);
+        int i = end;
+        do {
+            dst[--i] = (byte) ('0' - (negative % 10));
+            negative /= 10;
+        } while (negative != 0);
+        return end;
+    }
+
+    private static int digitCount(long negative) {
+        int count = 1;
+        long bound = -10;
+        while (count < 19 && negative <= bound) {
+            count++;
+            bound *= 10;
+        }
+        return count;
+    }
+
+    private static int indexOf(byte[] b, byte value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (b[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipWhitespace(byte[] b, int i, int to) {
+        while (i < to && isWhitespace(b[i])) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isWhitespace(byte c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+
+    private static boolean isDigit(byte c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.iot_monitoring;
+
+/**
+ * Mutable, primitive-only holder for a decoded wind sample.
+ *
+ * Instances are meant to be reused by a single thread (e.g. the MQTT callback
+ * thread) so that decoding a payload does not allocate. Call {@link #toWindData()}
+ * only when an immutable copy has to escape that thread.
+ */
+public final class WindReading {
+    public static final int HAS_SPEED = 1;
+    public static final int HAS_DIRECTION = 1 << 1;
+    public static final int HAS_TIMESTAMP = 1 << 2;
+    public static final int HAS_SEQUENCE = 1 << 3;
+
+    private double speed;
+    private double direction;
+    private long timestamp;
+    private long sequence;
+    private int fields;
+
+    public void reset() {
+        this.speed = 0;
+        this.direction = 0;
+        this.timestamp = 0;
+        this.sequence = 0;
+        this.fields = 0;
+    }
+
+    public void copyFrom(WindReading other) {
+        this.speed = other.speed;
+        this.direction = other.direction;
+        this.timestamp = other.timestamp;
+        this.sequence = other.sequence;
+        this.fields = other.fields;
+    }
+
+    public double getSpeed() {
+        return speed;
+    }
+
+    public void setSpeed(double speed) {
+        this.speed = speed;
+        this.fields |= HAS_SPEED;
+    }
+
+    public double getDirection() {
+        return direction;
+    }
+
+    public void setDirection(double direction) {
+        this.direction = direction;
+        this.fields |= HAS_DIRECTION;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+        this.fields |= HAS_TIMESTAMP;
+    }
+
+    /**
+     * Per-sensor publish counter, used to drop redeliveries and restore order.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+        this.fields |= HAS_SEQUENCE;
+    }
+
+    public boolean has(int field) {
+        return (fields & field) != 0;
+    }
+
+    public WindData toWindData() {
+        WindData data = new WindData(speed, direction);
+        if (has(HAS_TIMESTAMP)) {
+            data.setTimestamp(timestamp);
+        }
+        return data;
+    }
+
+    public WindData toWindData(String sensorId, long fallbackTimestamp) {
+        return new WindData(sensorId, speed, direction, has(HAS_TIMESTAMP) ? timestamp : fallbackTimestamp);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("WindReading{speed=%.2f, direction=%.2f, timestamp=%d}",
+                speed, direction, timestamp);
+    }
+}
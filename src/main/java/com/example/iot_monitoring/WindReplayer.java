@@ -0,0 +1,178 @@
+package com.example.iot_monitoring;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replay driver: feeds a {@link CaptureLog} recorded by {@link IngestCapture}
+ * back through {@link IngestPipeline}, exactly as {@link MqttService} would
+ * have, then reports throughput and per-stage processing times.
+ *
+ * {@code speed} 1 keeps the captured spacing between messages, N plays it N
+ * times faster and 0 submits as fast as the pipeline accepts (its backpressure
+ * then sets the pace, which gives the node's sustainable rate). Messages keep
+ * their captured arrival time, so the {@code arrived} latency stage still shows
+ * the original network delay; the later {@code wind.latency} stages are
+ * measured from the old reading timestamps and are meaningless during a replay,
+ * which is why the report carries its own stage times.
+ *
+ * Each run is deduplicated and reordered by sequencers of its own, so a capture
+ * can be replayed any number of times; readings the run's sequencers still drop
+ * (duplicates or late arrivals within the capture) are counted in the report.
+ *
+ * Replayed readings go everywhere live ones do (state, history, persistence,
+ * fan-out), so replays belong on a node that is not serving production.
+ */
+@Service
+public class WindReplayer {
+    private static final Logger logger = LoggerFactory.getLogger(WindReplayer.class);
+    private static final long DRAIN_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final IngestPipeline pipeline;
+    private final SensorStateStore stateStore;
+    private final IngestCapture capture;
+    private volatile boolean running;
+    private volatile Run current;
+
+    public WindReplayer(IngestPipeline pipeline, SensorStateStore stateStore, IngestCapture capture) {
+        this.pipeline = pipeline;
+        this.stateStore = stateStore;
+        this.capture = capture;
+    }
+
+    /**
+     * Starts replaying {@code file}, a capture in {@code wind.capture.directory}, in the background.
+     */
+    public synchronized ReplayReport start(String file, double speed) {
+        if (!(speed >= 0) || Double.isInfinite(speed)) {
+            throw new IllegalArgumentException("speed must be 0 (as fast as possible) or positive");
+        }
+        Path directory = capture.getDirectory().toAbsolutePath().normalize();
+        Path path = directory.resolve(file).normalize();
+        if (!path.startsWith(directory) || !Files.isRegularFile(path)) {
+            throw new IllegalArgumentException("No such capture: " + file);
+        }
+        if (running) {
+            throw new IllegalStateException("A replay is already in progress");
+        }
+        Run run = new Run(path, speed);
+        current = run;
+        running = true;
+        Thread.ofPlatform().name("wind-replayer").daemon(true).start(run::execute);
+        return run.report();
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    public ReplayReport report() {
+        Run run = current;
+        return run == null ? null : run.report();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stop();
+    }
+
+    private final class Run {
+        private final Path path;
+        private final double speed;
+        private final IngestPipeline.StageTimes times = new IngestPipeline.StageTimes();
+        // Written by the replay thread only
+        private volatile long read;
+        private volatile long submitted;
+        private volatile long rejected;
+        private volatile long skipped;
+        private volatile boolean truncated;
+        private volatile long firstArrival;
+        private volatile long lastArrival;
+        private volatile long startNanos;
+        private volatile long endNanos;
+
+        private Run(Path path, double speed) {
+            this.path = path;
+            this.speed = speed;
+        }
+
+        private void execute() {
+            pipeline.setStageTimes(times);
+            int replayRun = pipeline.beginReplay();
+            startNanos = System.nanoTime();
+            try (CaptureLog.Reader reader = CaptureLog.Reader.open(path)) {
+                logger.info("Replay starting: {} at {}", path.getFileName(), speed == 0 ? "full speed" : speed + "x");
+                firstArrival = Long.MIN_VALUE;
+                while (running && reader.next()) {
+                    read++;
+                    long arrivedAt = reader.getArrivedAt();
+                    if (firstArrival == Long.MIN_VALUE) {
+                        firstArrival = arrivedAt;
+                    }
+                    lastArrival = arrivedAt;
+                    byte kind = MqttService.kindOf(reader.getTopic());
+                    if (kind < 0) {
+                        skipped++;
+                        continue;
+                    }
+                    if (speed > 0) {
+                        pace(arrivedAt - firstArrival);
+                    }
+                    if (pipeline.submitReplay(stateStore.resolve(reader.getTopic()), kind, reader.getPayload(), arrivedAt,
+                            replayRun)) {
+                        submitted++;
+                    } else {
+                        rejected++;
+                    }
+                }
+                truncated = reader.isTruncated();
+                awaitDrain();
+            } catch (IOException e) {
+                logger.error("Replay of {} failed", path, e);
+            } finally {
+                endNanos = System.nanoTime();
+                pipeline.setStageTimes(null);
+                synchronized (WindReplayer.this) {
+                    if (current == this) {
+                        running = false;
+                    }
+                }
+                logger.info("Replay finished: {}", report());
+            }
+        }
+
+        private void pace(long offsetMillis) {
+            long target = startNanos + (long) (offsetMillis * 1_000_000.0 / speed);
+            long wait;
+            while (running && (wait = target - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+        }
+
+        // Throughput counts until the workers are done with everything submitted
+        private void awaitDrain() {
+            long deadline = System.nanoTime() + DRAIN_TIMEOUT_NANOS;
+            while (pipeline.getQueueDepth() > 0 && System.nanoTime() - deadline < 0) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        }
+
+        private ReplayReport report() {
+            long start = startNanos;
+            long end = endNanos != 0 ? endNanos : System.nanoTime();
+            double elapsed = start == 0 ? 0.0 : (end - start) / 1e9;
+            long first = firstArrival;
+            double captured = first == 0 || first == Long.MIN_VALUE ? 0.0 : (lastArrival - first) / 1000.0;
+            return new ReplayReport(running && current == this, path.getFileName().toString(), speed, read,
+                    submitted, rejected, skipped, truncated, captured, elapsed, times);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.iot_monitoring;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Fixed ring of aggregation buckets at one resolution.
+ *
+ * Each sample lands in the bucket for its aligned start time; a slot holding an
+ * older bucket is reset before reuse, so adding is O(1) and the rollup never
+ * needs a separate expiry pass. Not thread-safe: guarded by the owning
+ * {@link WindHistoryBuffer}.
+ */
+final class WindRollup {
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final long resolutionMillis;
+    private final int buckets;
+    private final long[] starts;
+    private final long[] counts;
+    private final double[] min;
+    private final double[] max;
+    private final double[] sum;
+    private final double[] sumU;
+    private final double[] sumV;
+    private long newestStart = EMPTY;
+
+    WindRollup(long resolutionMillis, int buckets) {
+        this.resolutionMillis = resolutionMillis;
+        this.buckets = buckets;
+        this.starts = new long[buckets];
+        this.counts = new long[buckets];
+        this.min = new double[buckets];
+        this.max = new double[buckets];
+        this.sum = new double[buckets];
+        this.sumU = new double[buckets];
+        this.sumV = new double[buckets];
+        Arrays.fill(starts, EMPTY);
+    }
+
+    void add(long timestamp, double speed, double u, double v) {
+        long start = Math.floorDiv(timestamp, resolutionMillis) * resolutionMillis;
+        if (newestStart != EMPTY && start <= newestStart - (long) buckets * resolutionMillis) {
+            return; // older than anything this ring still covers
+        }
+        int index = slot(start);
+        if (starts[index] != start) {
+            starts[index] = start;
+            counts[index] = 0;
+            min[index] = Double.POSITIVE_INFINITY;
+            max[index] = Double.NEGATIVE_INFINITY;
+            sum[index] = 0;
+            sumU[index] = 0;
+            sumV[index] = 0;
+        }
+        counts[index]++;
+        if (speed < min[index]) {
+            min[index] = speed;
+        }
+        if (speed > max[index]) {
+            max[index] = speed;
+        }
+        sum[index] += speed;
+        sumU[index] += u;
+        sumV[index] += v;
+        if (start > newestStart) {
+            newestStart = start;
+        }
+    }
+
+    List<WindAggregate> query(long from, long to) {
+        List<WindAggregate> result = new ArrayList<>();
+        if (newestStart == EMPTY) {
+            return result;
+        }
+        long oldest = newestStart - (long) (buckets - 1) * resolutionMillis;
+        long first = Math.max(Math.floorDiv(from, resolutionMillis) * resolutionMillis, oldest);
+        long last = Math.min(to, newestStart);
+        for (long start = first; start <= last; start += resolutionMillis) {
+            int index = slot(start);
+            if (starts[index] != start || counts[index] == 0) {
+                continue;
+            }
+            result.add(toAggregate(index));
+        }
+        return result;
+    }
+
+    /**
+     * Adds every bucket starting in {@code [floor(from), to]} to {@code into}.
+     *
+     * @return {@code true} if at least one bucket held samples
+     */
+    boolean accumulate(long from, long to, FleetAccumulator into) {
+        if (newestStart == EMPTY) {
+            return false;
+        }
+        long oldest = newestStart - (long) (buckets - 1) * resolutionMillis;
+        long first = Math.max(Math.floorDiv(from, resolutionMillis) * resolutionMillis, oldest);
+        long last = Math.min(to, newestStart);
+        boolean any = false;
+        // Consecutive buckets sit in consecutive slots, so only the first needs the division
+        int index = slot(first);
+        for (long start = first; start <= last; start += resolutionMillis) {
+            if (starts[index] == start && counts[index] != 0) {
+                into.add(counts[index], min[index], max[index], sum[index], sumU[index], sumV[index]);
+                any = true;
+            }
+            index = index + 1 == buckets ? 0 : index + 1;
+        }
+        return any;
+    }
+
+    private WindAggregate toAggregate(int index) {
+        long n = counts[index];
+        double meanU = sumU[index] / n;
+        double meanV = sumV[index] / n;
+        return new WindAggregate(starts[index], n, min[index], max[index], sum[index] / n,
+                Math.hypot(meanU, meanV), vectorDirection(meanU, meanV));
+    }
+
+    private int slot(long start) {
+        return (int) Math.floorMod(start / resolutionMillis, (long) buckets);
+    }
+
+    static double vectorDirection(double u, double v) {
+        double degrees = Math.toDegrees(Math.atan2(u, v));
+        if (degrees < 0) {
+            degrees += 360.0;
+        }
+        return degrees >= 360.0 ? 0.0 : degrees;
+    }
+}
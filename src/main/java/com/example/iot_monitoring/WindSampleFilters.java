@@ -0,0 +1,135 @@
+package com.example.iot_monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.PropertySource;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-sink, per-sensor {@link SampleFilter}s in front of MQTT, persistence and
+ * the WebSocket fan-out.
+ *
+ * Settings are read from {@code wind.filter.<sink>.*} ({@code deadband-speed},
+ * {@code deadband-direction}, {@code min-interval-ms}, {@code max-interval-ms},
+ * {@code adaptive}); any of them can be overridden for one sensor under
+ * {@code wind.filter.<sink>.sensors.<sensorId>.*}. All of them are read and
+ * validated at startup, so a bad value or an unknown option fails the
+ * application instead of every reading of that sensor. Everything defaults to
+ * zero, which lets every reading through without keeping state.
+ */
+@Component
+public class WindSampleFilters {
+
+    public enum Sink {
+        MQTT, PERSISTENCE, WEBSOCKET;
+
+        final String prefix = "wind.filter." + name().toLowerCase(Locale.ROOT) + ".";
+    }
+
+    private static final Set<String> OPTIONS = Set.of(
+            "deadband-speed", "deadband-direction", "min-interval-ms", "max-interval-ms", "adaptive");
+
+    private final Environment environment;
+    private final SampleFilter.Settings[] defaults;
+    @SuppressWarnings("unchecked")
+    private final Map<String, SampleFilter.Settings>[] overrides = new Map[Sink.values().length];
+    @SuppressWarnings("unchecked")
+    private final ConcurrentHashMap<String, SampleFilter>[] filters = new ConcurrentHashMap[Sink.values().length];
+    private final Counter[] passed;
+    private final Counter[] suppressed;
+
+    public WindSampleFilters(ConfigurableEnvironment environment, MeterRegistry meterRegistry) {
+        this.environment = environment;
+        int sinks = Sink.values().length;
+        this.defaults = new SampleFilter.Settings[sinks];
+        this.passed = new Counter[sinks];
+        this.suppressed = new Counter[sinks];
+        for (Sink sink : Sink.values()) {
+            String tag = sink.name().toLowerCase(Locale.ROOT);
+            defaults[sink.ordinal()] = settings(sink.prefix, SampleFilter.Settings.PASS_ALL);
+            filters[sink.ordinal()] = new ConcurrentHashMap<>();
+            passed[sink.ordinal()] = Counter.builder("wind.filter.passed").tag("sink", tag).register(meterRegistry);
+            suppressed[sink.ordinal()] = Counter.builder("wind.filter.suppressed")
+                    .description("Readings held back by deadband or decimation")
+                    .tag("sink", tag)
+                    .register(meterRegistry);
+        }
+        for (Sink sink : Sink.values()) {
+            overrides[sink.ordinal()] = resolveOverrides(environment, sink);
+        }
+    }
+
+    private Map<String, SampleFilter.Settings> resolveOverrides(ConfigurableEnvironment environment, Sink sink) {
+        String prefix = sink.prefix + "sensors.";
+        Set<String> sensorIds = new TreeSet<>();
+        for (PropertySource<?> source : environment.getPropertySources()) {
+            if (!(source instanceof EnumerablePropertySource<?> enumerable)) {
+                continue;
+            }
+            for (String name : enumerable.getPropertyNames()) {
+                if (!name.startsWith(prefix)) {
+                    continue;
+                }
+                int dot = name.lastIndexOf('.');
+                if (dot <= prefix.length() || !OPTIONS.contains(name.substring(dot + 1))) {
+                    throw new IllegalArgumentException("Unknown filter setting " + name);
+                }
+                sensorIds.add(name.substring(prefix.length(), dot));
+            }
+        }
+        Map<String, SampleFilter.Settings> resolved = new HashMap<>();
+        for (String sensorId : sensorIds) {
+            resolved.put(sensorId, settings(prefix + sensorId + ".", defaults[sink.ordinal()]));
+        }
+        return resolved;
+    }
+
+    /**
+     * @return {@code true} if {@code data} should be sent to {@code sink}
+     */
+    public boolean accept(Sink sink, WindData data) {
+        String sensorId = data.getSensorId() == null ? "" : data.getSensorId();
+        SampleFilter filter = filters[sink.ordinal()].get(sensorId);
+        if (filter == null) {
+            filter = filters[sink.ordinal()].computeIfAbsent(sensorId, id -> new SampleFilter(settingsFor(sink, id)));
+        }
+        if (filter.getSettings().passesAll() || filter.accept(data.getTimestamp(), data.getSpeed(), data.getDirection())) {
+            passed[sink.ordinal()].increment();
+            return true;
+        }
+        suppressed[sink.ordinal()].increment();
+        return false;
+    }
+
+    SampleFilter.Settings settingsFor(Sink sink, String sensorId) {
+        return overrides[sink.ordinal()].getOrDefault(sensorId, defaults[sink.ordinal()]);
+    }
+
+    private SampleFilter.Settings settings(String prefix, SampleFilter.Settings fallback) {
+        try {
+            return read(prefix, fallback);
+        } catch (RuntimeException e) {
+            // Conversion failures as well as values SampleFilter.Settings rejects
+            throw new IllegalArgumentException("Invalid filter settings under " + prefix + "*: " + e.getMessage(), e);
+        }
+    }
+
+    private SampleFilter.Settings read(String prefix, SampleFilter.Settings fallback) {
+        return new SampleFilter.Settings(
+                environment.getProperty(prefix + "deadband-speed", Double.class, fallback.deadbandSpeed),
+                environment.getProperty(prefix + "deadband-direction", Double.class, fallback.deadbandDirection),
+                environment.getProperty(prefix + "min-interval-ms", Long.class, fallback.minIntervalMillis),
+                environment.getProperty(prefix + "max-interval-ms", Long.class, fallback.maxIntervalMillis),
+                environment.getProperty(prefix + "adaptive", Boolean.class, fallback.adaptive));
+    }
+}
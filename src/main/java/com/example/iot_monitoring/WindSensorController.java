@@ -1,15 +1,61 @@
 package com.example.iot_monitoring;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/wind")
 public class WindSensorController {
+    private static final int MAX_QUERY_SENSORS = 100;
+    private static final int MAX_QUERY_POINTS = 100_000;
 
     private final WindSensorSimulator sensorSimulator;
+    private final SensorStateStore stateStore;
+    private final WindHistoryStore historyStore;
+    private final WindDataRepository repository;
+    private final WindLoadGenerator loadGenerator;
+    private final ObjectMapper objectMapper;
+    private final WindSnapshotPublisher snapshotPublisher;
+    private final FleetAggregationService fleetAggregation;
+    private final IngestCapture capture;
+    private final WindReplayer replayer;
+    private final ClusterCoordinator cluster;
 
-    public WindSensorController(WindSensorSimulator sensorSimulator) {
+    public WindSensorController(WindSensorSimulator sensorSimulator, SensorStateStore stateStore,
+                                WindHistoryStore historyStore, WindDataRepository repository,
+                                WindLoadGenerator loadGenerator, ObjectMapper objectMapper,
+                                WindSnapshotPublisher snapshotPublisher,
+                                FleetAggregationService fleetAggregation, IngestCapture capture,
+                                WindReplayer replayer, ClusterCoordinator cluster) {
         this.sensorSimulator = sensorSimulator;
+        this.stateStore = stateStore;
+        this.historyStore = historyStore;
+        this.repository = repository;
+        this.loadGenerator = loadGenerator;
+        this.objectMapper = objectMapper;
+        this.snapshotPublisher = snapshotPublisher;
+        this.fleetAggregation = fleetAggregation;
+        this.capture = capture;
+        this.replayer = replayer;
+        this.cluster = cluster;
     }
 
     @GetMapping("/publish")
@@ -22,4 +68,224 @@ public class WindSensorController {
     public String getConfig() {
         return "Sistema de monitoramento de vento operacional";
     }
-}
\ No newline at end of file
+
+    @GetMapping("/sensors")
+    public Collection<SensorState> getSensors() {
+        return stateStore.all();
+    }
+
+    /**
+     * Último estado de todos os sensores, servido do snapshot já serializado
+     * (e já comprimido). Com If-None-Match igual ao ETag atual responde 304.
+     */
+    @GetMapping("/snapshot")
+    public ResponseEntity<byte[]> getSnapshot(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                              @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        WindSnapshot snapshot = snapshotPublisher.current();
+        if (snapshot.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(snapshot.getEtag())
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(snapshot.getEtag())
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip")) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.getGzip());
+        }
+        return response.body(snapshot.getJson());
+    }
+
+    @GetMapping("/sensors/{sensorId}")
+    public ResponseEntity<SensorState> getSensor(@PathVariable String sensorId) {
+        SensorState state = stateStore.get(sensorId);
+        return state == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(state);
+    }
+
+    @GetMapping("/sensors/{sensorId}/history")
+    public CompletableFuture<WindSeries> getHistory(@PathVariable String sensorId,
+                                                    @RequestParam(required = false) Long from,
+                                                    @RequestParam(defaultValue = "" + Long.MAX_VALUE) long to) {
+        if (from == null) {
+            return CompletableFuture.completedFuture(historyStore.range(sensorId, 0L, to));
+        }
+        return loadRange(sensorId, from, to);
+    }
+
+    /**
+     * Consulta de vários sensores num intervalo, reduzida no servidor a no máximo
+     * {@code points} pontos por sensor (lttb ou minmax), escritos em uma resposta
+     * chunked. A resposta só começa quando todas as séries estão prontas: se a
+     * leitura de alguma no repositório falhar, responde 503 em vez de um JSON truncado.
+     */
+    @GetMapping(value = "/query", produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> query(@RequestParam List<String> sensors,
+                                                       @RequestParam long from,
+                                                       @RequestParam(defaultValue = "" + Long.MAX_VALUE) long to,
+                                                       @RequestParam(defaultValue = "1000") int points,
+                                                       @RequestParam(defaultValue = "lttb") String method) {
+        WindDownsampler.Method downsampling = WindDownsampler.Method.parse(method);
+        if (sensors.isEmpty() || sensors.size() > MAX_QUERY_SENSORS) {
+            throw new IllegalArgumentException("Between 1 and " + MAX_QUERY_SENSORS + " sensors per query");
+        }
+        if (points < 3 || points > MAX_QUERY_POINTS) {
+            throw new IllegalArgumentException("points must be between 3 and " + MAX_QUERY_POINTS);
+        }
+        if (from > to) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+
+        // All ranges are fetched concurrently; series are written in request order
+        List<CompletableFuture<WindSeries>> pending = new ArrayList<>(sensors.size());
+        for (String sensorId : sensors) {
+            pending.add(loadRange(sensorId, from, to)
+                    .thenApply(series -> WindDownsampler.downsample(series, downsampling, points)));
+        }
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                json.writeStartObject();
+                json.writeNumberField("from", from);
+                json.writeNumberField("to", to);
+                json.writeStringField("method", downsampling.name().toLowerCase(Locale.ROOT));
+                json.writeArrayFieldStart("series");
+                for (CompletableFuture<WindSeries> series : pending) {
+                    objectMapper.writeValue(json, series.join());
+                    json.flush();
+                }
+                json.writeEndArray();
+                json.writeEndObject();
+            }
+        };
+        return CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).handle((ignored, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                byte[] message = ("History unavailable: " + cause.getMessage()).getBytes(StandardCharsets.UTF_8);
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .body(out -> out.write(message));
+            }
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+        });
+    }
+
+    // Dentro da retenção em memória responde do buffer local; antes disso, do repositório
+    private CompletableFuture<WindSeries> loadRange(String sensorId, long from, long to) {
+        long oldestInMemory = System.currentTimeMillis() - historyStore.getRetentionMillis();
+        if (from >= oldestInMemory) {
+            return CompletableFuture.completedFuture(historyStore.range(sensorId, from, to));
+        }
+        return repository.findRange(sensorId, from, to)
+                .thenApply(readings -> WindSeries.of(sensorId, readings));
+    }
+
+    @GetMapping("/sensors/{sensorId}/aggregates")
+    public List<WindAggregate> getAggregates(@PathVariable String sensorId,
+                                             @RequestParam(defaultValue = "1m") String resolution,
+                                             @RequestParam(defaultValue = "0") long from,
+                                             @RequestParam(defaultValue = "" + Long.MAX_VALUE) long to) {
+        return historyStore.aggregates(sensorId, RollupResolution.parse(resolution), from, to);
+    }
+
+    /**
+     * Agregação de todos os sensores (por região, por sensor ou da frota inteira)
+     * sobre os rollups em memória: rajada máxima, média e vento vetorial médio.
+     * Use {@code window} (ex.: 1h, 15m) para uma janela até agora ou {@code from}/{@code to}.
+     */
+    @GetMapping("/fleet")
+    public FleetQueryResult getFleetAggregate(@RequestParam(defaultValue = "all") String group,
+                                              @RequestParam(required = false) String window,
+                                              @RequestParam(required = false) Long from,
+                                              @RequestParam(defaultValue = "" + Long.MAX_VALUE) long to,
+                                              @RequestParam(required = false) String resolution) {
+        FleetAggregationService.GroupBy groupBy = FleetAggregationService.GroupBy.parse(group);
+        RollupResolution rollup = resolution == null ? null : RollupResolution.parse(resolution);
+        if (from != null) {
+            return fleetAggregation.query(groupBy, rollup, from, to);
+        }
+        long windowMillis;
+        try {
+            windowMillis = DurationStyle.detectAndParse(window == null ? "1h" : window).toMillis();
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid window: " + window);
+        }
+        return fleetAggregation.queryWindow(groupBy, rollup, windowMillis);
+    }
+
+    @PostMapping("/load/start")
+    public LoadGeneratorReport startLoad(LoadGeneratorSettings settings) {
+        return loadGenerator.start(settings);
+    }
+
+    @PostMapping("/load/stop")
+    public LoadGeneratorReport stopLoad() {
+        loadGenerator.stop();
+        return loadGenerator.report();
+    }
+
+    @GetMapping("/load/report")
+    public ResponseEntity<LoadGeneratorReport> getLoadReport() {
+        LoadGeneratorReport report = loadGenerator.report();
+        return report == null ? ResponseEntity.noContent().build() : ResponseEntity.ok(report);
+    }
+
+    @GetMapping("/capture")
+    public List<String> listCaptures() throws IOException {
+        return capture.list();
+    }
+
+    @PostMapping("/capture/start")
+    public String startCapture() throws IOException {
+        return capture.start().getFileName().toString();
+    }
+
+    @PostMapping("/capture/stop")
+    public ResponseEntity<String> stopCapture() {
+        Path file = capture.stop();
+        return file == null ? ResponseEntity.noContent().build() : ResponseEntity.ok(file.getFileName().toString());
+    }
+
+    /**
+     * Reenvia uma captura pelo pipeline de ingestão: {@code speed} 1 em tempo real,
+     * N vezes mais rápido, ou 0 o mais rápido possível.
+     */
+    @PostMapping("/replay/start")
+    public ReplayReport startReplay(@RequestParam String file, @RequestParam(defaultValue = "1") double speed) {
+        return replayer.start(file, speed);
+    }
+
+    @PostMapping("/replay/stop")
+    public ReplayReport stopReplay() {
+        replayer.stop();
+        return replayer.report();
+    }
+
+    @GetMapping("/replay/report")
+    public ResponseEntity<ReplayReport> getReplayReport() {
+        ReplayReport report = replayer.report();
+        return report == null ? ResponseEntity.noContent().build() : ResponseEntity.ok(report);
+    }
+
+    /**
+     * Nós do cluster vistos por este nó. Em modo cluster as consultas de um sensor
+     * ({@code /sensors/{sensorId}/...}) são redirecionadas (307) ao nó dono dele;
+     * {@code /sensors}, {@code /snapshot} e {@code /fleet} cobrem só os sensores deste nó.
+     */
+    @GetMapping("/cluster")
+    public ClusterStatus getCluster() {
+        return cluster.status();
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<String> handleConflict(IllegalStateException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleBadRequest(IllegalArgumentException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+    }
+}
@@ -1,38 +1,25 @@
 package com.example.iot_monitoring;
 
-import com.google.auth.oauth2.GoogleCredentials;
-import com.google.firebase.FirebaseApp;
-import com.google.firebase.FirebaseOptions;
-import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
-import org.eclipse.paho.client.mqttv3.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.ClassPathResource;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
-import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
-import java.io.IOException;
-import java.io.InputStream;
-import java.util.Random;
-import java.util.UUID;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
-public class WindSensorSimulator implements MqttCallbackExtended {
+public class WindSensorSimulator {
     private static final Logger logger = LoggerFactory.getLogger(WindSensorSimulator.class);
 
-    @Value("${mqtt.broker.url:tcp://localhost:1883}")
-    private String brokerUrl;
-
-    @Value("${mqtt.client.prefix:wind-sensor}")
-    private String clientIdPrefix;
+    @Value("${wind.simulation.sensor-id:sensor-01}")
+    private String sensorId;
 
     @Value("${wind.simulation.interval:5}")
     private int simulationInterval;
@@ -43,119 +30,37 @@ public class WindSensorSimulator implements MqttCallbackExtended {
     @Value("${wind.simulation.max-speed:50}")
     private double maxSpeed;
 
-    @Value("${firebase.database.url}")
-    private String firebaseDatabaseUrl;
-
-    @Value("${firebase.config.path}")
-    private String firebaseConfigPath;
+    @Value("${wind.simulation.seed:0}")
+    private long seed;
 
-    private DatabaseReference firebaseRef;
-    private MqttAsyncClient mqttClient;
-    private final Random random = new Random();
+    private WindModel windModel;
+    // Starts from the clock so that it keeps increasing across restarts
+    private final AtomicLong sequence = new AtomicLong(System.currentTimeMillis());
     private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
 
     @Autowired
-    private SimpMessagingTemplate messagingTemplate;
+    private MqttOutboundSpool outboundSpool;
 
     @Autowired
-    private MqttConnectOptions mqttConnectOptions;
-
-    @PostConstruct
-    public void init() {
-        try {
-            // Initialize Firebase first
-            initializeFirebase();
+    private WindLatencyMetrics latencyMetrics;
 
-            // Configure MQTT client
-            if (mqttConnectOptions.getServerURIs() == null || mqttConnectOptions.getServerURIs().length == 0) {
-                mqttConnectOptions.setServerURIs(new String[]{brokerUrl});
-            }
-
-            this.mqttClient = new MqttAsyncClient(
-                    brokerUrl,
-                    clientIdPrefix + "-" + UUID.randomUUID()
-            );
-
-            this.mqttClient.setCallback(this);
-            this.mqttClient.connect(mqttConnectOptions).waitForCompletion();
-
-            logger.info("Connected to MQTT broker: {}", brokerUrl);
-            startAutomaticPublishing();
-
-        } catch (MqttException e) {
-            logger.error("MQTT connection failed", e);
-            scheduleReconnect();
-        } catch (Exception e) {
-            logger.error("Service initialization error", e);
-        }
-    }
-
-    private void initializeFirebase() {
-        try {
-            logger.info("Loading Firebase configuration from: {}", firebaseConfigPath);
-
-            // Load configuration file from classpath
-            InputStream serviceAccount = getClass().getClassLoader().getResourceAsStream(firebaseConfigPath);
-
-            if (serviceAccount == null) {
-                throw new IOException("Firebase config file not found in classpath: " + firebaseConfigPath);
-            }
-
-            FirebaseOptions options = new FirebaseOptions.Builder()
-                    .setCredentials(GoogleCredentials.fromStream(serviceAccount))
-                    .setDatabaseUrl(firebaseDatabaseUrl)
-                    .build();
-
-            if (FirebaseApp.getApps().isEmpty()) {
-                FirebaseApp.initializeApp(options);
-                logger.info("Firebase initialized successfully");
-            }
-
-            this.firebaseRef = FirebaseDatabase.getInstance().getReference("wind_measurements");
-            logger.info("Firebase reference configured");
-
-        } catch (IOException e) {
-            logger.error("ERROR: Firebase configuration file not found", e);
-            logger.error("Please verify:");
-            logger.error("1. File '{}' exists in src/main/resources/", firebaseConfigPath);
-            logger.error("2. Filename is correct (including case sensitivity)");
-            logger.error("3. Project was rebuilt after adding the file");
-            throw new RuntimeException("Critical failure: Firebase config file not found", e);
-        } catch (Exception e) {
-            logger.error("Firebase initialization error", e);
-            throw new RuntimeException("Firebase configuration failed", e);
-        }
-    }
-
-    private void scheduleReconnect() {
-        scheduler.schedule(() -> {
-            logger.info("Attempting reconnection...");
-            init();
-        }, 1, TimeUnit.MINUTES);
-    }
+    @Autowired
+    private WindSampleFilters filters;
 
-    private void startAutomaticPublishing() {
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        // The connection manager connects in the background; readings taken while
+        // the broker is unreachable are spooled and published once it is back.
+        // Waiting for the ready event keeps an AppCDS training run from publishing.
         scheduler.scheduleAtFixedRate(this::publishWindData, 0, simulationInterval, TimeUnit.SECONDS);
     }
 
     public void publishWindData() {
         try {
-            if (firebaseRef == null) {
-                logger.warn("Firebase reference not initialized, attempting reinitialization...");
-                initializeFirebase();
-                if (firebaseRef == null) {
-                    throw new IllegalStateException("Failed to initialize Firebase reference");
-                }
-            }
-
-            WindData data = new WindData(
-                    minSpeed + (random.nextDouble() * (maxSpeed - minSpeed)),
-                    random.nextDouble() * 360
-            );
+            WindData data = nextReading();
 
+            // Persistence and the WebSocket fan-out happen on ingest, once MqttService receives the reading back
             publishMqttData(data);
-            saveToFirebase(data);
-            sendWebSocketUpdate(data);
 
             logger.info("Data published - Speed: {:.2f} km/h, Direction: {:.1f}°",
                     data.getSpeed(), data.getDirection());
@@ -165,66 +70,38 @@ public class WindSensorSimulator implements MqttCallbackExtended {
         }
     }
 
-    private void publishMqttData(WindData data) throws MqttException {
-        String payload = String.format("{\"speed\":%.2f,\"direction\":%.2f,\"timestamp\":%d}",
-                data.getSpeed(), data.getDirection(), data.getTimestamp());
-
-        MqttMessage message = new MqttMessage(payload.getBytes());
-        message.setQos(1);
-        message.setRetained(true);
-
-        mqttClient.publish("wind/data", message);
-    }
-
-    private void sendWebSocketUpdate(WindData data) {
-        try {
-            messagingTemplate.convertAndSend("/topic/wind_updates", data);
-        } catch (Exception e) {
-            logger.error("Failed to send WebSocket update", e);
+    // Runs from the scheduler and from GET /publish: advance and read under one lock
+    private synchronized WindData nextReading() {
+        if (windModel == null) {
+            // seed 0 = a different sequence on every start
+            windModel = new WindModel(seed != 0 ? seed : System.nanoTime(), (minSpeed + maxSpeed) / 2);
         }
+        windModel.advance(simulationInterval);
+        WindData data = new WindData(
+                Math.max(minSpeed, Math.min(maxSpeed, windModel.getSpeed())),
+                windModel.getDirection()
+        );
+        data.setSensorId(sensorId);
+        return data;
     }
 
-    private void saveToFirebase(WindData data) {
-        try {
-            firebaseRef.push().setValue(data, (error, ref) -> {
-                if (error != null) {
-                    logger.error("Firebase save error: {}", error.getMessage());
-                } else {
-                    logger.debug("Data saved to Firebase with key: {}", ref.getKey());
-                }
-            });
-        } catch (Exception e) {
-            logger.error("Failed to save data to Firebase", e);
+    private void publishMqttData(WindData data) {
+        if (!filters.accept(WindSampleFilters.Sink.MQTT, data)) {
+            logger.debug("Reading from {} filtered before MQTT", sensorId);
+            return;
         }
-    }
-
-    @Override
-    public void connectComplete(boolean reconnect, String serverURI) {
-        logger.info(reconnect ? "Reconnected to broker" : "Connected to broker");
-    }
-
-    @Override
-    public void connectionLost(Throwable cause) {
-        logger.warn("Connection lost: {}", cause.getMessage());
-    }
+        byte[] payload = WindPayloadDecoder.encodeJson(data.getSpeed(), data.getDirection(), data.getTimestamp(),
+                sequence.getAndIncrement());
 
-    @Override
-    public void messageArrived(String topic, MqttMessage message) {
-        logger.debug("Message received: {} - {}", topic, new String(message.getPayload()));
+        if (outboundSpool.publish("wind/" + sensorId + "/data", payload, 1, true)) {
+            latencyMetrics.record(WindLatencyMetrics.Stage.PUBLISHED, data.getTimestamp());
+        } else {
+            logger.debug("MQTT not connected, reading from {} spooled", sensorId);
+        }
     }
 
-    @Override
-    public void deliveryComplete(IMqttDeliveryToken token) {}
-
     @PreDestroy
     public void cleanup() {
-        try {
-            if (mqttClient != null && mqttClient.isConnected()) {
-                mqttClient.disconnect();
-            }
-            scheduler.shutdown();
-        } catch (MqttException e) {
-            logger.error("Error during cleanup", e);
-        }
+        scheduler.shutdown();
     }
 }
\ No newline at end of file
@@ -0,0 +1,58 @@
+package com.example.iot_monitoring;
+
+import java.util.List;
+
+/**
+ * Columnar slice of a sensor's history: one array per field, same length.
+ */
+public class WindSeries {
+    private final String sensorId;
+    private final long[] timestamps;
+    private final double[] speeds;
+    private final double[] directions;
+
+    public WindSeries(String sensorId, long[] timestamps, double[] speeds, double[] directions) {
+        this.sensorId = sensorId;
+        this.timestamps = timestamps;
+        this.speeds = speeds;
+        this.directions = directions;
+    }
+
+    public static WindSeries empty(String sensorId) {
+        return new WindSeries(sensorId, new long[0], new double[0], new double[0]);
+    }
+
+    public static WindSeries of(String sensorId, List<WindData> readings) {
+        int size = readings.size();
+        long[] timestamps = new long[size];
+        double[] speeds = new double[size];
+        double[] directions = new double[size];
+        for (int i = 0; i < size; i++) {
+            WindData data = readings.get(i);
+            timestamps[i] = data.getTimestamp();
+            speeds[i] = data.getSpeed();
+            directions[i] = data.getDirection();
+        }
+        return new WindSeries(sensorId, timestamps, speeds, directions);
+    }
+
+    public String getSensorId() {
+        return sensorId;
+    }
+
+    public int getSize() {
+        return timestamps.length;
+    }
+
+    public long[] getTimestamps() {
+        return timestamps;
+    }
+
+    public double[] getSpeeds() {
+        return speeds;
+    }
+
+    public double[] getDirections() {
+        return directions;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.iot_monitoring;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.List;
+
+/**
+ * Immutable view of the latest reading of every sensor, published by
+ * {@link WindSnapshotPublisher}.
+ *
+ * The JSON body (plain and gzip) and the ETag are computed once when the
+ * snapshot is built, so serving it to any number of clients is a byte copy.
+ */
+public final class WindSnapshot {
+    private final long version;
+    private final long generatedAt;
+    private final List<WindData> sensors;
+    private final String etag;
+    private byte[] json;
+    private byte[] gzip;
+
+    WindSnapshot(String etagPrefix, long version, long generatedAt, List<WindData> sensors) {
+        this.version = version;
+        this.generatedAt = generatedAt;
+        this.sensors = List.copyOf(sensors);
+        this.etag = "\"" + etagPrefix + "-" + Long.toHexString(version) + "\"";
+    }
+
+    // Set once by the publisher before the snapshot is made visible
+    void setBody(byte[] json, byte[] gzip) {
+        this.json = json;
+        this.gzip = gzip;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getGeneratedAt() {
+        return generatedAt;
+    }
+
+    public List<WindData> getSensors() {
+        return sensors;
+    }
+
+    @JsonIgnore
+    public String getEtag() {
+        return etag;
+    }
+
+    @JsonIgnore
+    public byte[] getJson() {
+        return json;
+    }
+
+    @JsonIgnore
+    public byte[] getGzip() {
+        return gzip;
+    }
+
+    /**
+     * Whether an {@code If-None-Match} header value names this snapshot.
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.iot_monitoring;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Sends a {@link WindSnapshot} as its pre-serialized JSON body, so the STOMP
+ * subscribe-time reply does not run Jackson for every subscriber.
+ */
+public class WindSnapshotMessageConverter extends AbstractMessageConverter {
+
+    public WindSnapshotMessageConverter() {
+        super(MimeTypeUtils.APPLICATION_JSON);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return WindSnapshot.class.equals(clazz);
+    }
+
+    @Override
+    protected boolean canConvertFrom(Message<?> message, Class<?> targetClass) {
+        // Outbound only
+        return false;
+    }
+
+    @Override
+    protected Object convertToInternal(Object payload, MessageHeaders headers, Object conversionHint) {
+        return ((WindSnapshot) payload).getJson();
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.iot_monitoring;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Periodically publishes a {@link WindSnapshot} of all sensors' latest readings.
+ *
+ * Every {@code wind.snapshot.interval-ms} the store is checked for changes (the
+ * sum of the per-sensor message counts moves on every update); only then is a
+ * new snapshot built, serialized and swapped in through a volatile field.
+ * Readers call {@link #current()} and never lock or allocate, and the ETag only
+ * changes when the content does. The ETag carries the start time of this
+ * process, so a restart never answers 304 to a client holding old data.
+ */
+@Component
+public class WindSnapshotPublisher {
+    private static final Logger logger = LoggerFactory.getLogger(WindSnapshotPublisher.class);
+
+    private final SensorStateStore stateStore;
+    private final ObjectMapper objectMapper;
+    private final String etagPrefix = Long.toHexString(System.currentTimeMillis());
+    private final Counter builds;
+    private volatile WindSnapshot current;
+    private long lastChangeMark = -1;
+    private long version;
+
+    public WindSnapshotPublisher(SensorStateStore stateStore, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.stateStore = stateStore;
+        this.objectMapper = objectMapper;
+        this.builds = Counter.builder("wind.snapshot.builds").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        refresh();
+    }
+
+    public WindSnapshot current() {
+        return current;
+    }
+
+    @Scheduled(fixedDelayString = "${wind.snapshot.interval-ms:500}")
+    public synchronized void refresh() {
+        long changeMark = stateStore.size();
+        for (SensorState state : stateStore.all()) {
+            changeMark += state.getMessageCount();
+        }
+        if (changeMark == lastChangeMark && current != null) {
+            return;
+        }
+        List<WindData> latest = new ArrayList<>(stateStore.size());
+        for (SensorState state : stateStore.all()) {
+            WindData data = state.getLatest();
+            if (data != null) {
+                latest.add(data);
+            }
+        }
+        latest.sort(Comparator.comparing(WindData::getSensorId));
+        WindSnapshot snapshot = new WindSnapshot(etagPrefix, ++version, System.currentTimeMillis(), latest);
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(snapshot);
+            snapshot.setBody(json, gzip(json));
+        } catch (IOException e) {
+            logger.error("Failed to serialize wind snapshot", e);
+            return;
+        }
+        lastChangeMark = changeMark;
+        current = snapshot;
+        builds.increment();
+    }
+
+    private static byte[] gzip(byte[] json) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        }
+        return out.toByteArray();
+    }
+}
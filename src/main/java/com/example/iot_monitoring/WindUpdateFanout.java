@@ -0,0 +1,270 @@
+package com.example.iot_monitoring;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.BrokerAvailabilityEvent;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Coalescing fan-out of wind readings to {@code /topic/wind_updates}.
+ *
+ * {@link #publish(WindData)} only records the latest reading per sensor. Every
+ * {@code frame-interval-ms} the changed sensors are serialized once each and
+ * handed to the broker as raw JSON bytes, so all subscribers share the same
+ * payload; {@link ClientFrameConflator} then paces delivery per client.
+ *
+ * While someone is subscribed to the binary destination the same flush also
+ * packs all changed sensors into {@link WindFrameCodec} frames, one frame per
+ * flush (split every {@code binary-max-entries}). Sensor keys are announced in
+ * a dictionary frame whenever new sensors appear, and the whole dictionary is
+ * repeated after each new binary subscription so late joiners can decode.
+ */
+@Component
+public class WindUpdateFanout {
+    private static final Logger logger = LoggerFactory.getLogger(WindUpdateFanout.class);
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final ClientFrameConflator conflator;
+    private final WindLatencyMetrics latencyMetrics;
+    private final String destination;
+    private final String binaryDestination;
+    private final int binaryMaxEntries;
+    private final boolean relay;
+    // The relay is only usable once its system connection is up; readings keep coalescing until then
+    private volatile boolean brokerAvailable;
+    private final ConcurrentHashMap<String, WindData> latest = new ConcurrentHashMap<>();
+    private final Counter coalesced;
+    private final Counter frames;
+    private final Counter jsonBytes;
+    private final Counter binaryFrames;
+    private final Counter binaryBytes;
+
+    // Binary mode state; keys only grow, the arrays are reused by the scheduler thread
+    private final Set<String> binarySubscriptions = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<String, Integer> sensorKeys = new ConcurrentHashMap<>();
+    private final Map<Integer, String> keyDictionary = new LinkedHashMap<>();
+    private volatile boolean dictionaryRequested;
+    private int[] batchKeys = new int[64];
+    private long[] batchTimestamps = new long[64];
+    private double[] batchSpeeds = new double[64];
+    private double[] batchDirections = new double[64];
+
+    public WindUpdateFanout(SimpMessagingTemplate messagingTemplate,
+                            ObjectMapper objectMapper,
+                            ClientFrameConflator conflator,
+                            MeterRegistry meterRegistry,
+                            WindLatencyMetrics latencyMetrics,
+                            @Value("${wind.websocket.destination:/topic/wind_updates}") String destination,
+                            @Value("${wind.websocket.binary-destination:/topic/wind_updates.bin}") String binaryDestination,
+                            @Value("${wind.websocket.binary-max-entries:4096}") int binaryMaxEntries,
+                            @Value("${wind.websocket.broker:simple}") String broker) {
+        if (binaryMaxEntries <= 0) {
+            throw new IllegalArgumentException("wind.websocket.binary-max-entries must be positive");
+        }
+        this.messagingTemplate = messagingTemplate;
+        this.objectMapper = objectMapper;
+        this.conflator = conflator;
+        this.latencyMetrics = latencyMetrics;
+        this.destination = destination;
+        this.binaryDestination = binaryDestination;
+        this.binaryMaxEntries = binaryMaxEntries;
+        this.relay = WebSocketConfig.BrokerMode.parse(broker) == WebSocketConfig.BrokerMode.RELAY;
+        this.brokerAvailable = !relay;
+        this.coalesced = Counter.builder("wind.websocket.coalesced")
+                .description("Readings superseded before the next frame was published")
+                .register(meterRegistry);
+        this.frames = Counter.builder("wind.websocket.frames").register(meterRegistry);
+        this.jsonBytes = Counter.builder("wind.websocket.bytes").tag("encoding", "json")
+                .baseUnit("bytes").register(meterRegistry);
+        this.binaryBytes = Counter.builder("wind.websocket.bytes").tag("encoding", "binary")
+                .baseUnit("bytes").register(meterRegistry);
+        this.binaryFrames = Counter.builder("wind.websocket.binary.frames").register(meterRegistry);
+    }
+
+    public void publish(WindData data) {
+        String sensorId = data.getSensorId() == null ? "" : data.getSensorId();
+        if (latest.put(sensorId, data) != null) {
+            coalesced.increment();
+        }
+    }
+
+    @Scheduled(fixedRateString = "${wind.websocket.frame-interval-ms:200}")
+    public void flush() {
+        if (!brokerAvailable) {
+            return;
+        }
+        boolean binary = !binarySubscriptions.isEmpty();
+        if (binary && dictionaryRequested) {
+            dictionaryRequested = false;
+            sendDictionary(null);
+        }
+        int batched = 0;
+        Map<Integer, String> newKeys = null;
+        Iterator<Map.Entry<String, WindData>> pending = latest.entrySet().iterator();
+        while (pending.hasNext()) {
+            Map.Entry<String, WindData> entry = pending.next();
+            WindData data = entry.getValue();
+            // Only drop the entry if no newer reading arrived meanwhile
+            latest.remove(entry.getKey(), data);
+            send(entry.getKey(), data);
+            if (binary) {
+                Integer key = sensorKeys.get(entry.getKey());
+                if (key == null) {
+                    key = assignKey(entry.getKey());
+                    if (newKeys == null) {
+                        newKeys = new LinkedHashMap<>();
+                    }
+                    newKeys.put(key, entry.getKey());
+                }
+                ensureBatchCapacity(batched + 1);
+                batchKeys[batched] = key;
+                batchTimestamps[batched] = data.getTimestamp();
+                batchSpeeds[batched] = data.getSpeed();
+                batchDirections[batched] = data.getDirection();
+                batched++;
+            }
+        }
+        if (newKeys != null) {
+            sendDictionary(newKeys);
+        }
+        for (int from = 0; from < batched; from += binaryMaxEntries) {
+            sendBatch(from, Math.min(batched - from, binaryMaxEntries));
+        }
+        conflator.drain();
+    }
+
+    @EventListener
+    public void onBrokerAvailability(BrokerAvailabilityEvent event) {
+        if (relay) {
+            brokerAvailable = event.isBrokerAvailable();
+        }
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        if (binaryDestination.equals(accessor.getDestination())) {
+            binarySubscriptions.add(accessor.getSessionId() + "/" + accessor.getSubscriptionId());
+            dictionaryRequested = true;
+        }
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        binarySubscriptions.remove(accessor.getSessionId() + "/" + accessor.getSubscriptionId());
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        String prefix = event.getSessionId() + "/";
+        binarySubscriptions.removeIf(subscription -> subscription.startsWith(prefix));
+    }
+
+    int getBinarySubscriptionCount() {
+        return binarySubscriptions.size();
+    }
+
+    private int assignKey(String sensorId) {
+        int key = sensorKeys.size();
+        sensorKeys.put(sensorId, key);
+        synchronized (keyDictionary) {
+            keyDictionary.put(key, sensorId);
+        }
+        return key;
+    }
+
+    private void ensureBatchCapacity(int size) {
+        if (size <= batchKeys.length) {
+            return;
+        }
+        int capacity = Math.max(size, batchKeys.length * 2);
+        batchKeys = Arrays.copyOf(batchKeys, capacity);
+        batchTimestamps = Arrays.copyOf(batchTimestamps, capacity);
+        batchSpeeds = Arrays.copyOf(batchSpeeds, capacity);
+        batchDirections = Arrays.copyOf(batchDirections, capacity);
+    }
+
+    private void sendBatch(int from, int count) {
+        int[] keys = from == 0 ? batchKeys : Arrays.copyOfRange(batchKeys, from, from + count);
+        long[] timestamps = from == 0 ? batchTimestamps : Arrays.copyOfRange(batchTimestamps, from, from + count);
+        double[] speeds = from == 0 ? batchSpeeds : Arrays.copyOfRange(batchSpeeds, from, from + count);
+        double[] directions = from == 0 ? batchDirections : Arrays.copyOfRange(batchDirections, from, from + count);
+        sendBinary(WindFrameCodec.encodeUpdates(keys, timestamps, speeds, directions, count));
+    }
+
+    /**
+     * @param entries the keys to announce, or {@code null} for the whole dictionary
+     */
+    private void sendDictionary(Map<Integer, String> entries) {
+        if (entries == null) {
+            synchronized (keyDictionary) {
+                entries = new LinkedHashMap<>(keyDictionary);
+            }
+            if (entries.isEmpty()) {
+                return;
+            }
+        }
+        sendBinary(WindFrameCodec.encodeDictionary(entries));
+    }
+
+    private void sendBinary(byte[] payload) {
+        try {
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+            accessor.setLeaveMutable(true);
+            messagingTemplate.send(binaryDestination, MessageBuilder.createMessage(payload, accessor.getMessageHeaders()));
+            binaryFrames.increment();
+            binaryBytes.increment(payload.length);
+        } catch (Exception e) {
+            logger.error("Failed to send binary WebSocket frame", e);
+        }
+    }
+
+    private void send(String sensorId, WindData data) {
+        try {
+            byte[] payload = objectMapper.writeValueAsBytes(data);
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+            accessor.setHeader(ClientFrameConflator.SENSOR_HEADER, sensorId);
+            accessor.setHeader(ClientFrameConflator.TIMESTAMP_HEADER, data.getTimestamp());
+            if (relay) {
+                // Only STOMP headers come back from an external broker
+                accessor.setNativeHeader(ClientFrameConflator.SENSOR_HEADER, sensorId);
+                accessor.setNativeHeader(ClientFrameConflator.TIMESTAMP_HEADER, Long.toString(data.getTimestamp()));
+            }
+            accessor.setLeaveMutable(true);
+            messagingTemplate.send(destination, MessageBuilder.createMessage(payload, accessor.getMessageHeaders()));
+            frames.increment();
+            jsonBytes.increment(payload.length);
+            latencyMetrics.record(WindLatencyMetrics.Stage.BROADCAST, data.getTimestamp());
+        } catch (JsonProcessingException e) {
+            logger.error("Failed to serialize wind update for sensor {}", sensorId, e);
+        } catch (Exception e) {
+            logger.error("Failed to send WebSocket update", e);
+        }
+    }
+}
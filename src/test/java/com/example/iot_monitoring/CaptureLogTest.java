@@ -0,0 +1,75 @@
+package com.example.iot_monitoring;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CaptureLogTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void roundTripsMessagesWithATopicDictionary() throws IOException {
+		Path file = directory.resolve("a" + CaptureLog.SUFFIX);
+		try (CaptureLog.Writer writer = CaptureLog.Writer.create(file, 1_000L)) {
+			writer.append("wind/s1/data", bytes("{\"speed\":1.0}"), 1_005L);
+			writer.append("wind/s2/speed", bytes("12.5"), 1_003L);
+			writer.append("wind/s1/data", bytes(""), 2_000L);
+			assertEquals(3, writer.getRecords());
+		}
+		// Header, then per record: time delta, topic reference (+ name the first time), length, payload
+		assertEquals(16 + (1 + 1 + 1 + 12 + 1 + 13) + (1 + 1 + 1 + 13 + 1 + 4) + (2 + 1 + 1), Files.size(file));
+
+		try (CaptureLog.Reader reader = CaptureLog.Reader.open(file)) {
+			assertEquals(1_000L, reader.getStartMillis());
+			assertTrue(reader.next());
+			assertEquals("wind/s1/data", reader.getTopic());
+			assertEquals("{\"speed\":1.0}", new String(reader.getPayload(), StandardCharsets.UTF_8));
+			assertEquals(1_005L, reader.getArrivedAt());
+			assertTrue(reader.next());
+			assertEquals("wind/s2/speed", reader.getTopic());
+			assertEquals(1_003L, reader.getArrivedAt());
+			assertTrue(reader.next());
+			assertEquals("wind/s1/data", reader.getTopic());
+			assertEquals(0, reader.getPayload().length);
+			assertEquals(2_000L, reader.getArrivedAt());
+			assertFalse(reader.next());
+			assertFalse(reader.isTruncated());
+		}
+	}
+
+	@Test
+	void tornLastRecordEndsTheLog() throws IOException {
+		Path file = directory.resolve("b" + CaptureLog.SUFFIX);
+		try (CaptureLog.Writer writer = CaptureLog.Writer.create(file, 0L)) {
+			writer.append("wind/s1/data", bytes("first"), 10L);
+			writer.append("wind/s1/data", bytes("second"), 20L);
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			channel.truncate(channel.size() - 3);
+		}
+		try (CaptureLog.Reader reader = CaptureLog.Reader.open(file)) {
+			assertTrue(reader.next());
+			assertEquals("first", new String(reader.getPayload(), StandardCharsets.UTF_8));
+			assertFalse(reader.next());
+			assertTrue(reader.isTruncated());
+		}
+
+		Path junk = directory.resolve("c" + CaptureLog.SUFFIX);
+		Files.write(junk, bytes("not a capture log"));
+		assertThrows(IOException.class, () -> CaptureLog.Reader.open(junk));
+	}
+
+	private static byte[] bytes(String text) {
+		return text.getBytes(StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,66 @@
+package com.example.iot_monitoring;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientFrameConflatorTest {
+
+	private static final String DESTINATION = "/topic/wind_updates";
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final ClientFrameConflator conflator = new ClientFrameConflator(registry,
+			new WindLatencyMetrics(registry, new double[0]), DESTINATION, 0);
+	private final List<Message<?>> written = new ArrayList<>();
+	private final MessageChannel channel = (message, timeout) -> written.add(message);
+
+	private static Message<byte[]> update(String sessionId, String sensorId, String payload) {
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+		accessor.setSessionId(sessionId);
+		accessor.setSubscriptionId("sub-0");
+		accessor.setDestination(DESTINATION);
+		accessor.setHeader(ClientFrameConflator.SENSOR_HEADER, sensorId);
+		return MessageBuilder.createMessage(payload.getBytes(), accessor.getMessageHeaders());
+	}
+
+	@Test
+	void slowClientOnlyReceivesLatestUpdatePerSensor() {
+		assertNull(conflator.preSend(update("s1", "a", "a1"), channel));
+		conflator.drain();
+		assertEquals(1, written.size());
+
+		// Previous update not yet written to the socket: newer ones are conflated
+		conflator.preSend(update("s1", "a", "a2"), channel);
+		conflator.preSend(update("s1", "a", "a3"), channel);
+		conflator.preSend(update("s1", "b", "b1"), channel);
+		conflator.drain();
+		assertEquals(1, written.size());
+
+		conflator.afterMessageHandled(written.get(0), channel, null, null);
+		conflator.drain();
+
+		assertEquals(3, written.size());
+		assertEquals("a3", new String((byte[]) written.get(1).getPayload()));
+		assertEquals("b1", new String((byte[]) written.get(2).getPayload()));
+		assertEquals(1.0, registry.get("wind.websocket.conflated").counter().count());
+	}
+
+	@Test
+	void otherDestinationsPassThrough() {
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+		accessor.setSessionId("s1");
+		accessor.setDestination("/topic/other");
+		Message<byte[]> message = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+
+		assertSame(message, conflator.preSend(message, channel));
+	}
+}
@@ -0,0 +1,257 @@
+package com.example.iot_monitoring;
+
+import io.moquette.broker.Server;
+import io.moquette.broker.config.IConfig;
+import io.moquette.broker.config.MemoryConfig;
+import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import static com.example.iot_monitoring.TestSupport.await;
+import static com.example.iot_monitoring.TestSupport.freePort;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two application instances and an embedded broker on one machine: every
+ * sensor is ingested by exactly one node, queries are redirected to the owner,
+ * and a node leaving hands its sensors over to the other.
+ *
+ * Moquette does not deliver {@code $share} subscriptions made by MQTT 3.1.1
+ * clients, so in shared mode the messages the broker would spread over the
+ * nodes are all handed to node a's {@link MqttService}, which must forward the
+ * ones it does not own through the broker.
+ */
+class ClusterModeTest {
+
+	private static final int SENSORS = 40;
+
+	@TempDir
+	Path directory;
+
+	private final int port = freePort();
+	private Server broker;
+	private ConfigurableApplicationContext nodeA;
+	private ConfigurableApplicationContext nodeB;
+	private MqttClient publisher;
+
+	@AfterEach
+	void tearDown() throws Exception {
+		if (publisher != null && publisher.isConnected()) {
+			publisher.disconnect();
+		}
+		if (nodeA != null) {
+			nodeA.close();
+		}
+		if (nodeB != null) {
+			nodeB.close();
+		}
+		if (broker != null) {
+			broker.stopServer();
+		}
+	}
+
+	private void startBroker() throws IOException {
+		Properties properties = new Properties();
+		properties.setProperty(IConfig.HOST_PROPERTY_NAME, "127.0.0.1");
+		properties.setProperty(IConfig.PORT_PROPERTY_NAME, String.valueOf(port));
+		properties.setProperty(IConfig.ALLOW_ANONYMOUS_PROPERTY_NAME, "true");
+		properties.setProperty(IConfig.PERSISTENCE_ENABLED_PROPERTY_NAME, "false");
+		properties.setProperty(IConfig.ENABLE_TELEMETRY_NAME, "false");
+		broker = new Server();
+		broker.startServer(new MemoryConfig(properties));
+	}
+
+	private ConfigurableApplicationContext startNode(String nodeId, String mode) {
+		Path data = directory.resolve(nodeId);
+		return SpringApplication.run(IotMonitoringApplication.class,
+				"--server.port=0",
+				"--mqtt.broker.url=tcp://127.0.0.1:" + port,
+				"--mqtt.spool.directory=" + data.resolve("mqtt-spool"),
+				"--wind.capture.directory=" + data.resolve("capture"),
+				"--wind.persistence.repository=local",
+				"--wind.persistence.local.directory=" + data.resolve("wind-log"),
+				"--wind.persistence.spool.directory=",
+				"--wind.simulation.interval=3600",
+				"--wind.cluster.enabled=true",
+				"--wind.cluster.node-id=" + nodeId,
+				"--wind.cluster.mode=" + mode,
+				"--wind.cluster.heartbeat-ms=200",
+				"--wind.cluster.member-timeout-ms=3000");
+	}
+
+	private static long count(ConfigurableApplicationContext node, String sensorId) {
+		SensorState state = node.getBean(SensorStateStore.class).get(sensorId);
+		return state == null ? 0 : state.getMessageCount();
+	}
+
+	private void publishAll(String mode, double speed) throws Exception {
+		byte[] payload = Double.toString(speed).getBytes(StandardCharsets.US_ASCII);
+		MqttService receiver = nodeA.getBean(MqttService.class);
+		for (int i = 0; i < SENSORS; i++) {
+			String topic = "wind/cs-" + i + "/speed";
+			if (mode.equals("shared")) {
+				receiver.messageArrived(topic, new MqttMessage(payload));
+			} else {
+				publisher.publish(topic, payload, 1, false);
+			}
+		}
+	}
+
+	private void awaitCounts(long expected) throws InterruptedException {
+		await(() -> {
+			for (int i = 0; i < SENSORS; i++) {
+				if (count(nodeA, "cs-" + i) + (nodeB == null ? 0 : count(nodeB, "cs-" + i)) != expected) {
+					return false;
+				}
+			}
+			return true;
+		});
+	}
+
+	private static int firstOwnedBy(ClusterCoordinator cluster) {
+		int i = 0;
+		while (cluster.ownerUrl("cs-" + i) != null) {
+			i++;
+		}
+		return i;
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"filter", "shared"})
+	void partitionsSensorsAndHandsThemOverWhenANodeLeaves(String mode) throws Exception {
+		startBroker();
+		nodeA = startNode("a", mode);
+		nodeB = startNode("b", mode);
+		ClusterCoordinator clusterA = nodeA.getBean(ClusterCoordinator.class);
+		ClusterCoordinator clusterB = nodeB.getBean(ClusterCoordinator.class);
+		await(() -> clusterA.status().getNodes().size() == 2 && clusterB.status().getNodes().size() == 2);
+		await(() -> nodeA.getBean(MqttConnectionManager.class).getConnectedCount() == 2
+				&& nodeB.getBean(MqttConnectionManager.class).getConnectedCount() == 2);
+
+		publisher = new MqttClient("tcp://127.0.0.1:" + port, "cluster-publisher", new MemoryPersistence());
+		publisher.connect(new MqttConnectOptions());
+		publishAll(mode, 12.5);
+
+		await(() -> {
+			for (int i = 0; i < SENSORS; i++) {
+				if (count(nodeA, "cs-" + i) + count(nodeB, "cs-" + i) != 1) {
+					return false;
+				}
+			}
+			return true;
+		});
+		String remote = null;
+		int ownedByB = 0;
+		for (int i = 0; i < SENSORS; i++) {
+			String sensorId = "cs-" + i;
+			ConfigurableApplicationContext owner = clusterA.ownerUrl(sensorId) == null ? nodeA : nodeB;
+			assertEquals(1, count(owner, sensorId), sensorId);
+			if (owner == nodeB) {
+				remote = sensorId;
+				ownedByB++;
+			}
+		}
+		assertTrue(ownedByB > 5 && ownedByB < SENSORS - 5, ownedByB + " of " + SENSORS + " sensors on node b");
+
+		// Node a redirects a query for a sensor of node b
+		HttpClient http = HttpClient.newHttpClient();
+		String path = "/api/wind/sensors/" + remote + "/history?to=" + Long.MAX_VALUE;
+		String urlA = clusterB.ownerUrl("cs-" + firstOwnedBy(clusterA));
+		HttpResponse<String> response = http.send(HttpRequest.newBuilder(URI.create(urlA + path)).build(),
+				HttpResponse.BodyHandlers.ofString());
+		assertEquals(307, response.statusCode());
+		String location = response.headers().firstValue("Location").orElseThrow();
+		assertEquals(clusterA.ownerUrl(remote) + path, location);
+		assertEquals(200, http.send(HttpRequest.newBuilder(URI.create(location)).build(),
+				HttpResponse.BodyHandlers.ofString()).statusCode());
+
+		// Node b leaves: its sensors, with their count and history, move to node a
+		nodeB.close();
+		nodeB = null;
+		await(() -> clusterA.status().getNodes().size() == 1);
+		await(() -> {
+			for (int i = 0; i < SENSORS; i++) {
+				if (count(nodeA, "cs-" + i) != 1) {
+					return false;
+				}
+			}
+			return true;
+		});
+		assertEquals(1, nodeA.getBean(WindHistoryStore.class).range(remote, 0, Long.MAX_VALUE).getSize());
+
+		publishAll(mode, 14.0);
+		await(() -> {
+			for (int i = 0; i < SENSORS; i++) {
+				if (count(nodeA, "cs-" + i) != 2) {
+					return false;
+				}
+			}
+			return true;
+		});
+	}
+
+	@Test
+	void sensorsHandedToAJoiningNodeComeBackWithTheirCountsWhenItLeaves() throws Exception {
+		startBroker();
+		nodeA = startNode("a", "filter");
+		ClusterCoordinator clusterA = nodeA.getBean(ClusterCoordinator.class);
+		await(() -> nodeA.getBean(MqttConnectionManager.class).getConnectedCount() == 2);
+		publisher = new MqttClient("tcp://127.0.0.1:" + port, "cluster-publisher", new MemoryPersistence());
+		publisher.connect(new MqttConnectOptions());
+		publishAll("filter", 10.0);
+		awaitCounts(1);
+		Thread.sleep(20);
+		publishAll("filter", 11.0);
+		awaitCounts(2);
+
+		// Node b joins: node a hands it its share and forgets it
+		nodeB = startNode("b", "filter");
+		ClusterCoordinator clusterB = nodeB.getBean(ClusterCoordinator.class);
+		await(() -> clusterA.status().getNodes().size() == 2 && clusterB.status().getNodes().size() == 2);
+		await(() -> nodeB.getBean(MqttConnectionManager.class).getConnectedCount() == 2);
+		String remote = null;
+		for (int i = 0; i < SENSORS && remote == null; i++) {
+			if (clusterA.ownerUrl("cs-" + i) != null) {
+				remote = "cs-" + i;
+			}
+		}
+		assertNotNull(remote);
+		String moved = remote;
+		await(() -> count(nodeB, moved) == 2 && nodeA.getBean(SensorStateStore.class).get(moved) == null);
+		assertEquals(2, nodeB.getBean(WindHistoryStore.class).range(remote, 0, Long.MAX_VALUE).getSize());
+		assertEquals(0, nodeA.getBean(WindHistoryStore.class).range(remote, 0, Long.MAX_VALUE).getSize());
+		awaitCounts(2);
+
+		Thread.sleep(20);
+		publishAll("filter", 12.0);
+		awaitCounts(3);
+
+		// Node b leaves again: node a takes the sensors back with three readings each, not five
+		nodeB.close();
+		nodeB = null;
+		await(() -> clusterA.status().getNodes().size() == 1);
+		awaitCounts(3);
+		WindSeries history = nodeA.getBean(WindHistoryStore.class).range(remote, 0, Long.MAX_VALUE);
+		assertEquals(3, history.getSize());
+		assertEquals(12.0, history.getSpeeds()[2]);
+		assertTrue(history.getTimestamps()[0] < history.getTimestamps()[1]);
+		assertTrue(history.getTimestamps()[1] < history.getTimestamps()[2]);
+	}
+}
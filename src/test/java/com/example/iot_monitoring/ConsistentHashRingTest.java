@@ -0,0 +1,46 @@
+package com.example.iot_monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistentHashRingTest {
+
+	@Test
+	void spreadsSensorsEvenlyOverNodes() {
+		ConsistentHashRing ring = new ConsistentHashRing(List.of("c", "a", "b", "d"), 128);
+		assertEquals(List.of("a", "b", "c", "d"), ring.getNodes());
+
+		Map<String, Integer> counts = new HashMap<>();
+		for (int i = 0; i < 40_000; i++) {
+			counts.merge(ring.owner("sensor-" + i), 1, Integer::sum);
+		}
+		assertEquals(4, counts.size());
+		for (int count : counts.values()) {
+			assertTrue(count > 7_000 && count < 13_000, "unbalanced: " + counts);
+		}
+	}
+
+	@Test
+	void addingANodeOnlyMovesKeysToThatNode() {
+		ConsistentHashRing before = new ConsistentHashRing(List.of("a", "b", "c"), 128);
+		ConsistentHashRing after = new ConsistentHashRing(List.of("a", "b", "c", "d"), 128);
+
+		int moved = 0;
+		for (int i = 0; i < 40_000; i++) {
+			String sensor = "sensor-" + i;
+			String owner = after.owner(sensor);
+			if (!owner.equals(before.owner(sensor))) {
+				assertEquals("d", owner);
+				moved++;
+			}
+		}
+		// About a quarter of the keys move, all of them to the new node
+		assertTrue(moved > 7_000 && moved < 13_000, "moved " + moved);
+		assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(List.of(), 128));
+	}
+}
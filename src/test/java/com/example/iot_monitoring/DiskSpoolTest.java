@@ -0,0 +1,171 @@
+package com.example.iot_monitoring;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiskSpoolTest {
+
+	@TempDir
+	Path directory;
+
+	private static byte[] record(int i) {
+		return ("message-" + i).getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static String text(byte[] record) {
+		return new String(record, StandardCharsets.UTF_8);
+	}
+
+	private long files() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.count();
+		}
+	}
+
+	@Test
+	void peekDoesNotConsumeAndAckAdvancesInOrderAcrossSegments() throws Exception {
+		try (DiskSpool spool = DiskSpool.open(directory, 128, 16)) {
+			for (int i = 0; i < 20; i++) {
+				assertTrue(spool.append(record(i)));
+			}
+			assertTrue(spool.getSegmentCount() > 1);
+			assertEquals(20, spool.size());
+
+			assertEquals("message-0", text(spool.peek(3).getRecords().get(0)));
+			assertEquals("message-0", text(spool.peek(3).getRecords().get(0)));
+
+			spool.ack(spool.peek(10), 7);
+			DiskSpool.Batch next = spool.peek(20);
+			assertEquals(13, next.size());
+			assertEquals("message-7", text(next.getRecords().get(0)));
+			assertEquals("message-19", text(next.getRecords().get(12)));
+
+			spool.ack(next, 13);
+			// Acknowledging the same batch again consumes nothing
+			spool.append(record(20));
+			spool.ack(next, 13);
+			assertEquals(1, spool.size());
+			spool.ack(spool.peek(1), 1);
+			assertTrue(spool.isEmpty());
+			assertEquals(1, spool.getSegmentCount());
+		}
+		assertEquals(1, files());
+	}
+
+	@Test
+	void reopenResumesAfterTheLastAcknowledgedRecord() throws Exception {
+		try (DiskSpool spool = DiskSpool.open(directory, 128, 16)) {
+			for (int i = 0; i < 10; i++) {
+				spool.append(record(i));
+			}
+			spool.ack(spool.peek(4), 4);
+		}
+
+		try (DiskSpool spool = DiskSpool.open(directory, 128, 16)) {
+			assertEquals(6, spool.size());
+			assertEquals("message-4", text(spool.peek(1).getRecords().get(0)));
+			spool.append(record(10));
+			List<byte[]> all = spool.peek(100).getRecords();
+			assertEquals(7, all.size());
+			assertEquals("message-10", text(all.get(6)));
+		}
+	}
+
+	@Test
+	void tornRecordEndsRecovery() throws Exception {
+		try (DiskSpool spool = DiskSpool.open(directory, 1024, 4)) {
+			spool.append(record(0));
+			spool.append(record(1));
+		}
+		Path segment;
+		try (Stream<Path> files = Files.list(directory)) {
+			segment = files.findFirst().orElseThrow();
+		}
+		// Corrupt the payload of the second record: header 16, first record 8 + 9 bytes
+		try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+			file.seek(16 + 17 + 8);
+			file.write('X');
+		}
+
+		try (DiskSpool spool = DiskSpool.open(directory, 1024, 4)) {
+			assertEquals(1, spool.size());
+			spool.append(record(2));
+			List<byte[]> all = spool.peek(10).getRecords();
+			assertEquals("message-0", text(all.get(0)));
+			assertEquals("message-2", text(all.get(1)));
+		}
+	}
+
+	@Test
+	void fullSpoolDiscardsOldestSegment() throws Exception {
+		try (DiskSpool spool = DiskSpool.open(directory, 64, 2)) {
+			// 16-byte header + 17-byte records: two per segment
+			for (int i = 0; i < 6; i++) {
+				assertTrue(spool.append(record(i)));
+			}
+			assertEquals(2, spool.getSegmentCount());
+			assertEquals(4, spool.size());
+			assertEquals(2, spool.getDropped());
+			assertEquals("message-2", text(spool.peek(1).getRecords().get(0)));
+			assertFalse(spool.append(new byte[64]));
+		}
+		assertEquals(2, files());
+	}
+
+	@Test
+	void ackSkipsRecordsDiscardedWhileTheBatchWasInFlight() throws Exception {
+		try (DiskSpool spool = DiskSpool.open(directory, 64, 2)) {
+			// Two records per segment: message-0..3 fill both segments
+			for (int i = 0; i < 4; i++) {
+				spool.append(record(i));
+			}
+			DiskSpool.Batch batch = spool.peek(3);
+			assertEquals("message-2", text(batch.getRecords().get(2)));
+
+			// Producers roll past maxSegments: message-0 and message-1 are discarded
+			spool.append(record(4));
+			assertEquals(2, spool.getDropped());
+
+			// Only message-2 of the batch is still spooled; message-3 and message-4 were never sent
+			spool.ack(batch, 3);
+			List<byte[]> left = spool.peek(10).getRecords();
+			assertEquals(2, left.size());
+			assertEquals("message-3", text(left.get(0)));
+			assertEquals("message-4", text(left.get(1)));
+
+			// A batch whose segments are all gone acknowledges nothing
+			DiskSpool.Batch stale = spool.peek(1);
+			for (int i = 5; i < 9; i++) {
+				spool.append(record(i));
+			}
+			spool.ack(stale, 1);
+			assertEquals(3, spool.size());
+			assertEquals("message-6", text(spool.peek(1).getRecords().get(0)));
+		}
+	}
+
+	@Test
+	void closedSpoolRejectsAppendsAndIgnoresAcks() throws Exception {
+		DiskSpool spool = DiskSpool.open(directory, 128, 4);
+		spool.append(record(0));
+		DiskSpool.Batch batch = spool.peek(1);
+		spool.close();
+		assertThrows(IOException.class, () -> spool.append(record(1)));
+		spool.ack(batch, 1);
+		assertTrue(spool.peek(1).isEmpty());
+
+		try (DiskSpool reopened = DiskSpool.open(directory, 128, 4)) {
+			assertEquals(1, reopened.size());
+		}
+	}
+}
@@ -0,0 +1,34 @@
+package com.example.iot_monitoring;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FirebaseConfigTest {
+
+	@Test
+	void missingCredentialsFailInTheBackgroundAndReportDown() throws Exception {
+		FirebaseConfig config = new FirebaseConfig();
+		ReflectionTestUtils.setField(config, "databaseUrl", "https://example.firebaseio.com/");
+		ReflectionTestUtils.setField(config, "configPath", "classpath:no-such-credentials.json");
+		FirebaseHealthIndicator health = new FirebaseHealthIndicator(config);
+
+		long started = System.nanoTime();
+		config.initialize();
+		assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(1));
+
+		ExecutionException failure = assertThrows(ExecutionException.class,
+				() -> config.ready().get(10, TimeUnit.SECONDS));
+		assertInstanceOf(IllegalStateException.class, failure.getCause());
+		assertEquals(Status.DOWN, health.health().getStatus());
+
+		FirebaseWindDataRepository repository = new FirebaseWindDataRepository(config);
+		assertTrue(repository.write(List.of()).isCompletedExceptionally());
+	}
+}
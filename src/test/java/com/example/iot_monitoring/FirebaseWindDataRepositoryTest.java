@@ -0,0 +1,35 @@
+package com.example.iot_monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FirebaseWindDataRepositoryTest {
+
+	@Test
+	void sensorKeysOrderByTimeWithinOneSensor() {
+		String from = FirebaseWindDataRepository.sensorKey("s1", 999L);
+		String inside = FirebaseWindDataRepository.sensorKey("s1", 1000L);
+		String to = FirebaseWindDataRepository.sensorKey("s1", 1718000000000L);
+		assertTrue(from.compareTo(inside) < 0);
+		assertTrue(inside.compareTo(to) < 0);
+		// Another sensor's readings fall outside the range
+		String other = FirebaseWindDataRepository.sensorKey("s2", 1000L);
+		assertTrue(other.compareTo(to) > 0);
+	}
+
+	@Test
+	void recordRoundTrips() {
+		WindData data = new WindData("s1", 12.5, 270.0, 1718000000123L);
+		Map<String, Object> record = FirebaseWindDataRepository.toRecord(data);
+		assertEquals("s1_0000001718000000123", record.get(FirebaseWindDataRepository.SENSOR_TIMESTAMP));
+
+		WindData back = FirebaseWindDataRepository.fromRecord(record);
+		assertEquals("s1", back.getSensorId());
+		assertEquals(12.5, back.getSpeed());
+		assertEquals(270.0, back.getDirection());
+		assertEquals(1718000000123L, back.getTimestamp());
+	}
+}
@@ -0,0 +1,59 @@
+package com.example.iot_monitoring;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Uncached fleet aggregation ({@link FleetAggregationService}) of one hour of
+ * minute rollups for {@value #SENSORS} sensors, by pool size. On a machine with
+ * N cores, parallelism N should take close to 1/N of the single-thread time.
+ *
+ * Run with {@code mvn -Pbenchmark test -Djmh.include=FleetAggregationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms512m", "-Xmx512m"})
+public class FleetAggregationBenchmark {
+	static final int SENSORS = 10_000;
+	private static final long HOUR = 3_600_000L;
+
+	@Param({"1", "2", "4", "8"})
+	public int parallelism;
+
+	@Param({"all", "region"})
+	public String group;
+
+	private FleetAggregationService service;
+	private FleetAggregationService.GroupBy groupBy;
+
+	@Setup
+	public void setup() {
+		WindHistoryStore history = new WindHistoryStore(2, 120, 60, 60_000L);
+		for (int sensor = 0; sensor < SENSORS; sensor++) {
+			String sensorId = "region" + (sensor % 50) + "-" + sensor;
+			WindModel model = new WindModel(sensor, 20);
+			for (long t = 0; t < HOUR; t += 60_000L) {
+				model.advance(60.0);
+				history.append(new WindData(sensorId, model.getSpeed(), model.getDirection(), t));
+			}
+		}
+		// No caching: every invocation aggregates the whole fleet
+		service = new FleetAggregationService(history, new SimpleMeterRegistry(), parallelism, 64, "-", 0, 16);
+		groupBy = FleetAggregationService.GroupBy.parse(group);
+	}
+
+	@TearDown
+	public void tearDown() {
+		service.stop();
+	}
+
+	@Benchmark
+	public FleetQueryResult aggregate() {
+		return service.query(groupBy, RollupResolution.MINUTE, 0L, HOUR);
+	}
+}
@@ -0,0 +1,106 @@
+package com.example.iot_monitoring;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FleetAggregationServiceTest {
+
+	private static final long HOUR = 3_600_000L;
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final WindHistoryStore history = new WindHistoryStore(6, 21600, 900, 60_000L);
+	private FleetAggregationService service = new FleetAggregationService(history, registry, 4, 8, "-", 60_000, 16);
+
+	@AfterEach
+	void stop() {
+		service.stop();
+	}
+
+	@Test
+	void aggregatesPerRegionAndForTheWholeFleet() {
+		history.append(new WindData("north-1", 10.0, 90.0, 1_000L));
+		history.append(new WindData("north-1", 30.0, 90.0, 61_000L));
+		history.append(new WindData("north-2", 20.0, 90.0, 2_000L));
+		history.append(new WindData("south-1", 5.0, 270.0, 3_000L));
+
+		FleetQueryResult regions = service.query(FleetAggregationService.GroupBy.REGION, RollupResolution.MINUTE, 0L, HOUR);
+		assertEquals("1m", regions.getResolution());
+		List<FleetAggregate> groups = regions.getGroups();
+		assertEquals(2, groups.size());
+		FleetAggregate north = groups.get(0);
+		assertEquals("north", north.getGroup());
+		assertEquals(2, north.getSensors());
+		assertEquals(3, north.getCount());
+		assertEquals(10.0, north.getMinSpeed());
+		assertEquals(30.0, north.getMaxSpeed());
+		assertEquals(20.0, north.getMeanSpeed(), 1e-9);
+		assertEquals(90.0, north.getVectorDirection(), 1e-9);
+		assertEquals("south", groups.get(1).getGroup());
+
+		FleetAggregate fleet = service.query(FleetAggregationService.GroupBy.ALL, RollupResolution.MINUTE, 0L, HOUR)
+				.getGroups().get(0);
+		assertEquals(FleetAggregationService.ALL_GROUP, fleet.getGroup());
+		assertEquals(3, fleet.getSensors());
+		assertEquals(4, fleet.getCount());
+		assertEquals(30.0, fleet.getMaxSpeed());
+		// (10 + 30 + 20 - 5) / 4 eastward
+		assertEquals(13.75, fleet.getVectorSpeed(), 1e-9);
+		assertEquals(90.0, fleet.getVectorDirection(), 1e-9);
+
+		FleetQueryResult firstMinute = service.query(FleetAggregationService.GroupBy.SENSOR, RollupResolution.MINUTE, 0L, 59_999L);
+		assertEquals(3, firstMinute.getGroups().size());
+		assertEquals(10.0, firstMinute.getGroups().get(0).getMaxSpeed());
+	}
+
+	@Test
+	void shardedResultMatchesSingleShard() {
+		for (int sensor = 0; sensor < 500; sensor++) {
+			for (int i = 0; i < 20; i++) {
+				history.append(new WindData("r" + (sensor % 7) + "-" + sensor, (sensor * 31 + i * 7) % 40,
+						(sensor * 13 + i * 17) % 360, i * 30_000L));
+			}
+		}
+		FleetAggregationService single = new FleetAggregationService(history, registry, 1, Integer.MAX_VALUE, "-", 0, 16);
+		try {
+			for (FleetAggregationService.GroupBy groupBy : FleetAggregationService.GroupBy.values()) {
+				List<FleetAggregate> expected = single.query(groupBy, RollupResolution.MINUTE, 0L, HOUR).getGroups();
+				List<FleetAggregate> actual = service.query(groupBy, RollupResolution.MINUTE, 0L, HOUR).getGroups();
+				assertEquals(expected.size(), actual.size());
+				for (int i = 0; i < expected.size(); i++) {
+					assertEquals(expected.get(i).getGroup(), actual.get(i).getGroup());
+					assertEquals(expected.get(i).getSensors(), actual.get(i).getSensors());
+					assertEquals(expected.get(i).getCount(), actual.get(i).getCount());
+					assertEquals(expected.get(i).getMaxSpeed(), actual.get(i).getMaxSpeed());
+					assertEquals(expected.get(i).getMeanSpeed(), actual.get(i).getMeanSpeed(), 1e-9);
+					assertEquals(expected.get(i).getVectorDirection(), actual.get(i).getVectorDirection(), 1e-6);
+				}
+			}
+			assertEquals(7, service.query(FleetAggregationService.GroupBy.REGION, RollupResolution.MINUTE, 0L, HOUR)
+					.getGroups().size());
+		} finally {
+			single.stop();
+		}
+	}
+
+	@Test
+	void cachesRepeatedQueriesUntilTheTtlExpires() {
+		history.append(new WindData("s-1", 10.0, 0.0, 1_000L));
+		FleetQueryResult first = service.query(FleetAggregationService.GroupBy.ALL, RollupResolution.MINUTE, 30_000L, HOUR);
+		history.append(new WindData("s-1", 50.0, 0.0, 2_000L));
+		// Same aligned key: served from the cache
+		assertSame(first, service.query(FleetAggregationService.GroupBy.ALL, RollupResolution.MINUTE, 0L, HOUR));
+		assertEquals(1.0, registry.get("wind.fleet.cache.hits").counter().count());
+		assertEquals(10.0, first.getGroups().get(0).getMaxSpeed());
+
+		service.stop();
+		service = new FleetAggregationService(history, registry, 2, 8, "-", 0, 16);
+		FleetQueryResult fresh = service.query(FleetAggregationService.GroupBy.ALL, RollupResolution.MINUTE, 0L, HOUR);
+		assertEquals(50.0, fresh.getGroups().get(0).getMaxSpeed());
+		assertNotSame(fresh, service.query(FleetAggregationService.GroupBy.ALL, RollupResolution.MINUTE, 0L, HOUR));
+	}
+}
@@ -0,0 +1,78 @@
+package com.example.iot_monitoring;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The synchronous part of {@link MqttService#messageArrived}: topic to sensor
+ * resolution, payload decoding and the merge into {@link SensorState}, over a
+ * rotating set of sensors so the topic cache behaves as in production.
+ *
+ * Run with {@code mvn -Pbenchmark test -Djmh.include=IngestPathBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms512m", "-Xmx512m"})
+public class IngestPathBenchmark {
+
+	@Param({"1", "1000"})
+	public int sensors;
+
+	private final WindReading reading = new WindReading();
+	private SensorStateStore store;
+	private String[] dataTopics;
+	private String[] speedTopics;
+	private byte[] jsonPayload;
+	private byte[] binaryPayload;
+	private byte[] scalarPayload;
+	private int next;
+
+	@Setup
+	public void setup() {
+		store = new SensorStateStore(sensors, "default");
+		dataTopics = new String[sensors];
+		speedTopics = new String[sensors];
+		for (int i = 0; i < sensors; i++) {
+			dataTopics[i] = "wind/sensor-" + i + "/data";
+			speedTopics[i] = "wind/sensor-" + i + "/speed";
+			// Cache keys are other instances, as Paho builds a new topic String per message
+			store.resolve(new String(dataTopics[i]));
+			store.resolve(new String(speedTopics[i]));
+		}
+		jsonPayload = WindPayloadDecoder.encodeJson(27.53, 184.20, 1718000000000L);
+		binaryPayload = WindPayloadDecoder.encodeBinary(new WindData(null, 27.53, 184.20, 1718000000000L));
+		scalarPayload = "27.53".getBytes();
+	}
+
+	private int nextIndex() {
+		int index = next;
+		next = index + 1 == sensors ? 0 : index + 1;
+		return index;
+	}
+
+	@Benchmark
+	public WindData jsonRecord() {
+		SensorState state = store.resolve(dataTopics[nextIndex()]);
+		WindPayloadDecoder.decode(jsonPayload, reading);
+		return state.update(reading, 1718000000000L);
+	}
+
+	@Benchmark
+	public WindData binaryRecord() {
+		SensorState state = store.resolve(dataTopics[nextIndex()]);
+		WindPayloadDecoder.decode(binaryPayload, reading);
+		return state.update(reading, 1718000000000L);
+	}
+
+	@Benchmark
+	public WindData scalarSpeed() {
+		SensorState state = store.resolve(speedTopics[nextIndex()]);
+		reading.reset();
+		reading.setSpeed(WindPayloadDecoder.decodeScalar(scalarPayload));
+		return state.update(reading, 1718000000000L);
+	}
+}
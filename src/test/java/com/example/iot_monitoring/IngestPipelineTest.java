@@ -0,0 +1,205 @@
+package com.example.iot_monitoring;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.iot_monitoring.TestSupport.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IngestPipelineTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final WindIngestService ingestService = mock(WindIngestService.class);
+	private final WindLatencyMetrics latency = new WindLatencyMetrics(registry, new double[0]);
+	private final OverloadController overload = new OverloadController(registry, true, 50, 200, 0.5, 0.8, 2000,
+			"elevated", "critical");
+	private IngestPipeline pipeline;
+
+	@AfterEach
+	void tearDown() {
+		if (pipeline != null) {
+			pipeline.stop();
+		}
+	}
+
+	private static byte[] scalar(double value) {
+		return Double.toString(value).getBytes(StandardCharsets.US_ASCII);
+	}
+
+	@Test
+	void keepsPerSensorOrderAcrossWorkers() throws Exception {
+		int sensors = 16;
+		int perSensor = 2000;
+		Map<String, List<Double>> seen = new ConcurrentHashMap<>();
+		CountDownLatch done = new CountDownLatch(sensors * perSensor);
+		when(ingestService.ingest(any(), any())).thenAnswer(call -> {
+			SensorState state = call.getArgument(0);
+			WindReading reading = call.getArgument(1);
+			seen.computeIfAbsent(state.getSensorId(), id -> new CopyOnWriteArrayList<>()).add(reading.getSpeed());
+			done.countDown();
+			return reading.toWindData(state.getSensorId(), 1L);
+		});
+		pipeline = new IngestPipeline(ingestService, latency, overload, registry, 4, 64, 1000, 1024, 64, 1000, 1_800_000L);
+		pipeline.start();
+
+		SensorState[] states = new SensorState[sensors];
+		for (int s = 0; s < sensors; s++) {
+			states[s] = new SensorState("sensor-" + s);
+		}
+		for (int i = 0; i < perSensor; i++) {
+			for (SensorState state : states) {
+				assertTrue(pipeline.submit(state, IngestPipeline.KIND_SPEED, scalar(i), 0));
+			}
+		}
+
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		for (List<Double> speeds : seen.values()) {
+			for (int i = 0; i < perSensor; i++) {
+				assertEquals(i, speeds.get(i));
+			}
+		}
+		assertEquals(0.0, registry.get("wind.ingest.rejected").counter().count());
+	}
+
+	@Test
+	void dropsWhenWorkerQueueStaysFull() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch started = new CountDownLatch(1);
+		when(ingestService.ingest(any(), any())).thenAnswer(call -> {
+			started.countDown();
+			release.await();
+			return new WindData();
+		});
+		pipeline = new IngestPipeline(ingestService, latency, overload, registry, 1, 2, 5, 1024, 64, 1000, 1_800_000L);
+		pipeline.start();
+		SensorState state = new SensorState("slow");
+
+		assertTrue(pipeline.submit(state, IngestPipeline.KIND_SPEED, scalar(1), 0));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		try {
+			// The slot being processed is only freed once ingest returns
+			assertTrue(pipeline.submit(state, IngestPipeline.KIND_SPEED, scalar(2), 0));
+			assertFalse(pipeline.submit(state, IngestPipeline.KIND_SPEED, scalar(3), 0));
+
+			assertEquals(1.0, registry.get("wind.ingest.rejected").counter().count());
+			assertEquals(1.0, registry.get("wind.ingest.blocked").counter().count());
+			assertEquals(1.0, registry.get("wind.ingest.queue.saturation").gauge().value());
+		} finally {
+			release.countDown();
+		}
+	}
+
+	@Test
+	void dropsRedeliveriesAndRestoresSequenceOrder() throws Exception {
+		List<Long> ingested = new CopyOnWriteArrayList<>();
+		when(ingestService.ingest(any(), any())).thenAnswer(call -> {
+			WindReading reading = call.getArgument(1);
+			ingested.add(reading.getSequence());
+			return new WindData();
+		});
+		pipeline = new IngestPipeline(ingestService, latency, overload, registry, 1, 64, 5, 1024, 64, 60_000,
+				1_800_000L);
+		pipeline.start();
+		SensorState state = new SensorState("qos1");
+
+		for (long sequence : new long[]{100, 102, 101, 101, 103, 100}) {
+			byte[] payload = WindPayloadDecoder.encodeJson(10.0, 90.0, 1718000000000L + sequence, sequence);
+			assertTrue(pipeline.submit(state, IngestPipeline.KIND_DATA, payload, 0));
+		}
+		pipeline.stop();
+
+		assertEquals(List.of(100L, 101L, 102L, 103L), ingested);
+		assertEquals(2.0, registry.get("wind.ingest.dedup.duplicates").counter().count());
+		assertEquals(1.0, registry.get("wind.ingest.reorder.buffered").counter().count());
+		assertEquals(0.0, registry.get("wind.ingest.reorder.pending").gauge().value());
+	}
+
+	@Test
+	void expiresGapsOfTheSensorsHoldingReadingsAmongManyIdleOnes() throws Exception {
+		List<String> ingested = new CopyOnWriteArrayList<>();
+		when(ingestService.ingest(any(), any())).thenAnswer(call -> {
+			SensorState state = call.getArgument(0);
+			WindReading reading = call.getArgument(1);
+			ingested.add(state.getSensorId() + ":" + reading.getSequence());
+			return new WindData();
+		});
+		pipeline = new IngestPipeline(ingestService, latency, overload, registry, 1, 1024, 100, 1024, 64, 50,
+				1_800_000L);
+		pipeline.start();
+		for (int i = 0; i < 200; i++) {
+			SensorState state = new SensorState("idle-" + i);
+			assertTrue(pipeline.submit(state, IngestPipeline.KIND_DATA,
+					WindPayloadDecoder.encodeJson(10.0, 90.0, 1718000000000L, 1), 0));
+		}
+		for (String sensorId : new String[]{"gap-a", "gap-b"}) {
+			SensorState state = new SensorState(sensorId);
+			for (long sequence : new long[]{1, 3}) {
+				assertTrue(pipeline.submit(state, IngestPipeline.KIND_DATA,
+						WindPayloadDecoder.encodeJson(10.0, 90.0, 1718000000000L + sequence, sequence), 0));
+			}
+		}
+
+		await(() -> ingested.size() == 204);
+		assertTrue(ingested.contains("gap-a:3"));
+		assertTrue(ingested.contains("gap-b:3"));
+		assertEquals(0, pipeline.getReorderPending());
+		assertEquals(2.0, registry.get("wind.ingest.reorder.gaps").counter().count());
+	}
+
+	@Test
+	void countsDecodeErrorsWithoutCallingIngest() throws Exception {
+		pipeline = new IngestPipeline(ingestService, latency, overload, registry, 1, 8, 5, 1024, 64, 1000, 1_800_000L);
+		pipeline.start();
+		SensorState state = new SensorState("bad");
+
+		pipeline.submit(state, IngestPipeline.KIND_DATA, "{oops".getBytes(StandardCharsets.US_ASCII), 0);
+		pipeline.submit(state, IngestPipeline.KIND_DIRECTION, "north".getBytes(StandardCharsets.US_ASCII), 0);
+		pipeline.stop();
+
+		assertEquals(2, state.getDecodeErrors());
+		assertEquals(2.0, registry.get("wind.mqtt.decode_errors").counter().count());
+	}
+
+	@Test
+	void keepsSequencesBeyondDoublePrecisionAndEvictsIdleSequencers() throws Exception {
+		List<Long> ingested = new CopyOnWriteArrayList<>();
+		when(ingestService.ingest(any(), any())).thenAnswer(call -> {
+			WindReading reading = call.getArgument(1);
+			ingested.add(reading.getSequence());
+			return new WindData();
+		});
+		pipeline = new IngestPipeline(ingestService, latency, overload, registry, 1, 64, 5, 1024, 64, 1000, 50);
+		pipeline.start();
+
+		// 2^53 + 1 and 2^53 + 2 are not representable as doubles
+		long base = 1L << 53;
+		SensorState state = new SensorState("big");
+		for (long sequence : new long[]{base, base + 1, base + 2, base + 1}) {
+			byte[] payload = WindPayloadDecoder.encodeJson(10.0, 90.0, 1718000000000L, sequence);
+			assertTrue(pipeline.submit(state, IngestPipeline.KIND_DATA, payload, 0));
+		}
+		for (int i = 0; i < 20; i++) {
+			pipeline.submit(new SensorState("idle-" + i), IngestPipeline.KIND_SPEED, scalar(i), 0);
+		}
+
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while ((ingested.size() < 23 || pipeline.getSequencerCount() > 0) && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(List.of(base, base + 1, base + 2), ingested.subList(0, 3));
+		assertEquals(1.0, registry.get("wind.ingest.dedup.duplicates").counter().count());
+		assertEquals(0, pipeline.getSequencerCount());
+	}
+}
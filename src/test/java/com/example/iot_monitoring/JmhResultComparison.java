@@ -0,0 +1,121 @@
+package com.example.iot_monitoring;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares a JMH JSON result with a pinned baseline and fails when a benchmark
+ * got slower by more than the threshold, beyond the error margins of both runs.
+ *
+ * Run by the {@code benchmark} profile after the suites. Pin a baseline by
+ * copying {@code target/jmh-result.json} to {@code benchmarks/jmh-baseline.json};
+ * without a baseline the comparison is skipped.
+ */
+public final class JmhResultComparison {
+
+	static final class Entry {
+		final String key;
+		final double baseline;
+		final double current;
+		final double changePercent;
+		final boolean regression;
+
+		Entry(String key, double baseline, double current, double changePercent, boolean regression) {
+			this.key = key;
+			this.baseline = baseline;
+			this.current = current;
+			this.changePercent = changePercent;
+			this.regression = regression;
+		}
+	}
+
+	private JmhResultComparison() {
+	}
+
+	public static void main(String[] args) throws IOException {
+		Path baselineFile = Paths.get(args[0]);
+		Path resultFile = Paths.get(args[1]);
+		double thresholdPercent = Double.parseDouble(args[2]);
+		if (!Files.exists(baselineFile) || !Files.exists(resultFile)) {
+			System.out.println("No JMH baseline at " + baselineFile + ", comparison skipped");
+			return;
+		}
+
+		ObjectMapper mapper = new ObjectMapper();
+		List<Entry> entries = compare(mapper.readTree(baselineFile.toFile()), mapper.readTree(resultFile.toFile()),
+				thresholdPercent);
+		int regressions = 0;
+		for (Entry entry : entries) {
+			System.out.printf("%-90s %14.3f %14.3f %+8.1f%%%s%n", entry.key, entry.baseline, entry.current,
+					entry.changePercent, entry.regression ? "  REGRESSION" : "");
+			if (entry.regression) {
+				regressions++;
+			}
+		}
+		if (regressions > 0) {
+			System.out.println(regressions + " benchmark(s) regressed by more than " + thresholdPercent + "%");
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Matches benchmarks by name, mode and parameters. Change is positive when the
+	 * benchmark got worse: slower for time modes, fewer ops for throughput.
+	 */
+	static List<Entry> compare(JsonNode baseline, JsonNode current, double thresholdPercent) {
+		Map<String, JsonNode> previous = new HashMap<>();
+		for (JsonNode run : baseline) {
+			previous.put(keyOf(run), run);
+		}
+		List<Entry> entries = new ArrayList<>();
+		for (JsonNode run : current) {
+			String key = keyOf(run);
+			JsonNode before = previous.get(key);
+			if (before == null) {
+				continue;
+			}
+			double oldScore = score(before);
+			double newScore = score(run);
+			if (oldScore == 0) {
+				continue;
+			}
+			boolean higherIsBetter = "thrpt".equals(run.path("mode").asText());
+			double worse = higherIsBetter ? oldScore - newScore : newScore - oldScore;
+			double change = worse / oldScore * 100.0;
+			double noise = error(before) + error(run);
+			entries.add(new Entry(key, oldScore, newScore, change, change > thresholdPercent && worse > noise));
+		}
+		return entries;
+	}
+
+	private static String keyOf(JsonNode run) {
+		StringBuilder key = new StringBuilder(run.path("benchmark").asText())
+				.append(" [").append(run.path("mode").asText()).append(']');
+		JsonNode params = run.path("params");
+		Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+		while (fields.hasNext()) {
+			Map.Entry<String, JsonNode> param = fields.next();
+			key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+		}
+		return key.toString();
+	}
+
+	private static double score(JsonNode run) {
+		return run.path("primaryMetric").path("score").asDouble();
+	}
+
+	private static double error(JsonNode run) {
+		double error = run.path("primaryMetric").path("scoreError").asDouble();
+		return Double.isNaN(error) ? 0.0 : error;
+	}
+}
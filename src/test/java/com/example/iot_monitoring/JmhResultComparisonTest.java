@@ -0,0 +1,51 @@
+package com.example.iot_monitoring;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JmhResultComparisonTest {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	private JsonNode results(String... runs) throws Exception {
+		return mapper.readTree("[" + String.join(",", runs) + "]");
+	}
+
+	private static String run(String benchmark, String mode, double score, double error) {
+		return "{\"benchmark\":\"" + benchmark + "\",\"mode\":\"" + mode + "\",\"params\":{\"sensors\":\"1000\"},"
+				+ "\"primaryMetric\":{\"score\":" + score + ",\"scoreError\":" + error + "}}";
+	}
+
+	@Test
+	void flagsSlowdownsBeyondThresholdAndNoise() throws Exception {
+		JsonNode baseline = results(run("a", "avgt", 100, 1), run("b", "avgt", 100, 20), run("c", "thrpt", 1000, 1));
+		JsonNode current = results(run("a", "avgt", 120, 1), run("b", "avgt", 120, 20), run("c", "thrpt", 800, 1));
+
+		List<JmhResultComparison.Entry> entries = JmhResultComparison.compare(baseline, current, 10);
+
+		assertEquals(3, entries.size());
+		assertTrue(entries.get(0).regression);
+		assertEquals(20.0, entries.get(0).changePercent, 1e-9);
+		// 20% slower but within the combined error of both runs
+		assertFalse(entries.get(1).regression);
+		// Throughput went down
+		assertTrue(entries.get(2).regression);
+	}
+
+	@Test
+	void ignoresImprovementsAndNewBenchmarks() throws Exception {
+		JsonNode baseline = results(run("a", "avgt", 100, 1));
+		JsonNode current = results(run("a", "avgt", 50, 1), run("new", "avgt", 10, 1));
+
+		List<JmhResultComparison.Entry> entries = JmhResultComparison.compare(baseline, current, 10);
+
+		assertEquals(1, entries.size());
+		assertFalse(entries.get(0).regression);
+		assertEquals(-50.0, entries.get(0).changePercent, 1e-9);
+	}
+}
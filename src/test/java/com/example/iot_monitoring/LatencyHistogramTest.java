@@ -0,0 +1,33 @@
+package com.example.iot_monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+	@Test
+	void percentilesAreWithinBucketPrecision() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (long i = 1; i <= 100_000; i++) {
+			histogram.record(i * 1000);
+		}
+
+		assertEquals(100_000, histogram.getCount());
+		assertEquals(50_000_000, histogram.getValueAtPercentile(50), 50_000_000 * 0.04);
+		assertEquals(99_000_000, histogram.getValueAtPercentile(99), 99_000_000 * 0.04);
+		assertEquals(100_000_000, histogram.getMax());
+		assertEquals(100_000_000, histogram.getValueAtPercentile(100));
+	}
+
+	@Test
+	void bucketBoundsCoverEveryValue() {
+		for (long value : new long[]{0, 1, 63, 64, 65, 127, 128, 1_000_003, Long.MAX_VALUE / 2}) {
+			int index = LatencyHistogram.indexOf(value);
+			assertTrue(LatencyHistogram.upperBoundOf(index) >= value, "value " + value);
+			if (index > 0) {
+				assertTrue(LatencyHistogram.upperBoundOf(index - 1) < value, "value " + value);
+			}
+		}
+	}
+}
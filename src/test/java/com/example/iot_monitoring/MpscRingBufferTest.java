@@ -0,0 +1,99 @@
+package com.example.iot_monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MpscRingBufferTest {
+
+	private static final class Box {
+		long value;
+	}
+
+	@Test
+	void roundsCapacityUpAndRejectsWhenFull() {
+		MpscRingBuffer<Box> ring = new MpscRingBuffer<>(3, Box::new);
+		assertEquals(4, ring.capacity());
+
+		for (int i = 0; i < 4; i++) {
+			long sequence = ring.claim();
+			ring.slot(sequence).value = i;
+			ring.publish(sequence);
+		}
+		assertEquals(-1, ring.claim());
+		assertEquals(4, ring.size());
+
+		assertEquals(0, ring.peek().value);
+		ring.release();
+		long sequence = ring.claim();
+		assertEquals(4, sequence);
+	}
+
+	@Test
+	void consumerSeesClaimedSlotsOnlyOncePublished() {
+		MpscRingBuffer<Box> ring = new MpscRingBuffer<>(8, Box::new);
+		long first = ring.claim();
+		long second = ring.claim();
+		ring.slot(second).value = 2;
+		ring.publish(second);
+
+		assertNull(ring.peek());
+		ring.slot(first).value = 1;
+		ring.publish(first);
+		assertEquals(1, ring.peek().value);
+		ring.release();
+		assertEquals(2, ring.peek().value);
+	}
+
+	@Test
+	void deliversEveryMessageFromConcurrentProducersInPerProducerOrder() throws Exception {
+		int producers = 4;
+		int perProducer = 50_000;
+		MpscRingBuffer<Box> ring = new MpscRingBuffer<>(256, Box::new);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<>();
+		for (int p = 0; p < producers; p++) {
+			long producer = p;
+			Thread thread = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				for (long i = 0; i < perProducer; i++) {
+					long sequence;
+					while ((sequence = ring.claim()) < 0) {
+						Thread.onSpinWait();
+					}
+					ring.slot(sequence).value = producer << 32 | i;
+					ring.publish(sequence);
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		start.countDown();
+
+		long[] next = new long[producers];
+		int received = 0;
+		while (received < producers * perProducer) {
+			Box box = ring.peek();
+			if (box == null) {
+				Thread.onSpinWait();
+				continue;
+			}
+			int producer = (int) (box.value >>> 32);
+			assertEquals(next[producer]++, box.value & 0xFFFFFFFFL);
+			ring.release();
+			received++;
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertTrue(ring.isEmpty());
+	}
+}
@@ -0,0 +1,180 @@
+package com.example.iot_monitoring;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.moquette.broker.Server;
+import io.moquette.broker.config.IConfig;
+import io.moquette.broker.config.MemoryConfig;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.iot_monitoring.TestSupport.await;
+import static com.example.iot_monitoring.TestSupport.freePort;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MqttConnectionManagerTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final int port = freePort();
+	private Server broker;
+	private MqttConnectionManager manager;
+
+	@AfterEach
+	void tearDown() {
+		if (manager != null) {
+			manager.close();
+		}
+		if (broker != null) {
+			broker.stopServer();
+		}
+	}
+
+	private void startBroker() throws IOException {
+		Properties properties = new Properties();
+		properties.setProperty(IConfig.HOST_PROPERTY_NAME, "127.0.0.1");
+		properties.setProperty(IConfig.PORT_PROPERTY_NAME, String.valueOf(port));
+		properties.setProperty(IConfig.ALLOW_ANONYMOUS_PROPERTY_NAME, "true");
+		properties.setProperty(IConfig.PERSISTENCE_ENABLED_PROPERTY_NAME, "false");
+		properties.setProperty(IConfig.ENABLE_TELEMETRY_NAME, "false");
+		broker = new Server();
+		broker.startServer(new MemoryConfig(properties));
+	}
+
+	private MqttConnectionManager manager(int poolSize) {
+		MqttConnectOptions options = new MqttConnectOptions();
+		options.setConnectionTimeout(2);
+		options.setKeepAliveInterval(30);
+		return new MqttConnectionManager(options, registry, "tcp://127.0.0.1:" + port, "test-" + port,
+				poolSize, 50, 200, false, "");
+	}
+
+	private double gauge(String name, String shard) {
+		return registry.get(name).tag("shard", shard).gauge().value();
+	}
+
+	@Test
+	void shardsTopicFiltersAcrossClientsAndDeliversMessages() throws Exception {
+		startBroker();
+		manager = manager(2);
+		Map<String, String> received = new ConcurrentHashMap<>();
+		Map<String, String> threads = new ConcurrentHashMap<>();
+		CountDownLatch latch = new CountDownLatch(2);
+		manager.subscribe(new String[]{"wind/+/data", "wind/+/speed"}, 1, (topic, message) -> {
+			received.put(topic, new String(message.getPayload(), StandardCharsets.UTF_8));
+			threads.put(topic, Thread.currentThread().getName());
+			latch.countDown();
+		});
+		manager.start();
+
+		await(() -> gauge("wind.mqtt.subscriptions", "0") == 1 && gauge("wind.mqtt.subscriptions", "1") == 1);
+		assertEquals(2, manager.getConnectedCount());
+		assertEquals(2.0, registry.get("wind.mqtt.connections").gauge().value());
+
+		assertTrue(manager.publish("wind/s1/data", "{}".getBytes(StandardCharsets.UTF_8), 1, false));
+		assertTrue(manager.publish("wind/s1/speed", "12.5".getBytes(StandardCharsets.UTF_8), 1, false));
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+		assertEquals("{}", received.get("wind/s1/data"));
+		assertEquals("12.5", received.get("wind/s1/speed"));
+		// One filter per client: the two topics arrive on different callback threads
+		assertNotEquals(threads.get("wind/s1/data"), threads.get("wind/s1/speed"));
+	}
+
+	@Test
+	void startDoesNotBlockWhileBrokerIsDownAndConnectsOnceItIsUp() throws Exception {
+		manager = manager(1);
+		CountDownLatch latch = new CountDownLatch(1);
+		manager.subscribe(new String[]{"wind/+/data"}, 1, (topic, message) -> latch.countDown());
+
+		long started = System.nanoTime();
+		manager.start();
+		assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(1));
+		assertFalse(manager.isConnected());
+		assertFalse(manager.publish("wind/s1/data", new byte[0], 0, false));
+		await(() -> registry.get("wind.mqtt.connect_failures").counter().count() >= 2);
+
+		startBroker();
+
+		await(() -> gauge("wind.mqtt.subscriptions", "0") == 1);
+		assertEquals(1.0, gauge("wind.mqtt.connected", "0"));
+		assertEquals(1.0, registry.get("wind.mqtt.reconnects").counter().count());
+		assertTrue(manager.publish("wind/s1/data", "{}".getBytes(StandardCharsets.UTF_8), 1, false));
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void reconnectsAndResubscribesAfterBrokerRestart() throws Exception {
+		startBroker();
+		manager = manager(1);
+		CountDownLatch latch = new CountDownLatch(1);
+		manager.subscribe(new String[]{"wind/+/data"}, 1, (topic, message) -> latch.countDown());
+		manager.start();
+		await(() -> gauge("wind.mqtt.subscriptions", "0") == 1);
+
+		broker.stopServer();
+		await(() -> !manager.isConnected());
+		assertEquals(0.0, gauge("wind.mqtt.subscriptions", "0"));
+		startBroker();
+
+		await(() -> gauge("wind.mqtt.subscriptions", "0") == 1);
+		assertEquals(1.0, registry.get("wind.mqtt.connection_lost").counter().count());
+		assertTrue(manager.publish("wind/s1/data", "{}".getBytes(StandardCharsets.UTF_8), 1, false));
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void lifecycleStopDisconnectsAndStartReconnects() throws Exception {
+		startBroker();
+		manager = manager(1);
+		MqttHealthIndicator health = new MqttHealthIndicator(manager);
+		assertEquals(Status.DOWN, health.health().getStatus());
+		CountDownLatch latch = new CountDownLatch(1);
+		manager.subscribe(new String[]{"wind/+/data"}, 1, (topic, message) -> latch.countDown());
+		manager.start();
+		await(() -> gauge("wind.mqtt.subscriptions", "0") == 1);
+		assertEquals(Status.UP, health.health().getStatus());
+
+		manager.stop();
+		assertFalse(manager.isRunning());
+		assertFalse(manager.isConnected());
+		assertEquals(0.0, gauge("wind.mqtt.subscriptions", "0"));
+		assertEquals(Status.DOWN, health.health().getStatus());
+
+		manager.start();
+		await(() -> gauge("wind.mqtt.subscriptions", "0") == 1);
+		assertEquals(0.0, registry.get("wind.mqtt.connection_lost").counter().count());
+		assertTrue(manager.publish("wind/s1/data", "{}".getBytes(StandardCharsets.UTF_8), 1, false));
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void backoffGrowsWithJitterUpToTheCap() {
+		manager = manager(1);
+		for (int i = 0; i < 100; i++) {
+			long first = manager.backoffMillis(0);
+			assertTrue(first >= 25 && first <= 50, "attempt 0: " + first);
+			long second = manager.backoffMillis(1);
+			assertTrue(second >= 50 && second <= 100, "attempt 1: " + second);
+			long capped = manager.backoffMillis(40);
+			assertTrue(capped >= 100 && capped <= 200, "attempt 40: " + capped);
+		}
+	}
+
+	@Test
+	void clusterNodesGetClientIdsOfTheirOwn() {
+		assertEquals("wind", MqttConnectionManager.clientIdFor("wind", false, "a"));
+		assertEquals("wind-a", MqttConnectionManager.clientIdFor("wind", true, " a "));
+		String first = MqttConnectionManager.clientIdFor("wind", true, "");
+		assertTrue(first.startsWith("wind-") && first.length() > "wind-".length());
+		assertNotEquals(first, MqttConnectionManager.clientIdFor("wind", true, ""));
+	}
+}
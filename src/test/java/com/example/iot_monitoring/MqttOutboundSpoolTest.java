@@ -0,0 +1,93 @@
+package com.example.iot_monitoring;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.iot_monitoring.TestSupport.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class MqttOutboundSpoolTest {
+
+	@TempDir
+	Path directory;
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final MqttConnectionManager manager = mock(MqttConnectionManager.class);
+	private MqttOutboundSpool spool;
+
+	@AfterEach
+	void tearDown() {
+		if (spool != null) {
+			spool.stop();
+		}
+	}
+
+	private static byte[] payload(int i) {
+		return ("{\"n\":" + i + "}").getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Test
+	void spoolsWhileDisconnectedAndDrainsInOrderAtTheConfiguredRate() throws Exception {
+		spool = new MqttOutboundSpool(manager, registry, directory.toString(), 1, 4, 30);
+		spool.start();
+		when(manager.publish(anyString(), any(), anyInt(), anyBoolean())).thenReturn(false);
+
+		for (int i = 0; i < 7; i++) {
+			assertFalse(spool.publish("wind/s1/data", payload(i), 1, true));
+		}
+		assertEquals(7, spool.getPending());
+		Thread.sleep(250);
+		assertEquals(7, spool.getPending());
+
+		// Reconnected: 30 msg/s over 100 ms ticks = 3 per drain
+		clearInvocations(manager);
+		when(manager.publish(anyString(), any(), anyInt(), anyBoolean())).thenReturn(true);
+		// While the backlog is there, new messages queue behind it
+		assertFalse(spool.publish("wind/s1/data", payload(7), 1, true));
+		long reconnected = System.nanoTime();
+		when(manager.isConnected()).thenReturn(true);
+
+		await(() -> spool.getPending() == 0);
+		assertTrue(System.nanoTime() - reconnected >= TimeUnit.MILLISECONDS.toNanos(200));
+		ArgumentCaptor<byte[]> sent = ArgumentCaptor.forClass(byte[].class);
+		verify(manager, times(8)).publish(eq("wind/s1/data"), sent.capture(), eq(1), eq(true));
+		for (int i = 0; i < 8; i++) {
+			assertArrayEquals(payload(i), sent.getAllValues().get(i));
+		}
+		assertEquals(8.0, registry.get("wind.spool.replayed").counter().count());
+
+		assertTrue(spool.publish("wind/s1/data", payload(8), 1, true));
+	}
+
+	@Test
+	void refusedPublishStopsTheDrainWithoutLosingMessages() throws Exception {
+		spool = new MqttOutboundSpool(manager, registry, directory.toString(), 1, 4, 1000);
+		spool.start();
+		for (int i = 0; i < 3; i++) {
+			spool.publish("wind/s1/alerts", payload(i), 1, false);
+		}
+
+		// First replayed message accepted, then the broker refuses everything
+		when(manager.publish(anyString(), any(), anyInt(), anyBoolean())).thenReturn(true, false);
+		when(manager.isConnected()).thenReturn(true);
+
+		await(() -> spool.getPending() == 2);
+		Thread.sleep(250);
+		assertEquals(2, spool.getPending());
+		assertEquals(1.0, registry.get("wind.spool.replayed").counter().count());
+	}
+}
@@ -0,0 +1,130 @@
+package com.example.iot_monitoring;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OverloadControllerTest {
+
+	private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private OverloadController controller(boolean enabled, long targetMs, long criticalMs, long cooldownMs) {
+		return new OverloadController(registry, enabled, targetMs, criticalMs, 0.5, 0.8, cooldownMs,
+				"elevated", "critical");
+	}
+
+	@Test
+	void levelRisesAtOnceAndFallsOneStepAfterCooldown() {
+		OverloadController overload = controller(true, 50, 200, 1000);
+		assertTrue(overload.admit(OverloadController.Lane.PUSH));
+
+		overload.update(0.9, 0, 0);
+		assertEquals(OverloadController.Level.CRITICAL, overload.getLevel());
+		assertFalse(overload.admit(OverloadController.Lane.PUSH));
+		assertFalse(overload.admit(OverloadController.Lane.INGEST));
+
+		// Still above half the critical thresholds: no cooldown starts
+		overload.update(0.5, 0, 10 * MS);
+		overload.update(0.5, 0, 5000 * MS);
+		assertEquals(OverloadController.Level.CRITICAL, overload.getLevel());
+
+		overload.update(0.3, 60 * MS, 6000 * MS);
+		overload.update(0.3, 60 * MS, 6999 * MS);
+		assertEquals(OverloadController.Level.CRITICAL, overload.getLevel());
+		overload.update(0.3, 60 * MS, 7000 * MS);
+		assertEquals(OverloadController.Level.ELEVATED, overload.getLevel());
+		assertFalse(overload.admit(OverloadController.Lane.PUSH));
+		assertTrue(overload.admit(OverloadController.Lane.INGEST));
+
+		overload.update(0.1, 10 * MS, 7100 * MS);
+		overload.update(0.1, 10 * MS, 8100 * MS);
+		assertEquals(OverloadController.Level.NORMAL, overload.getLevel());
+		assertTrue(overload.admit(OverloadController.Lane.PUSH));
+
+		assertEquals(2, overload.getShed(OverloadController.Lane.PUSH));
+		assertEquals(1.0, registry.get("wind.overload.shed").tag("lane", "ingest").counter().count());
+		assertEquals(0.0, registry.get("wind.overload.level").gauge().value());
+
+		assertNull(OverloadController.parseLevel("push", "never"));
+		assertThrows(IllegalArgumentException.class, () -> OverloadController.parseLevel("push", "normal"));
+	}
+
+	/**
+	 * Offers twice what the pipeline can ingest while every reading also pays for
+	 * a per-reading push. Without the controller the queue fills up and latency
+	 * climbs towards the queue capacity; with it the pushes are shed and p99 stays
+	 * near the target latency.
+	 */
+	@Test
+	void p99HoldsAtTwiceCapacityWhenPushesAreShed() throws Exception {
+		long uncontrolled = p99AtTwiceCapacity(controller(false, 20, 80, 500));
+		OverloadController overload = controller(true, 20, 80, 500);
+		long controlled = p99AtTwiceCapacity(overload);
+
+		assertTrue(overload.getShed(OverloadController.Lane.PUSH) > 0);
+		assertTrue(controlled < TimeUnit.MILLISECONDS.toNanos(250), "controlled p99 " + controlled / MS + " ms");
+		assertTrue(controlled * 4 < uncontrolled,
+				"controlled p99 " + controlled / MS + " ms, uncontrolled " + uncontrolled / MS + " ms");
+	}
+
+	private long p99AtTwiceCapacity(OverloadController overload) throws Exception {
+		long pushNanos = TimeUnit.MICROSECONDS.toNanos(200);
+		long baseNanos = TimeUnit.MICROSECONDS.toNanos(20);
+		WindIngestService ingestService = mock(WindIngestService.class);
+		when(ingestService.ingest(any(), any())).thenAnswer(call -> {
+			spin(overload.admit(OverloadController.Lane.PUSH) ? baseNanos + pushNanos : baseNanos);
+			SensorState state = call.getArgument(0);
+			WindReading reading = call.getArgument(1);
+			return reading.toWindData(state.getSensorId(), 1L);
+		});
+		IngestPipeline pipeline = new IngestPipeline(ingestService, new WindLatencyMetrics(registry, new double[0]),
+				overload, registry, 1, 4096, 1, 1024, 64, 1000, 1_800_000L);
+		IngestPipeline.StageTimes times = new IngestPipeline.StageTimes();
+		pipeline.setStageTimes(times);
+		pipeline.start();
+		Thread sampler = Thread.ofPlatform().daemon(true).start(() -> {
+			while (!Thread.currentThread().isInterrupted()) {
+				overload.sample();
+				LockSupport.parkNanos(20 * MS);
+			}
+		});
+		try {
+			// Capacity is about 1 / 220 us = 4500 readings/s; offer 9000/s for 2 s
+			SensorState[] states = new SensorState[8];
+			for (int s = 0; s < states.length; s++) {
+				states[s] = new SensorState("sensor-" + s);
+			}
+			byte[] payload = "12.5".getBytes(StandardCharsets.US_ASCII);
+			long start = System.nanoTime();
+			long sent = 0;
+			while (System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2)) {
+				long due = (System.nanoTime() - start) * 9 / 1_000_000;
+				for (; sent < due; sent++) {
+					pipeline.submit(states[(int) (sent % states.length)], IngestPipeline.KIND_SPEED, payload, 0);
+				}
+				LockSupport.parkNanos(MS);
+			}
+		} finally {
+			sampler.interrupt();
+			pipeline.stop();
+		}
+		return times.total.getValueAtPercentile(99);
+	}
+
+	private static void spin(long nanos) {
+		long end = System.nanoTime() + nanos;
+		while (System.nanoTime() - end < 0) {
+			Thread.onSpinWait();
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package com.example.iot_monitoring;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SampleFilterTest {
+
+	@Test
+	void deadbandPassesOnlyMovesFromTheLastSentValue() {
+		SampleFilter filter = new SampleFilter(new SampleFilter.Settings(1.0, 10.0, 0, 0, false));
+		assertTrue(filter.accept(0, 10.0, 350.0));
+		assertFalse(filter.accept(1000, 10.6, 355.0));
+		// Drift accumulates against the last value sent, not the last seen
+		assertTrue(filter.accept(2000, 11.2, 355.0));
+		assertFalse(filter.accept(3000, 11.2, 5.0));
+		assertTrue(filter.accept(4000, 11.2, 6.0));
+		assertEquals(2.0, SampleFilter.angularDistance(359.0, 1.0), 1e-9);
+	}
+
+	@Test
+	void decimatesAndSendsHeartbeats() {
+		SampleFilter filter = new SampleFilter(new SampleFilter.Settings(0.5, 0, 5000, 30_000, false));
+		assertTrue(filter.accept(0, 10.0, 0.0));
+		assertFalse(filter.accept(1000, 20.0, 0.0));
+		assertTrue(filter.accept(5000, 20.0, 0.0));
+		assertFalse(filter.accept(20_000, 20.0, 0.0));
+		assertTrue(filter.accept(35_000, 20.0, 0.0));
+	}
+
+	@Test
+	void adaptiveIntervalBacksOffWhileQuietAndResetsOnChange() {
+		SampleFilter filter = new SampleFilter(new SampleFilter.Settings(0.5, 0, 1000, 8000, true));
+		assertTrue(filter.accept(0, 10.0, 0.0));
+		assertFalse(filter.accept(1000, 10.0, 0.0));
+		assertEquals(2000, filter.getInterval());
+		assertFalse(filter.accept(2000, 10.0, 0.0));
+		assertFalse(filter.accept(4000, 10.0, 0.0));
+		assertEquals(8000, filter.getInterval());
+		// A move inside the stretched interval waits for it
+		assertFalse(filter.accept(5000, 15.0, 0.0));
+		assertTrue(filter.accept(8000, 15.0, 0.0));
+		assertEquals(1000, filter.getInterval());
+		assertTrue(filter.accept(9000, 16.0, 0.0));
+		assertThrows(IllegalArgumentException.class, () -> new SampleFilter.Settings(0, 0, 0, 0, true));
+	}
+
+	@Test
+	void sinksUseTheirOwnSettingsWithPerSensorOverrides() {
+		MockEnvironment environment = new MockEnvironment()
+				.withProperty("wind.filter.persistence.deadband-speed", "1.0")
+				.withProperty("wind.filter.persistence.sensors.gusty.deadband-speed", "5.0");
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		WindSampleFilters filters = new WindSampleFilters(environment, registry);
+
+		for (String sensor : new String[]{"calm", "gusty"}) {
+			assertTrue(filters.accept(WindSampleFilters.Sink.PERSISTENCE, new WindData(sensor, 10.0, 0.0, 0)));
+			assertTrue(filters.accept(WindSampleFilters.Sink.WEBSOCKET, new WindData(sensor, 10.0, 0.0, 0)));
+		}
+		assertTrue(filters.accept(WindSampleFilters.Sink.PERSISTENCE, new WindData("calm", 12.0, 0.0, 1000)));
+		assertFalse(filters.accept(WindSampleFilters.Sink.PERSISTENCE, new WindData("gusty", 12.0, 0.0, 1000)));
+		assertTrue(filters.accept(WindSampleFilters.Sink.WEBSOCKET, new WindData("gusty", 10.0, 0.0, 1000)));
+		assertEquals(1.0, registry.get("wind.filter.suppressed").tag("sink", "persistence").counter().count());
+		assertEquals(0.0, registry.get("wind.filter.suppressed").tag("sink", "websocket").counter().count());
+	}
+
+	@Test
+	void invalidOverridesFailAtStartup() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		MockEnvironment notANumber = new MockEnvironment()
+				.withProperty("wind.filter.mqtt.sensors.s1.deadband-speed", "fast");
+		assertThrows(IllegalArgumentException.class, () -> new WindSampleFilters(notANumber, registry));
+
+		MockEnvironment inconsistent = new MockEnvironment()
+				.withProperty("wind.filter.websocket.sensors.s1.min-interval-ms", "5000")
+				.withProperty("wind.filter.websocket.sensors.s1.max-interval-ms", "1000");
+		assertThrows(IllegalArgumentException.class, () -> new WindSampleFilters(inconsistent, registry));
+
+		MockEnvironment typo = new MockEnvironment()
+				.withProperty("wind.filter.persistence.sensors.s1.deadband-sped", "1");
+		assertThrows(IllegalArgumentException.class, () -> new WindSampleFilters(typo, registry));
+	}
+}
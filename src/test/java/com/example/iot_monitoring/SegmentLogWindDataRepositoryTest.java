@@ -0,0 +1,143 @@
+package com.example.iot_monitoring;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentLogWindDataRepositoryTest {
+
+	@TempDir
+	Path directory;
+
+	private SegmentLogWindDataRepository open(int segmentSizeMb) throws Exception {
+		SegmentLogWindDataRepository repository =
+				new SegmentLogWindDataRepository(directory.toString(), segmentSizeMb, 0, 1, 0);
+		repository.open();
+		return repository;
+	}
+
+	private static List<WindData> readings(String sensorId, int from, int to) {
+		List<WindData> batch = new ArrayList<>();
+		for (int i = from; i < to; i++) {
+			batch.add(new WindData(sensorId, i * 0.5, i % 360, 1_000_000L + i));
+		}
+		return batch;
+	}
+
+	@Test
+	void rollsSegmentsAndScansRanges() throws Exception {
+		SegmentLogWindDataRepository repository = open(1);
+		repository.write(readings("a", 0, 40_000)).join();
+		repository.write(readings("b", 0, 40_000)).join();
+
+		assertEquals(3, repository.getSegmentCount());
+		List<WindData> range = repository.findRange("b", 1_010_000L, 1_010_009L).join();
+		assertEquals(10, range.size());
+		assertEquals("b", range.get(0).getSensorId());
+		assertEquals(5000.0, range.get(0).getSpeed());
+		assertTrue(repository.findRange("unknown", 0, Long.MAX_VALUE).join().isEmpty());
+		repository.close();
+	}
+
+	@Test
+	void recoversAfterRestartAndDiscardsTornRecord() throws Exception {
+		SegmentLogWindDataRepository repository = open(1);
+		repository.write(readings("a", 0, 100)).join();
+		repository.close();
+
+		// Simulate a crash halfway through the 101st record
+		Path segment = directory.resolve(String.format("%020d.log", 1));
+		try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+			file.seek(100L * WindLogSegment.RECORD_SIZE);
+			file.writeLong(1_000_100L);
+			file.writeLong(Double.doubleToRawLongBits(12.0));
+		}
+
+		repository = open(1);
+		assertEquals(100, repository.findRange("a", 0, Long.MAX_VALUE).join().size());
+
+		repository.write(readings("a", 100, 110)).join();
+		List<WindData> all = repository.findRange("a", 0, Long.MAX_VALUE).join();
+		assertEquals(110, all.size());
+		assertEquals(1_000_109L, all.get(109).getTimestamp());
+		repository.close();
+	}
+
+	@Test
+	void archivesClosedRangesAndQueriesAcrossTheWatermark() throws Exception {
+		SegmentLogWindDataRepository repository = open(1);
+		// 1_000_000 .. 1_179_999: ranges [960_000, 1_020_000), [1_020_000, 1_080_000), ...
+		repository.write(readings("a", 0, 180_000)).join();
+		repository.write(readings("b", 0, 1000)).join();
+
+		assertEquals(3, repository.archive(1_140_000L));
+		assertEquals(3, repository.getArchiveCount());
+		assertEquals(0, repository.archive(1_140_000L));
+
+		List<WindData> all = repository.findRange("a", 0, Long.MAX_VALUE).join();
+		assertEquals(180_000, all.size());
+		for (int i = 0; i < all.size(); i++) {
+			assertEquals(1_000_000L + i, all.get(i).getTimestamp());
+			assertEquals(i * 0.5, all.get(i).getSpeed());
+			assertEquals(i % 360, all.get(i).getDirection());
+		}
+		List<WindData> straddling = repository.findRange("b", 1_019_990L, 1_020_009L).join();
+		assertEquals(0, straddling.size());
+		assertEquals(1000, repository.findRange("b", 0, 1_019_999L).join().size());
+		assertEquals(20, repository.findRange("a", 1_079_990L, 1_080_009L).join().size());
+		repository.close();
+
+		// The watermark is recovered from the archive files
+		repository = open(1);
+		assertEquals(3, repository.getArchiveCount());
+		assertEquals(180_000, repository.findRange("a", 0, Long.MAX_VALUE).join().size());
+		repository.close();
+	}
+
+	@Test
+	void deletesArchivedSegmentsAndNeverCapsUnarchivedOnes() throws Exception {
+		SegmentLogWindDataRepository repository =
+				new SegmentLogWindDataRepository(directory.toString(), 1, 3, 1, 0);
+		repository.open();
+		// 32768 records per segment: six segments, none archived yet, so the cap of three deletes nothing
+		repository.write(readings("a", 0, 180_000)).join();
+		assertEquals(6, repository.getSegmentCount());
+
+		// Everything below 1_140_000 is archived: the four segments ending before it go
+		assertEquals(3, repository.archive(1_140_000L));
+		assertEquals(2, repository.getSegmentCount());
+		assertEquals(2, segmentFiles());
+
+		List<WindData> all = repository.findRange("a", 0, Long.MAX_VALUE).join();
+		assertEquals(180_000, all.size());
+		for (int i = 0; i < all.size(); i++) {
+			assertEquals(1_000_000L + i, all.get(i).getTimestamp());
+		}
+		assertEquals(10, repository.findRange("a", 1_000_100L, 1_000_109L).join().size());
+		repository.close();
+
+		repository = open(1);
+		assertEquals(2, repository.getSegmentCount());
+		assertEquals(180_000, repository.findRange("a", 0, Long.MAX_VALUE).join().size());
+		repository.close();
+	}
+
+	private long segmentFiles() throws Exception {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(file -> file.getFileName().toString().endsWith(".log")).count();
+		}
+	}
+
+	@Test
+	void emptyRecordIsNeverValid() {
+		assertNotEquals(0, WindLogSegment.checksum(0, 0, 0, 0));
+	}
+}
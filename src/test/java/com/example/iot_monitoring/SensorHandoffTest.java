@@ -0,0 +1,71 @@
+package com.example.iot_monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SensorHandoffTest {
+
+	@Test
+	void roundTripsStateAndHistory() throws IOException {
+		WindHistoryBuffer previousOwner = new WindHistoryBuffer("s1", 1000, 3_600_000L, 60, 60_000L);
+		for (int i = 0; i < 500; i++) {
+			previousOwner.append(1_000_000L + i * 1000L, 10 + i % 7 * 0.5, i % 360);
+		}
+		WindData latest = new WindData("s1", 13.0, 139.0, 1_499_000L);
+		SensorHandoff handoff = new SensorHandoff("s1", 500, latest, previousOwner.range(0, Long.MAX_VALUE));
+
+		byte[] encoded = handoff.encode();
+		// Regular samples compress well below the 24 bytes they take in memory
+		assertTrue(encoded.length < 500 * 8, "encoded to " + encoded.length + " bytes");
+		SensorHandoff decoded = SensorHandoff.decode(encoded);
+		assertEquals("s1", decoded.getSensorId());
+		assertEquals(500, decoded.getMessageCount());
+		assertEquals(1_499_000L, decoded.getLatest().getTimestamp());
+		assertEquals(13.0, decoded.getLatest().getSpeed());
+		assertEquals(500, decoded.getHistory().getSize());
+		assertEquals(1_000_000L, decoded.getHistory().getTimestamps()[0]);
+		assertEquals(10.0 + 6 * 0.5, decoded.getHistory().getSpeeds()[6]);
+
+		assertThrows(IOException.class, () -> SensorHandoff.decode(new byte[]{9}));
+	}
+
+	@Test
+	void handedOverHistoryIsMergedWithLocalSamples() throws IOException {
+		WindHistoryBuffer previousOwner = new WindHistoryBuffer("s1", 1000, 3_600_000L, 60, 60_000L);
+		for (int i = 0; i < 100; i++) {
+			previousOwner.append(60_000L + i * 1000L, 10.0, 0);
+		}
+		SensorHandoff handoff = SensorHandoff.decode(
+				new SensorHandoff("s1", 100, null, previousOwner.range(0, Long.MAX_VALUE)).encode());
+
+		// The new owner already ingested a few readings, one of them overlapping the handed over range
+		WindHistoryBuffer newOwner = new WindHistoryBuffer("s1", 1000, 3_600_000L, 60, 60_000L);
+		newOwner.append(90_500L, 20.0, 0);
+		newOwner.append(159_000L, 30.0, 0);
+		newOwner.append(160_000L, 30.0, 0);
+		newOwner.prepend(handoff.getHistory());
+
+		// Merged by timestamp: the handed over samples after 90.5 s are kept too
+		WindSeries merged = newOwner.range(0, Long.MAX_VALUE);
+		assertEquals(102, merged.getSize());
+		assertEquals(60_000L, merged.getTimestamps()[0]);
+		assertEquals(90_000L, merged.getTimestamps()[30]);
+		assertEquals(90_500L, merged.getTimestamps()[31]);
+		assertEquals(20.0, merged.getSpeeds()[31]);
+		assertEquals(91_000L, merged.getTimestamps()[32]);
+		assertEquals(30.0, merged.getSpeeds()[100]);
+		assertEquals(160_000L, merged.getTimestamps()[101]);
+		assertEquals(61, newOwner.aggregates(RollupResolution.MINUTE, 0, Long.MAX_VALUE).get(0).getCount());
+
+		// The new owner ingests a reading before the handoff message arrives
+		SensorState state = new SensorState("s1");
+		WindReading reading = new WindReading();
+		reading.setSpeed(12.0);
+		state.update(reading, 200_000L);
+		state.restore(null, 100);
+		assertEquals(101, state.getMessageCount());
+	}
+}
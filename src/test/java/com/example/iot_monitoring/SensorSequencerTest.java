@@ -0,0 +1,115 @@
+package com.example.iot_monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SensorSequencerTest {
+
+	private final Counter gaps = new SimpleMeterRegistry().counter("gaps");
+	private final List<Long> delivered = new ArrayList<>();
+	private final SensorSequencer sequencer = new SensorSequencer(128, 4, 1000, gaps,
+			reading -> delivered.add(reading.has(WindReading.HAS_SEQUENCE) ? reading.getSequence() : reading.getTimestamp()));
+	private final WindReading reading = new WindReading();
+
+	private int offer(long sequence, long now) {
+		reading.reset();
+		reading.setSpeed(sequence);
+		reading.setSequence(sequence);
+		return sequencer.offer(reading, now);
+	}
+
+	private int offerTimestamp(long timestamp) {
+		reading.reset();
+		reading.setSpeed(1.0);
+		reading.setTimestamp(timestamp);
+		return sequencer.offer(reading, 0);
+	}
+
+	@Test
+	void deliversInOrderReadingsImmediatelyAndDropsDuplicates() {
+		assertEquals(SensorSequencer.DELIVERED, offer(10, 0));
+		assertEquals(SensorSequencer.DELIVERED, offer(11, 0));
+		assertEquals(SensorSequencer.DUPLICATE, offer(11, 0));
+		assertEquals(SensorSequencer.DUPLICATE, offer(10, 0));
+
+		assertEquals(List.of(10L, 11L), delivered);
+	}
+
+	@Test
+	void holdsReadingsBehindAGapUntilItFills() {
+		offer(1, 0);
+		assertEquals(SensorSequencer.BUFFERED, offer(3, 0));
+		assertEquals(SensorSequencer.BUFFERED, offer(4, 0));
+		assertEquals(SensorSequencer.DUPLICATE, offer(4, 0));
+		assertEquals(List.of(1L), delivered);
+
+		assertEquals(SensorSequencer.DELIVERED, offer(2, 0));
+		assertEquals(List.of(1L, 2L, 3L, 4L), delivered);
+		assertEquals(0, sequencer.getPendingCount());
+		assertEquals(0.0, gaps.count());
+	}
+
+	@Test
+	void skipsGapAfterDelayAndDropsWhatFillsItLater() {
+		offer(1, 0);
+		offer(3, 100);
+		sequencer.expire(500);
+		assertEquals(List.of(1L), delivered);
+
+		sequencer.expire(1100);
+		assertEquals(List.of(1L, 3L), delivered);
+		assertEquals(1.0, gaps.count());
+
+		assertEquals(SensorSequencer.LATE, offer(2, 1200));
+		assertEquals(SensorSequencer.DUPLICATE, offer(2, 1200));
+		assertEquals(List.of(1L, 3L), delivered);
+	}
+
+	@Test
+	void givesUpOnOldestGapWhenBufferIsFull() {
+		offer(1, 0);
+		offer(3, 0);
+		offer(5, 0);
+		// Capacity 4 covers 2..5: accepting 6 means 2 can no longer be waited for
+		assertEquals(SensorSequencer.BUFFERED, offer(6, 0));
+		assertEquals(List.of(1L, 3L), delivered);
+		assertEquals(1.0, gaps.count());
+		assertEquals(2, sequencer.getPendingCount());
+
+		sequencer.flush();
+		assertEquals(List.of(1L, 3L, 5L, 6L), delivered);
+		assertEquals(2.0, gaps.count());
+	}
+
+	@Test
+	void restartsWhenSequenceJumpsBeyondTheWindow() {
+		offer(1000, 0);
+		offer(1001, 0);
+		assertEquals(SensorSequencer.RESET, offer(0, 0));
+		assertEquals(SensorSequencer.DELIVERED, offer(1, 0));
+		assertEquals(SensorSequencer.RESET, offer(50_000, 0));
+
+		assertEquals(List.of(1000L, 1001L, 0L, 1L, 50_000L), delivered);
+		assertEquals(0.0, gaps.count());
+	}
+
+	@Test
+	void fallsBackToTimestampsWithoutSequence() {
+		assertEquals(SensorSequencer.DELIVERED, offerTimestamp(1000));
+		assertEquals(SensorSequencer.DELIVERED, offerTimestamp(2000));
+		assertEquals(SensorSequencer.DUPLICATE, offerTimestamp(2000));
+		assertEquals(SensorSequencer.DUPLICATE, offerTimestamp(1000));
+		assertEquals(SensorSequencer.LATE, offerTimestamp(1500));
+
+		reading.reset();
+		reading.setSpeed(3.0);
+		assertEquals(SensorSequencer.DELIVERED, sequencer.offer(reading, 0));
+		assertEquals(3, delivered.size());
+	}
+}
@@ -0,0 +1,38 @@
+package com.example.iot_monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SensorStateStoreTest {
+
+	@Test
+	void resolvesSensorIdFromTopic() {
+		SensorStateStore store = new SensorStateStore(16, "default");
+
+		assertEquals("north-7", store.resolve("wind/north-7/data").getSensorId());
+		assertSame(store.resolve("wind/north-7/data"), store.resolve("wind/north-7/speed"));
+		assertEquals("default", store.resolve("wind/data").getSensorId());
+		assertEquals(2, store.size());
+	}
+
+	@Test
+	void scalarUpdatesKeepTheOtherComponent() {
+		SensorState state = new SensorState("s1");
+		WindReading reading = new WindReading();
+
+		reading.setSpeed(12.0);
+		reading.setDirection(90.0);
+		state.update(reading, 1000L);
+
+		reading.reset();
+		reading.setSpeed(20.0);
+		WindData latest = state.update(reading, 2000L);
+
+		assertEquals(20.0, latest.getSpeed());
+		assertEquals(90.0, latest.getDirection());
+		assertEquals(2000L, latest.getTimestamp());
+		assertEquals("s1", latest.getSensorId());
+		assertEquals(2, state.getMessageCount());
+	}
+}
@@ -0,0 +1,58 @@
+package com.example.iot_monitoring;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold start of the whole application, from {@code SpringApplication.run} until
+ * the context is refreshed and Tomcat accepts connections, with the local
+ * repository and no MQTT broker reachable (the connect happens in the
+ * background, so a broker that is down must not show up here). Every fork is
+ * a fresh JVM and times one start, so the score is what a restart costs.
+ *
+ * Run with {@code mvn -Pbenchmark test -Djmh.include=StartupBenchmark}. To
+ * compare JVM options, add them to {@code jvmArgsAppend}; AppCDS needs the
+ * extracted jar instead of a classpath of directories, see the README.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(value = 5, jvmArgsAppend = {"-Xms512m", "-Xmx512m"})
+public class StartupBenchmark {
+
+	private Path directory;
+	private ConfigurableApplicationContext context;
+
+	@Setup
+	public void setup() throws IOException {
+		directory = Files.createTempDirectory("startup-bench");
+	}
+
+	@TearDown
+	public void tearDown() {
+		if (context != null) {
+			context.close();
+		}
+	}
+
+	@Benchmark
+	public ConfigurableApplicationContext start() {
+		context = SpringApplication.run(IotMonitoringApplication.class,
+				"--server.port=0",
+				"--mqtt.broker.url=tcp://127.0.0.1:1",
+				"--wind.persistence.repository=local",
+				"--wind.persistence.local.directory=" + directory.resolve("wind-log"),
+				"--mqtt.spool.directory=" + directory.resolve("mqtt-spool"),
+				"--wind.capture.directory=" + directory.resolve("capture"),
+				"--logging.level.root=WARN");
+		return context;
+	}
+}
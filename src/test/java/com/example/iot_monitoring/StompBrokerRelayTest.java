@@ -0,0 +1,127 @@
+package com.example.iot_monitoring;
+
+import org.apache.activemq.artemis.core.config.Configuration;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.iot_monitoring.TestSupport.await;
+import static com.example.iot_monitoring.TestSupport.freePort;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Relay mode against an embedded ActiveMQ Artemis STOMP acceptor: wind updates
+ * published by the application reach a WebSocket subscriber through the
+ * external broker, and the per-client conflation still tells sensors apart.
+ */
+class StompBrokerRelayTest {
+
+	@TempDir
+	Path directory;
+
+	private final int stompPort = freePort();
+	private EmbeddedActiveMQ broker;
+	private ConfigurableApplicationContext context;
+	private WebSocketStompClient stompClient;
+
+	@AfterEach
+	void tearDown() throws Exception {
+		if (stompClient != null) {
+			stompClient.stop();
+		}
+		if (context != null) {
+			context.close();
+		}
+		if (broker != null) {
+			broker.stop();
+		}
+	}
+
+	static EmbeddedActiveMQ startArtemis(Path directory, int port) throws Exception {
+		Configuration configuration = new ConfigurationImpl()
+				.setPersistenceEnabled(false)
+				.setSecurityEnabled(false)
+				.setJMXManagementEnabled(false)
+				.setJournalDirectory(directory.resolve("journal").toString())
+				.setBindingsDirectory(directory.resolve("bindings").toString())
+				.setPagingDirectory(directory.resolve("paging").toString())
+				.setLargeMessagesDirectory(directory.resolve("large-messages").toString())
+				.addAcceptorConfiguration("stomp", "tcp://127.0.0.1:" + port + "?protocols=STOMP");
+		EmbeddedActiveMQ broker = new EmbeddedActiveMQ();
+		broker.setConfiguration(configuration);
+		broker.start();
+		return broker;
+	}
+
+	@Test
+	void deliversWindUpdatesThroughTheExternalBroker() throws Exception {
+		broker = startArtemis(directory.resolve("artemis"), stompPort);
+		context = SpringApplication.run(IotMonitoringApplication.class,
+				"--server.port=0",
+				"--mqtt.broker.url=tcp://127.0.0.1:1",
+				"--mqtt.spool.directory=" + directory.resolve("mqtt-spool"),
+				"--wind.capture.directory=" + directory.resolve("capture"),
+				"--wind.persistence.repository=local",
+				"--wind.persistence.local.directory=" + directory.resolve("wind-log"),
+				"--wind.simulation.interval=3600",
+				"--wind.websocket.broker=relay",
+				"--spring.messaging.stomp.broker.relay.host=127.0.0.1",
+				"--spring.messaging.stomp.broker.relay.port=" + stompPort,
+				"--wind.websocket.outbound.pool-size=4",
+				"--wind.websocket.outbound.queue-capacity=10000");
+		StompRelayHealthIndicator health = context.getBean(StompRelayHealthIndicator.class);
+		await(() -> health.health().getStatus().equals(Status.UP));
+
+		int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+		stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+		stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+		StompSession session = stompClient.connectAsync("ws://127.0.0.1:" + port + "/iot-websocket-native",
+				new StompSessionHandlerAdapter() {
+				}).get(10, TimeUnit.SECONDS);
+		Map<String, Map<?, ?>> received = new ConcurrentHashMap<>();
+		session.subscribe("/topic/wind_updates", new StompFrameHandler() {
+			@Override
+			public Type getPayloadType(StompHeaders headers) {
+				return Map.class;
+			}
+
+			@Override
+			public void handleFrame(StompHeaders headers, Object payload) {
+				received.put(headers.getFirst(ClientFrameConflator.SENSOR_HEADER), (Map<?, ?>) payload);
+			}
+		});
+
+		// The subscription reaches the broker asynchronously; keep publishing until it is in place
+		WindUpdateFanout fanout = context.getBean(WindUpdateFanout.class);
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (received.size() < 2 && System.nanoTime() < deadline) {
+			fanout.publish(new WindData("relay-1", 12.5, 90.0, System.currentTimeMillis()));
+			fanout.publish(new WindData("relay-2", 7.0, 180.0, System.currentTimeMillis()));
+			fanout.flush();
+			Thread.sleep(100);
+		}
+		// Both sensors of one frame arrive: the conflator keys relayed updates by their STOMP header
+		assertEquals(2, received.size(), "received " + received.keySet());
+		assertEquals(12.5, received.get("relay-1").get("speed"));
+		assertEquals(180.0, received.get("relay-2").get("direction"));
+	}
+}
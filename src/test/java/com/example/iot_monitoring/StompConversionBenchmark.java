@@ -0,0 +1,78 @@
+package com.example.iot_monitoring;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server side of a WebSocket update: turning a {@link WindData} into a broker
+ * message, and that message into the STOMP frame written to each subscriber.
+ *
+ * {@code convertAndSend} is what {@code SimpMessagingTemplate} did per update
+ * before the fan-out; {@code fanoutMessage} is what {@link WindUpdateFanout}
+ * does once per sensor and frame; {@code encodeFrame} is paid per subscriber.
+ *
+ * Run with {@code mvn -Pbenchmark test -Djmh.include=StompConversionBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms512m", "-Xmx512m"})
+public class StompConversionBenchmark {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+	private final StompEncoder encoder = new StompEncoder();
+	private final WindData data = new WindData("sensor-01", 27.53, 184.20, 1718000000000L);
+	private MessageHeaders converterHeaders;
+	private Message<byte[]> outbound;
+
+	@Setup
+	public void setup() throws Exception {
+		converter.setObjectMapper(objectMapper);
+		converterHeaders = new MessageHeaders(Map.of(
+				SimpMessageHeaderAccessor.DESTINATION_HEADER, "/topic/wind_updates"));
+
+		StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+		accessor.setDestination("/topic/wind_updates");
+		accessor.setSubscriptionId("sub-0");
+		accessor.setMessageId("0");
+		accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+		outbound = MessageBuilder.createMessage(objectMapper.writeValueAsBytes(data), accessor.getMessageHeaders());
+	}
+
+	@Benchmark
+	public Message<?> convertAndSend() {
+		return converter.toMessage(data, converterHeaders);
+	}
+
+	@Benchmark
+	public Message<byte[]> fanoutMessage() throws Exception {
+		byte[] payload = objectMapper.writeValueAsBytes(data);
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+		accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+		accessor.setHeader(ClientFrameConflator.SENSOR_HEADER, data.getSensorId());
+		accessor.setHeader(ClientFrameConflator.TIMESTAMP_HEADER, data.getTimestamp());
+		accessor.setLeaveMutable(true);
+		return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+	}
+
+	@Benchmark
+	public byte[] encodeFrame() {
+		return encoder.encode(outbound);
+	}
+}
@@ -0,0 +1,39 @@
+package com.example.iot_monitoring;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Helpers shared by the tests that run brokers, nodes or background threads.
+ */
+final class TestSupport {
+
+	private TestSupport() {
+	}
+
+	/**
+	 * A TCP port that was free a moment ago, for servers that need it before binding.
+	 */
+	static int freePort() {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Polls {@code condition} until it holds, failing the test after 20 seconds.
+	 */
+	static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.nanoTime() < deadline, "condition not met within 20 s");
+			Thread.sleep(10);
+		}
+	}
+}
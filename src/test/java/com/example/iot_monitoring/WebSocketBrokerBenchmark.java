@@ -0,0 +1,175 @@
+package com.example.iot_monitoring;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.ByteArrayMessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WebSocket fan-out capacity of the two broker modes ({@code wind.websocket.broker}):
+ * the in-process simple broker versus the relay to an external STOMP broker,
+ * here an embedded ActiveMQ Artemis. {@code subscribers} WebSocket sessions
+ * subscribe one topic; each operation publishes a frame of
+ * {@code sensorsPerFrame} updates (one message per sensor, as
+ * {@link WindUpdateFanout} does) and waits until every session has received
+ * all of them, so the score is the frame rate the mode sustains for that many
+ * subscribers. With the default {@code frame-interval-ms=200} the application
+ * needs 5 frames/s: a mode sustains a subscriber count while its score stays
+ * above that. Clients, server and broker share the machine, so compare modes
+ * with each other rather than with a production deployment.
+ *
+ * Run with {@code mvn -Pbenchmark test -Djmh.include=WebSocketBrokerBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class WebSocketBrokerBenchmark {
+
+	private static final String DESTINATION = "/topic/wind_bench";
+
+	@Param({"simple", "relay"})
+	public String broker;
+
+	@Param({"100", "500", "1000"})
+	public int subscribers;
+
+	@Param({"50"})
+	public int sensorsPerFrame;
+
+	private final Semaphore deliveries = new Semaphore(0);
+	private final List<StompSession> sessions = new ArrayList<>();
+	private Path directory;
+	private EmbeddedActiveMQ artemis;
+	private ConfigurableApplicationContext context;
+	private WebSocketStompClient stompClient;
+	private SimpMessagingTemplate template;
+	private List<Message<byte[]>> frame;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		directory = Files.createTempDirectory("websocket-bench");
+		List<String> args = new ArrayList<>(List.of(
+				"--server.port=0",
+				"--mqtt.broker.url=tcp://127.0.0.1:1",
+				"--mqtt.spool.directory=" + directory.resolve("mqtt-spool"),
+				"--wind.capture.directory=" + directory.resolve("capture"),
+				"--wind.persistence.repository=local",
+				"--wind.persistence.local.directory=" + directory.resolve("wind-log"),
+				"--wind.simulation.interval=3600",
+				"--wind.websocket.broker=" + broker,
+				"--logging.level.root=WARN"));
+		if (broker.equals("relay")) {
+			int port = TestSupport.freePort();
+			artemis = StompBrokerRelayTest.startArtemis(directory.resolve("artemis"), port);
+			args.add("--spring.messaging.stomp.broker.relay.host=127.0.0.1");
+			args.add("--spring.messaging.stomp.broker.relay.port=" + port);
+		}
+		context = SpringApplication.run(IotMonitoringApplication.class, args.toArray(new String[0]));
+		template = context.getBean("brokerMessagingTemplate", SimpMessagingTemplate.class);
+
+		ObjectMapper objectMapper = new ObjectMapper();
+		frame = new ArrayList<>(sensorsPerFrame);
+		for (int i = 0; i < sensorsPerFrame; i++) {
+			byte[] payload = objectMapper.writeValueAsBytes(
+					new WindData("sensor-" + i, 20 + i % 10, i * 7 % 360, 1718000000000L + i));
+			SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+			accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+			frame.add(MessageBuilder.createMessage(payload, accessor.getMessageHeaders()));
+		}
+
+		int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+		stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+		stompClient.setMessageConverter(new ByteArrayMessageConverter());
+		stompClient.setInboundMessageSizeLimit(1024 * 1024);
+		List<CompletableFuture<StompSession>> connecting = new ArrayList<>(subscribers);
+		for (int i = 0; i < subscribers; i++) {
+			connecting.add(stompClient.connectAsync("ws://127.0.0.1:" + port + "/iot-websocket-native",
+					new StompSessionHandlerAdapter() {
+					}));
+		}
+		StompFrameHandler counter = new StompFrameHandler() {
+			@Override
+			public Type getPayloadType(StompHeaders headers) {
+				return byte[].class;
+			}
+
+			@Override
+			public void handleFrame(StompHeaders headers, Object payload) {
+				deliveries.release();
+			}
+		};
+		for (CompletableFuture<StompSession> session : connecting) {
+			StompSession connected = session.get(60, TimeUnit.SECONDS);
+			connected.subscribe(DESTINATION, counter);
+			sessions.add(connected);
+		}
+
+		// Subscriptions reach the broker asynchronously: probe until every session receives
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+		while (true) {
+			deliveries.drainPermits();
+			template.send(DESTINATION, frame.get(0));
+			if (deliveries.tryAcquire(subscribers, 1, TimeUnit.SECONDS)) {
+				break;
+			}
+			if (System.nanoTime() > deadline) {
+				throw new IllegalStateException("Subscriptions not in place after 60 s");
+			}
+		}
+		Thread.sleep(500);
+		deliveries.drainPermits();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		for (StompSession session : sessions) {
+			session.disconnect();
+		}
+		if (stompClient != null) {
+			stompClient.stop();
+		}
+		if (context != null) {
+			context.close();
+		}
+		if (artemis != null) {
+			artemis.stop();
+		}
+	}
+
+	@Benchmark
+	public void frame() throws InterruptedException {
+		for (Message<byte[]> update : frame) {
+			template.send(DESTINATION, update);
+		}
+		if (!deliveries.tryAcquire(subscribers * sensorsPerFrame, 60, TimeUnit.SECONDS)) {
+			throw new IllegalStateException("Frame not delivered to all " + subscribers + " subscribers within 60 s");
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package com.example.iot_monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WindAnomalyDetectorTest {
+
+	private static final AnomalyThresholds THRESHOLDS =
+			new AnomalyThresholds(0.05, 30, 4.0, 3000, 18.5, 45, 5, 60_000);
+
+	private final WindAnomalyDetector detector = new WindAnomalyDetector(THRESHOLDS);
+	private final SplittableRandom random = new SplittableRandom(7);
+	private long now = 1_700_000_000_000L;
+
+	private int feed(double speed, double direction) {
+		now += 1000;
+		return detector.update(now, speed, direction);
+	}
+
+	private int steady(int readings) {
+		int fired = 0;
+		for (int i = 0; i < readings; i++) {
+			fired |= feed(20 + random.nextDouble(-1, 1), 180 + random.nextDouble(-5, 5));
+		}
+		return fired;
+	}
+
+	@Test
+	void steadyWindRaisesNothingAndTracksMeanAndDirection() {
+		assertEquals(0, steady(500));
+		assertEquals(20.0, detector.getMeanSpeed(), 0.5);
+		assertTrue(detector.getStdSpeed() > 0.2 && detector.getStdSpeed() < 1.0);
+		assertEquals(180.0, detector.getPrevailingDirection(), 3.0);
+	}
+
+	@Test
+	void gustIsReportedOnceWhileWindowMaximumStaysHigh() {
+		steady(100);
+
+		int fired = feed(45, 180);
+		assertEquals(WindAnomalyDetector.GUST, fired & WindAnomalyDetector.GUST);
+		assertEquals(45.0, detector.getWindowMax());
+		// Peak still inside the 3 s window: same gust, no new alert
+		assertEquals(0, feed(22, 180) & WindAnomalyDetector.GUST);
+		assertEquals(45.0, detector.getWindowMax());
+
+		steady(5);
+		assertTrue(detector.getWindowMax() < 25);
+	}
+
+	@Test
+	void outlierIsFlaggedByZScoreBeforeItMovesTheAverage() {
+		steady(100);
+		double meanBefore = detector.getMeanSpeed();
+
+		int fired = feed(5, 180);
+
+		assertEquals(WindAnomalyDetector.SPEED_ANOMALY, fired & WindAnomalyDetector.SPEED_ANOMALY);
+		assertTrue(detector.getZScore() < -4);
+		assertTrue(detector.getMeanSpeed() < meanBefore);
+	}
+
+	@Test
+	void directionShiftAcrossNorthIsMeasuredOnTheShortArc() {
+		for (int i = 0; i < 100; i++) {
+			feed(20, i % 2 == 0 ? 350 : 10);
+		}
+		assertEquals(0.0, Math.min(detector.getPrevailingDirection(), 360 - detector.getPrevailingDirection()), 1.0);
+
+		assertEquals(0, feed(20, 30) & WindAnomalyDetector.DIRECTION_SHIFT);
+		int fired = feed(20, 90);
+		assertEquals(WindAnomalyDetector.DIRECTION_SHIFT, fired & WindAnomalyDetector.DIRECTION_SHIFT);
+		assertEquals(90.0, detector.getDirectionShift(), 5.0);
+	}
+
+	@Test
+	void calmReadingsDoNotTriggerDirectionShifts() {
+		steady(100);
+
+		assertEquals(0, feed(2, 0) & WindAnomalyDetector.DIRECTION_SHIFT);
+	}
+
+	@Test
+	void alertsOfTheSameTypeAreRateLimited() {
+		steady(100);
+		assertNotEquals(0, feed(5, 180) & WindAnomalyDetector.SPEED_ANOMALY);
+		steady(3);
+
+		assertEquals(0, feed(3, 180) & WindAnomalyDetector.SPEED_ANOMALY);
+	}
+}
@@ -0,0 +1,75 @@
+package com.example.iot_monitoring;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold archive ({@link WindArchiveFile}) scan speed: one hour of {@value #SENSORS}
+ * sensors at 1 Hz, every reading of every sensor decoded and visited. Scores are
+ * per reading; the archive size per reading is printed at the end of the trial.
+ *
+ * Run with {@code mvn -Pbenchmark test -Djmh.include=WindArchiveBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms512m", "-Xmx512m"})
+@OperationsPerInvocation(WindArchiveBenchmark.SENSORS * WindArchiveBenchmark.POINTS)
+public class WindArchiveBenchmark {
+	static final int SENSORS = 100;
+	static final int POINTS = 3600;
+	private static final long START = 1_718_000_000_000L;
+
+	private Path directory;
+	private WindArchiveFile archive;
+	private double sink;
+
+	@Setup
+	public void setup() throws IOException {
+		List<WindArchiveFile.Series> series = new ArrayList<>();
+		for (int key = 0; key < SENSORS; key++) {
+			WindModel model = new WindModel(key, 20);
+			SplittableRandom random = new SplittableRandom(key);
+			long[] timestamps = new long[POINTS];
+			double[] speeds = new double[POINTS];
+			double[] directions = new double[POINTS];
+			long timestamp = START;
+			for (int i = 0; i < POINTS; i++) {
+				model.advance(1.0);
+				timestamp += 1000 + random.nextInt(-3, 4);
+				timestamps[i] = timestamp;
+				speeds[i] = Math.round(model.getSpeed() * 100) / 100.0;
+				directions[i] = Math.round(model.getDirection() * 100) / 100.0;
+			}
+			series.add(new WindArchiveFile.Series(key, timestamps, speeds, directions, POINTS));
+		}
+		directory = Files.createTempDirectory("wind-archive-bench");
+		archive = WindArchiveFile.write(directory.resolve("range.wca"), START, START + 3_600_000L, series);
+	}
+
+	@Benchmark
+	public void scan(Blackhole blackhole) {
+		for (int key = 0; key < SENSORS; key++) {
+			archive.scan(key, Long.MIN_VALUE, Long.MAX_VALUE, (timestamp, speed, direction) ->
+					sink += speed + direction + timestamp);
+		}
+		blackhole.consume(sink);
+	}
+
+	@TearDown(Level.Trial)
+	public void report() throws IOException {
+		System.out.printf("%narchive: %.2f bytes/reading%n", (double) archive.getSizeBytes() / archive.getPointCount());
+		Files.deleteIfExists(archive.getPath());
+		Files.deleteIfExists(directory);
+	}
+}
@@ -0,0 +1,123 @@
+package com.example.iot_monitoring;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WindArchiveFileTest {
+
+	@TempDir
+	Path directory;
+
+	private static WindArchiveFile.Series simulated(int key, int count, long start) {
+		WindModel model = new WindModel(key, 20);
+		SplittableRandom random = new SplittableRandom(key);
+		long[] timestamps = new long[count];
+		double[] speeds = new double[count];
+		double[] directions = new double[count];
+		long timestamp = start;
+		for (int i = 0; i < count; i++) {
+			model.advance(1.0);
+			// 1 s publish interval with a few ms of scheduling jitter
+			timestamp += 1000 + random.nextInt(-3, 4);
+			timestamps[i] = timestamp;
+			speeds[i] = Math.round(model.getSpeed() * 100) / 100.0;
+			directions[i] = Math.round(model.getDirection() * 100) / 100.0;
+		}
+		return new WindArchiveFile.Series(key, timestamps, speeds, directions, count);
+	}
+
+	@Test
+	void roundTripsCentiAndRawValuesLosslessly() {
+		int count = 1000;
+		long[] timestamps = new long[count];
+		double[] speeds = new double[count];
+		double[] directions = new double[count];
+		SplittableRandom random = new SplittableRandom(7);
+		for (int i = 0; i < count; i++) {
+			timestamps[i] = 1_718_000_000_000L + i * 5000L + (i % 7 == 0 ? 123_456 : 0) * (i / 500);
+			speeds[i] = Math.round(random.nextDouble(0, 60) * 100) / 100.0;
+			directions[i] = i == 500 ? Math.PI : random.nextDouble(0, 360);
+		}
+		for (int i = 1; i < count; i++) {
+			timestamps[i] = Math.max(timestamps[i], timestamps[i - 1]);
+		}
+
+		WindBlockCodec.Block block = WindBlockCodec.encode(timestamps, speeds, directions, 0, count);
+		assertEquals(WindBlockCodec.FLAG_CENTI_SPEED, block.flags);
+
+		long[] decodedTimestamps = new long[count];
+		double[] decodedSpeeds = new double[count];
+		double[] decodedDirections = new double[count];
+		WindBlockCodec.decode(block.words, block.timestampWords, block.speedWords, block.flags, count,
+				decodedTimestamps, decodedSpeeds, decodedDirections);
+		assertArrayEquals(timestamps, decodedTimestamps);
+		assertArrayEquals(speeds, decodedSpeeds);
+		assertArrayEquals(directions, decodedDirections);
+	}
+
+	@Test
+	void compressesRealisticSeriesToAFewBytesPerReading() throws Exception {
+		List<WindArchiveFile.Series> series = new ArrayList<>();
+		long points = 0;
+		for (int key = 0; key < 20; key++) {
+			series.add(simulated(key, 3600, 1_718_000_000_000L));
+			points += 3600;
+		}
+		WindArchiveFile archive = WindArchiveFile.write(directory.resolve("range.wca"),
+				1_718_000_000_000L, 1_718_003_600_000L, series);
+
+		double bytesPerPoint = (double) Files.size(archive.getPath()) / points;
+		assertTrue(bytesPerPoint < 4.5, "bytes per reading: " + bytesPerPoint);
+		assertEquals(points, archive.getPointCount());
+		assertEquals(20, archive.getBlockCount());
+
+		WindArchiveFile.Series expected = series.get(7);
+		List<Long> timestamps = new ArrayList<>();
+		List<Double> speeds = new ArrayList<>();
+		archive.scan(7, expected.timestamps[100], expected.timestamps[199], (timestamp, speed, direction) -> {
+			timestamps.add(timestamp);
+			speeds.add(speed);
+		});
+		assertEquals(100, timestamps.size());
+		for (int i = 0; i < 100; i++) {
+			assertEquals(expected.timestamps[100 + i], timestamps.get(i));
+			assertEquals(expected.speeds[100 + i], speeds.get(i));
+		}
+
+		double max = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < expected.count; i++) {
+			max = Math.max(max, expected.speeds[i]);
+		}
+		assertEquals(max, WindArchiveFile.open(archive.getPath()).maxSpeed(7));
+		assertTrue(Double.isNaN(archive.maxSpeed(99)));
+	}
+
+	@Test
+	void skipsBlocksOutsideTheRange() throws Exception {
+		WindArchiveFile.Series series = simulated(1, 3 * WindArchiveFile.BLOCK_POINTS, 0);
+		WindArchiveFile archive = WindArchiveFile.write(directory.resolve("blocks.wca"), 0, Long.MAX_VALUE,
+				List.of(series));
+		assertEquals(3, archive.getBlockCount());
+
+		int[] visited = new int[1];
+		long last = series.timestamps[series.count - 1];
+		archive.scan(1, last - 10_000, last, (timestamp, speed, direction) -> visited[0]++);
+		assertTrue(visited[0] >= 9 && visited[0] <= 11, "visited " + visited[0]);
+		archive.scan(2, 0, Long.MAX_VALUE, (timestamp, speed, direction) -> fail("unknown sensor"));
+	}
+
+	@Test
+	void rejectsForeignFiles() throws Exception {
+		Path file = directory.resolve("junk.wca");
+		Files.write(file, new byte[64]);
+		assertThrows(java.io.IOException.class, () -> WindArchiveFile.open(file));
+	}
+}
@@ -0,0 +1,164 @@
+package com.example.iot_monitoring;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.iot_monitoring.TestSupport.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class WindBatchWriterTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final WindLatencyMetrics latency = new WindLatencyMetrics(registry, new double[0]);
+	private WindBatchWriter writer;
+
+	@AfterEach
+	void tearDown() {
+		if (writer != null) {
+			writer.stop();
+		}
+	}
+
+	private static WindData reading(int i) {
+		return new WindData("s1", i, 0, i);
+	}
+
+	@Test
+	void flushesFullBatchesAndTimesOutPartialOnes() throws Exception {
+		List<List<WindData>> batches = new CopyOnWriteArrayList<>();
+		writer = new WindBatchWriter(batch -> {
+			batches.add(batch);
+			return CompletableFuture.completedFuture(null);
+		}, registry, latency, 1000, 10, 100, 2, WindBatchWriter.OverflowPolicy.BLOCK, 10, 0,
+				"", 4, 64, 2000);
+		writer.start();
+
+		for (int i = 0; i < 25; i++) {
+			assertTrue(writer.offer(reading(i)));
+		}
+
+		await(() -> batches.stream().mapToInt(List::size).sum() == 25);
+		assertEquals(10, batches.get(0).size());
+		assertEquals(25.0, registry.get("wind.persistence.written").counter().count());
+		assertTrue(registry.get("wind.persistence.flush.latency").timer().count() >= 3);
+	}
+
+	@Test
+	void slowSinkAppliesOverflowPolicy() throws Exception {
+		CompletableFuture<Void> stalled = new CompletableFuture<>();
+		writer = new WindBatchWriter(batch -> stalled, registry, latency, 5, 1, 10, 1,
+				WindBatchWriter.OverflowPolicy.DROP_NEWEST, 0, 0, "", 4, 64, 2000);
+		writer.start();
+
+		writer.offer(reading(0));
+		await(() -> registry.get("wind.persistence.in_flight").gauge().value() == 1.0);
+		writer.offer(reading(1));
+		await(() -> writer.getQueueDepth() == 0); // flusher now waits for an in-flight permit
+
+		int accepted = 0;
+		for (int i = 2; i < 12; i++) {
+			if (writer.offer(reading(i))) {
+				accepted++;
+			}
+		}
+
+		assertEquals(5, accepted);
+		assertEquals(5, writer.getQueueDepth());
+		assertEquals(5.0, registry.get("wind.persistence.dropped").counter().count());
+		stalled.complete(null);
+	}
+
+	@Test
+	void retriesFailedBatches() throws Exception {
+		AtomicInteger calls = new AtomicInteger();
+		writer = new WindBatchWriter(batch -> calls.getAndIncrement() == 0
+				? CompletableFuture.failedFuture(new IllegalStateException("sink down"))
+				: CompletableFuture.completedFuture(null),
+				registry, latency, 100, 10, 10, 1, WindBatchWriter.OverflowPolicy.BLOCK, 10, 2,
+				"", 4, 64, 2000);
+		writer.start();
+
+		writer.offer(reading(1));
+
+		await(() -> registry.get("wind.persistence.written").counter().count() == 1.0);
+		assertEquals(2, calls.get());
+		assertEquals(0.0, registry.get("wind.persistence.failed").counter().count());
+	}
+
+	@Test
+	void spoolsWhileSinkIsDownAndReplaysInOrder(@TempDir Path spoolDir) throws Exception {
+		AtomicBoolean down = new AtomicBoolean(true);
+		List<WindData> persisted = new CopyOnWriteArrayList<>();
+		writer = new WindBatchWriter(batch -> {
+			if (down.get()) {
+				return CompletableFuture.failedFuture(new IllegalStateException("sink down"));
+			}
+			persisted.addAll(batch);
+			return CompletableFuture.completedFuture(null);
+		}, registry, latency, 100, 5, 10, 1, WindBatchWriter.OverflowPolicy.BLOCK, 10, 1,
+				spoolDir.toString(), 1, 4, 100_000);
+		writer.start();
+
+		for (int i = 0; i < 5; i++) {
+			writer.offer(reading(i));
+		}
+		await(() -> registry.get("wind.spool.pending").gauge().value() == 5.0);
+		// Later readings queue up behind the spooled ones
+		for (int i = 5; i < 20; i++) {
+			writer.offer(reading(i));
+		}
+		await(() -> registry.get("wind.spool.pending").gauge().value() == 20.0);
+		assertTrue(persisted.isEmpty());
+
+		down.set(false);
+
+		await(() -> persisted.size() == 20);
+		for (int i = 0; i < 20; i++) {
+			assertEquals(i, persisted.get(i).getTimestamp());
+		}
+		assertEquals(20.0, registry.get("wind.spool.replayed").counter().count());
+		assertEquals(0.0, registry.get("wind.persistence.failed").counter().count());
+		await(() -> registry.get("wind.spool.pending").gauge().value() == 0.0);
+	}
+
+	@Test
+	void batchFailingWhileStoppingIsSpooledBeforeTheSpoolCloses(@TempDir Path spoolDir) throws Exception {
+		CompletableFuture<Void> stalled = new CompletableFuture<>();
+		writer = new WindBatchWriter(batch -> stalled, registry, latency, 100, 5, 10, 1,
+				WindBatchWriter.OverflowPolicy.BLOCK, 10, 0, spoolDir.toString(), 1, 4, 100_000);
+		writer.start();
+		for (int i = 0; i < 5; i++) {
+			writer.offer(reading(i));
+		}
+		await(() -> registry.get("wind.persistence.in_flight").gauge().value() == 1.0);
+
+		Thread stopping = new Thread(writer::stop);
+		stopping.start();
+		Thread.sleep(200);
+		assertTrue(stopping.isAlive(), "stop() must wait for the batch in flight");
+		stalled.completeExceptionally(new IllegalStateException("sink down"));
+		stopping.join(10_000);
+		assertFalse(stopping.isAlive());
+		writer = null;
+
+		assertEquals(5.0, registry.get("wind.spool.spooled").counter().count());
+		assertEquals(0.0, registry.get("wind.persistence.failed").counter().count());
+		DiskSpool reopened = DiskSpool.open(spoolDir, 1 << 20, 4);
+		try {
+			DiskSpool.Batch left = reopened.peek(10);
+			assertEquals(5, left.size());
+			assertEquals(0, WindBatchWriter.decode(left.getRecords().get(0)).getTimestamp());
+		} finally {
+			reopened.close();
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package com.example.iot_monitoring;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Producer side of a reading: building a {@link WindData} and formatting the
+ * JSON record published by {@link WindSensorSimulator}.
+ *
+ * Run with {@code mvn -Pbenchmark test -Djmh.include=WindDataBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms512m", "-Xmx512m"})
+public class WindDataBenchmark {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private double speed;
+	private double direction;
+	private long timestamp;
+
+	@Setup(Level.Iteration)
+	public void setup() {
+		speed = 27.534;
+		direction = 184.2;
+		timestamp = 1718000000000L;
+	}
+
+	@Benchmark
+	public long constructLegacyDate() {
+		return new Date().getTime() + (long) speed;
+	}
+
+	@Benchmark
+	public WindData constructCurrent() {
+		return new WindData(speed, direction);
+	}
+
+	@Benchmark
+	public WindData constructWithTimestamp() {
+		return new WindData("sensor-01", speed, direction, timestamp);
+	}
+
+	@Benchmark
+	public byte[] jsonStringFormat() {
+		// What publishMqttData did, pinned to ROOT so the output is valid JSON in every locale
+		return String.format(Locale.ROOT, "{\"speed\":%.2f,\"direction\":%.2f,\"timestamp\":%d}",
+				speed, direction, timestamp).getBytes(StandardCharsets.US_ASCII);
+	}
+
+	@Benchmark
+	public byte[] jsonJackson() throws Exception {
+		return objectMapper.writeValueAsBytes(new WindData(null, speed, direction, timestamp));
+	}
+
+	@Benchmark
+	public byte[] jsonEncoder() {
+		return WindPayloadDecoder.encodeJson(speed, direction, timestamp);
+	}
+
+	@Benchmark
+	public byte[] binaryEncoder() {
+		byte[] buffer = new byte[WindPayloadDecoder.BINARY_LENGTH];
+		WindPayloadDecoder.encodeBinary(speed, direction, timestamp, buffer, 0);
+		return buffer;
+	}
+}
@@ -0,0 +1,87 @@
+package com.example.iot_monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WindDownsamplerTest {
+
+	private static WindSeries series(int size) {
+		long[] ts = new long[size];
+		double[] speeds = new double[size];
+		double[] directions = new double[size];
+		for (int i = 0; i < size; i++) {
+			ts[i] = 1_000L * i;
+			speeds[i] = 20 + 10 * Math.sin(i / 50.0);
+			directions[i] = i % 360;
+		}
+		// One short gust that a naive stride would miss
+		speeds[size / 3] = 95;
+		return new WindSeries("s1", ts, speeds, directions);
+	}
+
+	private static double max(double[] values) {
+		double max = Double.NEGATIVE_INFINITY;
+		for (double value : values) {
+			max = Math.max(max, value);
+		}
+		return max;
+	}
+
+	@Test
+	void lttbKeepsEndpointsPeaksAndRequestedSize() {
+		WindSeries raw = series(10_000);
+
+		WindSeries reduced = WindDownsampler.lttb(raw, 500);
+
+		assertEquals(500, reduced.getSize());
+		assertEquals(raw.getTimestamps()[0], reduced.getTimestamps()[0]);
+		assertEquals(raw.getTimestamps()[9_999], reduced.getTimestamps()[499]);
+		assertEquals(95.0, max(reduced.getSpeeds()));
+		for (int i = 1; i < reduced.getSize(); i++) {
+			assertTrue(reduced.getTimestamps()[i] > reduced.getTimestamps()[i - 1]);
+		}
+		// Direction travels with the selected sample
+		int gust = (int) (reduced.getTimestamps()[indexOf(reduced.getSpeeds(), 95.0)] / 1_000L);
+		assertEquals(gust % 360, reduced.getDirections()[indexOf(reduced.getSpeeds(), 95.0)]);
+	}
+
+	private static int indexOf(double[] values, double value) {
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] == value) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Test
+	void minMaxKeepsExtremesOfEveryBucketInTimeOrder() {
+		WindSeries raw = series(10_000);
+
+		WindSeries reduced = WindDownsampler.minMax(raw, 200);
+
+		assertTrue(reduced.getSize() <= 200);
+		assertTrue(reduced.getSize() >= 190);
+		assertEquals(95.0, max(reduced.getSpeeds()));
+		for (int i = 1; i < reduced.getSize(); i++) {
+			assertTrue(reduced.getTimestamps()[i] > reduced.getTimestamps()[i - 1]);
+		}
+	}
+
+	@Test
+	void smallSeriesAreReturnedUntouched() {
+		WindSeries raw = series(50);
+
+		assertSame(raw, WindDownsampler.downsample(raw, WindDownsampler.Method.LTTB, 100));
+		assertSame(raw, WindDownsampler.downsample(raw, WindDownsampler.Method.MINMAX, 100));
+		assertSame(raw, WindDownsampler.downsample(raw, WindDownsampler.Method.RAW, 10));
+		assertEquals(0, WindDownsampler.minMax(WindSeries.empty("s1"), 10).getSize());
+	}
+
+	@Test
+	void parsesMethodNames() {
+		assertEquals(WindDownsampler.Method.MINMAX, WindDownsampler.Method.parse(" MinMax "));
+		assertThrows(IllegalArgumentException.class, () -> WindDownsampler.Method.parse("average"));
+	}
+}
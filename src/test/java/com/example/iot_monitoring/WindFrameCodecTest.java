@@ -0,0 +1,79 @@
+package com.example.iot_monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WindFrameCodecTest {
+
+	@Test
+	void updatesRoundTripAtCentiPrecisionSortedByTimestamp() {
+		int[] keys = {0, 1, 2};
+		long[] timestamps = {1_718_000_000_150L, 1_718_000_000_020L, 1_718_000_000_150L};
+		double[] speeds = {27.534, 0.0, 131.2};
+		double[] directions = {184.2, 359.996, -90};
+
+		byte[] frame = WindFrameCodec.encodeUpdates(keys, timestamps, speeds, directions, 3);
+
+		int[] outKeys = new int[3];
+		long[] outTimestamps = new long[3];
+		double[] outSpeeds = new double[3];
+		double[] outDirections = new double[3];
+		assertEquals(3, WindFrameCodec.decodeUpdates(frame, outKeys, outTimestamps, outSpeeds, outDirections));
+		assertArrayEquals(new int[]{1, 0, 2}, outKeys);
+		assertArrayEquals(new long[]{1_718_000_000_020L, 1_718_000_000_150L, 1_718_000_000_150L}, outTimestamps);
+		assertArrayEquals(new double[]{0.0, 27.53, 131.2}, outSpeeds, 1e-9);
+		assertArrayEquals(new double[]{0.0, 184.2, 270.0}, outDirections, 1e-9);
+	}
+
+	@Test
+	void batchedUpdatesCostAFewBytesPerSensor() {
+		int sensors = 1000;
+		int[] keys = new int[sensors];
+		long[] timestamps = new long[sensors];
+		double[] speeds = new double[sensors];
+		double[] directions = new double[sensors];
+		for (int i = 0; i < sensors; i++) {
+			keys[i] = i;
+			timestamps[i] = 1_718_000_000_000L + (i * 37L) % 200;
+			speeds[i] = 20 + i % 30;
+			directions[i] = (i * 7) % 360;
+		}
+
+		byte[] frame = WindFrameCodec.encodeUpdates(keys, timestamps, speeds, directions, sensors);
+
+		// key (2) + time delta (1) + speed (2) + direction (2-3), against ~90 bytes of JSON
+		assertTrue(frame.length <= 8 * sensors + 16, "frame of " + frame.length + " bytes");
+	}
+
+	@Test
+	void dictionaryCarriesKeysAndIds() {
+		Map<Integer, String> entries = new LinkedHashMap<>();
+		entries.put(0, "sensor-01");
+		entries.put(300, "estação-sul");
+
+		byte[] frame = WindFrameCodec.encodeDictionary(entries);
+
+		assertEquals(WindFrameCodec.MAGIC, frame[0]);
+		assertEquals(WindFrameCodec.TYPE_DICTIONARY, frame[2]);
+		assertEquals(2, frame[3]);
+		assertEquals(0, frame[4]);
+		assertEquals(9, frame[5]);
+		assertEquals("sensor-01", new String(frame, 6, 9, StandardCharsets.UTF_8));
+		assertEquals(-1, WindFrameCodec.decodeUpdates(frame, new int[2], new long[2], new double[2], new double[2]));
+	}
+
+	@Test
+	void zigzagVarintsKeepSmallNegativeDeltasShort() {
+		byte[] buffer = new byte[10];
+		assertEquals(1, WindFrameCodec.putVarint(buffer, 0, WindFrameCodec.zigzag(-1)));
+		assertEquals(1, buffer[0]);
+		assertEquals(-1, WindFrameCodec.unzigzag(WindFrameCodec.zigzag(-1)));
+		assertEquals(Long.MIN_VALUE, WindFrameCodec.unzigzag(WindFrameCodec.zigzag(Long.MIN_VALUE)));
+		assertEquals(10, WindFrameCodec.putVarint(buffer, 0, -1L));
+	}
+}
@@ -0,0 +1,74 @@
+package com.example.iot_monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WindHistoryBufferTest {
+
+	@Test
+	void wrapsAndKeepsNewestSamplesInOrder() {
+		WindHistoryBuffer buffer = new WindHistoryBuffer("s1", 300, 3_600_000L, 60, 60_000L);
+		for (int i = 0; i < 1000; i++) {
+			buffer.append(1_000_000L + i * 1000L, i, 0);
+		}
+
+		WindSeries all = buffer.range(0, Long.MAX_VALUE);
+		assertEquals(300, all.getSize());
+		assertEquals(700.0, all.getSpeeds()[0]);
+		assertEquals(999.0, all.getSpeeds()[299]);
+
+		WindSeries slice = buffer.range(1_000_000L + 800_000L, 1_000_000L + 809_000L);
+		assertEquals(10, slice.getSize());
+		assertEquals(1_800_000L, slice.getTimestamps()[0]);
+	}
+
+	@Test
+	void rollsUpMinMaxMeanAndVectorDirection() {
+		WindHistoryBuffer buffer = new WindHistoryBuffer("s1", 1000, 3_600_000L, 60, 60_000L);
+		buffer.append(60_000L, 10.0, 350.0);
+		buffer.append(70_000L, 10.0, 10.0);
+		buffer.append(80_000L, 40.0, 0.0);
+		buffer.append(125_000L, 5.0, 90.0);
+
+		List<WindAggregate> minutes = buffer.aggregates(RollupResolution.MINUTE, 0, Long.MAX_VALUE);
+		assertEquals(2, minutes.size());
+
+		WindAggregate first = minutes.get(0);
+		assertEquals(60_000L, first.getStart());
+		assertEquals(3, first.getCount());
+		assertEquals(10.0, first.getMinSpeed());
+		assertEquals(40.0, first.getMaxSpeed());
+		assertEquals(20.0, first.getMeanSpeed(), 1e-9);
+		assertEquals(0.0, first.getVectorDirection(), 1e-9);
+
+		assertEquals(90.0, minutes.get(1).getVectorDirection(), 1e-9);
+		// 60 one-second buckets no longer cover the sample at 60s
+		assertEquals(3, buffer.aggregates(RollupResolution.SECOND, 0, Long.MAX_VALUE).size());
+	}
+
+	@Test
+	void keepsLateSamplesSortedAndIgnoresFarFutureOnes() {
+		WindHistoryBuffer buffer = new WindHistoryBuffer("s1", 4, 3_600_000L, 60, 60_000L);
+		long now = System.currentTimeMillis();
+		assertTrue(buffer.append(now - 3000, 1, 0));
+		assertTrue(buffer.append(now - 1000, 3, 0));
+		assertTrue(buffer.append(now - 2000, 2, 0));
+		assertFalse(buffer.append(now + 3_600_000L, 99, 0));
+		assertTrue(buffer.append(now, 4, 0));
+
+		WindSeries all = buffer.range(0, Long.MAX_VALUE);
+		assertArrayEquals(new double[] {1, 2, 3, 4}, all.getSpeeds());
+		assertEquals(2, buffer.range(now - 2000, now - 1000).getSize());
+		// The far-future reading did not push the rollup window past the others
+		assertEquals(4, buffer.aggregates(RollupResolution.SECOND, 0, Long.MAX_VALUE).stream()
+				.mapToLong(WindAggregate::getCount).sum());
+
+		// Full ring: a sample older than all of it is dropped, a late one replaces the oldest
+		assertFalse(buffer.append(now - 5000, 0, 0));
+		assertTrue(buffer.append(now - 1500, 2.5, 0));
+		assertArrayEquals(new double[] {2, 2.5, 3, 4}, buffer.range(0, Long.MAX_VALUE).getSpeeds());
+	}
+}
@@ -0,0 +1,48 @@
+package com.example.iot_monitoring;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WindLatencyMetricsTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final WindLatencyMetrics metrics = new WindLatencyMetrics(registry, new double[]{0.5, 0.99});
+
+	@Test
+	void recordsElapsedTimeSinceReadingTimestampPerStage() {
+		metrics.record(WindLatencyMetrics.Stage.ARRIVED, 1_000, 1_025);
+		metrics.record(WindLatencyMetrics.Stage.ARRIVED, 1_000, 1_075);
+		metrics.record(WindLatencyMetrics.Stage.DELIVERED, 1_000, 1_300);
+
+		Timer arrived = registry.get("wind.latency").tag("stage", "arrived").timer();
+		assertEquals(2, arrived.count());
+		assertEquals(75.0, arrived.max(TimeUnit.MILLISECONDS));
+		assertEquals(50.0, arrived.mean(TimeUnit.MILLISECONDS));
+		assertEquals(1, registry.get("wind.latency").tag("stage", "delivered").timer().count());
+		assertEquals(0, registry.get("wind.latency").tag("stage", "persisted").timer().count());
+	}
+
+	@Test
+	void futureTimestampsAreCountedAsClockSkew() {
+		metrics.record(WindLatencyMetrics.Stage.ARRIVED, 2_000, 1_000);
+		metrics.record(WindLatencyMetrics.Stage.ARRIVED, 0, 1_000);
+
+		assertEquals(0, metrics.timer(WindLatencyMetrics.Stage.ARRIVED).count());
+		assertEquals(1.0, registry.get("wind.latency.clock_skew").counter().count());
+	}
+
+	@Test
+	void recordsWholeBatches() {
+		long now = System.currentTimeMillis();
+		metrics.recordAll(WindLatencyMetrics.Stage.PERSISTED,
+				List.of(new WindData("a", 1, 0, now - 10), new WindData("b", 1, 0, now - 20)));
+
+		assertEquals(2, metrics.timer(WindLatencyMetrics.Stage.PERSISTED).count());
+	}
+}
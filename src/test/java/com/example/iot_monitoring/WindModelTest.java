@@ -0,0 +1,41 @@
+package com.example.iot_monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WindModelTest {
+
+	@Test
+	void sameSeedProducesSameSequence() {
+		WindModel first = new WindModel(7L, 25.0);
+		WindModel second = new WindModel(7L, 25.0);
+		for (int i = 0; i < 1000; i++) {
+			first.advance(0.1);
+			second.advance(0.1);
+			assertEquals(first.getSpeed(), second.getSpeed());
+			assertEquals(first.getDirection(), second.getDirection());
+		}
+	}
+
+	@Test
+	void readingsAreCorrelatedAndInRange() {
+		WindModel model = new WindModel(11L, 25.0);
+		double previous = -1;
+		double largestStep = 0;
+		double sum = 0;
+		int steps = 36_000;
+		for (int i = 0; i < steps; i++) {
+			model.advance(0.1);
+			assertTrue(model.getSpeed() >= 0);
+			assertTrue(model.getDirection() >= 0 && model.getDirection() < 360);
+			if (previous >= 0) {
+				largestStep = Math.max(largestStep, Math.abs(model.getSpeed() - previous));
+			}
+			previous = model.getSpeed();
+			sum += model.getSpeed();
+		}
+		assertTrue(largestStep < 25.0, "consecutive readings should not jump across the whole range");
+		assertEquals(25.0, sum / steps, 10.0);
+	}
+}
@@ -0,0 +1,73 @@
+package com.example.iot_monitoring;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the allocation-free {@link WindPayloadDecoder} with the String based
+ * decoding previously done in {@link MqttService#messageArrived}.
+ *
+ * Run with {@code mvn -Pbenchmark test -Djmh.include=WindPayloadDecoderBenchmark}
+ * and add {@code -prof gc} to the JMH arguments to compare allocation rates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WindPayloadDecoderBenchmark {
+
+	private byte[] scalarPayload;
+	private byte[] jsonPayload;
+	private byte[] binaryPayload;
+	private final WindReading reading = new WindReading();
+
+	@Setup
+	public void setup() {
+		scalarPayload = "27.53".getBytes(StandardCharsets.US_ASCII);
+		jsonPayload = "{\"speed\":27.53,\"direction\":184.20,\"timestamp\":1718000000000}"
+				.getBytes(StandardCharsets.US_ASCII);
+		binaryPayload = new byte[WindPayloadDecoder.BINARY_LENGTH];
+		WindPayloadDecoder.encodeBinary(27.53, 184.20, 1718000000000L, binaryPayload, 0);
+	}
+
+	@Benchmark
+	public double scalarLegacyString() {
+		return Double.parseDouble(new String(scalarPayload));
+	}
+
+	@Benchmark
+	public double scalarDecoder() {
+		return WindPayloadDecoder.decodeScalar(scalarPayload);
+	}
+
+	@Benchmark
+	public void jsonGson(Blackhole bh) {
+		JsonObject json = JsonParser.parseString(new String(jsonPayload)).getAsJsonObject();
+		bh.consume(json.get("speed").getAsDouble());
+		bh.consume(json.get("direction").getAsDouble());
+		bh.consume(json.get("timestamp").getAsLong());
+	}
+
+	@Benchmark
+	public void jsonDecoder(Blackhole bh) {
+		bh.consume(WindPayloadDecoder.decode(jsonPayload, reading));
+		bh.consume(reading.getSpeed());
+		bh.consume(reading.getDirection());
+		bh.consume(reading.getTimestamp());
+	}
+
+	@Benchmark
+	public void binaryDecoder(Blackhole bh) {
+		bh.consume(WindPayloadDecoder.decode(binaryPayload, reading));
+		bh.consume(reading.getSpeed());
+		bh.consume(reading.getDirection());
+		bh.consume(reading.getTimestamp());
+	}
+}
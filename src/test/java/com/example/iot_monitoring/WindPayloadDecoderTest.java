@@ -0,0 +1,119 @@
+package com.example.iot_monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WindPayloadDecoderTest {
+
+	private static byte[] ascii(String value) {
+		return value.getBytes(StandardCharsets.US_ASCII);
+	}
+
+	@Test
+	void decodesSimulatorJsonRecord() {
+		WindReading reading = new WindReading();
+
+		assertTrue(WindPayloadDecoder.decode(
+				ascii("{\"speed\":27.53,\"direction\":184.20,\"timestamp\":1718000000000}"), reading));
+		assertEquals(27.53, reading.getSpeed());
+		assertEquals(184.20, reading.getDirection());
+		assertEquals(1718000000000L, reading.getTimestamp());
+	}
+
+	@Test
+	void roundTripsSequenceNumber() {
+		byte[] payload = WindPayloadDecoder.encodeJson(12.5, 90.0, 1718000000000L, 1718000000042L);
+		assertEquals("{\"speed\":12.50,\"direction\":90.00,\"timestamp\":1718000000000,\"seq\":1718000000042}",
+				new String(payload, StandardCharsets.US_ASCII));
+
+		WindReading reading = new WindReading();
+		assertTrue(WindPayloadDecoder.decode(payload, reading));
+		assertTrue(reading.has(WindReading.HAS_SEQUENCE));
+		assertEquals(1718000000042L, reading.getSequence());
+
+		assertTrue(WindPayloadDecoder.decode(WindPayloadDecoder.encodeJson(12.5, 90.0, 1L), reading));
+		assertFalse(reading.has(WindReading.HAS_SEQUENCE));
+	}
+
+	@Test
+	void parsesSequenceNumbersAsLongs() {
+		byte[] max = " 9223372036854775807 ".getBytes(StandardCharsets.US_ASCII);
+		assertEquals(Long.MAX_VALUE, WindPayloadDecoder.parseLong(max, 0, max.length));
+		byte[] overflow = "9223372036854775808".getBytes(StandardCharsets.US_ASCII);
+		assertEquals(WindPayloadDecoder.INVALID_LONG, WindPayloadDecoder.parseLong(overflow, 0, overflow.length));
+		byte[] fraction = "42.5".getBytes(StandardCharsets.US_ASCII);
+		assertEquals(WindPayloadDecoder.INVALID_LONG, WindPayloadDecoder.parseLong(fraction, 0, fraction.length));
+
+		WindReading reading = new WindReading();
+		assertTrue(WindPayloadDecoder.decode(
+				WindPayloadDecoder.encodeJson(1.0, 2.0, 1718000000000L, (1L << 53) + 1), reading));
+		assertEquals((1L << 53) + 1, reading.getSequence());
+	}
+
+	@Test
+	void skipsUnknownFieldsAndWhitespace() {
+		WindReading reading = new WindReading();
+
+		assertTrue(WindPayloadDecoder.decode(
+				ascii(" { \"id\" : \"s-1\", \"meta\": {\"a\":[1,2]}, \"speed\" : 1.5e1 , \"direction\":-0.25 } "), reading));
+		assertEquals(15.0, reading.getSpeed());
+		assertEquals(-0.25, reading.getDirection());
+		assertFalse(reading.has(WindReading.HAS_TIMESTAMP));
+	}
+
+	@Test
+	void rejectsMalformedJson() {
+		WindReading reading = new WindReading();
+
+		assertFalse(WindPayloadDecoder.decode(ascii("{\"speed\":abc}"), reading));
+		assertFalse(WindPayloadDecoder.decode(ascii("{\"speed\":1.0"), reading));
+		assertFalse(WindPayloadDecoder.decode(ascii("{}"), reading));
+		assertFalse(WindPayloadDecoder.decode(new byte[0], reading));
+	}
+
+	@Test
+	void roundTripsBinaryRecord() {
+		byte[] buffer = new byte[WindPayloadDecoder.BINARY_LENGTH];
+		WindPayloadDecoder.encodeBinary(27.53, 359.99, 1718000000000L, buffer, 0);
+		WindReading reading = new WindReading();
+
+		assertTrue(WindPayloadDecoder.decode(buffer, reading));
+		assertEquals(27.53, reading.getSpeed(), 1e-9);
+		assertEquals(359.99, reading.getDirection(), 1e-9);
+		assertEquals(1718000000000L, reading.getTimestamp());
+	}
+
+	@Test
+	void encodesJsonIndependentlyOfDefaultLocale() {
+		java.util.Locale previous = java.util.Locale.getDefault();
+		java.util.Locale.setDefault(java.util.Locale.forLanguageTag("pt-BR"));
+		try {
+			assertEquals("{\"speed\":27.53,\"direction\":184.20,\"timestamp\":1718000000000}",
+					new String(WindPayloadDecoder.encodeJson(27.534, 184.2, 1718000000000L), StandardCharsets.US_ASCII));
+			assertEquals("{\"speed\":-0.05,\"direction\":0.00,\"timestamp\":-1}",
+					new String(WindPayloadDecoder.encodeJson(-0.05, 0.0, -1), StandardCharsets.US_ASCII));
+		} finally {
+			java.util.Locale.setDefault(previous);
+		}
+
+		for (double speed : new double[]{0, 0.01, 9.99, 10, 123456.78, -987.65}) {
+			WindReading reading = new WindReading();
+			assertTrue(WindPayloadDecoder.decode(WindPayloadDecoder.encodeJson(speed, 90.5, 1718000000000L), reading));
+			assertEquals(speed, reading.getSpeed(), 1e-9);
+			assertEquals(1718000000000L, reading.getTimestamp());
+		}
+	}
+
+	@Test
+	void scalarParsingMatchesDoubleParseDouble() {
+		String[] samples = {"0", "12.5", "-3.25", "  42 ", "0.000123", "1e-5", "123456789.123456789", "7."};
+		for (String sample : samples) {
+			assertEquals(Double.parseDouble(sample), WindPayloadDecoder.decodeScalar(ascii(sample)), sample);
+		}
+		assertTrue(Double.isNaN(WindPayloadDecoder.decodeScalar(ascii("12,5"))));
+		assertTrue(Double.isNaN(WindPayloadDecoder.decodeScalar(ascii("-"))));
+	}
+}
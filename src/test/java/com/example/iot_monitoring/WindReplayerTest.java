@@ -0,0 +1,117 @@
+package com.example.iot_monitoring;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WindReplayerTest {
+
+	@TempDir
+	Path directory;
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final WindIngestService ingestService = mock(WindIngestService.class);
+	private final SensorStateStore stateStore = new SensorStateStore(16, "default");
+	private IngestPipeline pipeline;
+
+	@AfterEach
+	void tearDown() {
+		if (pipeline != null) {
+			pipeline.stop();
+		}
+	}
+
+	private List<String> startPipeline() {
+		List<String> ingested = new CopyOnWriteArrayList<>();
+		when(ingestService.ingest(any(), any())).thenAnswer(call -> {
+			SensorState state = call.getArgument(0);
+			WindReading reading = call.getArgument(1);
+			ingested.add(state.getSensorId() + "=" + reading.getSpeed());
+			return reading.toWindData(state.getSensorId(), 1L);
+		});
+		OverloadController overload = new OverloadController(registry, true, 50, 200, 0.5, 0.8, 2000,
+				"elevated", "critical");
+		pipeline = new IngestPipeline(ingestService, new WindLatencyMetrics(registry, new double[0]), overload,
+				registry, 2, 64, 1000, 1024, 64, 1000, 1_800_000L);
+		pipeline.start();
+		return ingested;
+	}
+
+	private static ReplayReport replay(WindReplayer replayer, Path file) throws InterruptedException {
+		replayer.start(file.getFileName().toString(), 0);
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (replayer.report().isRunning() && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		return replayer.report();
+	}
+
+	@Test
+	void capturesArrivingMessagesAndReplaysThemThroughThePipeline() throws Exception {
+		List<String> ingested = startPipeline();
+
+		IngestCapture capture = new IngestCapture(registry, directory.toString(), 16, false);
+		Path file = capture.start();
+		long t0 = System.currentTimeMillis();
+		for (int i = 0; i < 100; i++) {
+			capture.record("wind/s" + (i % 4) + "/data",
+					WindPayloadDecoder.encodeJson(i, 90.0, t0 + i, 1000 + i / 4), t0 + i);
+		}
+		capture.record("other/topic", new byte[]{1}, t0 + 100);
+		assertEquals(file, capture.stop());
+		assertEquals(List.of(file.getFileName().toString()), capture.list());
+
+		WindReplayer replayer = new WindReplayer(pipeline, stateStore, capture);
+		assertThrows(IllegalArgumentException.class, () -> replayer.start("../outside.wcap", 0));
+		ReplayReport report = replay(replayer, file);
+		assertFalse(report.isRunning());
+		assertEquals(101, report.getRead());
+		assertEquals(100, report.getSubmitted());
+		assertEquals(1, report.getSkipped());
+		assertEquals(0, report.getRejected());
+		assertEquals(100, report.getIngested());
+		assertEquals(0, report.getDuplicates());
+		assertEquals(0.1, report.getCapturedSeconds(), 1e-9);
+		assertEquals(100, ingested.size());
+		assertTrue(ingested.contains("s3=99.0"));
+		assertEquals(100, report.getStages().get(3).getCount());
+		assertEquals("total", report.getStages().get(3).getName());
+	}
+
+	@Test
+	void replayingTheSameCaptureTwiceIngestsItTwice() throws Exception {
+		List<String> ingested = startPipeline();
+		IngestCapture capture = new IngestCapture(registry, directory.toString(), 16, false);
+		Path file = capture.start();
+		long t0 = System.currentTimeMillis();
+		for (int i = 0; i < 40; i++) {
+			capture.record("wind/s" + (i % 4) + "/data",
+					WindPayloadDecoder.encodeJson(i, 90.0, t0 + i, 1000 + i / 4), t0 + i);
+		}
+		// A QoS 1 redelivery caught in the capture
+		capture.record("wind/s0/data", WindPayloadDecoder.encodeJson(36, 90.0, t0 + 36, 1009), t0 + 40);
+		capture.stop();
+
+		WindReplayer replayer = new WindReplayer(pipeline, stateStore, capture);
+		for (int run = 1; run <= 2; run++) {
+			ReplayReport report = replay(replayer, file);
+			assertFalse(report.isRunning());
+			assertEquals(41, report.getSubmitted());
+			assertEquals(40, report.getIngested(), "run " + run);
+			assertEquals(1, report.getDuplicates(), "run " + run);
+			assertEquals(0, report.getLate(), "run " + run);
+			assertEquals(40 * run, ingested.size());
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package com.example.iot_monitoring;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class WindSensorControllerTest {
+
+	private final WindHistoryStore historyStore = mock(WindHistoryStore.class);
+	private final WindDataRepository repository = mock(WindDataRepository.class);
+	private final MockMvc mvc = MockMvcBuilders.standaloneSetup(new WindSensorController(
+			mock(WindSensorSimulator.class), mock(SensorStateStore.class), historyStore, repository,
+			mock(WindLoadGenerator.class), new ObjectMapper(), mock(WindSnapshotPublisher.class),
+			mock(FleetAggregationService.class), mock(IngestCapture.class), mock(WindReplayer.class),
+			mock(ClusterCoordinator.class))).build();
+
+	@Test
+	void queryFailsWithServiceUnavailableInsteadOfTruncatedJson() throws Exception {
+		when(historyStore.getRetentionMillis()).thenReturn(60_000L);
+		when(repository.findRange(eq("s1"), anyLong(), anyLong())).thenReturn(CompletableFuture.completedFuture(
+				List.of(new WindData("s1", 10, 90, 1000L), new WindData("s1", 12, 95, 2000L))));
+		when(repository.findRange(eq("s2"), anyLong(), anyLong()))
+				.thenReturn(CompletableFuture.failedFuture(new IOException("database offline")));
+
+		MvcResult failing = mvc.perform(get("/api/wind/query?sensors=s1,s2&from=0&to=5000"))
+				.andExpect(request().asyncStarted()).andReturn();
+		mvc.perform(asyncDispatch(failing))
+				.andExpect(status().isServiceUnavailable())
+				.andExpect(content().string("History unavailable: database offline"));
+
+		MvcResult ok = mvc.perform(get("/api/wind/query?sensors=s1&from=0&to=5000"))
+				.andExpect(request().asyncStarted()).andReturn();
+		// The body itself is streamed asynchronously once the series are ready
+		MvcResult streamed = mvc.perform(asyncDispatch(ok)).andExpect(status().isOk()).andReturn();
+		streamed.getAsyncResult(5000);
+		JsonNode json = new ObjectMapper().readTree(streamed.getResponse().getContentAsString());
+		assertEquals("s1", json.at("/series/0/sensorId").asText());
+		assertEquals(2, json.at("/series/0/speeds").size());
+	}
+}
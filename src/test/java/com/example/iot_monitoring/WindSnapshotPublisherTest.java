@@ -0,0 +1,92 @@
+package com.example.iot_monitoring;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.ByteArrayInputStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WindSnapshotPublisherTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final SensorStateStore store = new SensorStateStore(16, "default");
+	private final WindSnapshotPublisher publisher = new WindSnapshotPublisher(store, objectMapper, registry);
+
+	private void update(String sensorId, double speed, long timestamp) {
+		WindReading reading = new WindReading();
+		reading.setSpeed(speed);
+		reading.setDirection(180.0);
+		store.getOrCreate(sensorId).update(reading, timestamp);
+	}
+
+	@Test
+	void rebuildsOnlyWhenSensorsChange() throws Exception {
+		publisher.init();
+		WindSnapshot empty = publisher.current();
+		assertTrue(empty.getSensors().isEmpty());
+
+		update("s2", 10.0, 1000L);
+		update("s1", 20.0, 1000L);
+		publisher.refresh();
+		WindSnapshot first = publisher.current();
+		assertNotSame(empty, first);
+		assertNotEquals(empty.getEtag(), first.getEtag());
+		assertEquals("s1", first.getSensors().get(0).getSensorId());
+		assertEquals("s2", first.getSensors().get(1).getSensorId());
+
+		publisher.refresh();
+		assertSame(first, publisher.current());
+		assertEquals(2.0, registry.get("wind.snapshot.builds").counter().count());
+
+		update("s1", 25.0, 2000L);
+		publisher.refresh();
+		WindSnapshot second = publisher.current();
+		assertNotSame(first, second);
+		assertEquals(25.0, second.getSensors().get(0).getSpeed());
+		// Readers holding the old snapshot keep a consistent view
+		assertEquals(20.0, first.getSensors().get(0).getSpeed());
+	}
+
+	@Test
+	void bodiesArePreSerialized() throws Exception {
+		update("s1", 12.5, 1000L);
+		publisher.refresh();
+		WindSnapshot snapshot = publisher.current();
+
+		JsonNode json = objectMapper.readTree(snapshot.getJson());
+		assertEquals(snapshot.getVersion(), json.get("version").asLong());
+		assertEquals(12.5, json.get("sensors").get(0).get("speed").asDouble());
+		assertNull(json.get("etag"));
+
+		try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(snapshot.getGzip()))) {
+			assertArrayEquals(snapshot.getJson(), gzip.readAllBytes());
+		}
+
+		Message<?> message = new WindSnapshotMessageConverter().toMessage(snapshot, null);
+		assertNotNull(message);
+		assertSame(snapshot.getJson(), message.getPayload());
+		assertEquals(MimeTypeUtils.APPLICATION_JSON, message.getHeaders().get(MessageHeaders.CONTENT_TYPE));
+	}
+
+	@Test
+	void matchesIfNoneMatchHeaders() {
+		publisher.refresh();
+		WindSnapshot snapshot = publisher.current();
+		String etag = snapshot.getEtag();
+
+		assertTrue(snapshot.matches(etag));
+		assertTrue(snapshot.matches("W/" + etag));
+		assertTrue(snapshot.matches("\"other\", " + etag));
+		assertTrue(snapshot.matches("*"));
+		assertFalse(snapshot.matches("\"other\""));
+		assertFalse(snapshot.matches(null));
+	}
+}
@@ -0,0 +1,104 @@
+package com.example.iot_monitoring;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON versus binary ({@link WindFrameCodec}) WebSocket updates for one flush of
+ * {@value #SENSORS} changed sensors: payload serialization plus the STOMP frame
+ * written per subscriber. Scores are per update; the bytes per update of each
+ * mode are printed at the end of the trial.
+ *
+ * Run with {@code mvn -Pbenchmark test -Djmh.include=WindUpdateEncodingBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms512m", "-Xmx512m"})
+@OperationsPerInvocation(WindUpdateEncodingBenchmark.SENSORS)
+public class WindUpdateEncodingBenchmark {
+	static final int SENSORS = 1000;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final StompEncoder encoder = new StompEncoder();
+	private final WindData[] updates = new WindData[SENSORS];
+	private final int[] keys = new int[SENSORS];
+	private final long[] timestamps = new long[SENSORS];
+	private final double[] speeds = new double[SENSORS];
+	private final double[] directions = new double[SENSORS];
+	private long jsonBytes;
+	private long binaryBytes;
+	private long jsonUpdates;
+	private long binaryUpdates;
+
+	@Setup
+	public void setup() {
+		SplittableRandom random = new SplittableRandom(42);
+		long frameStart = 1_718_000_000_000L;
+		for (int i = 0; i < SENSORS; i++) {
+			// Readings collected within one 200 ms frame interval
+			updates[i] = new WindData(String.format("sensor-%04d", i),
+					Math.round(random.nextDouble(0, 60) * 100) / 100.0,
+					Math.round(random.nextDouble(0, 360) * 100) / 100.0,
+					frameStart + random.nextLong(200));
+		}
+	}
+
+	private static Message<byte[]> stompMessage(byte[] payload, String destination, String contentType) {
+		StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+		accessor.setDestination(destination);
+		accessor.setSubscriptionId("sub-0");
+		accessor.setMessageId("0");
+		accessor.setContentType(MimeTypeUtils.parseMimeType(contentType));
+		return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+	}
+
+	@Benchmark
+	public void json(Blackhole blackhole) throws Exception {
+		for (WindData data : updates) {
+			byte[] payload = objectMapper.writeValueAsBytes(data);
+			byte[] frame = encoder.encode(stompMessage(payload, "/topic/wind_updates", "application/json"));
+			jsonBytes += frame.length;
+			blackhole.consume(frame);
+		}
+		jsonUpdates += SENSORS;
+	}
+
+	@Benchmark
+	public void binary(Blackhole blackhole) {
+		for (int i = 0; i < SENSORS; i++) {
+			WindData data = updates[i];
+			keys[i] = i;
+			timestamps[i] = data.getTimestamp();
+			speeds[i] = data.getSpeed();
+			directions[i] = data.getDirection();
+		}
+		byte[] payload = WindFrameCodec.encodeUpdates(keys, timestamps, speeds, directions, SENSORS);
+		byte[] frame = encoder.encode(stompMessage(payload, "/topic/wind_updates.bin", "application/octet-stream"));
+		binaryBytes += frame.length;
+		binaryUpdates += SENSORS;
+		blackhole.consume(frame);
+	}
+
+	@TearDown(Level.Trial)
+	public void report() {
+		if (jsonUpdates > 0) {
+			System.out.printf("%njson: %.1f bytes/update%n", (double) jsonBytes / jsonUpdates);
+		}
+		if (binaryUpdates > 0) {
+			System.out.printf("%nbinary: %.1f bytes/update%n", (double) binaryBytes / binaryUpdates);
+		}
+	}
+}
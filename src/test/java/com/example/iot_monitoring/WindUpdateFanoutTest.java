@@ -0,0 +1,114 @@
+package com.example.iot_monitoring;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WindUpdateFanoutTest {
+
+	private static final String JSON = "/topic/wind_updates";
+	private static final String BINARY = "/topic/wind_updates.bin";
+	private static final Object SOURCE = new Object();
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final WindLatencyMetrics latencyMetrics = new WindLatencyMetrics(registry, new double[0]);
+	private final List<Message<?>> sent = new ArrayList<>();
+	private final WindUpdateFanout fanout = new WindUpdateFanout(
+			new SimpMessagingTemplate((message, timeout) -> sent.add(message)), new ObjectMapper(),
+			new ClientFrameConflator(registry, latencyMetrics, JSON, 0), registry, latencyMetrics,
+			JSON, BINARY, 2, "simple");
+
+	private static SessionSubscribeEvent subscribe(String sessionId, String destination) {
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+		accessor.setSessionId(sessionId);
+		accessor.setSubscriptionId("sub-0");
+		accessor.setDestination(destination);
+		return new SessionSubscribeEvent(SOURCE, MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+	}
+
+	private List<byte[]> sentTo(String destination) {
+		List<byte[]> payloads = new ArrayList<>();
+		for (Message<?> message : sent) {
+			if (destination.equals(SimpMessageHeaderAccessor.getDestination(message.getHeaders()))) {
+				payloads.add((byte[]) message.getPayload());
+			}
+		}
+		return payloads;
+	}
+
+	@Test
+	void jsonOnlyWithoutBinarySubscribers() {
+		fanout.publish(new WindData("a", 10, 90, 1000));
+		fanout.flush();
+
+		assertEquals(1, sentTo(JSON).size());
+		assertTrue(sentTo(BINARY).isEmpty());
+	}
+
+	@Test
+	void binarySubscribersGetDictionaryThenBatchedUpdates() {
+		fanout.onSubscribe(subscribe("s1", BINARY));
+		fanout.publish(new WindData("a", 10, 90, 1000));
+		fanout.publish(new WindData("b", 20, 180, 1001));
+		fanout.publish(new WindData("c", 30, 270, 1002));
+		fanout.flush();
+
+		assertEquals(3, sentTo(JSON).size());
+		List<byte[]> frames = sentTo(BINARY);
+		// dictionary + 3 updates split at binary-max-entries = 2
+		assertEquals(3, frames.size());
+		assertEquals(WindFrameCodec.TYPE_DICTIONARY, frames.get(0)[2]);
+		int[] keys = new int[2];
+		long[] timestamps = new long[2];
+		double[] speeds = new double[2];
+		double[] directions = new double[2];
+		int decoded = WindFrameCodec.decodeUpdates(frames.get(1), keys, timestamps, speeds, directions)
+				+ WindFrameCodec.decodeUpdates(frames.get(2), keys, timestamps, speeds, directions);
+		assertEquals(3, decoded);
+
+		// Known sensors are not announced again
+		sent.clear();
+		fanout.publish(new WindData("a", 11, 91, 2000));
+		fanout.flush();
+		assertEquals(1, sentTo(BINARY).size());
+		assertEquals(WindFrameCodec.TYPE_UPDATES, sentTo(BINARY).get(0)[2]);
+	}
+
+	@Test
+	void lateSubscriberTriggersFullDictionaryAndDisconnectStopsBinaryFrames() {
+		fanout.onSubscribe(subscribe("s1", BINARY));
+		fanout.publish(new WindData("a", 10, 90, 1000));
+		fanout.flush();
+
+		sent.clear();
+		fanout.onSubscribe(subscribe("s2", BINARY));
+		fanout.onSubscribe(subscribe("s3", JSON));
+		assertEquals(2, fanout.getBinarySubscriptionCount());
+		fanout.flush();
+		assertEquals(1, sentTo(BINARY).size());
+		assertEquals(WindFrameCodec.TYPE_DICTIONARY, sentTo(BINARY).get(0)[2]);
+
+		sent.clear();
+		fanout.onDisconnect(new SessionDisconnectEvent(SOURCE, MessageBuilder.withPayload(new byte[0]).build(),
+				"s1", CloseStatus.NORMAL));
+		fanout.onDisconnect(new SessionDisconnectEvent(SOURCE, MessageBuilder.withPayload(new byte[0]).build(),
+				"s2", CloseStatus.NORMAL));
+		fanout.publish(new WindData("a", 12, 92, 3000));
+		fanout.flush();
+		assertEquals(0, fanout.getBinarySubscriptionCount());
+		assertTrue(sentTo(BINARY).isEmpty());
+	}
+}